@@ -0,0 +1,27 @@
+package com.smartdesk.core.autosave;
+
+/**
+ * Snapshot of the state of an {@link AutosaveQueue}.
+ *
+ * @param queueDepth             entities with unsaved changes
+ * @param edits                  saves requested since start
+ * @param coalesced              saves that replaced a pending change of the same entity
+ * @param flushes                transactions committed or attempted
+ * @param written                entity writes committed
+ * @param failed                 entity writes lost to failed transactions
+ * @param lastFlushMillis        duration of the most recent flush transaction
+ * @param maxFlushMillis         longest flush transaction observed
+ * @param maxPendingMillis       longest time a change waited between its first save request and its commit
+ */
+public record AutosaveMetrics(
+    int queueDepth,
+    long edits,
+    long coalesced,
+    long flushes,
+    long written,
+    long failed,
+    long lastFlushMillis,
+    long maxFlushMillis,
+    long maxPendingMillis
+) {
+}
@@ -0,0 +1,320 @@
+package com.smartdesk.core.autosave;
+
+import com.smartdesk.core.note.NoteService;
+import com.smartdesk.core.task.TaskService;
+import com.smartdesk.core.task.model.Task;
+import com.smartdesk.storage.DatabaseManager;
+import com.smartdesk.storage.WritePublication;
+import com.smartdesk.storage.entity.NoteEntity;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write-behind queue for note and task edits.
+ * <p>
+ * Saves are recorded in memory and return immediately. Repeated saves of
+ * the same entity replace each other, so only the latest state is written.
+ * A background thread flushes everything pending one
+ * {@linkplain #DEFAULT_WINDOW window} after the first unsaved change, or
+ * right away once {@link #MAX_PENDING} entities are waiting, in a single
+ * transaction through {@link NoteService#updateNotes} and
+ * {@link TaskService#updateTasks}. Services, caches and listeners see a
+ * change only after that transaction committed. {@link #close()} flushes
+ * what is left and must run before the database is closed.
+ * </p>
+ */
+public final class AutosaveQueue implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(AutosaveQueue.class.getName());
+
+    /** Default delay between the first unsaved change and its flush. */
+    public static final Duration DEFAULT_WINDOW = Duration.ofMillis(750);
+
+    /** Pending entities that trigger an immediate flush. */
+    static final int MAX_PENDING = 256;
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final DatabaseManager databaseManager;
+    private final NoteService noteService;
+    private final TaskService taskService;
+    private final long windowNanos;
+    private final ScheduledExecutorService executor;
+
+    private final Object lock = new Object();
+    private Map<Key, Pending> pending = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    private long edits;
+    private long coalesced;
+    private long flushes;
+    private long written;
+    private long failed;
+    private long lastFlushMillis;
+    private long maxFlushMillis;
+    private long maxPendingMillis;
+
+    public AutosaveQueue(final DatabaseManager databaseManager, final NoteService noteService,
+                         final TaskService taskService) {
+        this(databaseManager, noteService, taskService, DEFAULT_WINDOW);
+    }
+
+    public AutosaveQueue(final DatabaseManager databaseManager, final NoteService noteService,
+                         final TaskService taskService, final Duration window) {
+        this.databaseManager = Objects.requireNonNull(databaseManager, "databaseManager");
+        this.noteService = Objects.requireNonNull(noteService, "noteService");
+        this.taskService = Objects.requireNonNull(taskService, "taskService");
+        Objects.requireNonNull(window, "window");
+        if (window.isNegative()) {
+            throw new IllegalArgumentException("window must not be negative");
+        }
+        this.windowNanos = window.toNanos();
+        this.executor = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+    }
+
+    /**
+     * Queues the current state of a persisted note. The entity is copied,
+     * so the caller may keep modifying it.
+     *
+     * @return completes once the change, or a later one replacing it, has committed
+     * @throws IllegalArgumentException if the note has no id or no title
+     * @throws IllegalStateException if the queue was closed
+     */
+    public CompletableFuture<Void> saveNote(final NoteEntity note) {
+        Objects.requireNonNull(note, "note");
+        if (note.getId() == null) {
+            throw new IllegalArgumentException("Cannot autosave a note without an identifier");
+        }
+        if (note.getTitle() == null || note.getTitle().isBlank()) {
+            throw new IllegalArgumentException("A note must contain a non-empty title");
+        }
+        final NoteEntity copy = new NoteEntity();
+        copy.setId(note.getId());
+        copy.setTitle(note.getTitle());
+        copy.setContent(note.getContent());
+        copy.setTag(note.getTag());
+        if (note.getDate() != null) {
+            copy.setDate(note.getDate());
+        }
+        return enqueue(new Key(Kind.NOTE, note.getId()), copy);
+    }
+
+    /**
+     * Queues the current state of a persisted task.
+     *
+     * @return completes once the change, or a later one replacing it, has committed
+     * @throws IllegalArgumentException if the task has no id
+     * @throws IllegalStateException if the queue was closed
+     */
+    public CompletableFuture<Void> saveTask(final Task task) {
+        Objects.requireNonNull(task, "task");
+        if (task.getId() == null) {
+            throw new IllegalArgumentException("Task id must be present for updates");
+        }
+        return enqueue(new Key(Kind.TASK, task.getId()), task);
+    }
+
+    /**
+     * Writes everything pending now instead of waiting for the window.
+     *
+     * @return completes when the flush has finished; failures are reported
+     *         through the futures returned by the save methods
+     */
+    public CompletableFuture<Void> flush() {
+        synchronized (lock) {
+            if (closed) {
+                return CompletableFuture.completedFuture(null);
+            }
+            cancelScheduledFlush();
+        }
+        return CompletableFuture.runAsync(this::flushPending, executor);
+    }
+
+    /**
+     * Returns queue depth, coalescing and flush latency statistics.
+     */
+    public AutosaveMetrics metrics() {
+        synchronized (lock) {
+            return new AutosaveMetrics(pending.size(), edits, coalesced, flushes, written, failed,
+                lastFlushMillis, maxFlushMillis, maxPendingMillis);
+        }
+    }
+
+    /**
+     * Rejects further saves, writes what is still pending and stops the
+     * background thread. Waits up to ten seconds for the final flush.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            cancelScheduledFlush();
+        }
+        try {
+            executor.submit(this::flushPending).get(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.WARNING, "Interrupted while flushing pending edits", ex);
+        } catch (ExecutionException | TimeoutException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to flush pending edits on close", ex);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(final Key key, final Object value) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Autosave queue is closed");
+            }
+            edits++;
+            Pending entry = pending.get(key);
+            if (entry != null) {
+                entry.value = value;
+                coalesced++;
+            } else {
+                entry = new Pending(value, System.nanoTime());
+                pending.put(key, entry);
+            }
+            if (pending.size() >= MAX_PENDING) {
+                cancelScheduledFlush();
+                scheduledFlush = executor.schedule(this::flushPending, 0, TimeUnit.NANOSECONDS);
+            } else if (scheduledFlush == null) {
+                scheduledFlush = executor.schedule(this::flushPending, windowNanos, TimeUnit.NANOSECONDS);
+            }
+            return entry.done.copy();
+        }
+    }
+
+    private void cancelScheduledFlush() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+    }
+
+    /**
+     * Takes everything pending and writes it in one transaction. Runs on the
+     * queue thread only.
+     */
+    private void flushPending() {
+        final Map<Key, Pending> batch;
+        synchronized (lock) {
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            scheduledFlush = null;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        final List<NoteEntity> notes = new ArrayList<>();
+        final List<Task> tasks = new ArrayList<>();
+        for (Map.Entry<Key, Pending> entry : batch.entrySet()) {
+            if (entry.getKey().kind() == Kind.NOTE) {
+                notes.add((NoteEntity) entry.getValue().value);
+            } else {
+                tasks.add((Task) entry.getValue().value);
+            }
+        }
+
+        final long started = System.nanoTime();
+        final WritePublication publishNotes;
+        final WritePublication publishTasks;
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                publishNotes = noteService.updateNotes(connection, notes);
+                publishTasks = taskService.updateTasks(connection, tasks);
+                connection.commit();
+            } catch (SQLException | RuntimeException inner) {
+                connection.rollback();
+                throw inner;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            // Still holding the writer, so memory sees concurrent writes in commit order.
+            publishNotes.applyState();
+            publishTasks.applyState();
+            recordFlush(batch, started, System.nanoTime(), true);
+        } catch (SQLException | RuntimeException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to save " + batch.size() + " pending edits", ex);
+            recordFlush(batch, started, System.nanoTime(), false);
+            final IllegalStateException failure = new IllegalStateException("Failed to save pending edits", ex);
+            batch.values().forEach(entry -> entry.done.completeExceptionally(failure));
+            return;
+        }
+        publishNotes.notifyListeners();
+        publishTasks.notifyListeners();
+        batch.values().forEach(entry -> entry.done.complete(null));
+    }
+
+    private void recordFlush(final Map<Key, Pending> batch, final long started, final long finished,
+                             final boolean committed) {
+        synchronized (lock) {
+            flushes++;
+            if (committed) {
+                written += batch.size();
+            } else {
+                failed += batch.size();
+            }
+            lastFlushMillis = TimeUnit.NANOSECONDS.toMillis(finished - started);
+            maxFlushMillis = Math.max(maxFlushMillis, lastFlushMillis);
+            for (Pending entry : batch.values()) {
+                maxPendingMillis = Math.max(maxPendingMillis, TimeUnit.NANOSECONDS.toMillis(finished - entry.firstSaveNanos));
+            }
+        }
+    }
+
+    private enum Kind {
+        NOTE,
+        TASK
+    }
+
+    private record Key(Kind kind, long id) {
+    }
+
+    /**
+     * Latest unsaved state of one entity. {@code value} is guarded by the
+     * queue lock until the entry is taken for a flush.
+     */
+    private static final class Pending {
+        private Object value;
+        private final long firstSaveNanos;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Pending(final Object value, final long firstSaveNanos) {
+            this.value = value;
+            this.firstSaveNanos = firstSaveNanos;
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "smartdesk-autosave");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -1,18 +1,52 @@
 package com.smartdesk.core.chat;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Stores uploaded attachments on disk so they can be streamed when required by providers.
+ * <p>
+ * Files are content addressed: every attachment is kept once under
+ * {@code objects/<first two hex digits>/<sha256>} no matter how many sessions
+ * refer to it. Content is hashed while it is copied, so neither storing nor
+ * restoring ever holds a whole file in memory. Once a message is persisted
+ * the database holds the durable copy of its attachments; the files here are
+ * working copies that {@link #collectGarbage(Duration)} removes and
+ * {@link #restore} recreates on demand.
+ * </p>
  */
 public final class AttachmentStorage {
 
+    private static final Logger LOGGER = Logger.getLogger(AttachmentStorage.class.getName());
     private static final AttachmentStorage INSTANCE = new AttachmentStorage();
+    private static final String OBJECTS_DIRECTORY = "objects";
+    private static final String TEMP_PREFIX = "incoming-";
+
+    /**
+     * Location and identity of content kept in the store.
+     *
+     * @param sha256 lower-case hex SHA-256 of the content
+     * @param path   file holding the content
+     * @param size   content length in bytes
+     */
+    public record StoredContent(String sha256, Path path, long size) {
+    }
 
     private final Path storageDirectory;
 
@@ -25,27 +59,116 @@ public final class AttachmentStorage {
     }
 
     /**
-     * Copies the provided file into the SmartDesk attachment directory and returns the new path.
+     * Copies the provided file into the content-addressed store. If identical
+     * content is already present the existing file is reused.
      */
-    public Path store(final Path source) throws IOException {
+    public StoredContent store(final Path source) throws IOException {
         Objects.requireNonNull(source, "source");
-        String fileName = source.getFileName() == null ? UUID.randomUUID() + "-attachment" : source.getFileName().toString();
-        Path target = storageDirectory.resolve(UUID.randomUUID() + "-" + fileName);
-        Files.createDirectories(storageDirectory);
-        return Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        try (InputStream in = Files.newInputStream(source)) {
+            return write(in, null);
+        }
     }
 
     /**
-     * Materialises a file from raw bytes (used when loading from the database).
+     * Restores content read from the database. The call is idempotent: when
+     * the object already exists with the expected size the stream is not
+     * consumed and no file is rewritten.
      */
-    public Path storeBytes(final String originalFileName, final byte[] data) throws IOException {
+    public StoredContent restore(final String sha256, final long expectedSize, final InputStream data)
+        throws IOException {
+        Objects.requireNonNull(sha256, "sha256");
         Objects.requireNonNull(data, "data");
-        String safeName = (originalFileName == null || originalFileName.isBlank())
-            ? UUID.randomUUID() + "-attachment"
-            : originalFileName;
-        Path target = storageDirectory.resolve(UUID.randomUUID() + "-" + safeName);
+        Path existing = objectPath(sha256);
+        if (Files.exists(existing) && Files.size(existing) == expectedSize) {
+            return new StoredContent(sha256, existing, expectedSize);
+        }
+        return write(data, sha256);
+    }
+
+    /**
+     * Returns the file used for content with the given hash. The file may not
+     * exist yet.
+     */
+    public Path objectPath(final String sha256) {
+        Objects.requireNonNull(sha256, "sha256");
+        String hash = sha256.toLowerCase(Locale.ROOT);
+        if (hash.length() < 3) {
+            throw new IllegalArgumentException("Invalid content hash: " + sha256);
+        }
+        return storageDirectory.resolve(OBJECTS_DIRECTORY).resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    /**
+     * Removes working copies that were not written recently.
+     *
+     * @param gracePeriod objects modified more recently are kept, protecting
+     *                    files attached to messages that are not persisted yet
+     * @return number of deleted files
+     */
+    public int collectGarbage(final Duration gracePeriod) {
+        Objects.requireNonNull(gracePeriod, "gracePeriod");
+        Path objects = storageDirectory.resolve(OBJECTS_DIRECTORY);
+        if (!Files.isDirectory(objects)) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        int removed = 0;
+        try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(objects)) {
+            for (Path prefix : prefixes) {
+                if (!Files.isDirectory(prefix)) {
+                    continue;
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(prefix)) {
+                    for (Path file : files) {
+                        FileTime modified = Files.getLastModifiedTime(file);
+                        if (modified.toInstant().isBefore(cutoff) && Files.deleteIfExists(file)) {
+                            removed++;
+                        }
+                    }
+                }
+            }
+        } catch (IOException ex) {
+            LOGGER.log(Level.WARNING, "Failed to sweep attachment store", ex);
+        }
+        return removed;
+    }
+
+    private StoredContent write(final InputStream source, final String expectedHash) throws IOException {
+        Path temp = createTempFile();
+        try {
+            MessageDigest digest = newDigest();
+            long size;
+            try (DigestInputStream in = new DigestInputStream(source, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                size = in.transferTo(out);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            if (expectedHash != null && !expectedHash.equalsIgnoreCase(hash)) {
+                throw new IOException("Attachment content does not match hash " + expectedHash);
+            }
+            Path target = objectPath(hash);
+            if (Files.exists(target) && Files.size(target) == size) {
+                return new StoredContent(hash, target, size);
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return new StoredContent(hash, target, size);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private Path createTempFile() throws IOException {
         Files.createDirectories(storageDirectory);
-        return Files.write(target, data);
+        return Files.createTempFile(storageDirectory, TEMP_PREFIX, ".tmp");
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
     }
 
     private Path resolveStorageDirectory() {
@@ -16,6 +16,21 @@ public interface ChatAssistant {
      */
     void sendMessage(ChatMessage userMessage, Consumer<ChatMessage> onSuccess, Consumer<Throwable> onFailure);
 
+    /**
+     * Sends the user message and reports the reply incrementally. Assistants
+     * that cannot stream simply ignore {@code onDelta} and deliver the reply
+     * through {@code onSuccess}.
+     *
+     * @param userMessage message object authored by the user and already persisted in history
+     * @param onDelta     consumer invoked on a background thread with each new fragment of the reply
+     * @param onSuccess   consumer invoked with the complete assistant reply
+     * @param onFailure   consumer invoked with the error raised while generating the reply
+     */
+    default void sendMessage(final ChatMessage userMessage, final Consumer<String> onDelta,
+                             final Consumer<ChatMessage> onSuccess, final Consumer<Throwable> onFailure) {
+        sendMessage(userMessage, onSuccess, onFailure);
+    }
+
     /**
      * Releases any resources held by the assistant instance.
      */
@@ -4,8 +4,10 @@ import com.smartdesk.core.chat.offline.OfflineChatAssistant;
 import com.smartdesk.core.chat.online.AiModelClient;
 import com.smartdesk.core.chat.online.OpenAiClient;
 import com.smartdesk.core.chat.online.DeepSeekClient;
+import com.smartdesk.core.chat.online.HttpTransport;
 import com.smartdesk.core.chat.online.OnlineChatAssistant;
 import com.smartdesk.core.config.AppConfig;
+import com.smartdesk.core.search.KnowledgeIndex;
 import com.smartdesk.core.chat.ChatHistoryService;
 
 import java.util.Objects;
@@ -21,18 +23,43 @@ public final class ChatAssistantFactory {
     public static ChatAssistant createAssistant(final ChatHistory history,
                                                 final ChatHistoryService historyService,
                                                 final AppConfig config) {
+        return createAssistant(history, historyService, config, null);
+    }
+
+    /**
+     * @param knowledgeIndex index of the user's notes and tasks consulted in offline mode, may be {@code null}
+     */
+    public static ChatAssistant createAssistant(final ChatHistory history,
+                                                final ChatHistoryService historyService,
+                                                final AppConfig config,
+                                                final KnowledgeIndex knowledgeIndex) {
         Objects.requireNonNull(history, "history");
+        AiModelClient client = createClient(historyService, config);
+        if (client == null) {
+            return new OfflineChatAssistant(history, knowledgeIndex);
+        }
+        return new OnlineChatAssistant(history, config, client, HttpTransport.shared().executor());
+    }
+
+    /**
+     * Creates the model client for the configured provider.
+     *
+     * @return the client, or {@code null} when the configuration selects offline mode
+     */
+    public static AiModelClient createClient(final ChatHistoryService historyService, final AppConfig config) {
         Objects.requireNonNull(historyService, "historyService");
         Objects.requireNonNull(config, "config");
         AppConfig.AiMode mode = config.getAiMode() == null ? AppConfig.AiMode.OFFLINE : config.getAiMode();
         if (mode == AppConfig.AiMode.OFFLINE) {
-            return new OfflineChatAssistant(history);
+            return null;
         }
         AppConfig.Provider provider = config.getProvider() == null ? AppConfig.Provider.CHATGPT : config.getProvider();
+        HttpTransport transport = HttpTransport.shared();
         AiModelClient client = switch (provider) {
-            case CHATGPT -> new OpenAiClient(historyService);
-            case DEEPSEEK -> new DeepSeekClient();
+            case CHATGPT -> new OpenAiClient(historyService, transport);
+            case DEEPSEEK -> new DeepSeekClient(transport);
         };
-        return new OnlineChatAssistant(history, config, client);
+        transport.warmUp(provider, config.getBaseUrl());
+        return client;
     }
 }
@@ -1,24 +1,39 @@
 package com.smartdesk.core.chat;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.text.DecimalFormat;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Represents a binary asset shared with the chat assistant (e.g. images or documents).
  */
 public final class ChatAttachment {
 
+    private static final Logger LOGGER = Logger.getLogger(ChatAttachment.class.getName());
     private static final DecimalFormat SIZE_FORMAT = new DecimalFormat("#,##0.#");
 
+    /**
+     * Materialises the content of a persisted attachment on disk the first time
+     * its file is required.
+     */
+    @FunctionalInterface
+    public interface ContentLoader {
+        Path load(long attachmentId, String fileName) throws IOException;
+    }
+
     private final String fileName;
     private final String mimeType;
-    private final Path filePath;
     private final long size;
+    private final String contentHash;
+    private final ContentLoader contentLoader;
+    private volatile Path filePath;
     private volatile Long databaseId;
     private volatile String providerFileId;
 
@@ -26,43 +41,51 @@ public final class ChatAttachment {
                            final String mimeType,
                            final Path filePath,
                            final long size,
+                           final String contentHash,
                            final Long databaseId,
-                           final String providerFileId) {
+                           final String providerFileId,
+                           final ContentLoader contentLoader) {
         this.fileName = Objects.requireNonNull(fileName, "fileName");
         this.mimeType = mimeType == null ? "application/octet-stream" : mimeType;
-        this.filePath = Objects.requireNonNull(filePath, "filePath");
+        if (filePath == null && (contentLoader == null || databaseId == null)) {
+            throw new IllegalArgumentException("Either a file path or a content loader is required");
+        }
+        this.filePath = filePath;
         this.size = size;
+        this.contentHash = contentHash;
         this.databaseId = databaseId;
         this.providerFileId = providerFileId;
+        this.contentLoader = contentLoader;
     }
 
     /**
-     * Builds an attachment from a local file. The method reads the full content eagerly.
+     * Builds an attachment from a local file. The content is copied into the
+     * content-addressed {@link AttachmentStorage}; identical files share one copy.
      */
     public static ChatAttachment fromFile(final Path file) throws IOException {
         Objects.requireNonNull(file, "file");
         String name = file.getFileName() == null ? "上传文件" : file.getFileName().toString();
         String mime = Files.probeContentType(file);
-        Path stored = AttachmentStorage.getInstance().store(file);
-        long size = Files.size(stored);
-        return new ChatAttachment(name, mime, stored, size, null, null);
+        AttachmentStorage.StoredContent stored = AttachmentStorage.getInstance().store(file);
+        return new ChatAttachment(name, mime, stored.path(), stored.size(), stored.sha256(), null, null, null);
     }
 
     /**
-     * Recreates an attachment from database payload.
+     * Recreates an attachment from database metadata only. The binary content
+     * stays in the database until {@link #getFilePath()} is first called.
+     *
+     * @param contentHash SHA-256 of the content
      */
     public static ChatAttachment fromDatabase(final long id,
                                               final String fileName,
                                               final String mimeType,
-                                              final byte[] data,
-                                              final String providerFileId) throws IOException {
-        Path restored = AttachmentStorage.getInstance().storeBytes(fileName, data);
-        return new ChatAttachment(fileName,
-            mimeType,
-            restored,
-            Files.size(restored),
-            id,
-            providerFileId);
+                                              final long size,
+                                              final String contentHash,
+                                              final String providerFileId,
+                                              final ContentLoader contentLoader) {
+        Objects.requireNonNull(contentHash, "contentHash");
+        Objects.requireNonNull(contentLoader, "contentLoader");
+        return new ChatAttachment(fileName, mimeType, null, size, contentHash, id, providerFileId, contentLoader);
     }
 
     public String getFileName() {
@@ -73,14 +96,48 @@ public final class ChatAttachment {
         return mimeType;
     }
 
+    /**
+     * Returns the local file backing the attachment, materialising it from the
+     * database on first access. If materialisation fails the expected location
+     * is returned anyway so callers observe a missing file rather than an
+     * exception.
+     */
     public Path getFilePath() {
-        return filePath;
+        Path path = filePath;
+        if (path != null) {
+            return path;
+        }
+        synchronized (this) {
+            if (filePath == null) {
+                try {
+                    filePath = contentLoader.load(databaseId, fileName);
+                } catch (IOException ex) {
+                    LOGGER.log(Level.WARNING, "Failed to restore attachment " + fileName, ex);
+                    return AttachmentStorage.getInstance().objectPath(contentHash);
+                }
+            }
+            return filePath;
+        }
+    }
+
+    /**
+     * Indicates whether the attachment content is already available on disk.
+     */
+    public boolean isMaterialised() {
+        return filePath != null;
     }
 
     public long getSize() {
         return size;
     }
 
+    /**
+     * Returns the SHA-256 of the content if known.
+     */
+    public Optional<String> getContentHash() {
+        return Optional.ofNullable(contentHash);
+    }
+
     public OptionalLong getDatabaseId() {
         return databaseId == null ? OptionalLong.empty() : OptionalLong.of(databaseId);
     }
@@ -106,7 +163,14 @@ public final class ChatAttachment {
     }
 
     public byte[] readAllBytes() throws IOException {
-        return Files.readAllBytes(filePath);
+        return Files.readAllBytes(getFilePath());
+    }
+
+    /**
+     * Opens a stream over the attachment content, materialising it first if needed.
+     */
+    public InputStream openStream() throws IOException {
+        return Files.newInputStream(getFilePath());
     }
 
     private static String humanReadableSize(final long bytes) {
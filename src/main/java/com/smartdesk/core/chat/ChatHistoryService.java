@@ -1,20 +1,29 @@
 package com.smartdesk.core.chat;
 
 import com.smartdesk.storage.DatabaseManager;
+import com.smartdesk.utils.DateTimeUtils;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.StringJoiner;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -29,25 +38,33 @@ public final class ChatHistoryService {
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
     private static final String INSERT_SESSION_SQL = """
-        INSERT INTO chat_sessions (id, default_title, title, auto_title, model_name, created_at, updated_at)
-        VALUES (?, ?, ?, ?, ?, ?, ?)
+        INSERT INTO chat_sessions (id, default_title, title, auto_title, model_name,
+            created_at, updated_at, created_at_ms, updated_at_ms)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
         """;
 
     private static final String UPDATE_SESSION_SQL = """
         UPDATE chat_sessions
-           SET title = ?, auto_title = ?, model_name = ?, updated_at = ?
+           SET title = ?, auto_title = ?, model_name = ?, updated_at = ?, updated_at_ms = ?
          WHERE id = ?
         """;
 
     private static final String SELECT_SESSIONS_SQL = """
-        SELECT id, default_title, title, auto_title, model_name, created_at, updated_at
+        SELECT id, default_title, title, auto_title, model_name, created_at_ms, updated_at_ms
           FROM chat_sessions
-         ORDER BY datetime(updated_at) DESC
+         ORDER BY updated_at_ms DESC
+        """;
+
+    private static final String SELECT_SESSION_HEADERS_SQL = """
+        SELECT s.id, s.default_title, s.title, s.auto_title, s.model_name, s.created_at_ms, s.updated_at_ms,
+               (SELECT COUNT(*) FROM chat_messages m WHERE m.session_id = s.id) AS message_count
+          FROM chat_sessions s
+         ORDER BY s.updated_at_ms DESC
         """;
 
     private static final String INSERT_MESSAGE_SQL = """
-        INSERT INTO chat_messages (session_id, sender, content, timestamp)
-        VALUES (?, ?, ?, ?)
+        INSERT INTO chat_messages (session_id, sender, content, timestamp, timestamp_ms)
+        VALUES (?, ?, ?, ?, ?)
         """;
 
     private static final String DELETE_SESSION_SQL = """
@@ -55,31 +72,112 @@ public final class ChatHistoryService {
          WHERE id = ?
         """;
 
+    /**
+     * Attachments and messages are removed explicitly rather than through the
+     * declared cascades, which only apply when {@code foreign_keys} is enabled.
+     * Deleting attachment rows fires the reference counting trigger.
+     */
+    private static final String DELETE_SESSION_ATTACHMENTS_SQL = """
+        DELETE FROM chat_attachments
+         WHERE message_id IN (SELECT id FROM chat_messages WHERE session_id = ?)
+        """;
+
+    private static final String DELETE_SESSION_MESSAGES_SQL = """
+        DELETE FROM chat_messages
+         WHERE session_id = ?
+        """;
+
     private static final String SELECT_MESSAGES_FOR_SESSION_SQL = """
-        SELECT id, sender, content, timestamp
+        SELECT id, sender, content, timestamp_ms
           FROM chat_messages
          WHERE session_id = ?
-         ORDER BY datetime(timestamp), id
+         ORDER BY timestamp_ms, id
         """;
 
+    /**
+     * Newest page of a session. The {@code (session_id, timestamp_ms)} index
+     * implicitly carries the rowid, so ordering by {@code timestamp_ms, id} is
+     * served straight from the index without a sort step.
+     */
+    private static final String SELECT_LATEST_MESSAGE_PAGE_SQL = """
+        SELECT id, sender, content, timestamp_ms
+          FROM chat_messages
+         WHERE session_id = ?
+         ORDER BY timestamp_ms DESC, id DESC
+         LIMIT ?
+        """;
+
+    private static final String SELECT_MESSAGE_PAGE_BEFORE_SQL = """
+        SELECT id, sender, content, timestamp_ms
+          FROM chat_messages
+         WHERE session_id = ?
+           AND (timestamp_ms < ? OR (timestamp_ms = ? AND id < ?))
+         ORDER BY timestamp_ms DESC, id DESC
+         LIMIT ?
+        """;
+
+    /** Content lives in {@code attachment_blobs}, referenced by its hash. */
     private static final String INSERT_ATTACHMENT_SQL = """
-        INSERT INTO chat_attachments (message_id, file_name, mime_type, data, file_id)
+        INSERT INTO chat_attachments (message_id, file_name, mime_type, file_id, content_sha256)
         VALUES (?, ?, ?, ?, ?)
         """;
 
-    private static final String SELECT_ATTACHMENTS_FOR_MESSAGE_SQL = """
-        SELECT id, file_name, mime_type, data, file_id
-          FROM chat_attachments
-         WHERE message_id = ?
-         ORDER BY id
+    private static final String SELECT_BLOB_EXISTS_SQL = """
+        SELECT 1
+          FROM attachment_blobs
+         WHERE sha256 = ?
+        """;
+
+    private static final String INSERT_BLOB_SQL = """
+        INSERT INTO attachment_blobs (sha256, size, data, ref_count)
+        VALUES (?, ?, ?, 0)
+        """;
+
+    /**
+     * Attachment metadata for a batch of messages. Sizes come from the blob
+     * table, so BLOB pages are not read. The placeholder list is appended at
+     * runtime, see {@link #attachmentMetadataSql(int)}.
+     */
+    private static final String SELECT_ATTACHMENT_METADATA_PREFIX_SQL = """
+        SELECT a.id, a.message_id, a.file_name, a.mime_type, a.file_id, a.content_sha256,
+               COALESCE(b.size, 0) AS size
+          FROM chat_attachments a
+          LEFT JOIN attachment_blobs b ON b.sha256 = a.content_sha256
+         WHERE a.message_id IN\s""";
+
+    private static final String SELECT_BLOB_DATA_SQL = """
+        SELECT size, data
+          FROM attachment_blobs
+         WHERE sha256 = ?
+        """;
+
+    private static final String DELETE_UNREFERENCED_BLOBS_SQL = """
+        DELETE FROM attachment_blobs
+         WHERE ref_count <= 0
         """;
 
+    /**
+     * Files in the attachment store younger than this survive the sweep; older
+     * ones are restored from {@code attachment_blobs} when needed again.
+     */
+    private static final Duration ATTACHMENT_GC_GRACE_PERIOD = Duration.ofHours(1);
+
+    /**
+     * Placeholder counts used for batched attachment queries. Padding the id
+     * list to one of these sizes keeps the number of distinct SQL strings (and
+     * thus cached prepared statements) small.
+     */
+    private static final int[] ATTACHMENT_BATCH_BUCKETS = {8, 32, 128, 512};
+
     private static final String UPDATE_ATTACHMENT_FILE_ID_SQL = """
         UPDATE chat_attachments
            SET file_id = ?
          WHERE id = ?
         """;
 
+    /** Number of messages fetched per page when a session is opened or scrolled. */
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
     private final DatabaseManager databaseManager;
 
     public ChatHistoryService(final DatabaseManager databaseManager) {
@@ -88,6 +186,11 @@ public final class ChatHistoryService {
 
     /**
      * Loads all persisted chat sessions including their messages.
+     * <p>
+     * This eagerly materialises the entire history; interactive callers should
+     * prefer {@link #loadSessionHeaders()} together with
+     * {@link #loadMessagePage(UUID, ChatMessagePage.Cursor, int)}.
+     * </p>
      *
      * @return list of {@link ChatSession} instances ordered by last update time
      */
@@ -96,7 +199,7 @@ public final class ChatHistoryService {
         final Map<String, ChatSession> sessionMap = new LinkedHashMap<>();
         final Map<String, LocalDateTime> persistedUpdatedAt = new LinkedHashMap<>();
 
-        try (Connection connection = databaseManager.getConnection();
+        try (Connection connection = databaseManager.getReadConnection();
              PreparedStatement sessionStatement = connection.prepareStatement(SELECT_SESSIONS_SQL);
              ResultSet sessionResult = sessionStatement.executeQuery()) {
 
@@ -106,8 +209,8 @@ public final class ChatHistoryService {
                 final String title = sessionResult.getString("title");
                 final boolean autoTitle = sessionResult.getInt("auto_title") == 1;
                 final String modelName = sessionResult.getString("model_name");
-                final LocalDateTime createdAt = LocalDateTime.parse(sessionResult.getString("created_at"), FORMATTER);
-                final LocalDateTime updatedAt = LocalDateTime.parse(sessionResult.getString("updated_at"), FORMATTER);
+                final LocalDateTime createdAt = readTime(sessionResult, "created_at_ms");
+                final LocalDateTime updatedAt = readTime(sessionResult, "updated_at_ms");
 
                 final ChatSession session = new ChatSession(UUID.fromString(id), defaultTitle, title,
                     autoTitle, createdAt, updatedAt, modelName);
@@ -119,19 +222,13 @@ public final class ChatHistoryService {
             try (PreparedStatement messageStatement = connection.prepareStatement(SELECT_MESSAGES_FOR_SESSION_SQL)) {
                 for (Map.Entry<String, ChatSession> entry : sessionMap.entrySet()) {
                     messageStatement.setString(1, entry.getKey());
+                    final List<MessageRow> rows = new ArrayList<>();
                     try (ResultSet messageResult = messageStatement.executeQuery()) {
                         while (messageResult.next()) {
-                            final long messageId = messageResult.getLong("id");
-                            final ChatMessage.Sender sender = ChatMessage.Sender.valueOf(messageResult.getString("sender"));
-                            final String content = messageResult.getString("content");
-                            final LocalDateTime timestamp = LocalDateTime.parse(messageResult.getString("timestamp"), FORMATTER);
-                            List<ChatAttachment> attachments = loadAttachments(connection, messageId);
-                            ChatMessage message = attachments.isEmpty()
-                                ? ChatMessage.of(sender, content, timestamp)
-                                : ChatMessage.withAttachments(sender, content, timestamp, attachments);
-                            entry.getValue().addMessage(message);
+                            rows.add(readMessageRow(messageResult));
                         }
                     }
+                    buildMessages(connection, rows).forEach(entry.getValue()::addMessage);
                 }
             }
 
@@ -149,6 +246,88 @@ public final class ChatHistoryService {
         return sessions;
     }
 
+    /**
+     * Loads the metadata of all sessions together with their message count but
+     * without any messages. The returned sessions report
+     * {@link ChatSession#isHistoryLoaded()} as {@code false}.
+     *
+     * @return session headers ordered by last update time, newest first
+     */
+    public List<ChatSession> loadSessionHeaders() {
+        final List<ChatSession> sessions = new ArrayList<>();
+        try (Connection connection = databaseManager.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_SESSION_HEADERS_SQL);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                sessions.add(ChatSession.header(
+                    UUID.fromString(rs.getString("id")),
+                    rs.getString("default_title"),
+                    rs.getString("title"),
+                    rs.getInt("auto_title") == 1,
+                    readTime(rs, "created_at_ms"),
+                    readTime(rs, "updated_at_ms"),
+                    rs.getString("model_name"),
+                    rs.getInt("message_count")));
+            }
+        } catch (SQLException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to load chat session headers", ex);
+            throw new IllegalStateException("Failed to load chat session headers", ex);
+        }
+        return sessions;
+    }
+
+    /**
+     * Loads one page of messages using keyset pagination on
+     * {@code (session_id, timestamp_ms, id)}.
+     *
+     * @param sessionId the session to read
+     * @param before    cursor of the oldest message already loaded, or {@code null} for the newest page
+     * @param limit     maximum number of messages to return
+     * @return the page in chronological order
+     */
+    public ChatMessagePage loadMessagePage(final UUID sessionId, final ChatMessagePage.Cursor before,
+                                           final int limit) {
+        Objects.requireNonNull(sessionId, "sessionId");
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        final String sql = before == null ? SELECT_LATEST_MESSAGE_PAGE_SQL : SELECT_MESSAGE_PAGE_BEFORE_SQL;
+        try (Connection connection = databaseManager.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            int index = 1;
+            statement.setString(index++, sessionId.toString());
+            if (before != null) {
+                final long timestamp = DateTimeUtils.toEpochMillis(before.timestamp());
+                statement.setLong(index++, timestamp);
+                statement.setLong(index++, timestamp);
+                statement.setLong(index++, before.messageId());
+            }
+            statement.setInt(index, limit + 1);
+
+            final List<MessageRow> rows = new ArrayList<>();
+            boolean hasMore = false;
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    if (rows.size() == limit) {
+                        hasMore = true;
+                        break;
+                    }
+                    rows.add(readMessageRow(rs));
+                }
+            }
+            if (rows.isEmpty()) {
+                return ChatMessagePage.empty();
+            }
+            final MessageRow oldest = rows.get(rows.size() - 1);
+            final ChatMessagePage.Cursor cursor = new ChatMessagePage.Cursor(oldest.timestamp(), oldest.id());
+            Collections.reverse(rows);
+            return new ChatMessagePage(buildMessages(connection, rows), cursor, hasMore);
+        } catch (SQLException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to load chat messages", ex);
+            throw new IllegalStateException("Failed to load chat messages", ex);
+        }
+    }
+
     /**
      * Creates and persists a new chat session.
      */
@@ -162,17 +341,8 @@ public final class ChatHistoryService {
             now,
             modelName);
 
-        try (Connection connection = databaseManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(INSERT_SESSION_SQL)) {
-
-            statement.setString(1, session.getId().toString());
-            statement.setString(2, session.getDefaultTitle());
-            statement.setString(3, session.getTitle());
-            statement.setInt(4, session.isAutoTitle() ? 1 : 0);
-            statement.setString(5, session.getModelName());
-            statement.setString(6, FORMATTER.format(now));
-            statement.setString(7, FORMATTER.format(now));
-            statement.executeUpdate();
+        try (Connection connection = databaseManager.getConnection()) {
+            insertSession(connection, session);
         } catch (SQLException ex) {
             LOGGER.log(Level.SEVERE, "Failed to create chat session", ex);
             throw new IllegalStateException("Failed to create chat session", ex);
@@ -183,6 +353,8 @@ public final class ChatHistoryService {
 
     /**
      * Persists the supplied message and updates the session metadata atomically.
+     * Runs on the calling thread; the chat view writes through
+     * {@link ChatWriteQueue} instead.
      */
     public void persistMessage(final ChatSession session, final ChatMessage message) {
         Objects.requireNonNull(session, "session");
@@ -190,26 +362,9 @@ public final class ChatHistoryService {
 
         try (Connection connection = databaseManager.getConnection()) {
             connection.setAutoCommit(false);
-            try (PreparedStatement insertMessage = connection.prepareStatement(INSERT_MESSAGE_SQL, Statement.RETURN_GENERATED_KEYS);
-                 PreparedStatement updateSession = connection.prepareStatement(UPDATE_SESSION_SQL)) {
-
-                insertMessage.setString(1, session.getId().toString());
-                insertMessage.setString(2, message.getSender().name());
-                insertMessage.setString(3, message.getContent());
-                insertMessage.setString(4, FORMATTER.format(message.getTimestamp()));
-                insertMessage.executeUpdate();
-                long messageId = extractGeneratedKey(insertMessage);
-                if (message.hasAttachments()) {
-                    persistAttachments(connection, messageId, message.getAttachments());
-                }
-
-                updateSession.setString(1, session.getTitle());
-                updateSession.setInt(2, session.isAutoTitle() ? 1 : 0);
-                updateSession.setString(3, session.getModelName());
-                updateSession.setString(4, FORMATTER.format(session.getUpdatedAt()));
-                updateSession.setString(5, session.getId().toString());
-                updateSession.executeUpdate();
-
+            try {
+                insertMessage(connection, session.getId(), message);
+                updateSession(connection, session);
                 connection.commit();
             } catch (SQLException inner) {
                 connection.rollback();
@@ -230,15 +385,8 @@ public final class ChatHistoryService {
     public void updateSessionMetadata(final ChatSession session) {
         Objects.requireNonNull(session, "session");
 
-        try (Connection connection = databaseManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(UPDATE_SESSION_SQL)) {
-
-            statement.setString(1, session.getTitle());
-            statement.setInt(2, session.isAutoTitle() ? 1 : 0);
-            statement.setString(3, session.getModelName());
-            statement.setString(4, FORMATTER.format(session.getUpdatedAt()));
-            statement.setString(5, session.getId().toString());
-            statement.executeUpdate();
+        try (Connection connection = databaseManager.getConnection()) {
+            updateSession(connection, session);
         } catch (SQLException ex) {
             LOGGER.log(Level.SEVERE, "Failed to update chat session metadata", ex);
             throw new IllegalStateException("Failed to update chat session metadata", ex);
@@ -247,20 +395,104 @@ public final class ChatHistoryService {
 
     /**
      * Deletes the given chat session together with all persisted messages
-     * and attachments (enforced by ON DELETE CASCADE constraints).
+     * and attachments. Shared attachment content is dropped once no other
+     * message refers to it; stored files are reclaimed by
+     * {@link #maintainAttachmentStore()}.
      */
     public void deleteSession(final UUID sessionId) {
         Objects.requireNonNull(sessionId, "sessionId");
-        try (Connection connection = databaseManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(DELETE_SESSION_SQL)) {
-            statement.setString(1, sessionId.toString());
-            statement.executeUpdate();
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                deleteSession(connection, sessionId);
+                connection.commit();
+            } catch (SQLException inner) {
+                connection.rollback();
+                throw inner;
+            } finally {
+                connection.setAutoCommit(true);
+            }
         } catch (SQLException ex) {
             LOGGER.log(Level.SEVERE, "Failed to delete chat session", ex);
             throw new IllegalStateException("Failed to delete chat session", ex);
         }
     }
 
+    /**
+     * Inserts a new session row on the caller's connection.
+     */
+    void insertSession(final Connection connection, final ChatSession session) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_SESSION_SQL)) {
+            statement.setString(1, session.getId().toString());
+            statement.setString(2, session.getDefaultTitle());
+            statement.setString(3, session.getTitle());
+            statement.setInt(4, session.isAutoTitle() ? 1 : 0);
+            statement.setString(5, session.getModelName());
+            statement.setString(6, FORMATTER.format(session.getCreatedAt()));
+            statement.setString(7, FORMATTER.format(session.getUpdatedAt()));
+            statement.setLong(8, DateTimeUtils.toEpochMillis(session.getCreatedAt()));
+            statement.setLong(9, DateTimeUtils.toEpochMillis(session.getUpdatedAt()));
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Inserts a message and its attachments on the caller's connection,
+     * recording the attachment row ids on the {@link ChatAttachment}s.
+     * Transaction handling is left to the caller.
+     */
+    void insertMessage(final Connection connection, final UUID sessionId, final ChatMessage message)
+        throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_MESSAGE_SQL, Statement.RETURN_GENERATED_KEYS)) {
+            statement.setString(1, sessionId.toString());
+            statement.setString(2, message.getSender().name());
+            statement.setString(3, message.getContent());
+            statement.setString(4, FORMATTER.format(message.getTimestamp()));
+            statement.setLong(5, DateTimeUtils.toEpochMillis(message.getTimestamp()));
+            statement.executeUpdate();
+            final long messageId = extractGeneratedKey(statement);
+            if (message.hasAttachments()) {
+                persistAttachments(connection, messageId, message.getAttachments());
+            }
+        }
+    }
+
+    /**
+     * Writes the title, model and update time of a session on the caller's
+     * connection.
+     */
+    void updateSession(final Connection connection, final ChatSession session) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_SESSION_SQL)) {
+            statement.setString(1, session.getTitle());
+            statement.setInt(2, session.isAutoTitle() ? 1 : 0);
+            statement.setString(3, session.getModelName());
+            statement.setString(4, FORMATTER.format(session.getUpdatedAt()));
+            statement.setLong(5, DateTimeUtils.toEpochMillis(session.getUpdatedAt()));
+            statement.setString(6, session.getId().toString());
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Removes a session with its messages and attachments on the caller's
+     * connection. The statements must run in one transaction.
+     */
+    void deleteSession(final Connection connection, final UUID sessionId) throws SQLException {
+        try (PreparedStatement attachments = connection.prepareStatement(DELETE_SESSION_ATTACHMENTS_SQL);
+             PreparedStatement messages = connection.prepareStatement(DELETE_SESSION_MESSAGES_SQL);
+             PreparedStatement session = connection.prepareStatement(DELETE_SESSION_SQL);
+             PreparedStatement blobs = connection.prepareStatement(DELETE_UNREFERENCED_BLOBS_SQL)) {
+            final String id = sessionId.toString();
+            attachments.setString(1, id);
+            attachments.executeUpdate();
+            messages.setString(1, id);
+            messages.executeUpdate();
+            session.setString(1, id);
+            session.executeUpdate();
+            blobs.executeUpdate();
+        }
+    }
+
     private void persistAttachments(final Connection connection,
                                     final long messageId,
                                     final List<ChatAttachment> attachments) throws SQLException {
@@ -270,11 +502,13 @@ public final class ChatHistoryService {
         try (PreparedStatement statement = connection.prepareStatement(INSERT_ATTACHMENT_SQL, Statement.RETURN_GENERATED_KEYS)) {
             for (ChatAttachment attachment : attachments) {
                 try {
+                    final AttachmentStorage.StoredContent stored = resolveStoredContent(attachment);
+                    ensureBlob(connection, stored);
                     statement.setLong(1, messageId);
                     statement.setString(2, attachment.getFileName());
                     statement.setString(3, attachment.getMimeType());
-                    statement.setBytes(4, attachment.readAllBytes());
-                    statement.setString(5, attachment.getProviderFileId().orElse(null));
+                    statement.setString(4, attachment.getProviderFileId().orElse(null));
+                    statement.setString(5, stored.sha256());
                     statement.executeUpdate();
                     long id = extractGeneratedKey(statement);
                     attachment.setDatabaseId(id);
@@ -285,27 +519,172 @@ public final class ChatHistoryService {
         }
     }
 
-    private List<ChatAttachment> loadAttachments(final Connection connection, final long messageId) throws SQLException {
-        try (PreparedStatement statement = connection.prepareStatement(SELECT_ATTACHMENTS_FOR_MESSAGE_SQL)) {
-            statement.setLong(1, messageId);
-            try (ResultSet rs = statement.executeQuery()) {
-                List<ChatAttachment> attachments = new ArrayList<>();
-                while (rs.next()) {
-                    long id = rs.getLong("id");
-                    String fileName = rs.getString("file_name");
-                    String mimeType = rs.getString("mime_type");
-                    byte[] data = rs.getBytes("data");
-                    String fileId = rs.getString("file_id");
-                    try {
-                        ChatAttachment attachment = ChatAttachment.fromDatabase(id, fileName, mimeType, data, fileId);
-                        attachments.add(attachment);
-                    } catch (IOException ex) {
-                        LOGGER.log(Level.WARNING, "Failed to restore attachment {0}", fileName);
+    private AttachmentStorage.StoredContent resolveStoredContent(final ChatAttachment attachment) throws IOException {
+        final Optional<String> hash = attachment.getContentHash();
+        if (hash.isPresent()) {
+            return new AttachmentStorage.StoredContent(hash.get(), attachment.getFilePath(), attachment.getSize());
+        }
+        return AttachmentStorage.getInstance().store(attachment.getFilePath());
+    }
+
+    /**
+     * Inserts the content into the shared blob table unless a row with the
+     * same hash exists already. The file is only opened when the content is
+     * new and is handed to the driver as a stream.
+     */
+    private void ensureBlob(final Connection connection, final AttachmentStorage.StoredContent stored)
+        throws SQLException, IOException {
+        try (PreparedStatement exists = connection.prepareStatement(SELECT_BLOB_EXISTS_SQL)) {
+            exists.setString(1, stored.sha256());
+            try (ResultSet rs = exists.executeQuery()) {
+                if (rs.next()) {
+                    return;
+                }
+            }
+        }
+        if (stored.size() > Integer.MAX_VALUE) {
+            throw new IOException("Attachment exceeds the maximum BLOB size: " + stored.path());
+        }
+        try (PreparedStatement insert = connection.prepareStatement(INSERT_BLOB_SQL);
+             InputStream data = Files.newInputStream(stored.path())) {
+            insert.setString(1, stored.sha256());
+            insert.setLong(2, stored.size());
+            insert.setBinaryStream(3, data, (int) stored.size());
+            insert.executeUpdate();
+        }
+    }
+
+    private MessageRow readMessageRow(final ResultSet rs) throws SQLException {
+        return new MessageRow(
+            rs.getLong("id"),
+            ChatMessage.Sender.valueOf(rs.getString("sender")),
+            rs.getString("content"),
+            readTime(rs, "timestamp_ms"));
+    }
+
+    /**
+     * Reads an epoch millisecond column, mapping SQL {@code NULL} to {@code null}.
+     */
+    private static LocalDateTime readTime(final ResultSet rs, final String column) throws SQLException {
+        final long millis = rs.getLong(column);
+        return rs.wasNull() ? null : DateTimeUtils.fromEpochMillis(millis);
+    }
+
+    private List<ChatMessage> buildMessages(final Connection connection, final List<MessageRow> rows)
+        throws SQLException {
+        final List<Long> messageIds = new ArrayList<>(rows.size());
+        rows.forEach(row -> messageIds.add(row.id()));
+        final Map<Long, List<ChatAttachment>> attachments = loadAttachmentMetadata(connection, messageIds);
+        final List<ChatMessage> messages = new ArrayList<>(rows.size());
+        for (MessageRow row : rows) {
+            final List<ChatAttachment> messageAttachments = attachments.getOrDefault(row.id(), List.of());
+            messages.add(messageAttachments.isEmpty()
+                ? ChatMessage.of(row.sender(), row.content(), row.timestamp())
+                : ChatMessage.withAttachments(row.sender(), row.content(), row.timestamp(), messageAttachments));
+        }
+        return messages;
+    }
+
+    /**
+     * Loads attachment metadata for all supplied messages with one query per
+     * batch instead of one query per message. Attachment content is fetched
+     * lazily through {@link #materialiseAttachment(long, String)}.
+     */
+    private Map<Long, List<ChatAttachment>> loadAttachmentMetadata(final Connection connection,
+                                                                   final List<Long> messageIds)
+        throws SQLException {
+        final Map<Long, List<ChatAttachment>> result = new HashMap<>();
+        final int maxBatch = ATTACHMENT_BATCH_BUCKETS[ATTACHMENT_BATCH_BUCKETS.length - 1];
+        for (int offset = 0; offset < messageIds.size(); offset += maxBatch) {
+            final List<Long> batch = messageIds.subList(offset, Math.min(messageIds.size(), offset + maxBatch));
+            final int placeholders = bucketFor(batch.size());
+            try (PreparedStatement statement = connection.prepareStatement(attachmentMetadataSql(placeholders))) {
+                for (int i = 0; i < placeholders; i++) {
+                    // Pad with an id that never exists so the statement shape stays cacheable.
+                    statement.setLong(i + 1, i < batch.size() ? batch.get(i) : -1L);
+                }
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        final String contentHash = rs.getString("content_sha256");
+                        final ChatAttachment attachment = ChatAttachment.fromDatabase(
+                            rs.getLong("id"),
+                            rs.getString("file_name"),
+                            rs.getString("mime_type"),
+                            rs.getLong("size"),
+                            contentHash,
+                            rs.getString("file_id"),
+                            (id, name) -> materialiseBlob(contentHash));
+                        result.computeIfAbsent(rs.getLong("message_id"), key -> new ArrayList<>()).add(attachment);
                     }
                 }
-                return attachments;
             }
         }
+        return result;
+    }
+
+    private static int bucketFor(final int size) {
+        for (int bucket : ATTACHMENT_BATCH_BUCKETS) {
+            if (size <= bucket) {
+                return bucket;
+            }
+        }
+        return ATTACHMENT_BATCH_BUCKETS[ATTACHMENT_BATCH_BUCKETS.length - 1];
+    }
+
+    private static String attachmentMetadataSql(final int placeholders) {
+        final StringJoiner joiner = new StringJoiner(", ", "(", ") ORDER BY a.message_id, a.id");
+        for (int i = 0; i < placeholders; i++) {
+            joiner.add("?");
+        }
+        return SELECT_ATTACHMENT_METADATA_PREFIX_SQL + joiner;
+    }
+
+    /**
+     * Writes the shared content with the given hash to the attachment store.
+     * Invoked on first access to {@link ChatAttachment#getFilePath()}; already
+     * restored objects are reused without touching the database.
+     */
+    private Path materialiseBlob(final String contentHash) throws IOException {
+        final AttachmentStorage storage = AttachmentStorage.getInstance();
+        final Path existing = storage.objectPath(contentHash);
+        if (Files.exists(existing)) {
+            return existing;
+        }
+        try (Connection connection = databaseManager.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_BLOB_DATA_SQL)) {
+            statement.setString(1, contentHash);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IOException("Attachment content " + contentHash + " no longer exists");
+                }
+                try (InputStream data = rs.getBinaryStream("data")) {
+                    return storage.restore(contentHash, rs.getLong("size"), data).path();
+                }
+            }
+        } catch (SQLException ex) {
+            throw new IOException("Failed to read attachment content " + contentHash, ex);
+        }
+    }
+
+    /**
+     * Housekeeping for the attachment store: drops blobs no longer referenced
+     * by any message and removes files from the attachment store that have
+     * not been written recently. The database holds the only durable copy of
+     * attachment content; files are working copies restored on demand.
+     * Intended to run when the application shuts down.
+     */
+    public void maintainAttachmentStore() {
+        final int purgedBlobs;
+        try (Connection connection = databaseManager.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE_UNREFERENCED_BLOBS_SQL)) {
+            purgedBlobs = statement.executeUpdate();
+        } catch (SQLException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to maintain attachment store", ex);
+            throw new IllegalStateException("Failed to maintain attachment store", ex);
+        }
+        final int deletedFiles = AttachmentStorage.getInstance().collectGarbage(ATTACHMENT_GC_GRACE_PERIOD);
+        LOGGER.log(Level.FINE, "Attachment store maintenance: {0} blobs purged, {1} files removed",
+            new Object[]{purgedBlobs, deletedFiles});
     }
 
     public void updateAttachmentFileId(final long attachmentId, final String fileId) {
@@ -319,6 +698,9 @@ public final class ChatHistoryService {
         }
     }
 
+    private record MessageRow(long id, ChatMessage.Sender sender, String content, LocalDateTime timestamp) {
+    }
+
     private long extractGeneratedKey(final PreparedStatement statement) throws SQLException {
         try (ResultSet keys = statement.getGeneratedKeys()) {
             if (keys.next()) {
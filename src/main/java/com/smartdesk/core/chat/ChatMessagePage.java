@@ -0,0 +1,42 @@
+package com.smartdesk.core.chat;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * One page of persisted chat messages returned by
+ * {@link ChatHistoryService#loadMessagePage(java.util.UUID, Cursor, int)}.
+ * Messages are in chronological order; {@link #nextCursor()} points at the
+ * oldest message of the page and is used to fetch the preceding page.
+ *
+ * @param messages   messages of this page, oldest first
+ * @param nextCursor keyset position of the oldest message, {@code null} when the page is empty
+ * @param hasMore    {@code true} when older messages exist before this page
+ */
+public record ChatMessagePage(List<ChatMessage> messages, Cursor nextCursor, boolean hasMore) {
+
+    public ChatMessagePage {
+        messages = messages == null ? List.of() : List.copyOf(messages);
+    }
+
+    /**
+     * Returns an empty page without further history.
+     */
+    public static ChatMessagePage empty() {
+        return new ChatMessagePage(List.of(), null, false);
+    }
+
+    /**
+     * Keyset position inside a session expressed as {@code (timestamp, id)}.
+     *
+     * @param timestamp timestamp of the message at the page boundary
+     * @param messageId database identifier of that message
+     */
+    public record Cursor(LocalDateTime timestamp, long messageId) {
+
+        public Cursor {
+            Objects.requireNonNull(timestamp, "timestamp");
+        }
+    }
+}
@@ -9,6 +9,12 @@ import java.util.UUID;
 
 /**
  * Represents a single conversational session with the assistant.
+ * <p>
+ * Sessions restored from the database start out as headers: only the metadata
+ * and the persisted message count are known. Messages are attached page by
+ * page through {@link #prependHistory(ChatMessagePage)} when the session is
+ * opened or scrolled.
+ * </p>
  */
 public final class ChatSession {
 
@@ -20,6 +26,10 @@ public final class ChatSession {
     private final LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private String modelName;
+    private int messageCount;
+    private boolean historyLoaded = true;
+    private boolean hasMoreHistory;
+    private ChatMessagePage.Cursor historyCursor;
 
     public ChatSession(final String defaultTitle) {
         this(UUID.randomUUID(), defaultTitle, defaultTitle, true, LocalDateTime.now(), LocalDateTime.now(), "");
@@ -41,6 +51,25 @@ public final class ChatSession {
         this.modelName = modelName == null ? "" : modelName;
     }
 
+    /**
+     * Creates a session header restored from persistence whose messages have
+     * not been loaded yet.
+     */
+    public static ChatSession header(final UUID id,
+                                     final String defaultTitle,
+                                     final String title,
+                                     final boolean autoTitle,
+                                     final LocalDateTime createdAt,
+                                     final LocalDateTime updatedAt,
+                                     final String modelName,
+                                     final int messageCount) {
+        ChatSession session = new ChatSession(id, defaultTitle, title, autoTitle, createdAt, updatedAt, modelName);
+        session.messageCount = Math.max(0, messageCount);
+        session.historyLoaded = false;
+        session.hasMoreHistory = messageCount > 0;
+        return session;
+    }
+
     public UUID getId() {
         return id;
     }
@@ -56,6 +85,7 @@ public final class ChatSession {
     public void addMessage(final ChatMessage message) {
         Objects.requireNonNull(message, "message");
         messages.add(message);
+        messageCount++;
         updatedAt = message.getTimestamp();
         if (autoTitle && message.getSender() == ChatMessage.Sender.USER) {
             title = summarise(message.getContent());
@@ -63,6 +93,53 @@ public final class ChatSession {
         }
     }
 
+    /**
+     * Inserts an older page of persisted messages in front of the loaded ones.
+     * Unlike {@link #addMessage(ChatMessage)} this neither changes the title nor
+     * the update timestamp.
+     */
+    public void prependHistory(final ChatMessagePage page) {
+        Objects.requireNonNull(page, "page");
+        if (!page.messages().isEmpty()) {
+            messages.addAll(0, page.messages());
+        }
+        if (page.nextCursor() != null) {
+            historyCursor = page.nextCursor();
+        }
+        hasMoreHistory = page.hasMore();
+        historyLoaded = true;
+        messageCount = Math.max(messageCount, messages.size());
+    }
+
+    /**
+     * Indicates whether at least the most recent page of messages is loaded.
+     */
+    public boolean isHistoryLoaded() {
+        return historyLoaded;
+    }
+
+    /**
+     * Indicates whether older persisted messages can still be fetched.
+     */
+    public boolean hasMoreHistory() {
+        return hasMoreHistory;
+    }
+
+    /**
+     * Keyset position of the oldest loaded message, {@code null} before the
+     * first page has been loaded.
+     */
+    public ChatMessagePage.Cursor getHistoryCursor() {
+        return historyCursor;
+    }
+
+    /**
+     * Total number of messages in the session including those not loaded yet.
+     */
+    public int getMessageCount() {
+        return messageCount;
+    }
+
     public boolean isAutoTitle() {
         return autoTitle;
     }
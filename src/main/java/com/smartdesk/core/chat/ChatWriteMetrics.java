@@ -0,0 +1,27 @@
+package com.smartdesk.core.chat;
+
+/**
+ * Snapshot of the state of a {@link ChatWriteQueue}.
+ *
+ * @param queueDepth           writes waiting for the writer thread
+ * @param messages             messages committed
+ * @param sessionUpdates       session metadata rows written
+ * @param coalesced            session updates skipped because a later one in the same batch replaced them
+ * @param transactions         transactions committed or attempted
+ * @param failed               writes that could not be stored
+ * @param largestBatch         most writes committed in one transaction
+ * @param lastCommitMillis     duration of the most recent transaction
+ * @param maxCommitMillis      longest transaction observed
+ */
+public record ChatWriteMetrics(
+    int queueDepth,
+    long messages,
+    long sessionUpdates,
+    long coalesced,
+    long transactions,
+    long failed,
+    int largestBatch,
+    long lastCommitMillis,
+    long maxCommitMillis
+) {
+}
@@ -0,0 +1,323 @@
+package com.smartdesk.core.chat;
+
+import com.smartdesk.storage.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Asynchronous writer for chat history.
+ * <p>
+ * New sessions, messages, session metadata updates and deletions are queued
+ * in call order and return immediately, so reading attachment files and
+ * committing never block the JavaFX thread. A single writer thread drains
+ * the queue: everything that accumulated while the previous transaction was
+ * committing, up to {@link #MAX_BATCH} writes, is stored in one transaction,
+ * and only the last metadata update of each session in that batch is
+ * written. Should a batch fail, its writes are retried one by one so a
+ * single unreadable attachment does not lose the rest. Session state is
+ * copied when a write is queued, so callers may keep modifying their
+ * sessions. {@link #close()} writes what is left and must run before the
+ * database is closed.
+ * </p>
+ */
+public final class ChatWriteQueue implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ChatWriteQueue.class.getName());
+
+    /** Maximum number of writes committed in one transaction. */
+    static final int MAX_BATCH = 128;
+
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final DatabaseManager databaseManager;
+    private final ChatHistoryService historyService;
+    private final ExecutorService executor;
+
+    private final Object lock = new Object();
+    private final ArrayDeque<Write> queue = new ArrayDeque<>();
+    private boolean draining;
+    private boolean closed;
+
+    private long messages;
+    private long sessionUpdates;
+    private long coalesced;
+    private long transactions;
+    private long failed;
+    private int largestBatch;
+    private long lastCommitMillis;
+    private long maxCommitMillis;
+
+    public ChatWriteQueue(final DatabaseManager databaseManager, final ChatHistoryService historyService) {
+        this.databaseManager = Objects.requireNonNull(databaseManager, "databaseManager");
+        this.historyService = Objects.requireNonNull(historyService, "historyService");
+        this.executor = Executors.newSingleThreadExecutor(new DaemonThreadFactory());
+    }
+
+    /**
+     * Queues the insertion of a session that has not been stored yet.
+     *
+     * @return completes once the session row has committed
+     * @throws IllegalStateException if the queue was closed
+     */
+    public CompletableFuture<Void> createSession(final ChatSession session) {
+        Objects.requireNonNull(session, "session");
+        return enqueue(new Write(Kind.CREATE, session.getId(), null, snapshot(session)));
+    }
+
+    /**
+     * Queues a message together with the current metadata of its session.
+     * Attachments are read on the writer thread and receive their database
+     * ids once the message has been written.
+     *
+     * @return completes once the message has committed
+     * @throws IllegalStateException if the queue was closed
+     */
+    public CompletableFuture<Void> saveMessage(final ChatSession session, final ChatMessage message) {
+        Objects.requireNonNull(session, "session");
+        Objects.requireNonNull(message, "message");
+        return enqueue(new Write(Kind.MESSAGE, session.getId(), message, snapshot(session)));
+    }
+
+    /**
+     * Queues an update of the title, model and update time of a session.
+     *
+     * @return completes once the update, or a later one replacing it, has committed
+     * @throws IllegalStateException if the queue was closed
+     */
+    public CompletableFuture<Void> saveSession(final ChatSession session) {
+        Objects.requireNonNull(session, "session");
+        return enqueue(new Write(Kind.UPDATE, session.getId(), null, snapshot(session)));
+    }
+
+    /**
+     * Queues the removal of a session with its messages and attachments.
+     * Writes for the session queued earlier are applied first.
+     *
+     * @return completes once the deletion has committed
+     * @throws IllegalStateException if the queue was closed
+     */
+    public CompletableFuture<Void> deleteSession(final UUID sessionId) {
+        Objects.requireNonNull(sessionId, "sessionId");
+        return enqueue(new Write(Kind.DELETE, sessionId, null, null));
+    }
+
+    /**
+     * Returns a future that completes once every write queued before this
+     * call has been attempted. Failures are reported through the futures
+     * returned by the write methods.
+     */
+    public CompletableFuture<Void> flush() {
+        synchronized (lock) {
+            if (closed) {
+                return CompletableFuture.completedFuture(null);
+            }
+        }
+        // The writer thread drains the whole queue before it runs the next task.
+        return CompletableFuture.runAsync(() -> { }, executor);
+    }
+
+    /**
+     * Returns queue depth, batching and commit latency statistics.
+     */
+    public ChatWriteMetrics metrics() {
+        synchronized (lock) {
+            return new ChatWriteMetrics(queue.size(), messages, sessionUpdates, coalesced, transactions, failed,
+                largestBatch, lastCommitMillis, maxCommitMillis);
+        }
+    }
+
+    /**
+     * Rejects further writes, stores what is still queued and stops the
+     * writer thread. Waits up to ten seconds for the queue to drain.
+     */
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        try {
+            executor.submit(() -> { }).get(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            LOGGER.log(Level.WARNING, "Interrupted while writing queued chat history", ex);
+        } catch (ExecutionException | TimeoutException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to write queued chat history on close", ex);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private CompletableFuture<Void> enqueue(final Write write) {
+        synchronized (lock) {
+            if (closed) {
+                throw new IllegalStateException("Chat write queue is closed");
+            }
+            queue.add(write);
+            if (!draining) {
+                draining = true;
+                executor.execute(this::drain);
+            }
+        }
+        return write.done.copy();
+    }
+
+    /**
+     * Writes batches until the queue is empty. Runs on the writer thread only.
+     */
+    private void drain() {
+        while (true) {
+            final List<Write> batch = new ArrayList<>();
+            synchronized (lock) {
+                while (batch.size() < MAX_BATCH && !queue.isEmpty()) {
+                    batch.add(queue.poll());
+                }
+                if (batch.isEmpty()) {
+                    draining = false;
+                    return;
+                }
+            }
+            try {
+                commit(batch);
+                batch.forEach(write -> write.done.complete(null));
+            } catch (SQLException | RuntimeException ex) {
+                if (batch.size() == 1) {
+                    fail(batch.get(0), ex);
+                    continue;
+                }
+                LOGGER.log(Level.WARNING, "Failed to store " + batch.size()
+                    + " chat writes together, retrying one by one", ex);
+                for (Write write : batch) {
+                    try {
+                        commit(List.of(write));
+                        write.done.complete(null);
+                    } catch (SQLException | RuntimeException single) {
+                        fail(write, single);
+                    }
+                }
+            }
+        }
+    }
+
+    private void commit(final List<Write> batch) throws SQLException {
+        final Map<UUID, ChatSession> sessions = new LinkedHashMap<>();
+        long batchMessages = 0;
+        long batchCoalesced = 0;
+        final long started = System.nanoTime();
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                for (Write write : batch) {
+                    switch (write.kind) {
+                        case CREATE -> historyService.insertSession(connection, write.session);
+                        case MESSAGE -> {
+                            historyService.insertMessage(connection, write.sessionId, write.message);
+                            batchMessages++;
+                        }
+                        case UPDATE -> { }
+                        case DELETE -> {
+                            if (sessions.remove(write.sessionId) != null) {
+                                batchCoalesced++;
+                            }
+                            historyService.deleteSession(connection, write.sessionId);
+                        }
+                    }
+                    if (write.kind != Kind.CREATE && write.session != null
+                        && sessions.put(write.sessionId, write.session) != null) {
+                        batchCoalesced++;
+                    }
+                }
+                for (ChatSession session : sessions.values()) {
+                    historyService.updateSession(connection, session);
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException inner) {
+                connection.rollback();
+                throw inner;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } finally {
+            synchronized (lock) {
+                transactions++;
+                lastCommitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                maxCommitMillis = Math.max(maxCommitMillis, lastCommitMillis);
+            }
+        }
+        synchronized (lock) {
+            messages += batchMessages;
+            sessionUpdates += sessions.size();
+            coalesced += batchCoalesced;
+            largestBatch = Math.max(largestBatch, batch.size());
+        }
+    }
+
+    private void fail(final Write write, final Exception cause) {
+        LOGGER.log(Level.SEVERE, "Failed to store chat " + write.kind.name().toLowerCase(Locale.ROOT) + " for session "
+            + write.sessionId, cause);
+        synchronized (lock) {
+            failed++;
+        }
+        write.done.completeExceptionally(new IllegalStateException("Failed to store chat history", cause));
+    }
+
+    private static ChatSession snapshot(final ChatSession session) {
+        return new ChatSession(session.getId(), session.getDefaultTitle(), session.getTitle(),
+            session.isAutoTitle(), session.getCreatedAt(), session.getUpdatedAt(), session.getModelName());
+    }
+
+    private enum Kind {
+        CREATE,
+        MESSAGE,
+        UPDATE,
+        DELETE
+    }
+
+    /**
+     * One queued write. {@code session} is a detached copy of the session
+     * metadata at the time of the call, {@code null} for deletions.
+     */
+    private static final class Write {
+        private final Kind kind;
+        private final UUID sessionId;
+        private final ChatMessage message;
+        private final ChatSession session;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        private Write(final Kind kind, final UUID sessionId, final ChatMessage message, final ChatSession session) {
+            this.kind = kind;
+            this.sessionId = sessionId;
+            this.message = message;
+            this.session = session;
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "smartdesk-chat-writer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.smartdesk.core.chat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Selects the part of a conversation that is sent to the model.
+ * <p>
+ * System messages are pinned and always included. The newest message is
+ * always included as well; older messages are then added newest first as a
+ * contiguous rolling window until the token budget is exhausted. Token counts
+ * come from a pluggable {@link TokenEstimator} and are cached per message, so
+ * a long session is not re-estimated in full on every turn.
+ * </p>
+ */
+public final class ContextWindowBuilder {
+
+    private static final Logger LOGGER = Logger.getLogger(ContextWindowBuilder.class.getName());
+
+    /**
+     * Messages selected for one request.
+     *
+     * @param messages         messages to send, in conversation order
+     * @param estimatedTokens  estimated size of {@code messages}
+     * @param droppedMessages  number of history messages left out
+     * @param droppedTokens    estimated size of the messages left out
+     */
+    public record ContextWindow(List<ChatMessage> messages, int estimatedTokens,
+                                int droppedMessages, int droppedTokens) {
+
+        public ContextWindow {
+            messages = List.copyOf(messages);
+        }
+    }
+
+    private final TokenEstimator estimator;
+    private final int tokenBudget;
+    private final Map<ChatMessage, Integer> estimates = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private long requests;
+    private int lastSentMessages;
+    private int lastSentTokens;
+    private int lastDroppedMessages;
+    private int lastDroppedTokens;
+    private long totalDroppedMessages;
+    private long totalDroppedTokens;
+    private int maxSentTokens;
+
+    public ContextWindowBuilder(final TokenEstimator estimator, final int tokenBudget) {
+        this.estimator = Objects.requireNonNull(estimator, "estimator");
+        if (tokenBudget <= 0) {
+            throw new IllegalArgumentException("tokenBudget must be positive");
+        }
+        this.tokenBudget = tokenBudget;
+    }
+
+    public int getTokenBudget() {
+        return tokenBudget;
+    }
+
+    /**
+     * Fits the supplied history into the token budget.
+     *
+     * @param history full conversation, oldest first; the last element is the message being sent
+     * @return the selected window together with what was dropped
+     */
+    public ContextWindow build(final List<ChatMessage> history) {
+        Objects.requireNonNull(history, "history");
+        final int size = history.size();
+        final boolean[] keep = new boolean[size];
+        int used = 0;
+        for (int i = 0; i < size; i++) {
+            ChatMessage message = history.get(i);
+            if (message.getSender() == ChatMessage.Sender.SYSTEM || i == size - 1) {
+                keep[i] = true;
+                used += cost(message);
+            }
+        }
+        for (int i = size - 2; i >= 0; i--) {
+            ChatMessage message = history.get(i);
+            if (keep[i]) {
+                continue;
+            }
+            int cost = cost(message);
+            if (used + cost > tokenBudget) {
+                break;
+            }
+            keep[i] = true;
+            used += cost;
+        }
+
+        final List<ChatMessage> selected = new ArrayList<>();
+        int droppedMessages = 0;
+        int droppedTokens = 0;
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                selected.add(history.get(i));
+            } else {
+                droppedMessages++;
+                droppedTokens += cost(history.get(i));
+            }
+        }
+        record(selected.size(), used, droppedMessages, droppedTokens);
+        return new ContextWindow(selected, used, droppedMessages, droppedTokens);
+    }
+
+    /**
+     * Returns a snapshot of the trimming statistics.
+     */
+    public synchronized ContextWindowMetrics metrics() {
+        return new ContextWindowMetrics(requests, tokenBudget, lastSentMessages, lastSentTokens,
+            lastDroppedMessages, lastDroppedTokens, totalDroppedMessages, totalDroppedTokens, maxSentTokens);
+    }
+
+    private int cost(final ChatMessage message) {
+        return estimates.computeIfAbsent(message, estimator::estimate);
+    }
+
+    private synchronized void record(final int sentMessages, final int sentTokens,
+                                     final int droppedMessages, final int droppedTokens) {
+        requests++;
+        lastSentMessages = sentMessages;
+        lastSentTokens = sentTokens;
+        lastDroppedMessages = droppedMessages;
+        lastDroppedTokens = droppedTokens;
+        totalDroppedMessages += droppedMessages;
+        totalDroppedTokens += droppedTokens;
+        maxSentTokens = Math.max(maxSentTokens, sentTokens);
+        if (droppedMessages > 0) {
+            LOGGER.log(Level.FINE, "Context window: sent {0} messages (~{1} tokens), dropped {2} (~{3} tokens)",
+                new Object[]{sentMessages, sentTokens, droppedMessages, droppedTokens});
+        }
+    }
+}
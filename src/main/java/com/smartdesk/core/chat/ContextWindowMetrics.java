@@ -0,0 +1,27 @@
+package com.smartdesk.core.chat;
+
+/**
+ * Snapshot of the trimming performed by {@link ContextWindowBuilder}.
+ *
+ * @param requests               number of context windows built
+ * @param tokenBudget            configured budget in estimated tokens
+ * @param lastSentMessages       messages included in the most recent request
+ * @param lastSentTokens         estimated tokens of the most recent request
+ * @param lastDroppedMessages    messages left out of the most recent request
+ * @param lastDroppedTokens      estimated tokens left out of the most recent request
+ * @param totalDroppedMessages   messages left out across all requests
+ * @param totalDroppedTokens     estimated tokens left out across all requests
+ * @param maxSentTokens          largest request observed
+ */
+public record ContextWindowMetrics(
+    long requests,
+    int tokenBudget,
+    int lastSentMessages,
+    int lastSentTokens,
+    int lastDroppedMessages,
+    int lastDroppedTokens,
+    long totalDroppedMessages,
+    long totalDroppedTokens,
+    int maxSentTokens
+) {
+}
@@ -0,0 +1,65 @@
+package com.smartdesk.core.chat;
+
+/**
+ * Estimates how many model tokens a piece of text occupies. Implementations
+ * do not need to be exact; {@link ContextWindowBuilder} only uses the numbers
+ * to keep requests below a budget.
+ */
+@FunctionalInterface
+public interface TokenEstimator {
+
+    /** Approximate framing cost of one message (role, separators). */
+    int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    /**
+     * Approximate cost of one attachment. Providers without file APIs receive
+     * up to 4000 characters of extracted text inline.
+     */
+    int ATTACHMENT_TOKENS = 1_000;
+
+    /**
+     * Returns the estimated number of tokens for the given text.
+     */
+    int estimate(String text);
+
+    /**
+     * Returns the estimated number of tokens a message adds to a request.
+     */
+    default int estimate(final ChatMessage message) {
+        if (message == null) {
+            return 0;
+        }
+        return MESSAGE_OVERHEAD_TOKENS
+            + estimate(message.getContent())
+            + message.getAttachments().size() * ATTACHMENT_TOKENS;
+    }
+
+    /**
+     * Tokenizer-free estimator: every CJK character counts as one token, other
+     * text as one token per four characters. This matches BPE vocabularies of
+     * the supported providers closely enough for budgeting.
+     */
+    static TokenEstimator heuristic() {
+        return text -> {
+            if (text == null || text.isEmpty()) {
+                return 0;
+            }
+            int cjk = 0;
+            int other = 0;
+            for (int i = 0; i < text.length(); ) {
+                int codePoint = text.codePointAt(i);
+                Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+                if (script == Character.UnicodeScript.HAN
+                    || script == Character.UnicodeScript.HIRAGANA
+                    || script == Character.UnicodeScript.KATAKANA
+                    || script == Character.UnicodeScript.HANGUL) {
+                    cjk++;
+                } else {
+                    other++;
+                }
+                i += Character.charCount(codePoint);
+            }
+            return cjk + (other + 3) / 4;
+        };
+    }
+}
@@ -0,0 +1,205 @@
+package com.smartdesk.core.chat.offline;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Aho-Corasick automaton finding every occurrence of a fixed set of patterns
+ * in a single pass over the text, independent of the number of patterns.
+ * <p>
+ * The trie edges of all states live in one hash map keyed by state and
+ * character, which keeps large CJK pattern sets compact. Each state has a
+ * failure link to the longest proper suffix that is also a trie path and a
+ * dictionary link to the nearest such suffix that ends a pattern, so
+ * reporting matches costs time proportional to their number. Instances are
+ * immutable and thread-safe; matching is case-sensitive.
+ * </p>
+ *
+ * @param <T> value attached to each pattern
+ */
+public final class AhoCorasickMatcher<T> {
+
+    private static final int ROOT = 0;
+    private static final int NONE = -1;
+
+    private final Map<Long, Integer> edges;
+    private final int[] failure;
+    private final int[] dictionaryLink;
+    private final int[] depth;
+    private final List<List<T>> values;
+
+    private AhoCorasickMatcher(final Builder<T> builder) {
+        this.edges = builder.edges;
+        final int states = builder.values.size();
+        this.depth = builder.depth.stream().mapToInt(Integer::intValue).toArray();
+        this.values = builder.values;
+        this.failure = new int[states];
+        this.dictionaryLink = new int[states];
+        Arrays.fill(dictionaryLink, NONE);
+        linkStates(builder.children);
+    }
+
+    public static <T> Builder<T> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Occurrence of a pattern at {@code [start, end)} of the text.
+     */
+    public record Match<T>(int start, int end, T value) {
+
+        public int length() {
+            return end - start;
+        }
+    }
+
+    /**
+     * Returns all occurrences, including overlapping ones, ordered by end
+     * position and, for the same end, from the longest to the shortest.
+     */
+    public List<Match<T>> findAll(final CharSequence text) {
+        Objects.requireNonNull(text, "text");
+        final List<Match<T>> matches = new ArrayList<>();
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            int output = values.get(state).isEmpty() ? dictionaryLink[state] : state;
+            while (output != NONE) {
+                final int end = i + 1;
+                final int start = end - depth[output];
+                for (T value : values.get(output)) {
+                    matches.add(new Match<>(start, end, value));
+                }
+                output = dictionaryLink[output];
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Returns whether any pattern occurs in the text.
+     */
+    public boolean containsAny(final CharSequence text) {
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            if (!values.get(state).isEmpty() || dictionaryLink[state] != NONE) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int stateCount() {
+        return failure.length;
+    }
+
+    private int next(final int state, final char c) {
+        int current = state;
+        while (true) {
+            final Integer target = edges.get(key(current, c));
+            if (target != null) {
+                return target;
+            }
+            if (current == ROOT) {
+                return ROOT;
+            }
+            current = failure[current];
+        }
+    }
+
+    /**
+     * Computes failure and dictionary links breadth-first, so the links of
+     * shallower states are final when a state is processed.
+     */
+    private void linkStates(final List<Map<Character, Integer>> children) {
+        final Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : children.get(ROOT).values()) {
+            failure[child] = ROOT;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            for (Map.Entry<Character, Integer> edge : children.get(state).entrySet()) {
+                final int child = edge.getValue();
+                failure[child] = next(failure[state], edge.getKey());
+                final int suffix = failure[child];
+                dictionaryLink[child] = values.get(suffix).isEmpty() ? dictionaryLink[suffix] : suffix;
+                queue.add(child);
+            }
+        }
+    }
+
+    private static long key(final int state, final char c) {
+        return ((long) state << 16) | c;
+    }
+
+    /**
+     * Collects patterns before the automaton is built. The same pattern may
+     * be added several times with different values. A builder can build only
+     * once.
+     */
+    public static final class Builder<T> {
+
+        private final Map<Long, Integer> edges = new HashMap<>();
+        private final List<Map<Character, Integer>> children = new ArrayList<>();
+        private final List<Integer> depth = new ArrayList<>();
+        private final List<List<T>> values = new ArrayList<>();
+        private boolean built;
+
+        private Builder() {
+            addState(0);
+        }
+
+        public Builder<T> add(final String pattern, final T value) {
+            Objects.requireNonNull(pattern, "pattern");
+            Objects.requireNonNull(value, "value");
+            checkNotBuilt();
+            if (pattern.isEmpty()) {
+                throw new IllegalArgumentException("pattern must not be empty");
+            }
+            int state = ROOT;
+            for (int i = 0; i < pattern.length(); i++) {
+                final char c = pattern.charAt(i);
+                Integer child = children.get(state).get(c);
+                if (child == null) {
+                    child = addState(i + 1);
+                    children.get(state).put(c, child);
+                    edges.put(key(state, c), child);
+                }
+                state = child;
+            }
+            if (values.get(state).isEmpty()) {
+                values.set(state, new ArrayList<>(1));
+            }
+            values.get(state).add(value);
+            return this;
+        }
+
+        public AhoCorasickMatcher<T> build() {
+            checkNotBuilt();
+            built = true;
+            return new AhoCorasickMatcher<>(this);
+        }
+
+        private void checkNotBuilt() {
+            if (built) {
+                throw new IllegalStateException("matcher already built");
+            }
+        }
+
+        private int addState(final int stateDepth) {
+            children.add(new HashMap<>(4));
+            depth.add(stateDepth);
+            values.add(Collections.emptyList());
+            return values.size() - 1;
+        }
+    }
+}
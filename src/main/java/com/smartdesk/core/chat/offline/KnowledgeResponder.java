@@ -0,0 +1,47 @@
+package com.smartdesk.core.chat.offline;
+
+import com.smartdesk.core.search.KnowledgeHit;
+import com.smartdesk.core.search.KnowledgeIndex;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Answers offline questions with the user's own notes and tasks found in the
+ * {@link KnowledgeIndex}.
+ */
+final class KnowledgeResponder {
+
+    static final int MAX_HITS = 3;
+
+    /** Share of the question's terms a note or task must contain to be cited. */
+    static final double MIN_COVERAGE = 0.6;
+
+    private final KnowledgeIndex index;
+
+    KnowledgeResponder(final KnowledgeIndex index) {
+        this.index = Objects.requireNonNull(index, "index");
+    }
+
+    /**
+     * @return a reply citing the matching notes and tasks, or empty if none matches well
+     */
+    Optional<String> respond(final String message) {
+        List<KnowledgeHit> hits = index.search(message, MAX_HITS, MIN_COVERAGE);
+        if (hits.isEmpty()) {
+            return Optional.empty();
+        }
+        StringBuilder reply = new StringBuilder("在你的笔记和任务中找到以下相关内容：");
+        for (int i = 0; i < hits.size(); i++) {
+            KnowledgeHit hit = hits.get(i);
+            reply.append('\n').append(i + 1).append(". ")
+                .append(hit.source() == KnowledgeHit.Source.NOTE ? "【笔记】" : "【任务】")
+                .append(hit.title());
+            if (!hit.excerpt().isEmpty()) {
+                reply.append("：").append(hit.excerpt());
+            }
+        }
+        return Optional.of(reply.toString());
+    }
+}
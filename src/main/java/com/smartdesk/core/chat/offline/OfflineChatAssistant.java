@@ -4,7 +4,9 @@ import com.smartdesk.core.chat.AttachmentPromptFormatter;
 import com.smartdesk.core.chat.ChatAssistant;
 import com.smartdesk.core.chat.ChatHistory;
 import com.smartdesk.core.chat.ChatMessage;
+import com.smartdesk.core.search.KnowledgeIndex;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -13,10 +15,15 @@ import java.util.function.Consumer;
 
 /**
  * Chat assistant implementation backed by the {@link RuleBasedResponder} for offline use cases.
+ * Summary requests are answered by the {@link OfflineSummaryResponder}; other
+ * messages are first looked up in the user's notes and tasks when a
+ * {@link KnowledgeIndex} is available.
  */
 public final class OfflineChatAssistant implements ChatAssistant {
 
     private final RuleBasedResponder responder;
+    private final OfflineSummaryResponder summaryResponder = new OfflineSummaryResponder();
+    private final KnowledgeResponder knowledgeResponder;
     private final ChatHistory history;
     private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
         Thread thread = new Thread(r, "offline-assistant-thread");
@@ -25,18 +32,36 @@ public final class OfflineChatAssistant implements ChatAssistant {
     });
 
     public OfflineChatAssistant(final ChatHistory history) {
+        this(history, null);
+    }
+
+    /**
+     * @param knowledgeIndex index of the user's notes and tasks, or {@code null} to answer from rules only
+     */
+    public OfflineChatAssistant(final ChatHistory history, final KnowledgeIndex knowledgeIndex) {
         this.history = Objects.requireNonNull(history, "history");
-        this.responder = new RuleBasedResponder();
+        this.responder = RuleBasedResponder.shared();
+        this.knowledgeResponder = knowledgeIndex == null ? null : new KnowledgeResponder(knowledgeIndex);
     }
 
     @Override
     public void sendMessage(final ChatMessage userMessage, final Consumer<ChatMessage> onSuccess,
                             final Consumer<Throwable> onFailure) {
         Objects.requireNonNull(userMessage, "userMessage");
+        List<ChatMessage> earlier = List.copyOf(history.getMessages());
         history.add(userMessage);
         executor.submit(() -> {
             try {
-                String reply = responder.respond(AttachmentPromptFormatter.buildContentWithAttachments(userMessage));
+                String content = AttachmentPromptFormatter.buildContentWithAttachments(userMessage);
+                String reply;
+                if (summaryResponder.isSummaryRequest(userMessage.getContent())) {
+                    reply = summaryResponder.respond(content, earlier).orElseGet(() -> responder.respond(content));
+                } else if (knowledgeResponder != null) {
+                    reply = knowledgeResponder.respond(userMessage.getContent())
+                        .orElseGet(() -> responder.respond(content));
+                } else {
+                    reply = responder.respond(content);
+                }
                 ChatMessage response = ChatMessage.of(ChatMessage.Sender.ASSISTANT, reply);
                 history.add(response);
                 onSuccess.accept(response);
@@ -0,0 +1,24 @@
+package com.smartdesk.core.chat.offline;
+
+import java.util.List;
+
+/**
+ * One canned reply of the {@link RuleBasedResponder}, as stored in the rule
+ * file.
+ *
+ * @param keywords  phrases that trigger the rule, matched case-insensitively
+ * @param response  reply text
+ * @param priority  rules with a higher priority win over other matching rules
+ */
+public record OfflineRule(List<String> keywords, String response, int priority) {
+
+    public OfflineRule {
+        if (keywords == null || keywords.isEmpty() || keywords.stream().anyMatch(k -> k == null || k.isBlank())) {
+            throw new IllegalArgumentException("rule keywords must not be empty");
+        }
+        if (response == null || response.isBlank()) {
+            throw new IllegalArgumentException("rule response must not be empty");
+        }
+        keywords = List.copyOf(keywords);
+    }
+}
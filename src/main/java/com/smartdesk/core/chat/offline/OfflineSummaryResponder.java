@@ -0,0 +1,105 @@
+package com.smartdesk.core.chat.offline;
+
+import com.smartdesk.core.chat.ChatMessage;
+import com.smartdesk.core.summary.ExtractiveSummarizer;
+import com.smartdesk.core.summary.KeywordExtractor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Answers "总结" requests without a network connection using the extractive
+ * summariser and keyword extractor. The text after the request, including
+ * extracted attachment text, is summarised; a bare request summarises the
+ * recent conversation instead.
+ */
+final class OfflineSummaryResponder {
+
+    private static final List<String> TRIGGERS = List.of("总结", "摘要", "summarize", "summarise", "summary");
+
+    /** Material shorter than this is not worth summarising. */
+    static final int MIN_MATERIAL_CHARS = 40;
+
+    /** Upper bound of conversation text summarised for a bare request. */
+    static final int MAX_HISTORY_CHARS = 20_000;
+
+    /** Longest leading phrase treated as the request itself, e.g. "请帮我总结一下：". */
+    private static final int MAX_COMMAND_CHARS = 24;
+
+    private final ExtractiveSummarizer summarizer = new ExtractiveSummarizer();
+    private final KeywordExtractor keywordExtractor = new KeywordExtractor();
+
+    boolean isSummaryRequest(final String message) {
+        if (message == null) {
+            return false;
+        }
+        final String lower = message.toLowerCase(Locale.ROOT);
+        return TRIGGERS.stream().anyMatch(lower::contains);
+    }
+
+    /**
+     * @param message content of the request including attachment text
+     * @param earlier conversation before the request, oldest first
+     * @return the reply, or empty if there is nothing to summarise
+     */
+    Optional<String> respond(final String message, final List<ChatMessage> earlier) {
+        String material = stripCommand(message);
+        boolean conversation = false;
+        if (material.strip().length() < MIN_MATERIAL_CHARS) {
+            material = recentConversation(earlier);
+            conversation = true;
+        }
+        if (material.strip().length() < MIN_MATERIAL_CHARS) {
+            return Optional.empty();
+        }
+        final String summary = summarizer.summarize(material, ExtractiveSummarizer.DEFAULT_SENTENCES);
+        if (summary.isBlank()) {
+            return Optional.empty();
+        }
+        final List<String> keywords = keywordExtractor.extract(material, KeywordExtractor.DEFAULT_KEYWORDS);
+        final StringBuilder reply = new StringBuilder(conversation ? "最近对话的离线摘要：\n" : "离线摘要：\n");
+        for (String sentence : summary.split("\n")) {
+            reply.append("• ").append(sentence).append('\n');
+        }
+        if (!keywords.isEmpty()) {
+            reply.append("\n关键词：").append(String.join("、", keywords));
+        }
+        return Optional.of(reply.toString().stripTrailing());
+    }
+
+    /**
+     * Drops a short leading request such as "总结：" or "请帮我总结一下下面的内容" so it
+     * does not end up in the summary.
+     */
+    private String stripCommand(final String message) {
+        int end = -1;
+        for (int i = 0; i < message.length() && i <= MAX_COMMAND_CHARS; i++) {
+            final char c = message.charAt(i);
+            if (c == '：' || c == ':' || c == '\n' || c == '。' || c == '，' || c == ',') {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0 || !isSummaryRequest(message.substring(0, end))) {
+            return message;
+        }
+        return message.substring(end + 1);
+    }
+
+    private static String recentConversation(final List<ChatMessage> earlier) {
+        final Deque<String> parts = new ArrayDeque<>();
+        int length = 0;
+        for (int i = earlier.size() - 1; i >= 0 && length < MAX_HISTORY_CHARS; i--) {
+            final ChatMessage message = earlier.get(i);
+            if (message.getSender() == ChatMessage.Sender.SYSTEM) {
+                continue;
+            }
+            parts.addFirst(message.getContent());
+            length += message.getContent().length() + 1;
+        }
+        return String.join("\n", parts);
+    }
+}
@@ -1,38 +1,157 @@
 package com.smartdesk.core.chat.offline;
 
-import java.util.LinkedHashMap;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Lightweight rule based responder for offline usage.
+ * <p>
+ * Rules come from the bundled {@code offline-rules.json} plus, if present,
+ * {@code ~/.smartdesk/offline-rules.json}. All keywords are compiled into one
+ * {@link AhoCorasickMatcher}, so a reply costs a single pass over the message
+ * however many rules are installed. When several rules match, the one with
+ * the highest priority wins, then the one with the longest matching keyword,
+ * then the one listed first.
+ * </p>
  */
 public final class RuleBasedResponder {
 
-    private final Map<String, String> keywordResponses = new LinkedHashMap<>();
+    private static final Logger LOGGER = Logger.getLogger(RuleBasedResponder.class.getName());
+
+    private static final String DEFAULT_RESOURCE = "/com/smartdesk/resources/offline-rules.json";
+    private static final Path USER_RULES_FILE =
+        Paths.get(System.getProperty("user.home"), ".smartdesk", "offline-rules.json");
+
+    private static volatile RuleBasedResponder shared;
+
+    private final List<OfflineRule> rules;
+    private final AhoCorasickMatcher<Integer> matcher;
 
     public RuleBasedResponder() {
-        keywordResponses.put("你好", "你好，我是你的智能办公助手，有什么可以帮你吗？");
-        keywordResponses.put("任务", "你可以在任务面板中创建、编辑和跟踪任务，必要时我也可以帮你总结。");
-        keywordResponses.put("总结", "总结功能可以帮助你快速梳理重点，目前仍在迭代中。");
-        keywordResponses.put("帮助", "如果需要帮助，可以告诉我你的问题，我会给出操作提示。");
-        keywordResponses.put("会议", "建议提前梳理议程并准备纪要模版，这样可以提升会议效率。");
-        keywordResponses.put("提醒", "设置提醒可以帮助你按时完成关键事项，别忘了为重要任务设置提醒哦！");
+        this(loadDefaultRules());
+    }
+
+    public RuleBasedResponder(final List<OfflineRule> rules) {
+        this.rules = List.copyOf(Objects.requireNonNull(rules, "rules"));
+        AhoCorasickMatcher.Builder<Integer> builder = AhoCorasickMatcher.builder();
+        for (int i = 0; i < this.rules.size(); i++) {
+            for (String keyword : this.rules.get(i).keywords()) {
+                builder.add(keyword.toLowerCase(Locale.ROOT), i);
+            }
+        }
+        this.matcher = builder.build();
+    }
+
+    /**
+     * Returns the responder for the default rule files, building the
+     * automaton on first use.
+     */
+    public static RuleBasedResponder shared() {
+        RuleBasedResponder instance = shared;
+        if (instance == null) {
+            synchronized (RuleBasedResponder.class) {
+                instance = shared;
+                if (instance == null) {
+                    instance = new RuleBasedResponder();
+                    shared = instance;
+                }
+            }
+        }
+        return instance;
     }
 
     public String respond(final String message) {
         if (message == null || message.isBlank()) {
             return "我没有听清，可以再说一次吗？";
         }
-        String lower = message.toLowerCase(Locale.CHINA);
-        for (Map.Entry<String, String> entry : keywordResponses.entrySet()) {
-            if (lower.contains(entry.getKey())) {
-                return entry.getValue();
-            }
+        List<OfflineRule> matched = match(message);
+        if (!matched.isEmpty()) {
+            return matched.get(0).response();
         }
+        String lower = message.toLowerCase(Locale.ROOT);
         if (lower.endsWith("吗") || lower.endsWith("?")) {
             return "这是个好问题，我会继续学习，稍后也可以尝试在线模式获取更详细的答案。";
         }
         return "我已经记录下来了，如需更深入的建议可以切换到在线模式与大模型对话。";
     }
+
+    /**
+     * Returns every rule with a keyword in the message, best first.
+     */
+    public List<OfflineRule> match(final String message) {
+        if (message == null || message.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, Integer> longestMatch = new HashMap<>();
+        for (AhoCorasickMatcher.Match<Integer> match : matcher.findAll(message.toLowerCase(Locale.ROOT))) {
+            longestMatch.merge(match.value(), match.length(), Math::max);
+        }
+        List<Integer> ranked = new ArrayList<>(longestMatch.keySet());
+        ranked.sort(Comparator.<Integer>comparingInt(index -> rules.get(index).priority()).reversed()
+            .thenComparing(longestMatch::get, Comparator.reverseOrder())
+            .thenComparing(Comparator.naturalOrder()));
+        List<OfflineRule> result = new ArrayList<>(ranked.size());
+        for (Integer index : ranked) {
+            result.add(rules.get(index));
+        }
+        return result;
+    }
+
+    public int ruleCount() {
+        return rules.size();
+    }
+
+    /**
+     * Reads a JSON array of rules.
+     *
+     * @throws IllegalArgumentException if the content is not a valid rule list
+     */
+    public static List<OfflineRule> readRules(final Reader reader) {
+        Objects.requireNonNull(reader, "reader");
+        try {
+            List<OfflineRule> parsed = new Gson().fromJson(reader, new TypeToken<List<OfflineRule>>() { }.getType());
+            return parsed == null ? List.of() : parsed;
+        } catch (RuntimeException ex) {
+            // Besides JsonParseException, Gson reports a rejected OfflineRule as a plain runtime exception.
+            throw new IllegalArgumentException("Invalid offline rule file", ex);
+        }
+    }
+
+    private static List<OfflineRule> loadDefaultRules() {
+        List<OfflineRule> loaded = new ArrayList<>();
+        try (InputStream in = RuleBasedResponder.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing default rule resource " + DEFAULT_RESOURCE);
+            }
+            loaded.addAll(readRules(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to read default offline rules", ex);
+        }
+        if (Files.isRegularFile(USER_RULES_FILE)) {
+            try (Reader reader = Files.newBufferedReader(USER_RULES_FILE, StandardCharsets.UTF_8)) {
+                loaded.addAll(readRules(reader));
+            } catch (IOException | IllegalArgumentException ex) {
+                LOGGER.log(Level.WARNING, "Ignoring unreadable offline rules in " + USER_RULES_FILE, ex);
+            }
+        }
+        return loaded;
+    }
 }
@@ -7,42 +7,37 @@ import com.google.gson.JsonObject;
 import com.smartdesk.core.chat.ChatMessage;
 import com.smartdesk.core.config.AppConfig;
 
+import java.io.InputStream;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Convenience base class encapsulating the HTTP/JSON interaction pattern for chat completion APIs.
  */
 abstract class AbstractJsonAiClient implements AiModelClient {
 
-    private final HttpClient httpClient = HttpClient.newBuilder()
-        .connectTimeout(Duration.ofSeconds(15))
-        .build();
+    private final AppConfig.Provider provider;
+    private final HttpTransport transport;
     private final Gson gson = new Gson();
 
+    protected AbstractJsonAiClient(final AppConfig.Provider provider, final HttpTransport transport) {
+        this.provider = Objects.requireNonNull(provider, "provider");
+        this.transport = Objects.requireNonNull(transport, "transport");
+    }
+
     @Override
     public String sendMessage(final AppConfig config, final List<ChatMessage> history,
                               final ChatMessage userMessage) throws AiClientException {
         Objects.requireNonNull(userMessage, "userMessage");
         try {
-            String endpoint = resolveEndpoint(config.getBaseUrl());
-            if (endpoint.isEmpty()) {
-                throw new AiClientException("AI 接口地址未配置");
-            }
-            HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(endpoint))
-                .timeout(Duration.ofSeconds(60))
-                .header("Content-Type", "application/json")
-                .header("Authorization", "Bearer " + config.getApiKey())
-                .POST(HttpRequest.BodyPublishers.ofString(buildPayload(config, history)))
-                .build();
-
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpRequest request = buildRequest(config, history, false);
+            HttpResponse<String> response = transport.send(provider, request, HttpResponse.BodyHandlers.ofString());
             if (response.statusCode() >= 200 && response.statusCode() < 300) {
                 return parseContent(response.body());
             }
@@ -54,7 +49,66 @@ abstract class AbstractJsonAiClient implements AiModelClient {
         }
     }
 
-    private String buildPayload(final AppConfig config, final List<ChatMessage> history) {
+    /**
+     * Requests a streamed completion and forwards every {@code delta.content}
+     * fragment of the server-sent event stream to {@code onDelta}.
+     */
+    @Override
+    public String streamMessage(final AppConfig config, final List<ChatMessage> history,
+                                final ChatMessage userMessage, final Consumer<String> onDelta)
+        throws AiClientException {
+        Objects.requireNonNull(userMessage, "userMessage");
+        Objects.requireNonNull(onDelta, "onDelta");
+        try {
+            HttpRequest request = buildRequest(config, history, true);
+            HttpResponse<InputStream> response = transport.send(provider, request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                String body;
+                try (InputStream in = response.body()) {
+                    body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                throw new AiClientException("AI provider returned status " + response.statusCode() + ": " + body);
+            }
+            StringBuilder reply = new StringBuilder();
+            SseEventReader.read(response.body(), (event, data) -> {
+                if (SseEventReader.DONE_MARKER.equals(data)) {
+                    return false;
+                }
+                String delta = parseDelta(data);
+                if (!delta.isEmpty()) {
+                    reply.append(delta);
+                    onDelta.accept(delta);
+                }
+                return true;
+            });
+            return reply.toString();
+        } catch (AiClientException ex) {
+            throw ex;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AiClientException("Request was interrupted", ex);
+        } catch (Exception ex) {
+            throw new AiClientException("Failed to contact AI provider", ex);
+        }
+    }
+
+    private HttpRequest buildRequest(final AppConfig config, final List<ChatMessage> history,
+                                     final boolean stream) throws AiClientException {
+        String endpoint = resolveEndpoint(config.getBaseUrl());
+        if (endpoint.isEmpty()) {
+            throw new AiClientException("AI 接口地址未配置");
+        }
+        return HttpRequest.newBuilder()
+            .uri(URI.create(endpoint))
+            .timeout(Duration.ofSeconds(60))
+            .header("Content-Type", "application/json")
+            .header("Accept", stream ? "text/event-stream" : "application/json")
+            .header("Authorization", "Bearer " + config.getApiKey())
+            .POST(HttpRequest.BodyPublishers.ofString(buildPayload(config, history, stream)))
+            .build();
+    }
+
+    private String buildPayload(final AppConfig config, final List<ChatMessage> history, final boolean stream) {
         JsonObject payload = new JsonObject();
         payload.addProperty("model", config.getModel());
         JsonArray messages = new JsonArray();
@@ -65,6 +119,7 @@ abstract class AbstractJsonAiClient implements AiModelClient {
             messages.add(jsonMessage);
         }
         customisePayload(payload);
+        payload.addProperty("stream", stream);
         payload.add("messages", messages);
         return gson.toJson(payload);
     }
@@ -121,4 +176,29 @@ abstract class AbstractJsonAiClient implements AiModelClient {
         }
         return content.getAsString();
     }
+
+    /**
+     * Extracts the text fragment of one streamed chunk. Chunks without
+     * content (role announcements, finish reasons, usage) yield an empty string.
+     */
+    protected String parseDelta(final String chunk) throws AiClientException {
+        JsonElement parsed = gson.fromJson(chunk, JsonElement.class);
+        if (parsed == null || !parsed.isJsonObject()) {
+            throw new AiClientException("Unexpected stream chunk from AI provider");
+        }
+        JsonObject object = parsed.getAsJsonObject();
+        if (object.has("error")) {
+            throw new AiClientException("AI provider reported an error: " + object.get("error"));
+        }
+        JsonArray choices = object.getAsJsonArray("choices");
+        if (choices == null || choices.size() == 0) {
+            return "";
+        }
+        JsonObject delta = choices.get(0).getAsJsonObject().getAsJsonObject("delta");
+        if (delta == null) {
+            return "";
+        }
+        JsonElement content = delta.get("content");
+        return content == null || content.isJsonNull() ? "" : content.getAsString();
+    }
 }
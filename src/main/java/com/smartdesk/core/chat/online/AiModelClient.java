@@ -4,6 +4,8 @@ import com.smartdesk.core.chat.ChatMessage;
 import com.smartdesk.core.config.AppConfig;
 
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Client abstraction responsible for invoking concrete large language models.
@@ -20,4 +22,26 @@ public interface AiModelClient {
      * @throws AiClientException when the remote provider fails or the response is invalid
      */
     String sendMessage(AppConfig config, List<ChatMessage> history, ChatMessage userMessage) throws AiClientException;
+
+    /**
+     * Sends the conversation in streaming mode. Text fragments are passed to
+     * {@code onDelta} on the calling thread as soon as the provider emits them;
+     * the concatenated reply is returned once the stream has finished.
+     * <p>
+     * The default implementation falls back to {@link #sendMessage} and
+     * reports the complete reply as a single fragment.
+     * </p>
+     *
+     * @param onDelta consumer receiving incremental reply text
+     * @return complete assistant reply text
+     * @throws AiClientException when the remote provider fails or the stream is invalid
+     */
+    default String streamMessage(final AppConfig config, final List<ChatMessage> history,
+                                 final ChatMessage userMessage, final Consumer<String> onDelta)
+        throws AiClientException {
+        Objects.requireNonNull(onDelta, "onDelta");
+        String reply = sendMessage(config, history, userMessage);
+        onDelta.accept(reply);
+        return reply;
+    }
 }
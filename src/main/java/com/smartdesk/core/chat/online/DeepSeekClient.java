@@ -3,15 +3,24 @@ package com.smartdesk.core.chat.online;
 import com.google.gson.JsonObject;
 import com.smartdesk.core.chat.AttachmentPromptFormatter;
 import com.smartdesk.core.chat.ChatMessage;
+import com.smartdesk.core.config.AppConfig;
 
 /**
  * Client implementation targeting the DeepSeek chat completion API.
  */
 public final class DeepSeekClient extends AbstractJsonAiClient {
 
+    public DeepSeekClient() {
+        this(HttpTransport.shared());
+    }
+
+    public DeepSeekClient(final HttpTransport transport) {
+        super(AppConfig.Provider.DEEPSEEK, transport);
+    }
+
     @Override
     protected void customisePayload(final JsonObject payload) {
-        payload.addProperty("stream", false);
+        // DeepSeek accepts the OpenAI compatible payload unchanged; "stream" is set by the base class.
     }
 
     @Override
@@ -0,0 +1,241 @@
+package com.smartdesk.core.chat.online;
+
+import com.smartdesk.core.config.AppConfig;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Process-wide HTTP transport shared by all online model clients.
+ * <p>
+ * A single {@link HttpClient} negotiates HTTP/2 where the provider supports
+ * it and keeps connections alive across assistant re-creation, so changing
+ * settings no longer costs a fresh TLS handshake. The JDK connection pool is
+ * bounded through the {@code jdk.httpclient.*} system properties set by
+ * {@link #configureConnectionPool()} at startup. The client keeps the JDK default executor for
+ * its own response processing; blocking assistant and summary work runs on a
+ * separate bounded daemon pool so it can never starve the exchanges it waits
+ * on. Every exchange is recorded in per-provider
+ * {@link TransportMetrics}.
+ * </p>
+ */
+public final class HttpTransport {
+
+    private static final Logger LOGGER = Logger.getLogger(HttpTransport.class.getName());
+
+    /** Upper bound for idle HTTP/1.1 connections kept by the JDK client. */
+    public static final int MAX_POOLED_CONNECTIONS = 8;
+
+    /** Seconds an idle connection is kept open for reuse. */
+    public static final int KEEP_ALIVE_SECONDS = 300;
+
+    /** Number of threads running blocking assistant and summary requests. */
+    public static final int MAX_THREADS = 8;
+
+    private static final HttpTransport SHARED = new HttpTransport();
+
+    private final HttpClient client;
+    private final ThreadPoolExecutor executor;
+    private final Map<AppConfig.Provider, ProviderStats> stats = new EnumMap<>(AppConfig.Provider.class);
+    private final Set<String> warmedUpOrigins = ConcurrentHashMap.newKeySet();
+
+    private HttpTransport() {
+        this.executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), new DaemonThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(Duration.ofSeconds(15))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+        for (AppConfig.Provider provider : AppConfig.Provider.values()) {
+            stats.put(provider, new ProviderStats());
+        }
+    }
+
+    public static HttpTransport shared() {
+        return SHARED;
+    }
+
+    /**
+     * Bounds the JDK connection pool to {@link #MAX_POOLED_CONNECTIONS}
+     * connections kept for {@link #KEEP_ALIVE_SECONDS}, unless the user set
+     * the properties explicitly. The JDK reads them once, when the first
+     * {@link HttpClient} of the process is created, so this must run at
+     * startup before anything else touches the network.
+     */
+    public static void configureConnectionPool() {
+        setDefaultProperty("jdk.httpclient.connectionPoolSize", Integer.toString(MAX_POOLED_CONNECTIONS));
+        setDefaultProperty("jdk.httpclient.keepalive.timeout", Integer.toString(KEEP_ALIVE_SECONDS));
+    }
+
+    /**
+     * Executor for blocking background work of online assistants and the
+     * summary pipeline. It is not used by the HTTP client itself, is shared
+     * and must not be shut down by callers.
+     */
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * Sends the request and records latency to the response headers, the
+     * negotiated protocol and failures for the given provider.
+     */
+    public <T> HttpResponse<T> send(final AppConfig.Provider provider, final HttpRequest request,
+                                    final HttpResponse.BodyHandler<T> handler)
+        throws IOException, InterruptedException {
+        Objects.requireNonNull(provider, "provider");
+        final ProviderStats providerStats = stats.get(provider);
+        final long start = System.nanoTime();
+        try {
+            HttpResponse<T> response = client.send(request, handler);
+            providerStats.recordResponse(System.nanoTime() - start, response.version(), response.statusCode());
+            return response;
+        } catch (IOException | InterruptedException | RuntimeException ex) {
+            providerStats.recordFailure();
+            throw ex;
+        }
+    }
+
+    /**
+     * Opens a connection to the provider in the background so the TLS
+     * handshake is done before the first message is sent. The response is
+     * discarded. Each origin is warmed up once per process; a failed
+     * warm-up is retried on the next call.
+     */
+    public void warmUp(final AppConfig.Provider provider, final String baseUrl) {
+        if (provider == null || baseUrl == null || baseUrl.isBlank()) {
+            return;
+        }
+        final URI uri;
+        try {
+            uri = URI.create(baseUrl.trim());
+        } catch (IllegalArgumentException ex) {
+            return;
+        }
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            return;
+        }
+        final String origin = uri.getScheme().toLowerCase(Locale.ROOT) + "://"
+            + uri.getHost().toLowerCase(Locale.ROOT) + ":" + uri.getPort();
+        if (!warmedUpOrigins.add(origin)) {
+            return;
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(uri)
+            .timeout(Duration.ofSeconds(10))
+            .method("HEAD", HttpRequest.BodyPublishers.noBody())
+            .build();
+        final long start = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+            .whenComplete((response, throwable) -> {
+                if (throwable != null) {
+                    warmedUpOrigins.remove(origin);
+                    LOGGER.log(Level.FINE, "Warm-up request to " + uri.getHost() + " failed", throwable);
+                } else {
+                    stats.get(provider).recordWarmUp(System.nanoTime() - start, response.version());
+                }
+            });
+    }
+
+    /**
+     * Returns connection statistics for the provider.
+     */
+    public TransportMetrics metrics(final AppConfig.Provider provider) {
+        Objects.requireNonNull(provider, "provider");
+        return stats.get(provider).snapshot(provider);
+    }
+
+    private static void setDefaultProperty(final String key, final String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    private static final class ProviderStats {
+        private long requests;
+        private long failures;
+        private long warmUps;
+        private long http2Responses;
+        private long http1Responses;
+        private long errorResponses;
+        private long totalLatencyNanos;
+        private long maxLatencyNanos;
+        private long lastLatencyNanos;
+
+        synchronized void recordResponse(final long latencyNanos, final HttpClient.Version version, final int status) {
+            requests++;
+            countVersion(version);
+            if (status >= 400) {
+                errorResponses++;
+            }
+            totalLatencyNanos += latencyNanos;
+            maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+            lastLatencyNanos = latencyNanos;
+        }
+
+        synchronized void recordWarmUp(final long latencyNanos, final HttpClient.Version version) {
+            warmUps++;
+            countVersion(version);
+            lastLatencyNanos = latencyNanos;
+        }
+
+        synchronized void recordFailure() {
+            requests++;
+            failures++;
+        }
+
+        private void countVersion(final HttpClient.Version version) {
+            if (version == HttpClient.Version.HTTP_2) {
+                http2Responses++;
+            } else {
+                http1Responses++;
+            }
+        }
+
+        synchronized TransportMetrics snapshot(final AppConfig.Provider provider) {
+            long completed = requests - failures;
+            return new TransportMetrics(
+                provider.name(),
+                requests,
+                failures,
+                errorResponses,
+                warmUps,
+                http2Responses,
+                http1Responses,
+                completed == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos / completed),
+                TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos),
+                TimeUnit.NANOSECONDS.toMicros(lastLatencyNanos));
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable r) {
+            Thread thread = new Thread(r, "smartdesk-online-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
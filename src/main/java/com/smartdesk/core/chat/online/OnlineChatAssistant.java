@@ -3,13 +3,16 @@ package com.smartdesk.core.chat.online;
 import com.smartdesk.core.chat.ChatAssistant;
 import com.smartdesk.core.chat.ChatHistory;
 import com.smartdesk.core.chat.ChatMessage;
+import com.smartdesk.core.chat.ContextWindowBuilder;
+import com.smartdesk.core.chat.ContextWindowMetrics;
+import com.smartdesk.core.chat.TokenEstimator;
 import com.smartdesk.core.config.AppConfig;
+import com.smartdesk.core.config.ModelCatalog;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 /**
@@ -20,22 +23,44 @@ public final class OnlineChatAssistant implements ChatAssistant {
     private final ChatHistory history;
     private final AppConfig config;
     private final AiModelClient client;
-    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
-        Thread thread = new Thread(r, "online-assistant-thread");
-        thread.setDaemon(true);
-        return thread;
-    });
+    private final ContextWindowBuilder contextWindowBuilder;
+    private final Executor executor;
 
     public OnlineChatAssistant(final ChatHistory history, final AppConfig config,
                                final AiModelClient client) {
+        this(history, config, client, HttpTransport.shared().executor());
+    }
+
+    public OnlineChatAssistant(final ChatHistory history, final AppConfig config,
+                               final AiModelClient client, final Executor executor) {
+        this.executor = Objects.requireNonNull(executor, "executor");
         this.history = Objects.requireNonNull(history, "history");
         this.config = Objects.requireNonNull(config, "config");
         this.client = Objects.requireNonNull(client, "client");
+        this.contextWindowBuilder = new ContextWindowBuilder(TokenEstimator.heuristic(),
+            ModelCatalog.getContextTokenBudget(config));
+    }
+
+    /**
+     * Returns how much history was trimmed to fit the model's token budget.
+     */
+    public ContextWindowMetrics getContextMetrics() {
+        return contextWindowBuilder.metrics();
     }
 
     @Override
     public void sendMessage(final ChatMessage userMessage, final Consumer<ChatMessage> onSuccess,
                             final Consumer<Throwable> onFailure) {
+        sendMessage(userMessage, null, onSuccess, onFailure);
+    }
+
+    /**
+     * Streams the reply when a delta consumer is supplied, otherwise waits for
+     * the complete answer.
+     */
+    @Override
+    public void sendMessage(final ChatMessage userMessage, final Consumer<String> onDelta,
+                            final Consumer<ChatMessage> onSuccess, final Consumer<Throwable> onFailure) {
         Objects.requireNonNull(userMessage, "userMessage");
         if (config.getApiKey() == null || config.getApiKey().isBlank()) {
             onFailure.accept(new IllegalStateException("请先在设置中配置 API Key"));
@@ -48,7 +73,10 @@ public final class OnlineChatAssistant implements ChatAssistant {
         history.add(userMessage);
         CompletableFuture.supplyAsync(() -> {
             try {
-                return client.sendMessage(config, history.getMessages(), userMessage);
+                List<ChatMessage> context = contextWindowBuilder.build(history.getMessages()).messages();
+                return onDelta == null
+                    ? client.sendMessage(config, context, userMessage)
+                    : client.streamMessage(config, context, userMessage, onDelta);
             } catch (AiClientException ex) {
                 throw new RuntimeException(ex);
             }
@@ -66,11 +94,7 @@ public final class OnlineChatAssistant implements ChatAssistant {
 
     @Override
     public void shutdown() {
-        executor.shutdown();
-        try {
-            executor.awaitTermination(2, TimeUnit.SECONDS);
-        } catch (InterruptedException ignored) {
-            Thread.currentThread().interrupt();
-        }
+        // The executor and HTTP connections belong to the shared transport and outlive this
+        // assistant; a reply that is already in flight is still delivered to its callbacks.
     }
 }
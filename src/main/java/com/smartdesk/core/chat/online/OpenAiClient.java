@@ -9,30 +9,33 @@ import com.smartdesk.core.chat.ChatMessage;
 import com.smartdesk.core.config.AppConfig;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.time.Duration;
 import java.util.List;
 import java.util.Locale;
 import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * Client implementation targeting OpenAI providers with support for the Files API.
  */
 public final class OpenAiClient implements AiModelClient {
 
-    private final HttpClient httpClient = HttpClient.newBuilder()
-        .connectTimeout(Duration.ofSeconds(15))
-        .build();
+    private final HttpTransport transport;
     private final Gson gson = new Gson();
     private final ChatHistoryService historyService;
 
     public OpenAiClient(final ChatHistoryService historyService) {
+        this(historyService, HttpTransport.shared());
+    }
+
+    public OpenAiClient(final ChatHistoryService historyService, final HttpTransport transport) {
         this.historyService = Objects.requireNonNull(historyService, "historyService");
+        this.transport = Objects.requireNonNull(transport, "transport");
     }
 
     @Override
@@ -44,18 +47,9 @@ public final class OpenAiClient implements AiModelClient {
             throw new AiClientException("未配置 OpenAI 模型");
         }
         ensureFileIds(config, userMessage);
-        String endpoint = requireEndpoint(config.getBaseUrl(), "/responses");
-        String payload = buildPayload(config, history);
-        HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(endpoint))
-            .timeout(Duration.ofSeconds(120))
-            .header("Content-Type", "application/json")
-            .header("Authorization", "Bearer " + config.getApiKey())
-            .header("OpenAI-Beta", "assistants=v2")
-            .POST(HttpRequest.BodyPublishers.ofString(payload, StandardCharsets.UTF_8))
-            .build();
+        HttpRequest request = buildResponsesRequest(config, history, false);
         try {
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            HttpResponse<String> response = transport.send(AppConfig.Provider.CHATGPT, request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
             if (response.statusCode() >= 200 && response.statusCode() < 300) {
                 return parseResponse(response.body());
             }
@@ -68,6 +62,81 @@ public final class OpenAiClient implements AiModelClient {
         }
     }
 
+    /**
+     * Streams the reply through the Responses API. Only
+     * {@code response.output_text.delta} events carry text; failure events are
+     * turned into {@link AiClientException}s.
+     */
+    @Override
+    public String streamMessage(final AppConfig config, final List<ChatMessage> history,
+                                final ChatMessage userMessage, final Consumer<String> onDelta)
+        throws AiClientException {
+        Objects.requireNonNull(config, "config");
+        Objects.requireNonNull(history, "history");
+        Objects.requireNonNull(onDelta, "onDelta");
+        if (config.getModel() == null || config.getModel().isBlank()) {
+            throw new AiClientException("未配置 OpenAI 模型");
+        }
+        ensureFileIds(config, userMessage);
+        HttpRequest request = buildResponsesRequest(config, history, true);
+        try {
+            HttpResponse<InputStream> response = transport.send(AppConfig.Provider.CHATGPT, request, HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                String body;
+                try (InputStream in = response.body()) {
+                    body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                throw new AiClientException("OpenAI 响应异常: " + response.statusCode() + ": " + body);
+            }
+            StringBuilder reply = new StringBuilder();
+            SseEventReader.read(response.body(), (event, data) -> {
+                if (SseEventReader.DONE_MARKER.equals(data)) {
+                    return false;
+                }
+                JsonObject chunk = gson.fromJson(data, JsonObject.class);
+                String type = chunk == null || !chunk.has("type") ? event : chunk.get("type").getAsString();
+                switch (type) {
+                    case "response.output_text.delta" -> {
+                        String delta = chunk.has("delta") ? chunk.get("delta").getAsString() : "";
+                        if (!delta.isEmpty()) {
+                            reply.append(delta);
+                            onDelta.accept(delta);
+                        }
+                        return true;
+                    }
+                    case "response.completed" -> {
+                        return false;
+                    }
+                    case "error", "response.failed" -> throw new AiClientException("OpenAI 流式响应失败: " + data);
+                    default -> {
+                        return true;
+                    }
+                }
+            });
+            return reply.toString();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new AiClientException("请求被中断", ex);
+        } catch (IOException ex) {
+            throw new AiClientException("调用 OpenAI 接口失败", ex);
+        }
+    }
+
+    private HttpRequest buildResponsesRequest(final AppConfig config, final List<ChatMessage> history,
+                                              final boolean stream) throws AiClientException {
+        String endpoint = requireEndpoint(config.getBaseUrl(), "/responses");
+        String payload = buildPayload(config, history, stream);
+        return HttpRequest.newBuilder()
+            .uri(URI.create(endpoint))
+            .timeout(Duration.ofSeconds(120))
+            .header("Content-Type", "application/json")
+            .header("Accept", stream ? "text/event-stream" : "application/json")
+            .header("Authorization", "Bearer " + config.getApiKey())
+            .header("OpenAI-Beta", "assistants=v2")
+            .POST(HttpRequest.BodyPublishers.ofString(payload, StandardCharsets.UTF_8))
+            .build();
+    }
+
     private void ensureFileIds(final AppConfig config, final ChatMessage userMessage) throws AiClientException {
         if (userMessage == null || !userMessage.hasAttachments()) {
             return;
@@ -84,15 +153,15 @@ public final class OpenAiClient implements AiModelClient {
 
     private String uploadAttachment(final AppConfig config, final ChatAttachment attachment) throws AiClientException {
         String boundary = "----SmartDeskBoundary" + System.currentTimeMillis();
-        byte[] fileBytes;
+        HttpRequest.BodyPublisher fileContent;
         try {
-            fileBytes = Files.readAllBytes(attachment.getFilePath());
+            fileContent = HttpRequest.BodyPublishers.ofFile(attachment.getFilePath());
         } catch (IOException ex) {
             throw new AiClientException("读取附件失败: " + attachment.getFileName(), ex);
         }
         byte[] purposeBlock = buildPurposeBlock(boundary);
-        byte[] fileBlock = buildFileBlock(boundary, attachment, fileBytes);
-        byte[] closing = ("--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+        byte[] fileHeader = buildFileHeader(boundary, attachment);
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
         String endpoint = requireEndpoint(config.getBaseUrl(), "/files");
         HttpRequest request = HttpRequest.newBuilder()
             .uri(URI.create(endpoint))
@@ -100,10 +169,14 @@ public final class OpenAiClient implements AiModelClient {
             .header("Authorization", "Bearer " + config.getApiKey())
             .header("OpenAI-Beta", "assistants=v2")
             .header("Content-Type", "multipart/form-data; boundary=" + boundary)
-            .POST(HttpRequest.BodyPublishers.ofByteArrays(List.of(purposeBlock, fileBlock, closing)))
+            .POST(HttpRequest.BodyPublishers.concat(
+                HttpRequest.BodyPublishers.ofByteArray(purposeBlock),
+                HttpRequest.BodyPublishers.ofByteArray(fileHeader),
+                fileContent,
+                HttpRequest.BodyPublishers.ofByteArray(closing)))
             .build();
         try {
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+            HttpResponse<String> response = transport.send(AppConfig.Provider.CHATGPT, request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
             if (response.statusCode() >= 200 && response.statusCode() < 300) {
                 JsonObject parsed = gson.fromJson(response.body(), JsonObject.class);
                 if (parsed == null || !parsed.has("id")) {
@@ -127,7 +200,7 @@ public final class OpenAiClient implements AiModelClient {
         return block.getBytes(StandardCharsets.UTF_8);
     }
 
-    private byte[] buildFileBlock(final String boundary, final ChatAttachment attachment, final byte[] data) {
+    private byte[] buildFileHeader(final String boundary, final ChatAttachment attachment) {
         String mime = attachment.getMimeType() == null ? "application/octet-stream" : attachment.getMimeType();
         StringBuilder builder = new StringBuilder();
         String safeName = attachment.getFileName() == null ? "attachment" : attachment.getFileName().replace('"', '_');
@@ -136,18 +209,15 @@ public final class OpenAiClient implements AiModelClient {
             .append(safeName)
             .append("\"\r\n")
             .append("Content-Type: ").append(mime).append("\r\n\r\n");
-        byte[] header = builder.toString().getBytes(StandardCharsets.UTF_8);
-        byte[] footer = "\r\n".getBytes(StandardCharsets.UTF_8);
-        byte[] block = new byte[header.length + data.length + footer.length];
-        System.arraycopy(header, 0, block, 0, header.length);
-        System.arraycopy(data, 0, block, header.length, data.length);
-        System.arraycopy(footer, 0, block, header.length + data.length, footer.length);
-        return block;
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
     }
 
-    private String buildPayload(final AppConfig config, final List<ChatMessage> history) {
+    private String buildPayload(final AppConfig config, final List<ChatMessage> history, final boolean stream) {
         JsonObject payload = new JsonObject();
         payload.addProperty("model", config.getModel());
+        if (stream) {
+            payload.addProperty("stream", true);
+        }
         JsonArray input = new JsonArray();
         for (ChatMessage message : history) {
             JsonObject block = new JsonObject();
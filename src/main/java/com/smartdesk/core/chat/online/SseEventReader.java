@@ -0,0 +1,76 @@
+package com.smartdesk.core.chat.online;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal incremental parser for {@code text/event-stream} bodies as emitted
+ * by chat completion APIs when {@code stream} is enabled. Events are
+ * dispatched as soon as their terminating blank line has been read, so the
+ * caller sees every chunk while the provider is still generating.
+ */
+final class SseEventReader {
+
+    /** Data payload that OpenAI compatible APIs send to mark the end of a stream. */
+    static final String DONE_MARKER = "[DONE]";
+
+    /**
+     * Receives parsed events.
+     */
+    @FunctionalInterface
+    interface EventHandler {
+        /**
+         * @param event event name, {@code "message"} when the server did not send one
+         * @param data  concatenated {@code data:} lines of the event
+         * @return {@code false} to stop reading
+         */
+        boolean onEvent(String event, String data) throws AiClientException;
+    }
+
+    private SseEventReader() {
+    }
+
+    /**
+     * Reads events until the stream ends or the handler asks to stop.
+     */
+    static void read(final InputStream body, final EventHandler handler) throws IOException, AiClientException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String eventName = null;
+            StringBuilder data = new StringBuilder();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    if (data.length() > 0 && !handler.onEvent(eventName == null ? "message" : eventName, data.toString())) {
+                        return;
+                    }
+                    eventName = null;
+                    data.setLength(0);
+                    continue;
+                }
+                if (line.startsWith(":")) {
+                    continue;
+                }
+                int colon = line.indexOf(':');
+                String field = colon < 0 ? line : line.substring(0, colon);
+                String value = colon < 0 ? "" : line.substring(colon + 1);
+                if (value.startsWith(" ")) {
+                    value = value.substring(1);
+                }
+                if ("data".equals(field)) {
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(value);
+                } else if ("event".equals(field)) {
+                    eventName = value;
+                }
+            }
+            if (data.length() > 0) {
+                handler.onEvent(eventName == null ? "message" : eventName, data.toString());
+            }
+        }
+    }
+}
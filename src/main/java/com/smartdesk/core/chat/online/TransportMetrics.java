@@ -0,0 +1,29 @@
+package com.smartdesk.core.chat.online;
+
+/**
+ * Per-provider snapshot of the exchanges handled by {@link HttpTransport}.
+ *
+ * @param provider              provider name
+ * @param requests              requests sent, including failed ones
+ * @param failures              requests that ended with an I/O error or interruption
+ * @param errorResponses        responses with a status of 400 or above
+ * @param warmUps               completed connection warm-up requests
+ * @param http2Responses        exchanges that negotiated HTTP/2
+ * @param http1Responses        exchanges that fell back to HTTP/1.1
+ * @param averageLatencyMicros  average time until response headers arrived
+ * @param maxLatencyMicros      slowest time until response headers arrived
+ * @param lastLatencyMicros     latency of the most recent exchange
+ */
+public record TransportMetrics(
+    String provider,
+    long requests,
+    long failures,
+    long errorResponses,
+    long warmUps,
+    long http2Responses,
+    long http1Responses,
+    long averageLatencyMicros,
+    long maxLatencyMicros,
+    long lastLatencyMicros
+) {
+}
@@ -1,7 +1,9 @@
 package com.smartdesk.core.config;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 /**
@@ -40,6 +42,7 @@ public final class AppConfig {
     private String model = "";
     private Theme theme = Theme.LIGHT;
     private List<String> customModels = new ArrayList<>();
+    private Map<String, Integer> contextTokenBudgets = new HashMap<>();
 
     public AppConfig() {
     }
@@ -58,6 +61,7 @@ public final class AppConfig {
     public AppConfig copy() {
         AppConfig clone = new AppConfig(aiMode, provider, apiKey, baseUrl, model, theme);
         clone.setCustomModels(new ArrayList<>(getCustomModels()));
+        clone.setContextTokenBudgets(getContextTokenBudgets());
         return clone;
     }
 
@@ -116,4 +120,18 @@ public final class AppConfig {
     public void setCustomModels(final List<String> customModels) {
         this.customModels = customModels == null ? new ArrayList<>() : new ArrayList<>(customModels);
     }
+
+    /**
+     * Per-model prompt token budgets overriding the defaults of {@link ModelCatalog}.
+     */
+    public Map<String, Integer> getContextTokenBudgets() {
+        if (contextTokenBudgets == null) {
+            contextTokenBudgets = new HashMap<>();
+        }
+        return contextTokenBudgets;
+    }
+
+    public void setContextTokenBudgets(final Map<String, Integer> contextTokenBudgets) {
+        this.contextTokenBudgets = contextTokenBudgets == null ? new HashMap<>() : new HashMap<>(contextTokenBudgets);
+    }
 }
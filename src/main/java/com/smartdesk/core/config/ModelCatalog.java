@@ -35,6 +35,23 @@ public final class ModelCatalog {
         )
     );
 
+    /**
+     * Prompt token budgets for the preset models. They stay well below each
+     * model's context window because request latency grows with prompt size.
+     */
+    private static final Map<String, Integer> CONTEXT_TOKEN_BUDGETS = Map.of(
+        "gpt-4.1", 32_000,
+        "gpt-4.1-mini", 32_000,
+        "gpt-4o", 16_000,
+        "gpt-4o-mini", 16_000,
+        "gpt-3.5-turbo", 12_000,
+        "deepseek-chat", 24_000,
+        "deepseek-reasoner", 24_000
+    );
+
+    /** Budget applied to custom models without a preset or configured override. */
+    public static final int DEFAULT_CONTEXT_TOKEN_BUDGET = 8_000;
+
     private ModelCatalog() {
     }
 
@@ -47,4 +64,30 @@ public final class ModelCatalog {
         AppConfig.Provider resolved = provider == null ? AppConfig.Provider.CHATGPT : provider;
         return MODEL_PRESETS.getOrDefault(resolved, List.of());
     }
+
+    /**
+     * Returns the prompt token budget for the model selected in the given
+     * configuration. A value in {@link AppConfig#getContextTokenBudgets()}
+     * takes precedence over the built-in preset.
+     */
+    public static int getContextTokenBudget(final AppConfig config) {
+        String model = config == null || config.getModel() == null ? "" : config.getModel().trim();
+        if (config != null) {
+            Integer configured = config.getContextTokenBudgets().get(model);
+            if (configured != null && configured > 0) {
+                return configured;
+            }
+        }
+        return getContextTokenBudget(model);
+    }
+
+    /**
+     * Returns the built-in prompt token budget for a model identifier.
+     */
+    public static int getContextTokenBudget(final String model) {
+        if (model == null) {
+            return DEFAULT_CONTEXT_TOKEN_BUDGET;
+        }
+        return CONTEXT_TOKEN_BUDGETS.getOrDefault(model.trim(), DEFAULT_CONTEXT_TOKEN_BUDGET);
+    }
 }
@@ -0,0 +1,93 @@
+package com.smartdesk.core.note;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of note bodies bounded by their total length in characters.
+ * <p>
+ * Loads from the database race with writes: a reader may fetch a body, a
+ * writer then stores a newer one, and the reader's stale copy must not
+ * overwrite it. Every write bumps a generation counter, and
+ * {@link #putLoaded} only stores a body when no write happened since the
+ * caller took {@link #generation()} before querying.
+ * </p>
+ */
+final class NoteBodyCache {
+
+    private final long maxChars;
+    private final LinkedHashMap<Long, String> bodies = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedChars;
+    private long generation;
+
+    NoteBodyCache(final long maxChars) {
+        if (maxChars <= 0) {
+            throw new IllegalArgumentException("maxChars must be positive");
+        }
+        this.maxChars = maxChars;
+    }
+
+    synchronized String get(final long id) {
+        return bodies.get(id);
+    }
+
+    synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Caches a body read from the database unless a write happened after
+     * {@code loadGeneration} was taken.
+     */
+    synchronized void putLoaded(final long id, final String body, final long loadGeneration) {
+        if (loadGeneration == generation) {
+            store(id, body);
+        }
+    }
+
+    /**
+     * Caches a body that was just written.
+     */
+    synchronized void putWritten(final long id, final String body) {
+        generation++;
+        store(id, body);
+    }
+
+    synchronized void invalidate(final long id) {
+        generation++;
+        remove(id);
+    }
+
+    synchronized void clear() {
+        generation++;
+        bodies.clear();
+        cachedChars = 0;
+    }
+
+    synchronized long cachedChars() {
+        return cachedChars;
+    }
+
+    private void store(final long id, final String body) {
+        remove(id);
+        final String value = body == null ? "" : body;
+        if (value.length() > maxChars) {
+            return;
+        }
+        bodies.put(id, value);
+        cachedChars += value.length();
+        final Iterator<Map.Entry<Long, String>> eldest = bodies.entrySet().iterator();
+        while (cachedChars > maxChars && eldest.hasNext()) {
+            cachedChars -= eldest.next().getValue().length();
+            eldest.remove();
+        }
+    }
+
+    private void remove(final long id) {
+        final String previous = bodies.remove(id);
+        if (previous != null) {
+            cachedChars -= previous.length();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.smartdesk.core.note;
+
+import com.smartdesk.storage.entity.NoteEntity;
+
+/**
+ * Receives notifications after notes were written through {@link NoteService}.
+ * Callbacks run on the thread that performed the write and should return
+ * quickly; they must not modify the entity.
+ */
+public interface NoteChangeListener {
+
+    /**
+     * A note was created or updated; {@code note} is the persisted state.
+     */
+    void onNoteSaved(NoteEntity note);
+
+    /**
+     * The note with the given id was deleted.
+     */
+    void onNoteDeleted(long id);
+
+    /**
+     * Notes were changed outside the service and any derived state should be
+     * rebuilt.
+     */
+    default void onNotesReloaded() {
+    }
+}
@@ -0,0 +1,27 @@
+package com.smartdesk.core.note;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight listing entry of a note, returned by
+ * {@link NoteService#listNoteHeaders()} without the note body. The body is
+ * loaded on demand through {@link NoteService#getNoteContent(long)}.
+ *
+ * @param id            database identifier
+ * @param title         note title
+ * @param tag           optional tag, may be {@code null}
+ * @param date          creation or last modification time
+ * @param contentLength length of the body in code points, as reported by SQLite {@code length()}
+ * @param preview       first {@link NoteService#PREVIEW_CHARS} code points of the body
+ */
+public record NoteHeader(long id, String title, String tag, LocalDateTime date, int contentLength, String preview) {
+
+    /**
+     * Returns whether {@link #preview()} is the complete body. Both sides are
+     * compared in code points, since a supplementary character counts once
+     * for SQLite but twice in {@link String#length()}.
+     */
+    public boolean isPreviewComplete() {
+        return preview.codePointCount(0, preview.length()) >= contentLength;
+    }
+}
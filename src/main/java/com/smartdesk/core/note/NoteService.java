@@ -1,7 +1,9 @@
 package com.smartdesk.core.note;
 
 import com.smartdesk.storage.DatabaseManager;
+import com.smartdesk.storage.WritePublication;
 import com.smartdesk.storage.entity.NoteEntity;
+import com.smartdesk.utils.DateTimeUtils;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
@@ -14,6 +16,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -28,13 +31,28 @@ public class NoteService {
 
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
-    private static final String INSERT_NOTE_SQL = "INSERT INTO notes (title, content, tag, date) VALUES (?, ?, ?, ?)";
-    private static final String SELECT_NOTE_SQL = "SELECT id, title, content, tag, date FROM notes WHERE id = ?";
-    private static final String SELECT_ALL_NOTES_SQL = "SELECT id, title, content, tag, date FROM notes ORDER BY date DESC";
-    private static final String UPDATE_NOTE_SQL = "UPDATE notes SET title = ?, content = ?, tag = ?, date = ? WHERE id = ?";
+    /** Number of body characters included in a {@link NoteHeader}. */
+    public static final int PREVIEW_CHARS = 120;
+
+    /** Default bound of the body cache, in characters (about 8 MB of heap). */
+    public static final long DEFAULT_BODY_CACHE_CHARS = 4_000_000L;
+
+    private static final String INSERT_NOTE_SQL =
+        "INSERT INTO notes (title, content, tag, date, date_ms) VALUES (?, ?, ?, ?, ?)";
+    private static final String SELECT_NOTE_SQL = "SELECT id, title, content, tag, date_ms FROM notes WHERE id = ?";
+    private static final String SELECT_ALL_NOTES_SQL =
+        "SELECT id, title, content, tag, date_ms FROM notes ORDER BY date_ms DESC";
+    private static final String SELECT_NOTE_HEADERS_SQL =
+        "SELECT id, title, tag, date_ms, length(content) AS content_length, substr(content, 1, ?) AS preview "
+            + "FROM notes ORDER BY date_ms DESC";
+    private static final String SELECT_NOTE_CONTENT_SQL = "SELECT content FROM notes WHERE id = ?";
+    private static final String UPDATE_NOTE_SQL =
+        "UPDATE notes SET title = ?, content = ?, tag = ?, date = ?, date_ms = ? WHERE id = ?";
     private static final String DELETE_NOTE_SQL = "DELETE FROM notes WHERE id = ?";
 
     private final DatabaseManager databaseManager;
+    private final List<NoteChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final NoteBodyCache bodyCache;
 
     /**
      * Creates a new note service that uses the provided {@link DatabaseManager}
@@ -43,7 +61,56 @@ public class NoteService {
      * @param databaseManager the database manager, must not be {@code null}
      */
     public NoteService(final DatabaseManager databaseManager) {
+        this(databaseManager, DEFAULT_BODY_CACHE_CHARS);
+    }
+
+    /**
+     * Creates a note service whose body cache holds at most
+     * {@code bodyCacheChars} characters.
+     *
+     * @param databaseManager the database manager, must not be {@code null}
+     * @param bodyCacheChars  positive bound of the body cache
+     */
+    public NoteService(final DatabaseManager databaseManager, final long bodyCacheChars) {
         this.databaseManager = Objects.requireNonNull(databaseManager, "databaseManager must not be null");
+        this.bodyCache = new NoteBodyCache(bodyCacheChars);
+    }
+
+    /**
+     * Registers a listener notified after every successful write.
+     *
+     * @param listener the listener, ignored if {@code null}
+     */
+    public void addNoteChangeListener(final NoteChangeListener listener) {
+        if (listener != null) {
+            changeListeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes a listener previously registered with {@link #addNoteChangeListener}.
+     *
+     * @param listener the listener, ignored if {@code null}
+     */
+    public void removeNoteChangeListener(final NoteChangeListener listener) {
+        if (listener != null) {
+            changeListeners.remove(listener);
+        }
+    }
+
+    /**
+     * Drops the cached note bodies and tells listeners to reload. Only needed
+     * after notes were modified without going through this service.
+     */
+    public void invalidateCaches() {
+        bodyCache.clear();
+        for (NoteChangeListener listener : changeListeners) {
+            try {
+                listener.onNotesReloaded();
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Note change listener threw exception", ex);
+            }
+        }
     }
 
     /**
@@ -55,7 +122,8 @@ public class NoteService {
     public NoteEntity createNote(final NoteEntity note) {
         validateNoteForCreate(note);
 
-        final LocalDateTime timestamp = note.getDate() != null ? note.getDate() : LocalDateTime.now();
+        final LocalDateTime timestamp = DateTimeUtils.toStoragePrecision(
+            note.getDate() != null ? note.getDate() : LocalDateTime.now());
         note.setDate(timestamp);
 
         try (Connection connection = databaseManager.getConnection();
@@ -64,7 +132,7 @@ public class NoteService {
             statement.setString(1, note.getTitle());
             statement.setString(2, note.getContent());
             statement.setString(3, note.getTag());
-            statement.setString(4, DATE_FORMATTER.format(timestamp));
+            bindDate(statement, 4, timestamp);
             final int affectedRows = statement.executeUpdate();
 
             if (affectedRows == 0) {
@@ -79,11 +147,13 @@ public class NoteService {
                 }
             }
 
-            return note;
+            bodyCache.putWritten(note.getId(), note.getContent());
         } catch (SQLException ex) {
             LOGGER.log(Level.SEVERE, "Failed to create note", ex);
             throw new IllegalStateException("Failed to create note", ex);
         }
+        fireNoteSaved(note);
+        return note;
     }
 
     /**
@@ -93,7 +163,7 @@ public class NoteService {
      * @return an {@link Optional} describing the note or empty if no note exists for the ID
      */
     public Optional<NoteEntity> getNoteById(final long noteId) {
-        try (Connection connection = databaseManager.getConnection();
+        try (Connection connection = databaseManager.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_NOTE_SQL)) {
 
             statement.setLong(1, noteId);
@@ -112,12 +182,13 @@ public class NoteService {
 
     /**
      * Loads all notes stored in the database ordered by the last modification date.
+     * This reads every note body; listings should use {@link #listNoteHeaders()}.
      *
      * @return immutable list containing all persisted notes
      */
     public List<NoteEntity> getAllNotes() {
         final List<NoteEntity> notes = new ArrayList<>();
-        try (Connection connection = databaseManager.getConnection();
+        try (Connection connection = databaseManager.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_ALL_NOTES_SQL);
              ResultSet resultSet = statement.executeQuery()) {
 
@@ -131,6 +202,70 @@ public class NoteService {
         return List.copyOf(notes);
     }
 
+    /**
+     * Lists all notes without their bodies, ordered by the last modification
+     * date. Only the first {@link #PREVIEW_CHARS} characters of each body are
+     * read.
+     *
+     * @return immutable list of note headers
+     */
+    public List<NoteHeader> listNoteHeaders() {
+        final List<NoteHeader> headers = new ArrayList<>();
+        try (Connection connection = databaseManager.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_NOTE_HEADERS_SQL)) {
+
+            statement.setInt(1, PREVIEW_CHARS);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    final String preview = resultSet.getString("preview");
+                    headers.add(new NoteHeader(
+                        resultSet.getLong("id"),
+                        resultSet.getString("title"),
+                        resultSet.getString("tag"),
+                        readDate(resultSet),
+                        resultSet.getInt("content_length"),
+                        preview == null ? "" : preview));
+                }
+            }
+        } catch (SQLException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to list note headers", ex);
+            throw new IllegalStateException("Failed to list note headers", ex);
+        }
+        return List.copyOf(headers);
+    }
+
+    /**
+     * Returns the body of a note, served from a bounded LRU cache when the
+     * note was read or written recently.
+     *
+     * @param noteId the database identifier
+     * @return the body, empty string for a note without body, or empty if no note exists for the ID
+     */
+    public Optional<String> getNoteContent(final long noteId) {
+        final String cached = bodyCache.get(noteId);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        final long generation = bodyCache.generation();
+        try (Connection connection = databaseManager.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_NOTE_CONTENT_SQL)) {
+
+            statement.setLong(1, noteId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return Optional.empty();
+                }
+                final String content = resultSet.getString("content");
+                final String body = content == null ? "" : content;
+                bodyCache.putLoaded(noteId, body, generation);
+                return Optional.of(body);
+            }
+        } catch (SQLException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to fetch content of note with id=" + noteId, ex);
+            throw new IllegalStateException("Failed to fetch content of note with id=" + noteId, ex);
+        }
+    }
+
     /**
      * Updates an existing note in the database.
      *
@@ -140,23 +275,81 @@ public class NoteService {
     public boolean updateNote(final NoteEntity note) {
         validateNoteForUpdate(note);
 
-        final LocalDateTime timestamp = note.getDate() != null ? note.getDate() : LocalDateTime.now();
+        final LocalDateTime timestamp = DateTimeUtils.toStoragePrecision(
+            note.getDate() != null ? note.getDate() : LocalDateTime.now());
         note.setDate(timestamp);
 
+        final boolean updated;
         try (Connection connection = databaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(UPDATE_NOTE_SQL)) {
 
             statement.setString(1, note.getTitle());
             statement.setString(2, note.getContent());
             statement.setString(3, note.getTag());
-            statement.setString(4, DATE_FORMATTER.format(timestamp));
-            statement.setLong(5, note.getId());
+            bindDate(statement, 4, timestamp);
+            statement.setLong(6, note.getId());
 
-            return statement.executeUpdate() > 0;
+            updated = statement.executeUpdate() > 0;
+            if (updated) {
+                bodyCache.putWritten(note.getId(), note.getContent());
+            } else {
+                bodyCache.invalidate(note.getId());
+            }
         } catch (SQLException ex) {
             LOGGER.log(Level.SEVERE, "Failed to update note with id=" + note.getId(), ex);
             throw new IllegalStateException("Failed to update note with id=" + note.getId(), ex);
         }
+        if (updated) {
+            fireNoteSaved(note);
+        }
+        return updated;
+    }
+
+    /**
+     * Writes updates of several notes on the caller's connection, usually as
+     * part of a transaction spanning other writes. Nothing is published
+     * until the returned publication is applied, which the caller must do
+     * once the transaction has committed.
+     *
+     * @param connection writable connection owned by the caller
+     * @param notes      notes to update; each must possess a database identifier
+     * @return publication refreshing the body cache and notifying listeners for the notes whose row existed
+     * @throws SQLException if a statement fails; the caller should roll back
+     */
+    public WritePublication updateNotes(final Connection connection, final List<NoteEntity> notes) throws SQLException {
+        Objects.requireNonNull(connection, "connection must not be null");
+        Objects.requireNonNull(notes, "notes must not be null");
+        if (notes.isEmpty()) {
+            return WritePublication.NONE;
+        }
+        for (NoteEntity note : notes) {
+            validateNoteForUpdate(note);
+            note.setDate(DateTimeUtils.toStoragePrecision(note.getDate() != null ? note.getDate() : LocalDateTime.now()));
+        }
+        final int[] counts;
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_NOTE_SQL)) {
+            for (NoteEntity note : notes) {
+                statement.setString(1, note.getTitle());
+                statement.setString(2, note.getContent());
+                statement.setString(3, note.getTag());
+                bindDate(statement, 4, note.getDate());
+                statement.setLong(6, note.getId());
+                statement.addBatch();
+            }
+            counts = statement.executeBatch();
+        }
+        final List<NoteEntity> published = new ArrayList<>(notes.size());
+        return new WritePublication(() -> {
+            for (int i = 0; i < notes.size(); i++) {
+                final NoteEntity note = notes.get(i);
+                if (counts[i] == 0) {
+                    bodyCache.invalidate(note.getId());
+                } else {
+                    bodyCache.putWritten(note.getId(), note.getContent());
+                    published.add(note);
+                }
+            }
+        }, () -> published.forEach(this::fireNoteSaved));
     }
 
     /**
@@ -166,15 +359,41 @@ public class NoteService {
      * @return {@code true} if the note existed and was removed
      */
     public boolean deleteNote(final long noteId) {
+        final boolean deleted;
         try (Connection connection = databaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(DELETE_NOTE_SQL)) {
 
             statement.setLong(1, noteId);
-            return statement.executeUpdate() > 0;
+            deleted = statement.executeUpdate() > 0;
+            bodyCache.invalidate(noteId);
         } catch (SQLException ex) {
             LOGGER.log(Level.SEVERE, "Failed to delete note with id=" + noteId, ex);
             throw new IllegalStateException("Failed to delete note with id=" + noteId, ex);
         }
+        if (deleted) {
+            fireNoteDeleted(noteId);
+        }
+        return deleted;
+    }
+
+    private void fireNoteSaved(final NoteEntity note) {
+        for (NoteChangeListener listener : changeListeners) {
+            try {
+                listener.onNoteSaved(note);
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Note change listener threw exception", ex);
+            }
+        }
+    }
+
+    private void fireNoteDeleted(final long noteId) {
+        for (NoteChangeListener listener : changeListeners) {
+            try {
+                listener.onNoteDeleted(noteId);
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Note change listener threw exception", ex);
+            }
+        }
     }
 
     private void validateNoteForCreate(final NoteEntity note) {
@@ -197,12 +416,22 @@ public class NoteService {
         note.setTitle(resultSet.getString("title"));
         note.setContent(resultSet.getString("content"));
         note.setTag(resultSet.getString("tag"));
-        final String dateValue = resultSet.getString("date");
-        if (dateValue != null && !dateValue.isBlank()) {
-            note.setDate(LocalDateTime.parse(dateValue, DATE_FORMATTER));
-        } else {
-            note.setDate(LocalDateTime.now());
-        }
+        note.setDate(readDate(resultSet));
         return note;
     }
+
+    /**
+     * Binds {@code date} as ISO text at {@code index} and as epoch
+     * milliseconds at {@code index + 1}.
+     */
+    private static void bindDate(final PreparedStatement statement, final int index, final LocalDateTime date)
+        throws SQLException {
+        statement.setString(index, DATE_FORMATTER.format(date));
+        statement.setLong(index + 1, DateTimeUtils.toEpochMillis(date));
+    }
+
+    private static LocalDateTime readDate(final ResultSet resultSet) throws SQLException {
+        final long millis = resultSet.getLong("date_ms");
+        return resultSet.wasNull() ? LocalDateTime.now() : DateTimeUtils.fromEpochMillis(millis);
+    }
 }
@@ -0,0 +1,20 @@
+package com.smartdesk.core.search;
+
+/**
+ * A note or task returned by {@link KnowledgeIndex#search}.
+ *
+ * @param source    kind of entity
+ * @param id        database identifier of the note or task
+ * @param title     title of the entity
+ * @param excerpt   beginning of the body text, whitespace collapsed
+ * @param score     BM25 score
+ * @param coverage  fraction of the distinct query terms found in the entity
+ */
+public record KnowledgeHit(Source source, long id, String title, String excerpt, double score, double coverage) {
+
+    /** Kinds of indexed entities. */
+    public enum Source {
+        NOTE,
+        TASK
+    }
+}
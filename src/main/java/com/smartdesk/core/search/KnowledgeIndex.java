@@ -0,0 +1,438 @@
+package com.smartdesk.core.search;
+
+import com.smartdesk.core.note.NoteChangeListener;
+import com.smartdesk.core.note.NoteService;
+import com.smartdesk.core.task.TaskService;
+import com.smartdesk.core.task.model.Task;
+import com.smartdesk.core.task.service.TaskChangeListener;
+import com.smartdesk.storage.entity.NoteEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory inverted index over the user's notes and tasks, ranked with
+ * BM25, for answering questions in offline mode.
+ * <p>
+ * Every document keeps a dense internal number; postings are parallel
+ * {@code int} arrays of document numbers and term frequencies, appended in
+ * increasing order. Title terms count twice. Saved and deleted notes and
+ * tasks are applied incrementally through the services' change listeners:
+ * an update appends a new document and marks the old number deleted, and
+ * deleted numbers are dropped from the postings once they outnumber the
+ * live documents. A full rebuild runs on a background thread and changes
+ * arriving meanwhile are replayed onto the new index before it is swapped
+ * in.
+ * </p>
+ */
+public final class KnowledgeIndex implements NoteChangeListener, TaskChangeListener, AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(KnowledgeIndex.class.getName());
+
+    /** Characters of body text kept per document for {@link KnowledgeHit#excerpt()}. */
+    static final int EXCERPT_CHARS = 120;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+    private static final int MIN_COMPACTION_GARBAGE = 1_024;
+
+    private final NoteService noteService;
+    private final TaskService taskService;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "knowledge-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Segment segment = new Segment();
+    /** Changes seen while a rebuild is running, by entity; {@code null} otherwise. */
+    private Map<Key, Change> changesDuringRebuild;
+
+    public KnowledgeIndex(final NoteService noteService, final TaskService taskService) {
+        this.noteService = Objects.requireNonNull(noteService, "noteService");
+        this.taskService = Objects.requireNonNull(taskService, "taskService");
+    }
+
+    /**
+     * Subscribes to note and task changes and builds the index in the
+     * background.
+     */
+    public CompletableFuture<Void> start() {
+        noteService.addNoteChangeListener(this);
+        taskService.addTaskChangeListener(this);
+        return rebuild();
+    }
+
+    /**
+     * Reloads all notes and tasks on the index thread.
+     */
+    public CompletableFuture<Void> rebuild() {
+        return CompletableFuture.runAsync(this::rebuildNow, executor);
+    }
+
+    private void rebuildNow() {
+        lock.writeLock().lock();
+        try {
+            if (changesDuringRebuild == null) {
+                changesDuringRebuild = new LinkedHashMap<>();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        final Segment fresh = new Segment();
+        try {
+            for (NoteEntity note : noteService.getAllNotes()) {
+                fresh.put(Change.of(note));
+            }
+            for (Task task : taskService.listAllTasks()) {
+                fresh.put(Change.of(task));
+            }
+        } catch (IllegalStateException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to load notes and tasks for the knowledge index", ex);
+            lock.writeLock().lock();
+            try {
+                changesDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Change change : changesDuringRebuild.values()) {
+                fresh.apply(change);
+            }
+            changesDuringRebuild = null;
+            segment = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the best matching notes and tasks, best first.
+     */
+    public List<KnowledgeHit> search(final String query, final int limit) {
+        return search(query, limit, 0);
+    }
+
+    /**
+     * Returns the best matching notes and tasks that contain at least the
+     * given fraction of the distinct query terms, best first.
+     */
+    public List<KnowledgeHit> search(final String query, final int limit, final double minimumCoverage) {
+        if (query == null || limit <= 0) {
+            return List.of();
+        }
+        final List<String> terms = new ArrayList<>(new LinkedHashSet<>(Terms.tokenize(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            return segment.search(terms, limit, minimumCoverage);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the number of indexed notes and tasks.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return segment.liveDocuments;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onNoteSaved(final NoteEntity note) {
+        if (note.getId() != null) {
+            apply(Change.of(note));
+        }
+    }
+
+    @Override
+    public void onNoteDeleted(final long id) {
+        apply(Change.removed(KnowledgeHit.Source.NOTE, id));
+    }
+
+    @Override
+    public void onNotesReloaded() {
+        rebuild();
+    }
+
+    @Override
+    public void onTaskSaved(final Task task) {
+        if (task.getId() != null) {
+            apply(Change.of(task));
+        }
+    }
+
+    @Override
+    public void onTaskDeleted(final long id) {
+        apply(Change.removed(KnowledgeHit.Source.TASK, id));
+    }
+
+    @Override
+    public void onTasksReloaded() {
+        rebuild();
+    }
+
+    private void apply(final Change change) {
+        lock.writeLock().lock();
+        try {
+            segment.apply(change);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.put(change.key(), change);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        noteService.removeNoteChangeListener(this);
+        taskService.removeTaskChangeListener(this);
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Key(KnowledgeHit.Source source, long id) {
+    }
+
+    /**
+     * New content of one entity, or its removal when {@code title} is null.
+     * Tags are searchable but not part of the excerpt.
+     */
+    private record Change(Key key, String title, String body, String tags) {
+
+        static Change of(final NoteEntity note) {
+            return new Change(new Key(KnowledgeHit.Source.NOTE, note.getId()), nullToEmpty(note.getTitle()),
+                nullToEmpty(note.getContent()), nullToEmpty(note.getTag()));
+        }
+
+        static Change of(final Task task) {
+            return new Change(new Key(KnowledgeHit.Source.TASK, task.getId()), nullToEmpty(task.getTitle()),
+                nullToEmpty(task.getDescription()), "");
+        }
+
+        static Change removed(final KnowledgeHit.Source source, final long id) {
+            return new Change(new Key(source, id), null, null, null);
+        }
+
+        private static String nullToEmpty(final String value) {
+            return value == null ? "" : value;
+        }
+    }
+
+    private record Document(Key key, String title, String excerpt) {
+    }
+
+    /**
+     * The index data; guarded by the enclosing lock once published.
+     */
+    private static final class Segment {
+
+        private final Map<String, Postings> postings = new HashMap<>();
+        private final List<Document> documents = new ArrayList<>();
+        /** Length of each document by number, {@code -1} once deleted; read on every posting. */
+        private int[] lengths = new int[64];
+        private final Map<Key, Integer> documentByKey = new HashMap<>();
+        private long totalLength;
+        private int liveDocuments;
+        private int deletedDocuments;
+
+        void apply(final Change change) {
+            if (change.title() == null) {
+                remove(change.key());
+            } else {
+                put(change);
+            }
+        }
+
+        void put(final Change change) {
+            remove(change.key());
+            final Map<String, Integer> frequencies = new HashMap<>();
+            int length = 0;
+            for (String term : Terms.tokenize(change.title())) {
+                frequencies.merge(term, TITLE_WEIGHT, Integer::sum);
+                length += TITLE_WEIGHT;
+            }
+            for (String term : Terms.tokenize(change.body())) {
+                frequencies.merge(term, 1, Integer::sum);
+                length++;
+            }
+            for (String term : Terms.tokenize(change.tags())) {
+                frequencies.merge(term, 1, Integer::sum);
+                length++;
+            }
+            final int number = documents.size();
+            documents.add(new Document(change.key(), change.title(), excerpt(change.body())));
+            if (number == lengths.length) {
+                lengths = Arrays.copyOf(lengths, number * 2);
+            }
+            lengths[number] = length;
+            documentByKey.put(change.key(), number);
+            frequencies.forEach((term, frequency) ->
+                postings.computeIfAbsent(term, t -> new Postings()).add(number, frequency));
+            totalLength += length;
+            liveDocuments++;
+        }
+
+        void remove(final Key key) {
+            final Integer number = documentByKey.remove(key);
+            if (number == null) {
+                return;
+            }
+            totalLength -= lengths[number];
+            documents.set(number, null);
+            lengths[number] = -1;
+            liveDocuments--;
+            deletedDocuments++;
+            if (deletedDocuments > Math.max(MIN_COMPACTION_GARBAGE, liveDocuments)) {
+                compact();
+            }
+        }
+
+        List<KnowledgeHit> search(final List<String> terms, final int limit, final double minimumCoverage) {
+            if (liveDocuments == 0) {
+                return List.of();
+            }
+            final double averageLength = Math.max(1.0, (double) totalLength / liveDocuments);
+            // Dense accumulators: a few bytes per document are cheaper than hashing every posting.
+            final double[] scores = new double[documents.size()];
+            final int[] matchedTerms = new int[documents.size()];
+            final int[] touched = new int[documents.size()];
+            int touchedCount = 0;
+            for (String term : terms) {
+                final Postings list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                final double idf = Math.log(1 + (liveDocuments - list.size + 0.5) / (list.size + 0.5));
+                for (int i = 0; i < list.size; i++) {
+                    final int number = list.documents[i];
+                    final int length = lengths[number];
+                    if (length < 0) {
+                        continue;
+                    }
+                    final int frequency = list.frequencies[i];
+                    final double norm = K1 * (1 - B + B * length / averageLength);
+                    if (matchedTerms[number]++ == 0) {
+                        touched[touchedCount++] = number;
+                    }
+                    scores[number] += idf * frequency * (K1 + 1) / (frequency + norm);
+                }
+            }
+            final PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1,
+                (a, b) -> Double.compare(scores[a], scores[b]));
+            final int minimumTerms = (int) Math.ceil(minimumCoverage * terms.size());
+            for (int i = 0; i < touchedCount; i++) {
+                if (matchedTerms[touched[i]] < minimumTerms) {
+                    continue;
+                }
+                top.add(touched[i]);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            final List<KnowledgeHit> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                final int number = top.poll();
+                final Document document = documents.get(number);
+                hits.add(0, new KnowledgeHit(document.key().source(), document.key().id(), document.title(),
+                    document.excerpt(), scores[number], (double) matchedTerms[number] / terms.size()));
+            }
+            return hits;
+        }
+
+        /**
+         * Renumbers the live documents densely and drops deleted numbers from
+         * every posting list.
+         */
+        private void compact() {
+            final int[] renumbered = new int[documents.size()];
+            final List<Document> live = new ArrayList<>(liveDocuments);
+            final int[] liveLengths = new int[Math.max(64, liveDocuments * 2)];
+            for (int i = 0; i < documents.size(); i++) {
+                final Document document = documents.get(i);
+                renumbered[i] = document == null ? -1 : live.size();
+                if (document != null) {
+                    documentByKey.put(document.key(), live.size());
+                    liveLengths[live.size()] = lengths[i];
+                    live.add(document);
+                }
+            }
+            documents.clear();
+            documents.addAll(live);
+            lengths = liveLengths;
+            postings.values().removeIf(list -> list.renumber(renumbered) == 0);
+            deletedDocuments = 0;
+        }
+
+        private static String excerpt(final String body) {
+            final String collapsed = body.strip().replaceAll("\\s+", " ");
+            return collapsed.length() <= EXCERPT_CHARS ? collapsed : collapsed.substring(0, EXCERPT_CHARS) + "…";
+        }
+    }
+
+    /**
+     * Document numbers and term frequencies of one term, in increasing
+     * document order.
+     */
+    private static final class Postings {
+        private int[] documents = new int[2];
+        private int[] frequencies = new int[2];
+        private int size;
+
+        void add(final int document, final int frequency) {
+            if (size == documents.length) {
+                documents = Arrays.copyOf(documents, size * 2);
+                frequencies = Arrays.copyOf(frequencies, size * 2);
+            }
+            documents[size] = document;
+            frequencies[size] = frequency;
+            size++;
+        }
+
+        int renumber(final int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                final int number = renumbered[documents[i]];
+                if (number >= 0) {
+                    documents[kept] = number;
+                    frequencies[kept] = frequencies[i];
+                    kept++;
+                }
+            }
+            size = kept;
+            return kept;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.smartdesk.core.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits text into index terms: lower-cased Latin words and numbers, and
+ * overlapping character pairs of Chinese text. Chinese runs are cut at
+ * function characters such as 的 or 了 first, so pairs like "的任" never
+ * become terms.
+ */
+final class Terms {
+
+    private static final String FUNCTION_CHARACTERS = "的了是在和与及或也就都而着把被这那我你他她它们之其于并让给吗呢吧啊很还不没";
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "the", "a", "an", "and", "or", "of", "to", "in", "on", "for", "is", "are", "was", "were",
+        "be", "it", "this", "that", "with", "as", "at", "by", "from", "i", "you", "my", "me",
+        "what", "where", "when", "how", "do", "does", "can", "about");
+
+    private Terms() {
+    }
+
+    /**
+     * Returns the terms of the text in order, including repetitions.
+     */
+    static List<String> tokenize(final String text) {
+        final List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        final int length = text.length();
+        int i = 0;
+        while (i < length) {
+            final char c = text.charAt(i);
+            if (isCjk(c)) {
+                int end = i + 1;
+                while (end < length && isCjk(text.charAt(end))) {
+                    end++;
+                }
+                addPairs(text, i, end, terms);
+                i = end;
+            } else if (Character.isLetterOrDigit(c)) {
+                int end = i + 1;
+                while (end < length && Character.isLetterOrDigit(text.charAt(end)) && !isCjk(text.charAt(end))) {
+                    end++;
+                }
+                final String word = text.substring(i, end).toLowerCase(Locale.ROOT);
+                if ((word.length() > 1 || Character.isDigit(c)) && !STOP_WORDS.contains(word)) {
+                    terms.add(word);
+                }
+                i = end;
+            } else {
+                i++;
+            }
+        }
+        return terms;
+    }
+
+    private static void addPairs(final String text, final int from, final int to, final List<String> terms) {
+        int runStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || FUNCTION_CHARACTERS.indexOf(text.charAt(i)) >= 0) {
+                for (int j = runStart; j + 1 < i; j++) {
+                    terms.add(text.substring(j, j + 2));
+                }
+                runStart = i + 1;
+            }
+        }
+    }
+
+    private static boolean isCjk(final char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
@@ -0,0 +1,252 @@
+package com.smartdesk.core.summary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Offline extractive summariser for Chinese and English text.
+ * <p>
+ * Short texts are ranked with TextRank: sentences are linked by their term
+ * overlap and scored with PageRank. Longer texts, where the pairwise graph
+ * would grow quadratically, are scored against the document centroid
+ * instead: every term is weighted by TF-IDF with sentences as documents and
+ * a sentence scores the normalised sum of its term weights. Both the
+ * similarity graph and the centroid scores are computed in parallel on a
+ * fork-join pool, and only the best {@code k} candidates are kept while
+ * scoring, so memory grows with the vocabulary rather than with the number
+ * of sentences. Sentences are returned in document order. No network access
+ * is required.
+ * </p>
+ */
+public final class ExtractiveSummarizer {
+
+    /** Default number of sentences in a summary. */
+    public static final int DEFAULT_SENTENCES = 5;
+
+    /** Largest sentence count ranked with TextRank. */
+    static final int MAX_RANKED_SENTENCES = 400;
+
+    /** Term statistics beyond this size drop terms seen in a single sentence. */
+    static final int MAX_TERMS = 200_000;
+
+    private static final int MAX_ITERATIONS = 30;
+    private static final double DAMPING = 0.85;
+    private static final double CONVERGENCE = 1.0e-4;
+
+    private final ForkJoinPool pool;
+
+    public ExtractiveSummarizer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ExtractiveSummarizer(final ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+    }
+
+    /**
+     * Returns the {@code maxSentences} most central sentences of the text in
+     * document order, joined by line breaks. Repeated sentences are reported
+     * once.
+     */
+    public String summarize(final String text, final int maxSentences) {
+        Objects.requireNonNull(text, "text");
+        if (maxSentences <= 0) {
+            throw new IllegalArgumentException("maxSentences must be positive");
+        }
+        final int[] spans = TextSegmenter.sentenceSpans(text);
+        final int count = spans.length / 2;
+        final TopSentences top = count <= MAX_RANKED_SENTENCES
+            ? textRank(text, spans, maxSentences)
+            : centroid(text, spans, maxSentences);
+        final StringBuilder summary = new StringBuilder();
+        for (String sentence : top.inDocumentOrder()) {
+            if (summary.length() > 0) {
+                summary.append('\n');
+            }
+            summary.append(sentence);
+        }
+        return summary.toString();
+    }
+
+    private TopSentences textRank(final String text, final int[] spans, final int k) {
+        final int n = spans.length / 2;
+        final List<Set<String>> terms = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            terms.add(TextSegmenter.terms(sentence(text, spans, i)));
+        }
+        final double[][] weights = new double[n][n];
+        pool.submit(() -> IntStream.range(0, n).parallel().forEach(i -> {
+            for (int j = 0; j < n; j++) {
+                if (j != i) {
+                    weights[i][j] = similarity(terms.get(i), terms.get(j));
+                }
+            }
+        })).join();
+        final double[] outWeight = new double[n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                outWeight[i] += weights[i][j];
+            }
+        }
+        double[] scores = new double[n];
+        Arrays.fill(scores, 1.0);
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            final double[] next = new double[n];
+            double delta = 0;
+            for (int i = 0; i < n; i++) {
+                double sum = 0;
+                for (int j = 0; j < n; j++) {
+                    if (weights[j][i] > 0) {
+                        sum += weights[j][i] / outWeight[j] * scores[j];
+                    }
+                }
+                next[i] = (1 - DAMPING) + DAMPING * sum;
+                delta += Math.abs(next[i] - scores[i]);
+            }
+            scores = next;
+            if (delta < CONVERGENCE) {
+                break;
+            }
+        }
+        final TopSentences top = new TopSentences(k);
+        for (int i = 0; i < n; i++) {
+            top.offer(i, sentence(text, spans, i), scores[i]);
+        }
+        return top;
+    }
+
+    private TopSentences centroid(final String text, final int[] spans, final int k) {
+        final int n = spans.length / 2;
+        final Map<String, Integer> sentenceFrequency = pool.submit(() -> IntStream.range(0, n).parallel()
+            .collect(HashMap<String, Integer>::new,
+                (counts, i) -> {
+                    for (String term : TextSegmenter.terms(sentence(text, spans, i))) {
+                        counts.merge(term, 1, Integer::sum);
+                    }
+                },
+                ExtractiveSummarizer::mergeCounts)).join();
+        return pool.submit(() -> IntStream.range(0, n).parallel()
+            .collect(() -> new TopSentences(k),
+                (top, i) -> {
+                    final String sentence = sentence(text, spans, i);
+                    top.offer(i, sentence, centroidScore(TextSegmenter.terms(sentence), sentenceFrequency, n));
+                },
+                TopSentences::merge)).join();
+    }
+
+    /**
+     * Cosine-like similarity of the sentence to the TF-IDF centroid: each
+     * term weighs {@code sf / n * log(n / sf)}, so terms that occur in every
+     * sentence and terms that occur only once contribute little.
+     */
+    private static double centroidScore(final Set<String> terms, final Map<String, Integer> sentenceFrequency,
+                                        final int n) {
+        if (terms.isEmpty()) {
+            return 0;
+        }
+        double sum = 0;
+        for (String term : terms) {
+            final Integer frequency = sentenceFrequency.get(term);
+            if (frequency != null) {
+                sum += (double) frequency / n * Math.log((double) n / frequency);
+            }
+        }
+        return sum / Math.sqrt(terms.size());
+    }
+
+    private static void mergeCounts(final Map<String, Integer> target, final Map<String, Integer> source) {
+        source.forEach((term, count) -> target.merge(term, count, Integer::sum));
+        if (target.size() > MAX_TERMS) {
+            target.values().removeIf(count -> count == 1);
+        }
+    }
+
+    private static double similarity(final Set<String> a, final Set<String> b) {
+        if (a.size() < 2 || b.size() < 2) {
+            return 0;
+        }
+        int common = 0;
+        final Set<String> smaller = a.size() <= b.size() ? a : b;
+        final Set<String> larger = smaller == a ? b : a;
+        for (String term : smaller) {
+            if (larger.contains(term)) {
+                common++;
+            }
+        }
+        return common == 0 ? 0 : common / (Math.log(a.size()) + Math.log(b.size()));
+    }
+
+    private static String sentence(final String text, final int[] spans, final int index) {
+        return text.substring(spans[2 * index], spans[2 * index + 1]);
+    }
+
+    /**
+     * Bounded min-heap of the best distinct sentences seen so far. Instances
+     * are confined to one fork-join leaf until they are merged.
+     */
+    static final class TopSentences {
+
+        private static final Comparator<Candidate> WORST_FIRST = Comparator
+            .comparingDouble(Candidate::score)
+            .thenComparing(Candidate::index, Comparator.reverseOrder());
+
+        private final int capacity;
+        private final PriorityQueue<Candidate> heap;
+
+        TopSentences(final int capacity) {
+            this.capacity = capacity;
+            this.heap = new PriorityQueue<>(capacity + 1, WORST_FIRST);
+        }
+
+        void offer(final int index, final String sentence, final double score) {
+            offer(new Candidate(index, sentence, score));
+        }
+
+        private void offer(final Candidate candidate) {
+            if (heap.size() == capacity && WORST_FIRST.compare(candidate, heap.peek()) <= 0) {
+                return;
+            }
+            for (Candidate existing : heap) {
+                if (existing.sentence().equals(candidate.sentence())) {
+                    if (WORST_FIRST.compare(candidate, existing) <= 0) {
+                        return;
+                    }
+                    heap.remove(existing);
+                    break;
+                }
+            }
+            heap.add(candidate);
+            if (heap.size() > capacity) {
+                heap.poll();
+            }
+        }
+
+        void merge(final TopSentences other) {
+            for (Candidate candidate : other.heap) {
+                offer(candidate);
+            }
+        }
+
+        List<String> inDocumentOrder() {
+            final List<Candidate> selected = new ArrayList<>(heap);
+            selected.sort(Comparator.comparingInt(Candidate::index));
+            final List<String> sentences = new ArrayList<>(selected.size());
+            for (Candidate candidate : selected) {
+                sentences.add(candidate.sentence());
+            }
+            return sentences;
+        }
+
+        private record Candidate(int index, String sentence, double score) {
+        }
+    }
+}
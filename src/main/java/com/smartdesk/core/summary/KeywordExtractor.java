@@ -0,0 +1,220 @@
+package com.smartdesk.core.summary;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Offline keyword extractor for Chinese and English text.
+ * <p>
+ * Candidates are Latin words and CJK n-grams of two to
+ * {@link #MAX_CJK_GRAM} characters taken from runs between function
+ * characters such as 的 or 了. Each candidate is scored by TF-IDF with
+ * sentences as documents. Without a dictionary, CJK n-grams that are always
+ * followed or preceded by the same character are usually fragments of a
+ * longer word and are down-weighted. Statistics are collected in parallel
+ * on a fork-join pool; candidates seen only once are dropped when the table
+ * grows beyond {@link #MAX_CANDIDATES}.
+ * </p>
+ */
+public final class KeywordExtractor {
+
+    /** Default number of keywords returned. */
+    public static final int DEFAULT_KEYWORDS = 8;
+
+    static final int MAX_CJK_GRAM = 5;
+    static final int MAX_CANDIDATES = 200_000;
+
+    private static final double FRAGMENT_PENALTY = 0.3;
+    private static final String FUNCTION_CHARACTERS = "的了是在和与及或也就都而着把被这那我你他她它们之其于并让给吗呢吧啊很还不没";
+
+    private final ForkJoinPool pool;
+
+    public KeywordExtractor() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public KeywordExtractor(final ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+    }
+
+    /**
+     * Returns up to {@code maxKeywords} keywords ordered by relevance. A
+     * keyword that is part of a better-ranked one is skipped.
+     */
+    public List<String> extract(final String text, final int maxKeywords) {
+        Objects.requireNonNull(text, "text");
+        if (maxKeywords <= 0) {
+            throw new IllegalArgumentException("maxKeywords must be positive");
+        }
+        final int[] spans = TextSegmenter.sentenceSpans(text);
+        final int n = spans.length / 2;
+        if (n == 0) {
+            return List.of();
+        }
+        final Map<String, Stats> stats = pool.submit(() -> IntStream.range(0, n).parallel()
+            .collect(HashMap<String, Stats>::new,
+                (table, i) -> collect(text, spans[2 * i], spans[2 * i + 1], table),
+                KeywordExtractor::mergeTables)).join();
+
+        final boolean repeatedOnly = stats.values().stream().anyMatch(s -> s.frequency > 1);
+        final List<Map.Entry<String, Double>> scored = new ArrayList<>();
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            final Stats s = entry.getValue();
+            if (repeatedOnly && s.frequency < 2) {
+                continue;
+            }
+            scored.add(Map.entry(entry.getKey(), score(entry.getKey(), s, n)));
+        }
+        scored.sort(Map.Entry.<String, Double>comparingByValue().reversed()
+            .thenComparing(Map.Entry.comparingByKey()));
+
+        final List<String> keywords = new ArrayList<>(maxKeywords);
+        for (Map.Entry<String, Double> entry : scored) {
+            if (keywords.size() == maxKeywords) {
+                break;
+            }
+            final String candidate = entry.getKey();
+            if (keywords.stream().noneMatch(k -> k.contains(candidate) || candidate.contains(k))) {
+                keywords.add(candidate);
+            }
+        }
+        return keywords;
+    }
+
+    private static double score(final String term, final Stats stats, final int sentences) {
+        final double idf = Math.log(1.0 + (double) sentences / stats.sentenceFrequency);
+        double score = stats.frequency * idf;
+        if (TextSegmenter.isCjk(term.charAt(0))) {
+            score *= 1.0 + 0.25 * (term.length() - 2);
+            if (!stats.isFreeStanding()) {
+                score *= FRAGMENT_PENALTY;
+            }
+        }
+        return score;
+    }
+
+    private static void collect(final String text, final int start, final int end, final Map<String, Stats> table) {
+        final Set<String> seen = new HashSet<>();
+        int i = start;
+        while (i < end) {
+            final char c = text.charAt(i);
+            if (TextSegmenter.isCjk(c) && FUNCTION_CHARACTERS.indexOf(c) < 0) {
+                int runEnd = i + 1;
+                while (runEnd < end && TextSegmenter.isCjk(text.charAt(runEnd))
+                    && FUNCTION_CHARACTERS.indexOf(text.charAt(runEnd)) < 0) {
+                    runEnd++;
+                }
+                collectGrams(text, i, runEnd, table, seen);
+                i = runEnd;
+            } else if (Character.isLetter(c)) {
+                int wordEnd = i + 1;
+                while (wordEnd < end && Character.isLetterOrDigit(text.charAt(wordEnd))
+                    && !TextSegmenter.isCjk(text.charAt(wordEnd))) {
+                    wordEnd++;
+                }
+                final String word = text.substring(i, wordEnd).toLowerCase(Locale.ROOT);
+                if (word.length() > 2 && !TextSegmenter.STOP_WORDS.contains(word)) {
+                    record(table, seen, word, (char) 0, (char) 0);
+                }
+                i = wordEnd;
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static void collectGrams(final String text, final int from, final int to,
+                                     final Map<String, Stats> table, final Set<String> seen) {
+        for (int start = from; start < to; start++) {
+            for (int length = 2; length <= MAX_CJK_GRAM && start + length <= to; length++) {
+                final int end = start + length;
+                final char left = start == from ? 0 : text.charAt(start - 1);
+                final char right = end == to ? 0 : text.charAt(end);
+                record(table, seen, text.substring(start, end), left, right);
+            }
+        }
+    }
+
+    private static void record(final Map<String, Stats> table, final Set<String> seen, final String term,
+                               final char left, final char right) {
+        final Stats stats = table.computeIfAbsent(term, key -> new Stats());
+        stats.frequency++;
+        if (seen.add(term)) {
+            stats.sentenceFrequency++;
+        }
+        stats.leftContext.observe(left);
+        stats.rightContext.observe(right);
+    }
+
+    private static void mergeTables(final Map<String, Stats> target, final Map<String, Stats> source) {
+        source.forEach((term, stats) -> target.merge(term, stats, Stats::merge));
+        if (target.size() > MAX_CANDIDATES) {
+            target.values().removeIf(stats -> stats.frequency == 1);
+        }
+    }
+
+    /**
+     * Occurrence counts of one candidate and a summary of the characters
+     * seen next to it.
+     */
+    private static final class Stats {
+        private int frequency;
+        private int sentenceFrequency;
+        private final Context leftContext = new Context();
+        private final Context rightContext = new Context();
+
+        boolean isFreeStanding() {
+            return leftContext.isFree() && rightContext.isFree();
+        }
+
+        Stats merge(final Stats other) {
+            frequency += other.frequency;
+            sentenceFrequency += other.sentenceFrequency;
+            leftContext.merge(other.leftContext);
+            rightContext.merge(other.rightContext);
+            return this;
+        }
+    }
+
+    /**
+     * Tracks whether a neighbouring position is a word boundary or varies;
+     * {@code 0} stands for a boundary.
+     */
+    private static final class Context {
+        private boolean boundary;
+        private char first;
+        private boolean varied;
+
+        void observe(final char c) {
+            if (c == 0) {
+                boundary = true;
+            } else if (first == 0) {
+                first = c;
+            } else if (first != c) {
+                varied = true;
+            }
+        }
+
+        boolean isFree() {
+            return boundary || varied;
+        }
+
+        void merge(final Context other) {
+            boundary |= other.boundary;
+            if (other.varied) {
+                varied = true;
+            }
+            if (other.first != 0) {
+                observe(other.first);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.smartdesk.core.summary;
+
+/**
+ * Callbacks of a summary run. Methods may be invoked from background threads.
+ */
+public interface SummaryListener {
+
+    SummaryListener NONE = new SummaryListener() {
+    };
+
+    /**
+     * Reports progress; called after every chunk and reduce step.
+     */
+    default void onProgress(final SummaryProgress progress) {
+    }
+
+    /**
+     * Receives the final summary incrementally as it is generated.
+     */
+    default void onDelta(final String text) {
+    }
+
+    /**
+     * Called when streaming of the final summary failed part-way; text
+     * received through {@link #onDelta} so far should be discarded because the
+     * offline summary is streamed next.
+     */
+    default void onRestart() {
+    }
+}
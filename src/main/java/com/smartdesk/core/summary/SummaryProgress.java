@@ -0,0 +1,44 @@
+package com.smartdesk.core.summary;
+
+/**
+ * Progress of a summary run reported to {@link SummaryListener#onProgress}.
+ *
+ * @param phase             current stage
+ * @param bytesRead         bytes of the document read so far
+ * @param totalBytes        size of the document
+ * @param chunksRead        chunks cut from the document so far
+ * @param chunksSummarised  chunks whose summary is available
+ * @param reduceRound       current reduce round, {@code 0} during the map phase
+ */
+public record SummaryProgress(
+    Phase phase,
+    long bytesRead,
+    long totalBytes,
+    int chunksRead,
+    int chunksSummarised,
+    int reduceRound
+) {
+
+    /** Stages of a summary run. */
+    public enum Phase {
+        /** Reading the document and summarising chunks. */
+        MAP,
+        /** Combining partial summaries. */
+        REDUCE,
+        /** Finished. */
+        DONE
+    }
+
+    /**
+     * Rough completion ratio between 0 and 1.
+     */
+    public double fraction() {
+        if (phase == Phase.DONE) {
+            return 1.0;
+        }
+        final double read = totalBytes <= 0 ? 1.0 : Math.min(1.0, (double) bytesRead / totalBytes);
+        final double mapped = chunksRead == 0 ? 0.0 : (double) chunksSummarised / chunksRead;
+        final double map = 0.9 * read * mapped;
+        return phase == Phase.MAP ? map : 0.9 + 0.1 * Math.min(1.0, reduceRound / 3.0);
+    }
+}
@@ -0,0 +1,15 @@
+package com.smartdesk.core.summary;
+
+import java.time.Duration;
+
+/**
+ * Outcome of a summary run.
+ *
+ * @param summary        final summary text
+ * @param chunks         number of chunks the document was split into
+ * @param reduceRounds   number of hierarchical reduce rounds
+ * @param extractive     whether the offline extractive summariser produced all or part of the result
+ * @param elapsed        wall-clock duration of the run
+ */
+public record SummaryResult(String summary, int chunks, int reduceRounds, boolean extractive, Duration elapsed) {
+}
@@ -1,8 +1,480 @@
 package com.smartdesk.core.summary;
 
+import com.smartdesk.core.chat.ChatMessage;
+import com.smartdesk.core.chat.online.AiClientException;
+import com.smartdesk.core.chat.online.AiModelClient;
+import com.smartdesk.core.config.AppConfig;
+import com.smartdesk.core.config.ModelCatalog;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
 /**
- * Handles document summarization logic.
+ * Summarises large plain-text documents (TXT, Markdown, logs) with a
+ * map-reduce pipeline.
+ * <p>
+ * The file is streamed in UTF-8 and cut into chunks sized to the model's
+ * context budget, preferably at line breaks. Each chunk is summarised on the
+ * supplied executor while reading continues; a semaphore bounds the number of
+ * chunks held in memory. The partial summaries are then merged in batches,
+ * level by level, until a single request produces the final summary, which is
+ * streamed to the {@link SummaryListener}. Without a model client, or once the
+ * model fails, the offline {@link ExtractiveSummarizer} takes over so a
+ * summary is always produced.
+ * </p>
  */
 public class SummaryService {
-    // TODO: Implement summarization features.
+
+    private static final Logger LOGGER = Logger.getLogger(SummaryService.class.getName());
+
+    /** File extensions accepted by the summary view. */
+    public static final Set<String> SUPPORTED_EXTENSIONS = Set.of("txt", "md", "markdown", "log");
+
+    static final int MIN_CHUNK_CHARS = 2_000;
+    static final int MAX_CHUNK_CHARS = 12_000;
+    static final int MAX_IN_FLIGHT = 4;
+    static final int REDUCE_FAN_IN = 8;
+
+    private static final int READ_BUFFER_CHARS = 8_192;
+    private static final int EXTRACTIVE_CHUNK_SENTENCES = 5;
+    private static final int EXTRACTIVE_FINAL_SENTENCES = 10;
+
+    private static final String MAP_PROMPT = "你是文档摘要助手。下面是一份长文档中的一个片段，"
+        + "请用简洁的中文列出其中的要点，保留关键事实、数字、结论和待办事项，不要添加片段中没有的信息。";
+    private static final String REDUCE_PROMPT = "你是文档摘要助手。下面是同一份文档中若干连续片段的摘要，"
+        + "请将它们合并为一份连贯、不重复的中文摘要，保留关键事实、数字、结论和待办事项。";
+    private static final String FINAL_PROMPT = "你是文档摘要助手。请根据下面的内容为整份文档撰写最终中文摘要："
+        + "先用一两句话概括主题，再分条列出要点。";
+
+    private final Executor executor;
+    private final ExtractiveSummarizer extractive = new ExtractiveSummarizer();
+
+    /**
+     * @param executor executor running chunk and merge requests; model calls block, so it should
+     *                 have several threads
+     */
+    public SummaryService(final Executor executor) {
+        this.executor = Objects.requireNonNull(executor, "executor");
+    }
+
+    /**
+     * Starts summarising the file on a background thread.
+     *
+     * @param client model client, or {@code null} to summarise offline
+     * @return handle used to cancel the run and obtain the result
+     */
+    public SummaryTask summarize(final Path file, final AppConfig config, final AiModelClient client,
+                                 final SummaryListener listener) {
+        Objects.requireNonNull(file, "file");
+        Objects.requireNonNull(config, "config");
+        Objects.requireNonNull(listener, "listener");
+        SummaryTask task = new SummaryTask();
+        Thread thread = new Thread(new Run(file, config, client, listener, task), "smartdesk-summary");
+        thread.setDaemon(true);
+        task.attach(thread);
+        thread.start();
+        return task;
+    }
+
+    /**
+     * Returns whether the file has one of the {@link #SUPPORTED_EXTENSIONS}.
+     */
+    public static boolean isSupported(final Path file) {
+        String name = file.getFileName() == null ? "" : file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 && SUPPORTED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    static int chunkCharsFor(final AppConfig config, final boolean online) {
+        if (!online) {
+            return MAX_CHUNK_CHARS;
+        }
+        // Half of the budget for the chunk leaves room for the prompt and the reply; CJK text
+        // costs about one token per character.
+        int budget = ModelCatalog.getContextTokenBudget(config) / 2;
+        return Math.max(MIN_CHUNK_CHARS, Math.min(MAX_CHUNK_CHARS, budget));
+    }
+
+    /**
+     * State of one summary run. The run thread reads the file and coordinates;
+     * chunk and merge requests execute on the service executor.
+     */
+    private final class Run implements Runnable {
+
+        private final Path file;
+        private final AppConfig config;
+        private final AiModelClient client;
+        private final SummaryListener listener;
+        private final SummaryTask task;
+        private final Semaphore permits = new Semaphore(MAX_IN_FLIGHT);
+        private final List<CompletableFuture<String>> outstanding = new ArrayList<>();
+        private final AtomicInteger chunksSummarised = new AtomicInteger();
+        private final AtomicBoolean remoteFailed = new AtomicBoolean();
+        private volatile CountingInputStream input;
+        private volatile long totalBytes;
+        private volatile int chunksRead;
+        private volatile int reduceRound;
+
+        Run(final Path file, final AppConfig config, final AiModelClient client,
+            final SummaryListener listener, final SummaryTask task) {
+            this.file = file;
+            this.config = config;
+            this.client = client;
+            this.listener = listener;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            final long started = System.nanoTime();
+            try {
+                final String summary = summarizeFile();
+                report(SummaryProgress.Phase.DONE);
+                task.result().complete(new SummaryResult(summary, chunksRead, reduceRound,
+                    client == null || remoteFailed.get(), Duration.ofNanos(System.nanoTime() - started)));
+            } catch (InterruptedException | CancellationException ex) {
+                task.result().cancel(false);
+            } catch (IOException | RuntimeException ex) {
+                if (task.isCancelled()) {
+                    return;
+                }
+                LOGGER.log(Level.SEVERE, "Failed to summarise " + file, ex);
+                task.result().completeExceptionally(ex);
+            } finally {
+                synchronized (outstanding) {
+                    outstanding.forEach(future -> future.cancel(false));
+                }
+            }
+        }
+
+        private String summarizeFile() throws IOException, InterruptedException {
+            totalBytes = Files.size(file);
+            final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            try (CountingInputStream counting = new CountingInputStream(Files.newInputStream(file));
+                 Reader reader = new InputStreamReader(counting, decoder)) {
+                input = counting;
+                final ChunkReader chunks = new ChunkReader(reader, chunkCharsFor(config, client != null));
+                final String first = chunks.next();
+                if (first == null) {
+                    return "";
+                }
+                final String second = chunks.next();
+                if (second == null) {
+                    // The whole document fits one request: summarise it directly.
+                    chunksRead = 1;
+                    report(SummaryProgress.Phase.MAP);
+                    return finish("全文：", first);
+                }
+                final List<CompletableFuture<String>> partials = new ArrayList<>();
+                partials.add(submitChunk(first));
+                partials.add(submitChunk(second));
+                String chunk;
+                while ((chunk = chunks.next()) != null) {
+                    partials.add(submitChunk(chunk));
+                }
+                return reduce(awaitAll(partials));
+            }
+        }
+
+        private CompletableFuture<String> submitChunk(final String chunk) throws InterruptedException {
+            final int index = chunksRead++;
+            report(SummaryProgress.Phase.MAP);
+            return submit(() -> {
+                final String partial = summarizeChunk(chunk, index);
+                chunksSummarised.incrementAndGet();
+                report(SummaryProgress.Phase.MAP);
+                return partial;
+            });
+        }
+
+        private String reduce(final List<String> partials) throws InterruptedException {
+            List<String> level = partials;
+            while (true) {
+                checkCancelled();
+                reduceRound++;
+                report(SummaryProgress.Phase.REDUCE);
+                final List<String> batches = batch(level);
+                if (batches.size() == 1) {
+                    return finish("各部分摘要：", batches.get(0));
+                }
+                final List<CompletableFuture<String>> merged = new ArrayList<>(batches.size());
+                for (String batch : batches) {
+                    merged.add(submit(() -> merge(batch)));
+                }
+                level = awaitAll(merged);
+            }
+        }
+
+        /**
+         * Groups consecutive partial summaries into merge inputs of at most
+         * one chunk in length. Every group holds at least two summaries so
+         * each level is smaller than the previous one.
+         */
+        private List<String> batch(final List<String> level) {
+            final int limit = chunkCharsFor(config, client != null);
+            final List<String> batches = new ArrayList<>();
+            final StringBuilder current = new StringBuilder();
+            int count = 0;
+            for (int i = 0; i < level.size(); i++) {
+                final String partial = level.get(i);
+                if (count >= 2 && (count >= REDUCE_FAN_IN || current.length() + partial.length() > limit)) {
+                    batches.add(current.toString());
+                    current.setLength(0);
+                    count = 0;
+                }
+                if (current.length() > 0) {
+                    current.append("\n\n");
+                }
+                current.append(partial);
+                count++;
+            }
+            if (count == 1 && !batches.isEmpty()) {
+                final int last = batches.size() - 1;
+                batches.set(last, batches.get(last) + "\n\n" + current);
+            } else if (count > 0) {
+                batches.add(current.toString());
+            }
+            return batches;
+        }
+
+        private String summarizeChunk(final String chunk, final int index) {
+            if (useRemote()) {
+                try {
+                    return client.sendMessage(config, List.of(ChatMessage.of(ChatMessage.Sender.SYSTEM, MAP_PROMPT)),
+                        ChatMessage.of(ChatMessage.Sender.USER, fileHeader() + "第 " + (index + 1) + " 部分：\n\n" + chunk));
+                } catch (AiClientException ex) {
+                    fallBack(ex);
+                }
+            }
+            return extractive.summarize(chunk, EXTRACTIVE_CHUNK_SENTENCES);
+        }
+
+        private String merge(final String partials) {
+            if (useRemote()) {
+                try {
+                    return client.sendMessage(config, List.of(ChatMessage.of(ChatMessage.Sender.SYSTEM, REDUCE_PROMPT)),
+                        ChatMessage.of(ChatMessage.Sender.USER, partials));
+                } catch (AiClientException ex) {
+                    fallBack(ex);
+                }
+            }
+            return extractive.summarize(partials, EXTRACTIVE_CHUNK_SENTENCES * 2);
+        }
+
+        /**
+         * Produces the final summary and streams it to the listener.
+         */
+        private String finish(final String label, final String content) {
+            checkCancelled();
+            if (useRemote()) {
+                final AtomicBoolean streamed = new AtomicBoolean();
+                try {
+                    return client.streamMessage(config, List.of(ChatMessage.of(ChatMessage.Sender.SYSTEM, FINAL_PROMPT)),
+                        ChatMessage.of(ChatMessage.Sender.USER, fileHeader() + label + "\n\n" + content), delta -> {
+                            if (!task.isCancelled()) {
+                                streamed.set(true);
+                                listener.onDelta(delta);
+                            }
+                        });
+                } catch (AiClientException ex) {
+                    fallBack(ex);
+                    if (streamed.get()) {
+                        listener.onRestart();
+                    }
+                }
+            }
+            final String summary = extractive.summarize(content, EXTRACTIVE_FINAL_SENTENCES);
+            listener.onDelta(summary);
+            return summary;
+        }
+
+        private boolean useRemote() {
+            return client != null && !remoteFailed.get() && !task.isCancelled();
+        }
+
+        private void fallBack(final AiClientException ex) {
+            if (remoteFailed.compareAndSet(false, true)) {
+                LOGGER.log(Level.WARNING, "Model request failed, summarising " + file + " offline", ex);
+            }
+        }
+
+        private String fileHeader() {
+            return "文档《" + file.getFileName() + "》";
+        }
+
+        private CompletableFuture<String> submit(final Supplier<String> work) throws InterruptedException {
+            checkCancelled();
+            permits.acquire();
+            final CompletableFuture<String> future;
+            try {
+                future = CompletableFuture.supplyAsync(() -> task.isCancelled() ? "" : work.get(), executor);
+            } catch (RuntimeException ex) {
+                permits.release();
+                throw ex;
+            }
+            future.whenComplete((value, error) -> permits.release());
+            synchronized (outstanding) {
+                outstanding.add(future);
+            }
+            return future;
+        }
+
+        private List<String> awaitAll(final List<CompletableFuture<String>> futures) throws InterruptedException {
+            final List<String> values = new ArrayList<>(futures.size());
+            for (CompletableFuture<String> future : futures) {
+                try {
+                    values.add(future.get());
+                } catch (ExecutionException ex) {
+                    final Throwable cause = ex.getCause();
+                    if (cause instanceof RuntimeException runtime) {
+                        throw runtime;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+            }
+            synchronized (outstanding) {
+                outstanding.clear();
+            }
+            return values;
+        }
+
+        private void checkCancelled() {
+            if (task.isCancelled()) {
+                throw new CancellationException();
+            }
+        }
+
+        private void report(final SummaryProgress.Phase phase) {
+            final CountingInputStream counting = input;
+            listener.onProgress(new SummaryProgress(phase, counting == null ? 0 : counting.count(), totalBytes,
+                chunksRead, chunksSummarised.get(), reduceRound));
+        }
+    }
+
+    /**
+     * Cuts a character stream into chunks of about {@code target} characters,
+     * preferring line breaks and then sentence ends as cut points. Holds at
+     * most one chunk plus one read buffer.
+     */
+    static final class ChunkReader {
+
+        private final Reader reader;
+        private final int target;
+        private final char[] buffer = new char[READ_BUFFER_CHARS];
+        private final StringBuilder pending = new StringBuilder();
+        private boolean eof;
+
+        ChunkReader(final Reader reader, final int target) {
+            this.reader = reader;
+            this.target = target;
+        }
+
+        /**
+         * @return the next non-blank chunk, or {@code null} at end of input
+         */
+        String next() throws IOException {
+            while (true) {
+                while (!eof && pending.length() < target) {
+                    final int read = reader.read(buffer);
+                    if (read < 0) {
+                        eof = true;
+                    } else {
+                        pending.append(buffer, 0, read);
+                    }
+                }
+                if (pending.length() == 0) {
+                    return null;
+                }
+                final int cut = pending.length() <= target ? pending.length() : cutPoint();
+                final String chunk = pending.substring(0, cut);
+                pending.delete(0, cut);
+                if (!chunk.isBlank()) {
+                    return chunk;
+                }
+            }
+        }
+
+        private int cutPoint() {
+            final int floor = target / 2;
+            for (int i = target; i > floor; i--) {
+                if (pending.charAt(i - 1) == '\n') {
+                    return i;
+                }
+            }
+            for (int i = target; i > floor; i--) {
+                final char c = pending.charAt(i - 1);
+                if (c == '。' || c == '！' || c == '？' || c == '.' || c == '!' || c == '?') {
+                    return i;
+                }
+            }
+            return Character.isHighSurrogate(pending.charAt(target - 1)) ? target - 1 : target;
+        }
+    }
+
+    /**
+     * Counts the bytes read from the file for progress reporting.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private volatile long count;
+
+        CountingInputStream(final InputStream in) {
+            super(in);
+        }
+
+        long count() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int value = super.read();
+            if (value >= 0) {
+                count++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+            final int read = super.read(bytes, offset, length);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(final long n) throws IOException {
+            final long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
 }
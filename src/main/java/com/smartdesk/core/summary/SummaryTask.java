@@ -0,0 +1,47 @@
+package com.smartdesk.core.summary;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Handle of a running summary started by {@link SummaryService}.
+ */
+public final class SummaryTask {
+
+    private final CompletableFuture<SummaryResult> result = new CompletableFuture<>();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+    private volatile Thread worker;
+
+    SummaryTask() {
+    }
+
+    /**
+     * Completes with the result, exceptionally with a
+     * {@link java.util.concurrent.CancellationException} after {@link #cancel()}.
+     */
+    public CompletableFuture<SummaryResult> result() {
+        return result;
+    }
+
+    /**
+     * Stops reading and discards outstanding chunk summaries. Requests already
+     * sent to the model are not aborted but their results are ignored.
+     */
+    public void cancel() {
+        if (cancelled.compareAndSet(false, true)) {
+            Thread current = worker;
+            if (current != null) {
+                current.interrupt();
+            }
+            result.cancel(false);
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+
+    void attach(final Thread thread) {
+        this.worker = thread;
+    }
+}
@@ -0,0 +1,125 @@
+package com.smartdesk.core.summary;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Sentence and term segmentation shared by the offline summariser and the
+ * keyword extractor. It works on mixed Chinese and English text without a
+ * dictionary: Latin words are split at non-letters and CJK text is handled
+ * as overlapping character n-grams.
+ */
+final class TextSegmenter {
+
+    /** Trimmed sentences shorter than this carry too little content to rank. */
+    static final int MIN_SENTENCE_CHARS = 6;
+
+    static final Set<String> STOP_WORDS = Set.of(
+        "the", "a", "an", "and", "or", "of", "to", "in", "on", "for", "is", "are", "was", "were",
+        "be", "been", "it", "its", "this", "that", "these", "those", "with", "as", "at", "by", "from",
+        "we", "you", "they", "he", "she", "i", "not", "but", "have", "has", "had", "will", "would",
+        "can", "could", "do", "does", "did", "so", "if", "then", "than", "there", "their", "our",
+        "your", "which", "who", "what", "when", "all", "any", "also", "into", "about", "more", "no");
+
+    private TextSegmenter() {
+    }
+
+    /**
+     * Locates the sentences of the text without copying it.
+     *
+     * @return {@code [start0, end0, start1, end1, ...]} offsets of the trimmed sentences
+     */
+    static int[] sentenceSpans(final String text) {
+        int[] spans = new int[64];
+        int size = 0;
+        int start = 0;
+        final int length = text.length();
+        for (int i = 0; i <= length; i++) {
+            final boolean boundary;
+            int end = i;
+            if (i == length) {
+                boundary = true;
+            } else {
+                final char c = text.charAt(i);
+                if (c == '\n' || c == '\r') {
+                    boundary = true;
+                } else if (isTerminator(c)
+                    || c == '.' && (i + 1 == length || Character.isWhitespace(text.charAt(i + 1)))) {
+                    boundary = true;
+                    end = i + 1;
+                } else {
+                    boundary = false;
+                }
+            }
+            if (!boundary) {
+                continue;
+            }
+            int from = start;
+            int to = end;
+            while (from < to && Character.isWhitespace(text.charAt(from))) {
+                from++;
+            }
+            while (to > from && Character.isWhitespace(text.charAt(to - 1))) {
+                to--;
+            }
+            if (to - from >= MIN_SENTENCE_CHARS) {
+                if (size + 2 > spans.length) {
+                    spans = Arrays.copyOf(spans, spans.length * 2);
+                }
+                spans[size++] = from;
+                spans[size++] = to;
+            }
+            start = Math.max(end, i + 1);
+        }
+        return Arrays.copyOf(spans, size);
+    }
+
+    private static boolean isTerminator(final char c) {
+        return c == '。' || c == '！' || c == '？' || c == '；' || c == '!' || c == '?' || c == ';';
+    }
+
+    /**
+     * Terms used to compare sentences: Latin words and digits in lower case
+     * without stop words, and every pair of adjacent CJK characters.
+     */
+    static Set<String> terms(final String sentence) {
+        final Set<String> terms = new HashSet<>();
+        final StringBuilder word = new StringBuilder();
+        char previousCjk = 0;
+        for (int i = 0; i < sentence.length(); i++) {
+            final char c = sentence.charAt(i);
+            if (isCjk(c)) {
+                addWord(word, terms);
+                if (previousCjk != 0) {
+                    terms.add(new String(new char[]{previousCjk, c}));
+                }
+                previousCjk = c;
+            } else {
+                previousCjk = 0;
+                if (Character.isLetterOrDigit(c)) {
+                    word.append(c);
+                } else {
+                    addWord(word, terms);
+                }
+            }
+        }
+        addWord(word, terms);
+        return terms;
+    }
+
+    private static void addWord(final StringBuilder word, final Set<String> terms) {
+        if (word.length() > 1) {
+            final String value = word.toString().toLowerCase(Locale.ROOT);
+            if (!STOP_WORDS.contains(value)) {
+                terms.add(value);
+            }
+        }
+        word.setLength(0);
+    }
+
+    static boolean isCjk(final char c) {
+        return Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN;
+    }
+}
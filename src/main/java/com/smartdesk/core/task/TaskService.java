@@ -7,27 +7,32 @@ import com.smartdesk.core.task.model.TaskLane;
 import com.smartdesk.core.task.model.TaskPriority;
 import com.smartdesk.core.task.model.TaskStatus;
 import com.smartdesk.core.task.model.TaskType;
+import com.smartdesk.core.task.service.TaskChangeListener;
+import com.smartdesk.core.task.service.TaskIndex;
+import com.smartdesk.core.task.service.TaskQuery;
 import com.smartdesk.core.task.service.TaskQuerySupport;
 import com.smartdesk.storage.DatabaseManager;
-import com.smartdesk.storage.entity.TaskEntity;
+import com.smartdesk.storage.WritePublication;
 import com.smartdesk.utils.DateTimeUtils;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -41,35 +46,83 @@ public class TaskService implements TaskQuerySupport {
     private static final Logger LOGGER = Logger.getLogger(TaskService.class.getName());
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
+    /**
+     * Timestamps are written both as ISO text and as epoch milliseconds; see
+     * {@link #bindTask(PreparedStatement, Task)} for the parameter order.
+     */
     private static final String INSERT_SQL = """
-        INSERT INTO tasks (title, description, start_at, due_at, priority, type,
-            reminder_enabled, reminder_lead_minutes, status, last_reminded_at,
-            created_at, updated_at)
-        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        INSERT INTO tasks (title, description, priority, type,
+            reminder_enabled, reminder_lead_minutes, status,
+            start_at, due_at, last_reminded_at, created_at, updated_at,
+            start_at_ms, due_at_ms, last_reminded_at_ms, created_at_ms, updated_at_ms)
+        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
         """;
 
+    /**
+     * Leaves {@code last_reminded_at} alone: only {@link #markReminderTriggered}
+     * advances it, so an edit snapshot taken before a reminder fired cannot
+     * roll it back and make the reminder fire again. See
+     * {@link #bindTaskUpdate(PreparedStatement, Task)} for the parameter order.
+     */
     private static final String UPDATE_SQL = """
-        UPDATE tasks SET title = ?, description = ?, start_at = ?, due_at = ?,
-            priority = ?, type = ?, reminder_enabled = ?, reminder_lead_minutes = ?,
-            status = ?, last_reminded_at = ?, created_at = ?, updated_at = ?
+        UPDATE tasks SET title = ?, description = ?, priority = ?, type = ?,
+            reminder_enabled = ?, reminder_lead_minutes = ?, status = ?,
+            start_at = ?, due_at = ?, created_at = ?, updated_at = ?,
+            start_at_ms = ?, due_at_ms = ?, created_at_ms = ?, updated_at_ms = ?
         WHERE id = ?
         """;
 
+    /** Parameter index of the id in {@link #UPDATE_SQL}. */
+    private static final int UPDATE_ID_PARAMETER = 16;
+
     private static final String DELETE_SQL = "DELETE FROM tasks WHERE id = ?";
 
+    /** Reads timestamps from the epoch columns, which decode without parsing. */
     private static final String SELECT_BASE_SQL = """
-        SELECT id, title, description, start_at, due_at, priority, type,
-               reminder_enabled, reminder_lead_minutes, status, last_reminded_at,
-               created_at, updated_at
+        SELECT id, title, description, priority, type,
+               reminder_enabled, reminder_lead_minutes, status,
+               start_at_ms, due_at_ms, last_reminded_at_ms, created_at_ms, updated_at_ms
           FROM tasks
         """;
 
     private final DatabaseManager databaseManager;
+    private final List<TaskChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private volatile TaskIndex index;
 
     public TaskService(final DatabaseManager databaseManager) {
         this.databaseManager = Objects.requireNonNull(databaseManager, "databaseManager");
     }
 
+    /**
+     * Drops the in-memory task index so the next query reloads it from the
+     * database. Only needed after tasks were modified without going through
+     * this service.
+     */
+    public void invalidateIndex() {
+        index = null;
+        for (TaskChangeListener listener : changeListeners) {
+            try {
+                listener.onTasksReloaded();
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Task change listener threw exception", ex);
+            }
+        }
+    }
+
+    @Override
+    public void addTaskChangeListener(final TaskChangeListener listener) {
+        if (listener != null) {
+            changeListeners.add(listener);
+        }
+    }
+
+    @Override
+    public void removeTaskChangeListener(final TaskChangeListener listener) {
+        if (listener != null) {
+            changeListeners.remove(listener);
+        }
+    }
+
     /**
      * Creates a new task and persists it. Automatically sets the created/updated
      * timestamps and returns the fully initialised domain object.
@@ -77,45 +130,36 @@ public class TaskService implements TaskQuerySupport {
     public Task createTask(final Task task) {
         Objects.requireNonNull(task, "task");
         final LocalDateTime now = DateTimeUtils.now();
-        final Task taskToPersist = normaliseForCreate(task, now);
-        final TaskEntity entity = toEntity(taskToPersist);
+        final Task taskToPersist = toStoragePrecision(normaliseForCreate(task, now));
+        Long id = null;
+        final Task created;
 
         try (Connection connection = databaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
 
-            bindEntity(statement, entity);
+            bindTask(statement, taskToPersist);
             statement.executeUpdate();
 
             try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
                 if (generatedKeys.next()) {
-                    entity.setId(generatedKeys.getLong(1));
+                    id = generatedKeys.getLong(1);
                 }
             }
+            created = taskToPersist.toBuilder().withId(id).build();
+            index().put(created);
         } catch (SQLException ex) {
             LOGGER.log(Level.SEVERE, "Failed to insert task", ex);
             throw new IllegalStateException("Failed to insert task", ex);
         }
-
-        return fromEntity(entity);
+        fireTaskSaved(created);
+        return created;
     }
 
     /**
      * Retrieves a task by its identifier.
      */
     public Optional<Task> findTaskById(final long id) {
-        final String sql = SELECT_BASE_SQL + " WHERE id = ?";
-        try (Connection connection = databaseManager.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, id);
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    return Optional.of(mapRow(resultSet));
-                }
-            }
-        } catch (SQLException ex) {
-            LOGGER.log(Level.SEVERE, "Failed to fetch task by id", ex);
-        }
-        return Optional.empty();
+        return index().get(id);
     }
 
     /**
@@ -123,8 +167,31 @@ public class TaskService implements TaskQuerySupport {
      * date are placed at the end of the list.
      */
     public List<Task> listAllTasks() {
+        return index().all();
+    }
+
+    /**
+     * Returns the task index, loading it from the database on first use. A
+     * failed load is not cached, so the next call retries it.
+     */
+    private TaskIndex index() {
+        TaskIndex current = index;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (index == null) {
+                final TaskIndex loaded = new TaskIndex();
+                loaded.reset(loadAllFromDatabase());
+                index = loaded;
+            }
+            return index;
+        }
+    }
+
+    private List<Task> loadAllFromDatabase() {
         final List<Task> tasks = new ArrayList<>();
-        try (Connection connection = databaseManager.getConnection();
+        try (Connection connection = databaseManager.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(SELECT_BASE_SQL);
              ResultSet resultSet = statement.executeQuery()) {
             while (resultSet.next()) {
@@ -132,11 +199,8 @@ public class TaskService implements TaskQuerySupport {
             }
         } catch (SQLException ex) {
             LOGGER.log(Level.SEVERE, "Failed to fetch tasks", ex);
+            throw new IllegalStateException("Failed to fetch tasks", ex);
         }
-
-        tasks.sort(Comparator
-            .comparing(Task::getDueDateTime, Comparator.nullsLast(LocalDateTime::compareTo))
-            .thenComparing(task -> task.getPriority().getLevel(), Comparator.reverseOrder()));
         return tasks;
     }
 
@@ -150,33 +214,93 @@ public class TaskService implements TaskQuerySupport {
             throw new IllegalArgumentException("Task id must be present for updates");
         }
         final LocalDateTime now = DateTimeUtils.now();
-        final Task taskToPersist = task.toBuilder().withUpdatedAt(now).build();
-        final TaskEntity entity = toEntity(taskToPersist);
+        final Task updated = toStoragePrecision(task.toBuilder().withUpdatedAt(now).build());
+        final Task stored;
 
         try (Connection connection = databaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
-            bindEntity(statement, entity);
-            statement.setLong(13, entity.getId());
+            bindTaskUpdate(statement, updated);
+            statement.setLong(UPDATE_ID_PARAMETER, updated.getId());
             statement.executeUpdate();
+            final TaskIndex taskIndex = index();
+            stored = withStoredReminderState(taskIndex, updated);
+            taskIndex.put(stored);
         } catch (SQLException ex) {
             LOGGER.log(Level.SEVERE, "Failed to update task", ex);
             throw new IllegalStateException("Failed to update task", ex);
         }
-        return fromEntity(entity);
+        fireTaskSaved(stored);
+        return stored;
+    }
+
+    /**
+     * Writes updates of several tasks on the caller's connection, usually as
+     * part of a transaction spanning other writes. The in-memory index and
+     * listeners are only updated through the returned publication, which the
+     * caller must apply once the transaction has committed.
+     *
+     * @param connection writable connection owned by the caller
+     * @param tasks      tasks to update; each must have an id
+     * @return publication of the tasks whose row existed
+     * @throws SQLException if a statement fails; the caller should roll back
+     */
+    public WritePublication updateTasks(final Connection connection, final List<Task> tasks) throws SQLException {
+        Objects.requireNonNull(connection, "connection");
+        Objects.requireNonNull(tasks, "tasks");
+        if (tasks.isEmpty()) {
+            return WritePublication.NONE;
+        }
+        final LocalDateTime now = DateTimeUtils.now();
+        final List<Task> updates = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            Objects.requireNonNull(task, "task");
+            if (task.getId() == null) {
+                throw new IllegalArgumentException("Task id must be present for updates");
+            }
+            updates.add(toStoragePrecision(task.toBuilder().withUpdatedAt(now).build()));
+        }
+        final int[] counts;
+        try (PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            for (Task update : updates) {
+                bindTaskUpdate(statement, update);
+                statement.setLong(UPDATE_ID_PARAMETER, update.getId());
+                statement.addBatch();
+            }
+            counts = statement.executeBatch();
+        }
+        final List<Task> published = new ArrayList<>(updates.size());
+        return new WritePublication(() -> {
+            final TaskIndex taskIndex = index();
+            for (int i = 0; i < updates.size(); i++) {
+                if (counts[i] != 0) {
+                    final Task stored = withStoredReminderState(taskIndex, updates.get(i));
+                    taskIndex.put(stored);
+                    published.add(stored);
+                }
+            }
+        }, () -> published.forEach(this::fireTaskSaved));
     }
 
     /**
      * Deletes a task by id.
      */
     public boolean deleteTask(final long id) {
+        final boolean deleted;
         try (Connection connection = databaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
             statement.setLong(1, id);
-            return statement.executeUpdate() > 0;
+            deleted = statement.executeUpdate() > 0;
+            if (deleted) {
+                index().remove(id);
+            }
         } catch (SQLException ex) {
             LOGGER.log(Level.SEVERE, "Failed to delete task", ex);
             throw new IllegalStateException("Failed to delete task", ex);
         }
+        if (deleted) {
+            fireTaskDeleted(id);
+        }
+        return deleted;
     }
 
     /**
@@ -187,12 +311,18 @@ public class TaskService implements TaskQuerySupport {
         if (taskOptional.isEmpty()) {
             return Optional.empty();
         }
-        final Task task = taskOptional.get().toBuilder()
+        return Optional.of(updateTask(completed(taskOptional.get())));
+    }
+
+    /**
+     * Returns the state {@link #markTaskCompleted} stores for the task,
+     * without writing it.
+     */
+    public static Task completed(final Task task) {
+        return task.toBuilder()
             .withStatus(TaskStatus.COMPLETED)
             .withReminderEnabled(false)
-            .withLastRemindedAt(DateTimeUtils.now())
             .build();
-        return Optional.of(updateTask(task));
     }
 
     /**
@@ -236,54 +366,40 @@ public class TaskService implements TaskQuerySupport {
 
         final Map<TaskLane, List<Task>> lanes = new EnumMap<>(TaskLane.class);
         for (TaskLane lane : TaskLane.values()) {
-            lanes.put(lane, new ArrayList<>());
+            lanes.put(lane, List.of());
         }
 
         final LocalDateTime todayStart = referenceDate.atStartOfDay();
         final LocalDateTime todayEnd = referenceDate.atTime(LocalTime.MAX);
         final LocalDateTime upcomingLimit = referenceDate.plusDays(upcomingDays).atTime(LocalTime.MAX);
+        final TaskIndex taskIndex = index();
+
+        // Every index view is already in display order (due date, then priority).
+        lanes.put(TaskLane.COMPLETED, taskIndex.byStatus(TaskStatus.COMPLETED, null));
+        lanes.put(TaskLane.COURSE, taskIndex.byType(TaskType.COURSE, TaskService::isOpen));
+        lanes.put(TaskLane.ANNIVERSARY, taskIndex.byType(TaskType.ANNIVERSARY, TaskService::isOpen));
+        lanes.put(TaskLane.OVERDUE, taskIndex.dueBetween(null, false, todayStart, false, TaskService::isDatedLaneCandidate));
+        lanes.put(TaskLane.TODAY, taskIndex.dueBetween(todayStart, true, todayEnd, true, TaskService::isDatedLaneCandidate));
+        lanes.put(TaskLane.UPCOMING, taskIndex.dueBetween(todayEnd, false, upcomingLimit, true, TaskService::isDatedLaneCandidate));
+        final List<Task> someday = new ArrayList<>(
+            taskIndex.dueBetween(upcomingLimit, false, null, false, TaskService::isDatedLaneCandidate));
+        someday.addAll(taskIndex.undated(TaskService::isDatedLaneCandidate));
+        lanes.put(TaskLane.SOMEDAY, someday);
+        lanes.replaceAll((lane, list) -> List.copyOf(list));
 
-        for (Task task : listAllTasks()) {
-            if (task.getStatus() == TaskStatus.CANCELLED) {
-                continue;
-            }
-            if (task.getStatus() == TaskStatus.COMPLETED) {
-                lanes.get(TaskLane.COMPLETED).add(task);
-                continue;
-            }
-
-            if (task.getType() == TaskType.COURSE) {
-                lanes.get(TaskLane.COURSE).add(task);
-                continue;
-            }
-            if (task.getType() == TaskType.ANNIVERSARY) {
-                lanes.get(TaskLane.ANNIVERSARY).add(task);
-                continue;
-            }
-
-            final LocalDateTime due = task.getDueDateTime();
-            if (due != null) {
-                if (due.isBefore(todayStart)) {
-                    lanes.get(TaskLane.OVERDUE).add(task);
-                } else if (!due.isAfter(todayEnd)) {
-                    lanes.get(TaskLane.TODAY).add(task);
-                } else if (!due.isAfter(upcomingLimit)) {
-                    lanes.get(TaskLane.UPCOMING).add(task);
-                } else {
-                    lanes.get(TaskLane.SOMEDAY).add(task);
-                }
-            } else {
-                lanes.get(TaskLane.SOMEDAY).add(task);
-            }
-        }
+        return new TaskDashboardSnapshot(referenceDate, lanes);
+    }
 
-        lanes.replaceAll((lane, list) -> list.stream()
-            .sorted(Comparator
-                .comparing(Task::getDueDateTime, Comparator.nullsLast(LocalDateTime::compareTo))
-                .thenComparing(task -> task.getPriority().getLevel(), Comparator.reverseOrder()))
-            .toList());
+    private static boolean isOpen(final Task task) {
+        return task.getStatus() != TaskStatus.COMPLETED && task.getStatus() != TaskStatus.CANCELLED;
+    }
 
-        return new TaskDashboardSnapshot(referenceDate, lanes);
+    /**
+     * Open tasks that are sorted into the date based lanes (everything except
+     * courses and anniversaries, which have lanes of their own).
+     */
+    private static boolean isDatedLaneCandidate(final Task task) {
+        return isOpen(task) && task.getType() != TaskType.COURSE && task.getType() != TaskType.ANNIVERSARY;
     }
 
     /**
@@ -307,35 +423,84 @@ public class TaskService implements TaskQuerySupport {
     /**
      * Flexible filter that allows callers to constrain tasks by type, status,
      * minimum priority and date range.
+     *
+     * @see #queryTasks(TaskQuery)
      */
     public List<Task> filterTasks(final TaskType type, final TaskStatus status,
                                   final TaskPriority minimumPriority,
                                   final LocalDate from, final LocalDate to) {
-        return listAllTasks().stream()
-            .filter(task -> type == null || task.getType() == type)
-            .filter(task -> status == null || task.getStatus() == status)
-            .filter(task -> minimumPriority == null || task.getPriority().getLevel() >= minimumPriority.getLevel())
-            .filter(task -> {
-                if (from == null && to == null) {
-                    return true;
-                }
-                final LocalDateTime due = task.getDueDateTime();
-                if (due == null) {
-                    return false;
+        return queryTasks(TaskQuery.builder()
+            .withType(type)
+            .withStatus(status)
+            .withMinimumPriority(minimumPriority)
+            .withDueFrom(from)
+            .withDueTo(to)
+            .build());
+    }
+
+    /**
+     * Returns the tasks matching the query in display order. The query is
+     * pushed down to SQLite, reading the dated tasks and then the undated
+     * tail in index order, so a filtered view neither scans nor sorts every
+     * task. If the SQL query fails the criteria are evaluated against the
+     * in-memory index instead.
+     */
+    public List<Task> queryTasks(final TaskQuery query) {
+        Objects.requireNonNull(query, "query");
+        final List<Task> tasks = new ArrayList<>();
+        try (Connection connection = databaseManager.getReadConnection()) {
+            readQueryPart(connection, query, TaskQuery.Part.DATED, query.getLimit(), tasks);
+            final int remaining = query.getLimit() - tasks.size();
+            if (!query.hasDueRange() && (query.getLimit() == 0 || remaining > 0)) {
+                readQueryPart(connection, query, TaskQuery.Part.UNDATED, remaining, tasks);
+            }
+            return tasks;
+        } catch (SQLException ex) {
+            LOGGER.log(Level.WARNING, "Failed to query tasks, filtering in memory instead", ex);
+            return queryIndex(index(), query);
+        }
+    }
+
+    private void readQueryPart(final Connection connection, final TaskQuery query, final TaskQuery.Part part,
+                               final int remaining, final List<Task> sink) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(query.toSql(SELECT_BASE_SQL, part))) {
+            query.bind(statement, remaining);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    sink.add(mapRow(resultSet));
                 }
-                final boolean afterFrom = from == null || !due.toLocalDate().isBefore(from);
-                final boolean beforeTo = to == null || !due.toLocalDate().isAfter(to);
-                return afterFrom && beforeTo;
-            })
-            .toList();
+            }
+        }
+    }
+
+    private static List<Task> queryIndex(final TaskIndex taskIndex, final TaskQuery query) {
+        final Predicate<Task> matches = query::matches;
+        final List<Task> candidates;
+        if (query.hasDueRange()) {
+            candidates = taskIndex.dueBetween(query.dueFromInclusive(), true, query.dueToInclusive(), true, matches);
+        } else if (query.getStatus() != null) {
+            candidates = taskIndex.byStatus(query.getStatus(), matches);
+        } else if (query.getType() != null) {
+            candidates = taskIndex.byType(query.getType(), matches);
+        } else if (query.getMinimumPriority() != null) {
+            candidates = taskIndex.atLeastPriority(query.getMinimumPriority(), matches);
+        } else if (query.getKeyword() != null) {
+            candidates = taskIndex.all().stream().filter(matches).toList();
+        } else {
+            candidates = taskIndex.all();
+        }
+        if (query.getLimit() > 0 && candidates.size() > query.getLimit()) {
+            return new ArrayList<>(candidates.subList(0, query.getLimit()));
+        }
+        return candidates;
     }
 
     @Override
     public List<Task> fetchTasksRequiringReminder(final LocalDateTime referenceTime) {
         Objects.requireNonNull(referenceTime, "referenceTime");
         final List<Task> candidates = new ArrayList<>();
-        final String sql = SELECT_BASE_SQL + " WHERE reminder_enabled = 1 AND due_at IS NOT NULL";
-        try (Connection connection = databaseManager.getConnection();
+        final String sql = SELECT_BASE_SQL + " WHERE reminder_enabled = 1 AND due_at_ms IS NOT NULL";
+        try (Connection connection = databaseManager.getReadConnection();
              PreparedStatement statement = connection.prepareStatement(sql);
              ResultSet resultSet = statement.executeQuery()) {
             while (resultSet.next()) {
@@ -356,16 +521,63 @@ public class TaskService implements TaskQuerySupport {
         if (task.getId() == null) {
             return;
         }
-        final String sql = "UPDATE tasks SET last_reminded_at = ?, updated_at = ? WHERE id = ?";
-        final String timestamp = format(reminderTime);
+        final String sql = "UPDATE tasks SET last_reminded_at = ?, updated_at = ?,"
+            + " last_reminded_at_ms = ?, updated_at_ms = ? WHERE id = ?";
+        final LocalDateTime remindedAt = DateTimeUtils.toStoragePrecision(reminderTime);
+        final String timestamp = format(remindedAt);
+        final long millis = DateTimeUtils.toEpochMillis(remindedAt);
+        final Task reminded;
         try (Connection connection = databaseManager.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setString(1, timestamp);
             statement.setString(2, timestamp);
-            statement.setLong(3, task.getId());
-            statement.executeUpdate();
+            statement.setLong(3, millis);
+            statement.setLong(4, millis);
+            statement.setLong(5, task.getId());
+            if (statement.executeUpdate() == 0) {
+                return;
+            }
+            final TaskIndex taskIndex = index();
+            reminded = taskIndex.get(task.getId()).orElse(task).toBuilder()
+                .withLastRemindedAt(remindedAt)
+                .withUpdatedAt(remindedAt)
+                .build();
+            taskIndex.put(reminded);
         } catch (SQLException ex) {
             LOGGER.log(Level.SEVERE, "Failed to mark reminder as triggered", ex);
+            return;
+        }
+        fireTaskSaved(reminded);
+    }
+
+    @Override
+    public List<Task> fetchReminderCandidates() {
+        final List<Task> candidates = new ArrayList<>();
+        for (Task task : index().all()) {
+            if (task.isReminderEnabled() && task.getDueDateTime() != null) {
+                candidates.add(task);
+            }
+        }
+        return candidates;
+    }
+
+    private void fireTaskSaved(final Task task) {
+        for (TaskChangeListener listener : changeListeners) {
+            try {
+                listener.onTaskSaved(task);
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Task change listener threw exception", ex);
+            }
+        }
+    }
+
+    private void fireTaskDeleted(final long id) {
+        for (TaskChangeListener listener : changeListeners) {
+            try {
+                listener.onTaskDeleted(id);
+            } catch (RuntimeException ex) {
+                LOGGER.log(Level.WARNING, "Task change listener threw exception", ex);
+            }
         }
     }
 
@@ -388,73 +600,88 @@ public class TaskService implements TaskQuerySupport {
         return lastReminded == null || lastReminded.isBefore(reminderWindowStart);
     }
 
-    private TaskEntity toEntity(final Task task) {
-        final TaskEntity entity = new TaskEntity();
-        entity.setId(task.getId());
-        entity.setTitle(task.getTitle());
-        entity.setDescription(task.getDescription());
-        entity.setStartAt(format(task.getStartDateTime()));
-        entity.setDueAt(format(task.getDueDateTime()));
-        entity.setPriority(task.getPriority().getLevel());
-        entity.setType(task.getType().name());
-        entity.setReminderEnabled(task.isReminderEnabled());
-        entity.setReminderLeadMinutes(task.getReminderLeadMinutes());
-        entity.setStatus(task.getStatus().name());
-        entity.setLastRemindedAt(format(task.getLastRemindedAt()));
-        entity.setCreatedAt(format(task.getCreatedAt()));
-        entity.setUpdatedAt(format(task.getUpdatedAt()));
-        return entity;
-    }
-
-    private Task fromEntity(final TaskEntity entity) {
+    private static Task mapRow(final ResultSet resultSet) throws SQLException {
         return Task.builder()
-            .withId(entity.getId())
-            .withTitle(entity.getTitle())
-            .withDescription(entity.getDescription())
-            .withStartDateTime(parse(entity.getStartAt()))
-            .withDueDateTime(parse(entity.getDueAt()))
-            .withPriority(TaskPriority.fromLevel(entity.getPriority()))
-            .withType(TaskType.valueOf(entity.getType()))
-            .withReminderEnabled(entity.isReminderEnabled())
-            .withReminderLeadMinutes(entity.getReminderLeadMinutes())
-            .withStatus(TaskStatus.valueOf(entity.getStatus()))
-            .withLastRemindedAt(parse(entity.getLastRemindedAt()))
-            .withCreatedAt(parse(entity.getCreatedAt()))
-            .withUpdatedAt(parse(entity.getUpdatedAt()))
+            .withId(resultSet.getLong("id"))
+            .withTitle(resultSet.getString("title"))
+            .withDescription(resultSet.getString("description"))
+            .withStartDateTime(readTime(resultSet, "start_at_ms"))
+            .withDueDateTime(readTime(resultSet, "due_at_ms"))
+            .withPriority(TaskPriority.fromLevel(resultSet.getInt("priority")))
+            .withType(TaskType.valueOf(resultSet.getString("type")))
+            .withReminderEnabled(resultSet.getInt("reminder_enabled") == 1)
+            .withReminderLeadMinutes(resultSet.getInt("reminder_lead_minutes"))
+            .withStatus(TaskStatus.valueOf(resultSet.getString("status")))
+            .withLastRemindedAt(readTime(resultSet, "last_reminded_at_ms"))
+            .withCreatedAt(readTime(resultSet, "created_at_ms"))
+            .withUpdatedAt(readTime(resultSet, "updated_at_ms"))
             .build();
     }
 
-    private Task mapRow(final ResultSet resultSet) throws SQLException {
-        final TaskEntity entity = new TaskEntity();
-        entity.setId(resultSet.getLong("id"));
-        entity.setTitle(resultSet.getString("title"));
-        entity.setDescription(resultSet.getString("description"));
-        entity.setStartAt(resultSet.getString("start_at"));
-        entity.setDueAt(resultSet.getString("due_at"));
-        entity.setPriority(resultSet.getInt("priority"));
-        entity.setType(resultSet.getString("type"));
-        entity.setReminderEnabled(resultSet.getInt("reminder_enabled") == 1);
-        entity.setReminderLeadMinutes(resultSet.getInt("reminder_lead_minutes"));
-        entity.setStatus(resultSet.getString("status"));
-        entity.setLastRemindedAt(resultSet.getString("last_reminded_at"));
-        entity.setCreatedAt(resultSet.getString("created_at"));
-        entity.setUpdatedAt(resultSet.getString("updated_at"));
-        return fromEntity(entity);
-    }
-
-    private void bindEntity(final PreparedStatement statement, final TaskEntity entity) throws SQLException {
-        statement.setString(1, entity.getTitle());
-        statement.setString(2, entity.getDescription());
-        statement.setString(3, entity.getStartAt());
-        statement.setString(4, entity.getDueAt());
-        statement.setInt(5, entity.getPriority());
-        statement.setString(6, entity.getType());
-        statement.setInt(7, entity.isReminderEnabled() ? 1 : 0);
-        statement.setInt(8, entity.getReminderLeadMinutes());
-        statement.setString(9, entity.getStatus());
-        statement.setString(10, entity.getLastRemindedAt());
-        statement.setString(11, entity.getCreatedAt());
-        statement.setString(12, entity.getUpdatedAt());
+    /**
+     * Binds the columns of {@link #INSERT_SQL}, which {@link #UPDATE_SQL}
+     * shares up to its {@code WHERE} clause.
+     */
+    /**
+     * Returns the updated task with the reminder time the database kept,
+     * which {@link #UPDATE_SQL} does not overwrite.
+     */
+    private static Task withStoredReminderState(final TaskIndex taskIndex, final Task updated) {
+        return taskIndex.get(updated.getId())
+            .map(existing -> updated.toBuilder().withLastRemindedAt(existing.getLastRemindedAt()).build())
+            .orElse(updated);
+    }
+
+    private static void bindTask(final PreparedStatement statement, final Task task) throws SQLException {
+        bindColumns(statement, task, task.getStartDateTime(), task.getDueDateTime(), task.getLastRemindedAt(),
+            task.getCreatedAt(), task.getUpdatedAt());
+    }
+
+    private static void bindTaskUpdate(final PreparedStatement statement, final Task task) throws SQLException {
+        bindColumns(statement, task, task.getStartDateTime(), task.getDueDateTime(),
+            task.getCreatedAt(), task.getUpdatedAt());
+    }
+
+    /**
+     * Binds the seven plain columns, then each timestamp as ISO text and
+     * finally each one again as epoch milliseconds.
+     */
+    private static void bindColumns(final PreparedStatement statement, final Task task,
+                                    final LocalDateTime... times) throws SQLException {
+        statement.setString(1, task.getTitle());
+        statement.setString(2, task.getDescription());
+        statement.setInt(3, task.getPriority().getLevel());
+        statement.setString(4, task.getType().name());
+        statement.setInt(5, task.isReminderEnabled() ? 1 : 0);
+        statement.setInt(6, task.getReminderLeadMinutes());
+        statement.setString(7, task.getStatus().name());
+        for (int i = 0; i < times.length; i++) {
+            statement.setString(8 + i, format(times[i]));
+            if (times[i] == null) {
+                statement.setNull(8 + times.length + i, Types.INTEGER);
+            } else {
+                statement.setLong(8 + times.length + i, DateTimeUtils.toEpochMillis(times[i]));
+            }
+        }
+    }
+
+    private static LocalDateTime readTime(final ResultSet resultSet, final String column) throws SQLException {
+        final long millis = resultSet.getLong(column);
+        return resultSet.wasNull() ? null : DateTimeUtils.fromEpochMillis(millis);
+    }
+
+    /**
+     * Truncates all timestamps to the precision the database keeps, so the
+     * task held by the index equals the one read back later.
+     */
+    private static Task toStoragePrecision(final Task task) {
+        return task.toBuilder()
+            .withStartDateTime(DateTimeUtils.toStoragePrecision(task.getStartDateTime()))
+            .withDueDateTime(DateTimeUtils.toStoragePrecision(task.getDueDateTime()))
+            .withLastRemindedAt(DateTimeUtils.toStoragePrecision(task.getLastRemindedAt()))
+            .withCreatedAt(DateTimeUtils.toStoragePrecision(task.getCreatedAt()))
+            .withUpdatedAt(DateTimeUtils.toStoragePrecision(task.getUpdatedAt()))
+            .build();
     }
 
     private Task normaliseForCreate(final Task task, final LocalDateTime now) {
@@ -469,8 +696,4 @@ public class TaskService implements TaskQuerySupport {
     private static String format(final LocalDateTime value) {
         return value == null ? null : DATE_TIME_FORMATTER.format(value);
     }
-
-    private static LocalDateTime parse(final String value) {
-        return value == null ? null : LocalDateTime.parse(value, DATE_TIME_FORMATTER);
-    }
 }
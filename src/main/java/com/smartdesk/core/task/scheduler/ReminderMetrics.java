@@ -0,0 +1,25 @@
+package com.smartdesk.core.task.scheduler;
+
+import java.time.LocalDateTime;
+
+/**
+ * Snapshot of the state of a {@link ReminderScheduler}.
+ *
+ * @param queueDepth                reminders currently waiting to fire
+ * @param nextFireAt                instant of the earliest pending reminder, {@code null} if none
+ * @param remindersFired            reminders delivered since start
+ * @param reloads                   times the queue was rebuilt from the task store
+ * @param averageFireLatencyMillis  average delay between the computed and the actual fire time
+ * @param maxFireLatencyMillis      largest fire delay observed
+ * @param lastFireLatencyMillis     fire delay of the most recent reminder
+ */
+public record ReminderMetrics(
+    int queueDepth,
+    LocalDateTime nextFireAt,
+    long remindersFired,
+    long reloads,
+    long averageFireLatencyMillis,
+    long maxFireLatencyMillis,
+    long lastFireLatencyMillis
+) {
+}
@@ -1,13 +1,22 @@
 package com.smartdesk.core.task.scheduler;
 
 import com.smartdesk.core.task.model.Task;
+import com.smartdesk.core.task.model.TaskStatus;
+import com.smartdesk.core.task.service.TaskChangeListener;
 import com.smartdesk.core.task.service.TaskQuerySupport;
+import com.smartdesk.utils.DateTimeUtils;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
 import java.util.Objects;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadFactory;
@@ -16,22 +25,48 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Background scheduler that polls the database for tasks that require a
- * reminder. The scheduler is lightweight and designed to run even when the UI
- * is closed; callers can listen for {@link ReminderListener} callbacks to show
- * notifications or trigger sounds.
+ * Event driven scheduler that delivers task reminders at
+ * {@code due - reminderLeadMinutes}.
+ * <p>
+ * On {@link #start()} the reminder candidates are loaded once into a queue
+ * ordered by their next fire instant. Afterwards the queue is updated
+ * incrementally through {@link TaskChangeListener} callbacks, and a single
+ * timer is armed for the head of the queue, so reminders fire within
+ * milliseconds of their computed time and the scheduler sleeps while nothing
+ * is due. All queue work runs on the scheduler thread; listeners are notified
+ * there as well. The scheduler is lightweight and designed to run even when
+ * the UI is closed; callers can listen for {@link ReminderListener} callbacks
+ * to show notifications or trigger sounds.
+ * </p>
  */
 public class ReminderScheduler implements AutoCloseable {
 
     private static final Logger LOGGER = Logger.getLogger(ReminderScheduler.class.getName());
-    private static final Duration DEFAULT_SCAN_INTERVAL = Duration.ofMinutes(1);
+    private static final Duration DEFAULT_CLOCK_CHECK_INTERVAL = Duration.ofMinutes(5);
 
     private final TaskQuerySupport taskQuerySupport;
     private final ScheduledExecutorService executor;
     private final Set<ReminderListener> listeners = new CopyOnWriteArraySet<>();
+    private final TaskChangeListener changeListener = new QueueUpdater();
+    private final Object statsLock = new Object();
 
-    private ScheduledFuture<?> scheduledFuture;
-    private Duration scanInterval = DEFAULT_SCAN_INTERVAL;
+    // Confined to the scheduler thread.
+    private final NavigableSet<PendingReminder> queue = new TreeSet<>(Comparator
+        .comparing(PendingReminder::fireAt)
+        .thenComparingLong(PendingReminder::taskId));
+    private final Map<Long, PendingReminder> pendingByTask = new HashMap<>();
+    private ScheduledFuture<?> timer;
+
+    private volatile Duration clockCheckInterval = DEFAULT_CLOCK_CHECK_INTERVAL;
+    private volatile int queueDepth;
+    private volatile LocalDateTime nextFireAt;
+    private boolean started;
+
+    private long remindersFired;
+    private long reloads;
+    private long totalLatencyMillis;
+    private long maxLatencyMillis;
+    private long lastLatencyMillis;
 
     public ReminderScheduler(final TaskQuerySupport taskQuerySupport) {
         this.taskQuerySupport = Objects.requireNonNull(taskQuerySupport, "taskQuerySupport");
@@ -39,45 +74,157 @@ public class ReminderScheduler implements AutoCloseable {
     }
 
     /**
-     * Configures how often the scheduler scans for due tasks. The value must be
-     * at least one minute to prevent excessive database load.
+     * Configures the longest time the scheduler sleeps without re-reading the
+     * wall clock. This only matters when the system clock jumps, for example
+     * after the machine resumed from sleep. The value must be at least one
+     * minute.
      */
-    public void setScanInterval(final Duration interval) {
+    public void setClockCheckInterval(final Duration interval) {
         if (interval == null || interval.compareTo(Duration.ofMinutes(1)) < 0) {
-            throw new IllegalArgumentException("Scan interval must be at least one minute");
+            throw new IllegalArgumentException("Clock check interval must be at least one minute");
         }
-        this.scanInterval = interval;
-        restart();
+        this.clockCheckInterval = interval;
+        submit(this::rearm);
     }
 
     /**
-     * Starts polling for reminders. Calling start multiple times is safe and
-     * will simply restart the polling cycle.
+     * Loads the reminder queue and starts delivering reminders. Calling start
+     * multiple times is safe and simply reloads the queue.
      */
     public synchronized void start() {
-        restart();
+        if (!started) {
+            taskQuerySupport.addTaskChangeListener(changeListener);
+            started = true;
+        }
+        submit(this::reload);
+    }
+
+    /**
+     * Returns queue depth and fire latency statistics.
+     */
+    public ReminderMetrics metrics() {
+        synchronized (statsLock) {
+            return new ReminderMetrics(
+                queueDepth,
+                nextFireAt,
+                remindersFired,
+                reloads,
+                remindersFired == 0 ? 0L : totalLatencyMillis / remindersFired,
+                maxLatencyMillis,
+                lastLatencyMillis);
+        }
+    }
+
+    private void reload() {
+        queue.clear();
+        pendingByTask.clear();
+        final LocalDateTime now = DateTimeUtils.now();
+        for (Task task : taskQuerySupport.fetchReminderCandidates()) {
+            enqueue(task, now);
+        }
+        synchronized (statsLock) {
+            reloads++;
+        }
+        rearm();
+    }
+
+    private void upsert(final Task task) {
+        dequeue(task.getId());
+        enqueue(task, DateTimeUtils.now());
+        rearm();
+    }
+
+    private void remove(final long taskId) {
+        dequeue(taskId);
+        rearm();
+    }
+
+    private void enqueue(final Task task, final LocalDateTime now) {
+        final LocalDateTime fireAt = nextFireTime(task, now);
+        if (fireAt == null) {
+            return;
+        }
+        final PendingReminder reminder = new PendingReminder(task.getId(), task, fireAt);
+        queue.add(reminder);
+        pendingByTask.put(task.getId(), reminder);
+    }
+
+    private void dequeue(final Long taskId) {
+        final PendingReminder previous = pendingByTask.remove(taskId);
+        if (previous != null) {
+            queue.remove(previous);
+        }
+    }
+
+    /**
+     * Computes when the reminder for the task should fire: the start of its
+     * reminder window, or {@code now} if the window has already opened and no
+     * reminder was delivered in it. Returns {@code null} if no reminder is
+     * pending.
+     */
+    static LocalDateTime nextFireTime(final Task task, final LocalDateTime now) {
+        if (task.getId() == null || !task.isReminderEnabled() || task.getDueDateTime() == null) {
+            return null;
+        }
+        if (task.getStatus() == TaskStatus.COMPLETED || task.getStatus() == TaskStatus.CANCELLED) {
+            return null;
+        }
+        final LocalDateTime windowStart = task.getDueDateTime().minusMinutes(task.getReminderLeadMinutes());
+        final LocalDateTime lastReminded = task.getLastRemindedAt();
+        if (lastReminded != null && !lastReminded.isBefore(windowStart)) {
+            return null;
+        }
+        return windowStart.isAfter(now) ? windowStart : now;
     }
 
-    private synchronized void restart() {
-        if (scheduledFuture != null) {
-            scheduledFuture.cancel(false);
+    private void rearm() {
+        if (timer != null) {
+            timer.cancel(false);
+            timer = null;
         }
-        scheduledFuture = executor.scheduleAtFixedRate(this::scanAndNotify, 0,
-            scanInterval.toMinutes(), TimeUnit.MINUTES);
+        queueDepth = queue.size();
+        if (queue.isEmpty()) {
+            nextFireAt = null;
+            return;
+        }
+        final LocalDateTime head = queue.first().fireAt();
+        nextFireAt = head;
+        final long delay = Math.max(0L, Math.min(
+            Duration.between(DateTimeUtils.now(), head).toNanos(),
+            clockCheckInterval.toNanos()));
+        timer = executor.schedule(this::fireDue, delay, TimeUnit.NANOSECONDS);
     }
 
-    private void scanAndNotify() {
+    private void fireDue() {
         try {
-            final LocalDateTime now = LocalDateTime.now();
-            final var dueTasks = taskQuerySupport.fetchTasksRequiringReminder(now);
-            for (Task task : dueTasks) {
-                final LocalDateTime dueDate = task.getDueDateTime();
-                final Duration remaining = dueDate == null ? Duration.ZERO : Duration.between(now, dueDate);
-                notifyListeners(task, remaining);
-                taskQuerySupport.markReminderTriggered(task, now);
+            final LocalDateTime now = DateTimeUtils.now();
+            while (!queue.isEmpty() && !queue.first().fireAt().isAfter(now)) {
+                final PendingReminder reminder = queue.pollFirst();
+                pendingByTask.remove(reminder.taskId());
+                deliver(reminder, now);
             }
         } catch (Exception ex) {
-            LOGGER.log(Level.SEVERE, "Failed to execute reminder scan", ex);
+            LOGGER.log(Level.SEVERE, "Failed to deliver reminders", ex);
+        } finally {
+            rearm();
+        }
+    }
+
+    private void deliver(final PendingReminder reminder, final LocalDateTime now) {
+        final Task task = reminder.task();
+        final Duration remaining = Duration.between(now, task.getDueDateTime());
+        recordLatency(Math.max(0L, Duration.between(reminder.fireAt(), now).toMillis()));
+        taskQuerySupport.markReminderTriggered(task, now);
+        notifyListeners(task.toBuilder().withLastRemindedAt(DateTimeUtils.toStoragePrecision(now)).build(),
+            remaining);
+    }
+
+    private void recordLatency(final long latencyMillis) {
+        synchronized (statsLock) {
+            remindersFired++;
+            totalLatencyMillis += latencyMillis;
+            maxLatencyMillis = Math.max(maxLatencyMillis, latencyMillis);
+            lastLatencyMillis = latencyMillis;
         }
     }
 
@@ -91,6 +238,20 @@ public class ReminderScheduler implements AutoCloseable {
         }
     }
 
+    private void submit(final Runnable action) {
+        try {
+            executor.execute(() -> {
+                try {
+                    action.run();
+                } catch (Exception ex) {
+                    LOGGER.log(Level.SEVERE, "Failed to update reminder queue", ex);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            LOGGER.log(Level.FINE, "Reminder scheduler already closed", ex);
+        }
+    }
+
     public void addReminderListener(final ReminderListener listener) {
         if (listener != null) {
             listeners.add(listener);
@@ -104,9 +265,10 @@ public class ReminderScheduler implements AutoCloseable {
     }
 
     @Override
-    public void close() {
-        if (scheduledFuture != null) {
-            scheduledFuture.cancel(true);
+    public synchronized void close() {
+        if (started) {
+            taskQuerySupport.removeTaskChangeListener(changeListener);
+            started = false;
         }
         executor.shutdownNow();
     }
@@ -116,9 +278,39 @@ public class ReminderScheduler implements AutoCloseable {
      * notifications.
      */
     public interface ReminderListener {
+        /**
+         * @param task              the task with the reminder time already
+         *                          recorded in the database
+         * @param remainingUntilDue time left until the task is due
+         */
         void onReminder(Task task, Duration remainingUntilDue);
     }
 
+    private record PendingReminder(long taskId, Task task, LocalDateTime fireAt) {
+    }
+
+    /**
+     * Moves task change notifications onto the scheduler thread.
+     */
+    private final class QueueUpdater implements TaskChangeListener {
+        @Override
+        public void onTaskSaved(final Task task) {
+            if (task.getId() != null) {
+                submit(() -> upsert(task));
+            }
+        }
+
+        @Override
+        public void onTaskDeleted(final long id) {
+            submit(() -> remove(id));
+        }
+
+        @Override
+        public void onTasksReloaded() {
+            submit(ReminderScheduler.this::reload);
+        }
+    }
+
     private static final class DaemonThreadFactory implements ThreadFactory {
         @Override
         public Thread newThread(final Runnable r) {
@@ -0,0 +1,28 @@
+package com.smartdesk.core.task.service;
+
+import com.smartdesk.core.task.model.Task;
+
+/**
+ * Receives notifications after tasks were written through
+ * {@link com.smartdesk.core.task.TaskService}. Callbacks run on the thread that
+ * performed the write and should return quickly.
+ */
+public interface TaskChangeListener {
+
+    /**
+     * A task was created or updated; {@code task} is the persisted state.
+     */
+    void onTaskSaved(Task task);
+
+    /**
+     * The task with the given id was deleted.
+     */
+    void onTaskDeleted(long id);
+
+    /**
+     * Tasks were changed outside the service and any derived state should be
+     * rebuilt.
+     */
+    default void onTasksReloaded() {
+    }
+}
@@ -0,0 +1,286 @@
+package com.smartdesk.core.task.service;
+
+import com.smartdesk.core.task.model.Task;
+import com.smartdesk.core.task.model.TaskPriority;
+import com.smartdesk.core.task.model.TaskStatus;
+import com.smartdesk.core.task.model.TaskType;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * In-memory index over all tasks, kept in step with every write performed by
+ * {@link com.smartdesk.core.task.TaskService}.
+ * <p>
+ * Besides a primary map by id the index maintains secondary sets by status,
+ * type and priority as well as a {@link NavigableMap} keyed by due time, all
+ * ordered like the task lists shown in the UI (due date with undated tasks
+ * last, then descending priority). Range and lane queries therefore cost
+ * {@code O(log n + k)} and never touch SQLite. Reads and writes are guarded
+ * by a read/write lock so the reminder thread and the FX thread can use the
+ * index concurrently.
+ * </p>
+ */
+public final class TaskIndex {
+
+    /** Display order: due date (undated last), higher priority first, then id. */
+    public static final Comparator<Task> DISPLAY_ORDER = Comparator
+        .comparing(Task::getDueDateTime, Comparator.nullsLast(LocalDateTime::compareTo))
+        .thenComparing(task -> task.getPriority().getLevel(), Comparator.reverseOrder())
+        .thenComparing(Task::getId, Comparator.nullsLast(Long::compareTo));
+
+    private static final Comparator<Task> SAME_DUE_ORDER = Comparator
+        .comparing((Task task) -> task.getPriority().getLevel(), Comparator.reverseOrder())
+        .thenComparing(Task::getId, Comparator.nullsLast(Long::compareTo));
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Task> byId = new HashMap<>();
+    private final NavigableSet<Task> ordered = new TreeSet<>(DISPLAY_ORDER);
+    private final Map<TaskStatus, NavigableSet<Task>> byStatus = new EnumMap<>(TaskStatus.class);
+    private final Map<TaskType, NavigableSet<Task>> byType = new EnumMap<>(TaskType.class);
+    private final Map<TaskPriority, NavigableSet<Task>> byPriority = new EnumMap<>(TaskPriority.class);
+    private final NavigableMap<LocalDateTime, NavigableSet<Task>> byDue = new TreeMap<>();
+    private final NavigableSet<Task> undated = new TreeSet<>(SAME_DUE_ORDER);
+
+    public TaskIndex() {
+        for (TaskStatus status : TaskStatus.values()) {
+            byStatus.put(status, new TreeSet<>(DISPLAY_ORDER));
+        }
+        for (TaskType type : TaskType.values()) {
+            byType.put(type, new TreeSet<>(DISPLAY_ORDER));
+        }
+        for (TaskPriority priority : TaskPriority.values()) {
+            byPriority.put(priority, new TreeSet<>(DISPLAY_ORDER));
+        }
+    }
+
+    /**
+     * Replaces the whole content of the index.
+     */
+    public void reset(final Collection<Task> tasks) {
+        Objects.requireNonNull(tasks, "tasks");
+        lock.writeLock().lock();
+        try {
+            byId.clear();
+            ordered.clear();
+            byStatus.values().forEach(NavigableSet::clear);
+            byType.values().forEach(NavigableSet::clear);
+            byPriority.values().forEach(NavigableSet::clear);
+            byDue.clear();
+            undated.clear();
+            tasks.forEach(this::insert);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a task or replaces the indexed version with the same id.
+     */
+    public void put(final Task task) {
+        Objects.requireNonNull(task, "task");
+        if (task.getId() == null) {
+            throw new IllegalArgumentException("Only persisted tasks can be indexed");
+        }
+        lock.writeLock().lock();
+        try {
+            Task previous = byId.get(task.getId());
+            if (previous != null) {
+                detach(previous);
+            }
+            insert(task);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the task with the given id.
+     *
+     * @return {@code true} if the task was indexed
+     */
+    public boolean remove(final long id) {
+        lock.writeLock().lock();
+        try {
+            Task previous = byId.get(id);
+            if (previous == null) {
+                return false;
+            }
+            detach(previous);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Task> get(final long id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(byId.get(id));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns all tasks in {@link #DISPLAY_ORDER}.
+     */
+    public List<Task> all() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(ordered);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the tasks with the given status matching the predicate, in display order.
+     */
+    public List<Task> byStatus(final TaskStatus status, final Predicate<Task> filter) {
+        Objects.requireNonNull(status, "status");
+        return collect(byStatus.get(status), filter);
+    }
+
+    /**
+     * Returns the tasks of the given type matching the predicate, in display order.
+     */
+    public List<Task> byType(final TaskType type, final Predicate<Task> filter) {
+        Objects.requireNonNull(type, "type");
+        return collect(byType.get(type), filter);
+    }
+
+    /**
+     * Returns the tasks with at least the given priority matching the
+     * predicate, in display order.
+     */
+    public List<Task> atLeastPriority(final TaskPriority minimum, final Predicate<Task> filter) {
+        Objects.requireNonNull(minimum, "minimum");
+        lock.readLock().lock();
+        try {
+            NavigableSet<Task> merged = new TreeSet<>(DISPLAY_ORDER);
+            for (Map.Entry<TaskPriority, NavigableSet<Task>> entry : byPriority.entrySet()) {
+                if (entry.getKey().getLevel() >= minimum.getLevel()) {
+                    merged.addAll(entry.getValue());
+                }
+            }
+            return filter == null ? new ArrayList<>(merged) : merged.stream().filter(filter).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the tasks due in the given range matching the predicate, ordered
+     * by due time and priority. {@code null} bounds are open.
+     */
+    public List<Task> dueBetween(final LocalDateTime from, final boolean fromInclusive,
+                                 final LocalDateTime to, final boolean toInclusive,
+                                 final Predicate<Task> filter) {
+        if (from != null && to != null
+            && (to.isBefore(from) || to.equals(from) && !(fromInclusive && toInclusive))) {
+            return new ArrayList<>();
+        }
+        lock.readLock().lock();
+        try {
+            NavigableMap<LocalDateTime, NavigableSet<Task>> range = byDue;
+            if (from != null) {
+                range = range.tailMap(from, fromInclusive);
+            }
+            if (to != null) {
+                range = range.headMap(to, toInclusive);
+            }
+            List<Task> result = new ArrayList<>();
+            for (NavigableSet<Task> bucket : range.values()) {
+                for (Task task : bucket) {
+                    if (filter == null || filter.test(task)) {
+                        result.add(task);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the tasks without due date matching the predicate, ordered by priority.
+     */
+    public List<Task> undated(final Predicate<Task> filter) {
+        return collect(undated, filter);
+    }
+
+    private List<Task> collect(final NavigableSet<Task> source, final Predicate<Task> filter) {
+        lock.readLock().lock();
+        try {
+            if (filter == null) {
+                return new ArrayList<>(source);
+            }
+            List<Task> result = new ArrayList<>();
+            for (Task task : source) {
+                if (filter.test(task)) {
+                    result.add(task);
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void insert(final Task task) {
+        byId.put(task.getId(), task);
+        ordered.add(task);
+        byStatus.get(task.getStatus()).add(task);
+        byType.get(task.getType()).add(task);
+        byPriority.get(task.getPriority()).add(task);
+        if (task.getDueDateTime() == null) {
+            undated.add(task);
+        } else {
+            byDue.computeIfAbsent(task.getDueDateTime(), key -> new TreeSet<>(SAME_DUE_ORDER)).add(task);
+        }
+    }
+
+    private void detach(final Task task) {
+        byId.remove(task.getId());
+        ordered.remove(task);
+        byStatus.get(task.getStatus()).remove(task);
+        byType.get(task.getType()).remove(task);
+        byPriority.get(task.getPriority()).remove(task);
+        if (task.getDueDateTime() == null) {
+            undated.remove(task);
+        } else {
+            NavigableSet<Task> bucket = byDue.get(task.getDueDateTime());
+            if (bucket != null) {
+                bucket.remove(task);
+                if (bucket.isEmpty()) {
+                    byDue.remove(task.getDueDateTime());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.smartdesk.core.task.service;
+
+import com.smartdesk.core.task.model.Task;
+import com.smartdesk.core.task.model.TaskPriority;
+import com.smartdesk.core.task.model.TaskStatus;
+import com.smartdesk.core.task.model.TaskType;
+import com.smartdesk.utils.DateTimeUtils;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Immutable set of task filter criteria.
+ * <p>
+ * A query can be evaluated in two ways: {@link #toSql(String, Part)} and
+ * {@link #bind(PreparedStatement, int)} push it down to SQLite as a
+ * parameterised {@code WHERE}/{@code ORDER BY}/{@code LIMIT} clause, while
+ * {@link #matches(Task)} evaluates the same criteria in memory. Both produce
+ * results in {@link TaskIndex#DISPLAY_ORDER}. The SQL form is split into the
+ * dated tasks and the tail without a due date so that {@code idx_tasks_due}
+ * and {@code idx_tasks_filter} deliver each part already sorted.
+ * </p>
+ */
+public final class TaskQuery {
+
+    /**
+     * Slices of {@link TaskIndex#DISPLAY_ORDER} that are read with separate
+     * statements; concatenated they form the full display order.
+     */
+    public enum Part {
+        /** Tasks with a due date, ordered by due date, priority and id. */
+        DATED("due_at_ms IS NOT NULL", "ORDER BY due_at_ms, priority DESC, id"),
+        /** Tasks without a due date, ordered by priority and id. */
+        UNDATED("due_at_ms IS NULL", "ORDER BY priority DESC, id");
+
+        private final String condition;
+        private final String orderBy;
+
+        Part(final String condition, final String orderBy) {
+            this.condition = condition;
+            this.orderBy = orderBy;
+        }
+    }
+
+    private static final TaskQuery ALL = builder().build();
+
+    private final TaskType type;
+    private final TaskStatus status;
+    private final TaskPriority minimumPriority;
+    private final LocalDate dueFrom;
+    private final LocalDate dueTo;
+    private final String keyword;
+    private final int limit;
+
+    private TaskQuery(final Builder builder) {
+        this.type = builder.type;
+        this.status = builder.status;
+        this.minimumPriority = builder.minimumPriority;
+        this.dueFrom = builder.dueFrom;
+        this.dueTo = builder.dueTo;
+        this.keyword = builder.keyword == null || builder.keyword.isBlank() ? null : builder.keyword.trim();
+        this.limit = builder.limit;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Query without any criteria.
+     */
+    public static TaskQuery all() {
+        return ALL;
+    }
+
+    public TaskType getType() {
+        return type;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    public TaskPriority getMinimumPriority() {
+        return minimumPriority;
+    }
+
+    public LocalDate getDueFrom() {
+        return dueFrom;
+    }
+
+    public LocalDate getDueTo() {
+        return dueTo;
+    }
+
+    public String getKeyword() {
+        return keyword;
+    }
+
+    /**
+     * Maximum number of tasks returned, {@code 0} for no limit.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    public boolean hasDueRange() {
+        return dueFrom != null || dueTo != null;
+    }
+
+    /**
+     * Start of the due range as stored in the database, {@code null} if open.
+     */
+    public LocalDateTime dueFromInclusive() {
+        return dueFrom == null ? null : dueFrom.atStartOfDay();
+    }
+
+    /**
+     * End of the due range, {@code null} if open.
+     */
+    public LocalDateTime dueToInclusive() {
+        return dueTo == null ? null : dueTo.atTime(LocalTime.MAX);
+    }
+
+    /**
+     * In-memory evaluation of the criteria; used as fallback when the SQL
+     * query fails. The limit is not applied here.
+     */
+    public boolean matches(final Task task) {
+        if (type != null && task.getType() != type) {
+            return false;
+        }
+        if (status != null && task.getStatus() != status) {
+            return false;
+        }
+        if (minimumPriority != null && task.getPriority().getLevel() < minimumPriority.getLevel()) {
+            return false;
+        }
+        if (hasDueRange()) {
+            final LocalDateTime due = task.getDueDateTime();
+            if (due == null) {
+                return false;
+            }
+            if (dueFrom != null && due.isBefore(dueFromInclusive())) {
+                return false;
+            }
+            if (dueTo != null && due.isAfter(dueToInclusive())) {
+                return false;
+            }
+        }
+        if (keyword != null) {
+            final String folded = foldCase(keyword);
+            return contains(task.getTitle(), folded) || contains(task.getDescription(), folded);
+        }
+        return true;
+    }
+
+    /**
+     * Appends the {@code WHERE}, {@code ORDER BY} and {@code LIMIT} clauses
+     * reading one part of this query to the given
+     * {@code SELECT ... FROM tasks} statement. Parameters are bound with
+     * {@link #bind(PreparedStatement, int)}.
+     *
+     * @throws IllegalStateException if {@link Part#UNDATED} is requested for a
+     *                               query with a due range, which it can never match
+     */
+    public String toSql(final String selectFromTasks, final Part part) {
+        if (part == Part.UNDATED && hasDueRange()) {
+            throw new IllegalStateException("A query with a due range has no undated tasks");
+        }
+        final StringBuilder sql = new StringBuilder(selectFromTasks.strip());
+        final StringJoiner where = new StringJoiner(" AND ", " WHERE ", "");
+        if (type != null) {
+            where.add("type = ?");
+        }
+        if (status != null) {
+            where.add("status = ?");
+        }
+        if (minimumPriority != null) {
+            where.add("priority >= ?");
+        }
+        if (dueFrom != null) {
+            where.add("due_at_ms >= ?");
+        }
+        if (dueTo != null) {
+            where.add("due_at_ms < ?");
+        }
+        if (!hasDueRange()) {
+            where.add(part.condition);
+        }
+        if (keyword != null) {
+            where.add("(title LIKE ? ESCAPE '\\' OR description LIKE ? ESCAPE '\\')");
+        }
+        sql.append(where).append(' ').append(part.orderBy);
+        if (limit > 0) {
+            sql.append(" LIMIT ?");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Binds the parameters of {@link #toSql(String, Part)} starting at index 1.
+     *
+     * @param remaining number of rows still wanted; only bound if the query
+     *                  has a limit
+     */
+    public void bind(final PreparedStatement statement, final int remaining) throws SQLException {
+        final List<Object> parameters = new ArrayList<>();
+        if (type != null) {
+            parameters.add(type.name());
+        }
+        if (status != null) {
+            parameters.add(status.name());
+        }
+        if (minimumPriority != null) {
+            parameters.add(minimumPriority.getLevel());
+        }
+        if (dueFrom != null) {
+            parameters.add(DateTimeUtils.toEpochMillis(dueFrom.atStartOfDay()));
+        }
+        if (dueTo != null) {
+            parameters.add(DateTimeUtils.toEpochMillis(dueTo.plusDays(1).atStartOfDay()));
+        }
+        if (keyword != null) {
+            final String pattern = "%" + escapeLike(keyword) + "%";
+            parameters.add(pattern);
+            parameters.add(pattern);
+        }
+        if (limit > 0) {
+            parameters.add(remaining);
+        }
+        for (int i = 0; i < parameters.size(); i++) {
+            statement.setObject(i + 1, parameters.get(i));
+        }
+    }
+
+    /**
+     * Lower-cases the ASCII letters of {@code value} and leaves every other
+     * character alone. This is the case folding SQLite's {@code LIKE} applies,
+     * so keyword matches in memory agree with the SQL query for any text.
+     */
+    public static String foldCase(final String value) {
+        char[] chars = null;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                if (chars == null) {
+                    chars = value.toCharArray();
+                }
+                chars[i] = (char) (c + ('a' - 'A'));
+            }
+        }
+        return chars == null ? value : new String(chars);
+    }
+
+    private static boolean contains(final String value, final String foldedKeyword) {
+        return value != null && foldCase(value).contains(foldedKeyword);
+    }
+
+    private static String escapeLike(final String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    @Override
+    public String toString() {
+        return "TaskQuery{"
+            + "type=" + type
+            + ", status=" + status
+            + ", minimumPriority=" + minimumPriority
+            + ", dueFrom=" + dueFrom
+            + ", dueTo=" + dueTo
+            + ", keyword='" + keyword + '\''
+            + ", limit=" + limit
+            + '}';
+    }
+
+    public static final class Builder {
+        private TaskType type;
+        private TaskStatus status;
+        private TaskPriority minimumPriority;
+        private LocalDate dueFrom;
+        private LocalDate dueTo;
+        private String keyword;
+        private int limit;
+
+        private Builder() {
+        }
+
+        public Builder withType(final TaskType type) {
+            this.type = type;
+            return this;
+        }
+
+        public Builder withStatus(final TaskStatus status) {
+            this.status = status;
+            return this;
+        }
+
+        public Builder withMinimumPriority(final TaskPriority minimumPriority) {
+            this.minimumPriority = minimumPriority;
+            return this;
+        }
+
+        /**
+         * Restricts the query to tasks due on or after the given day.
+         */
+        public Builder withDueFrom(final LocalDate dueFrom) {
+            this.dueFrom = dueFrom;
+            return this;
+        }
+
+        /**
+         * Restricts the query to tasks due on or before the given day.
+         */
+        public Builder withDueTo(final LocalDate dueTo) {
+            this.dueTo = dueTo;
+            return this;
+        }
+
+        /**
+         * Substring that must appear in the title or description. Only ASCII
+         * letters match case-insensitively, as with SQLite's {@code LIKE}.
+         */
+        public Builder withKeyword(final String keyword) {
+            this.keyword = keyword;
+            return this;
+        }
+
+        public Builder withLimit(final int limit) {
+            if (limit < 0) {
+                throw new IllegalArgumentException("limit must not be negative");
+            }
+            this.limit = limit;
+            return this;
+        }
+
+        public TaskQuery build() {
+            return new TaskQuery(this);
+        }
+    }
+}
@@ -13,5 +13,15 @@ public interface TaskQuerySupport {
 
     List<Task> fetchTasksRequiringReminder(LocalDateTime referenceTime);
 
+    /**
+     * Returns every task that has reminders enabled and a due date, whether or
+     * not a reminder is due yet.
+     */
+    List<Task> fetchReminderCandidates();
+
     void markReminderTriggered(Task task, LocalDateTime reminderTime);
+
+    void addTaskChangeListener(TaskChangeListener listener);
+
+    void removeTaskChangeListener(TaskChangeListener listener);
 }
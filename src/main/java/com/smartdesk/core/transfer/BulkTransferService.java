@@ -0,0 +1,545 @@
+package com.smartdesk.core.transfer;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.smartdesk.core.note.NoteService;
+import com.smartdesk.core.task.TaskService;
+import com.smartdesk.storage.DatabaseManager;
+import com.smartdesk.storage.SearchIndex;
+import com.smartdesk.utils.DateTimeUtils;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Streams notes, tasks, chat sessions and chat messages to and from JSON
+ * Lines files.
+ * <p>
+ * A file starts with a header record followed by one JSON object per line,
+ * each carrying a {@code kind} of {@code note}, {@code task},
+ * {@code session} or {@code message} and the stored column values. Exports
+ * iterate one cursor per table inside a single read transaction, so the
+ * file is a consistent snapshot and memory use does not grow with the
+ * database. Imports insert through batched prepared statements in one
+ * write transaction: either the whole file is imported or nothing is. The
+ * full-text index is updated once for all imported rows instead of row by
+ * row. Other writes wait for the import to finish.
+ * </p>
+ * <p>
+ * Every record keeps its identifier, and a record whose identifier already
+ * exists is skipped, so importing the same file twice, or restoring a backup
+ * over the database it was taken from, never duplicates data. Messages of a
+ * skipped session are skipped as well. Records that collide with unrelated
+ * rows of another database are skipped too, so a file is not a way to merge
+ * two databases. Message attachments are not transferred.
+ * </p>
+ */
+public final class BulkTransferService {
+
+    private static final Logger LOGGER = Logger.getLogger(BulkTransferService.class.getName());
+
+    /** Value of the {@code format} field of the header record. */
+    public static final String FORMAT = "smartdesk-jsonl";
+
+    /** Current version of the file format. */
+    public static final int FORMAT_VERSION = 1;
+
+    /** Rows sent to SQLite per {@link PreparedStatement#executeBatch()}. */
+    static final int BATCH_SIZE = 1_000;
+
+    private static final String KIND = "kind";
+    private static final String HEADER_KIND = "header";
+
+    private final DatabaseManager databaseManager;
+    private final NoteService noteService;
+    private final TaskService taskService;
+
+    public BulkTransferService(final DatabaseManager databaseManager, final NoteService noteService,
+                               final TaskService taskService) {
+        this.databaseManager = Objects.requireNonNull(databaseManager, "databaseManager");
+        this.noteService = Objects.requireNonNull(noteService, "noteService");
+        this.taskService = Objects.requireNonNull(taskService, "taskService");
+    }
+
+    /**
+     * Writes all notes, tasks, sessions and messages to {@code file} as UTF-8
+     * JSON Lines, replacing an existing file.
+     *
+     * @throws IOException if the file cannot be written
+     * @throws IllegalStateException if the database cannot be read
+     */
+    public TransferReport exportTo(final Path file) throws IOException {
+        Objects.requireNonNull(file, "file");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            return exportTo(writer);
+        }
+    }
+
+    /**
+     * Writes all notes, tasks, sessions and messages to {@code out}. The
+     * writer is flushed but not closed; callers should pass a buffered
+     * writer.
+     *
+     * @throws IOException if writing fails
+     * @throws IllegalStateException if the database cannot be read
+     */
+    public TransferReport exportTo(final Writer out) throws IOException {
+        Objects.requireNonNull(out, "out");
+        final long started = System.nanoTime();
+        final long[] rows = new long[Table.values().length];
+        final JsonWriter json = new JsonWriter(out);
+        // Lenient mode accepts one top-level object per line; nulls are left out.
+        json.setLenient(true);
+        json.setSerializeNulls(false);
+        try (Connection connection = databaseManager.getReadConnection()) {
+            // One read transaction so all tables come from the same snapshot.
+            connection.setAutoCommit(false);
+            try {
+                writeHeader(json, out);
+                for (Table table : Table.values()) {
+                    rows[table.ordinal()] = exportTable(connection, table, json, out);
+                }
+            } finally {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to export data", ex);
+            throw new IllegalStateException("Failed to export data", ex);
+        }
+        out.flush();
+        final TransferReport report = report(rows, 0, started);
+        LOGGER.log(Level.INFO, "Exported {0} records in {1} ms",
+            new Object[]{report.total(), report.elapsedMillis()});
+        return report;
+    }
+
+    /**
+     * Imports a file written by {@link #exportTo(Path)}.
+     *
+     * @throws IOException if the file cannot be read or is not a valid export
+     * @throws IllegalStateException if the records cannot be stored
+     */
+    public TransferReport importFrom(final Path file) throws IOException {
+        Objects.requireNonNull(file, "file");
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importFrom(reader);
+        }
+    }
+
+    /**
+     * Imports the records read from {@code in} in a single transaction. The
+     * reader is not closed; callers should pass a buffered reader. On
+     * success the note and task caches are invalidated so the services and
+     * their listeners pick up the new rows.
+     *
+     * @throws IOException if reading fails or the input is not a valid export;
+     *                     nothing is imported in that case
+     * @throws IllegalStateException if the records cannot be stored; nothing
+     *                               is imported in that case
+     */
+    public TransferReport importFrom(final Reader in) throws IOException {
+        Objects.requireNonNull(in, "in");
+        final long started = System.nanoTime();
+        final JsonReader json = new JsonReader(in);
+        json.setLenient(true);
+        final TransferReport report;
+        try (Connection connection = databaseManager.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Importer importer = new Importer(connection)) {
+                importer.begin();
+                readHeader(json);
+                while (json.peek() != JsonToken.END_DOCUMENT) {
+                    importer.add(readRecord(json));
+                }
+                importer.finish();
+                connection.commit();
+                report = report(importer.written, importer.skipped, started);
+            } catch (SQLException | IOException | RuntimeException inner) {
+                connection.rollback();
+                throw inner;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to import data", ex);
+            throw new IllegalStateException("Failed to import data", ex);
+        }
+        if (report.notes() > 0) {
+            noteService.invalidateCaches();
+        }
+        if (report.tasks() > 0) {
+            taskService.invalidateIndex();
+        }
+        LOGGER.log(Level.INFO, "Imported {0} records ({1} skipped) in {2} ms",
+            new Object[]{report.total(), report.skipped(), report.elapsedMillis()});
+        return report;
+    }
+
+    private static void writeHeader(final JsonWriter json, final Writer out) throws IOException {
+        json.beginObject();
+        json.name(KIND).value(HEADER_KIND);
+        json.name("format").value(FORMAT);
+        json.name("version").value(FORMAT_VERSION);
+        json.name("exportedAt").value(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocalDateTime.now()));
+        json.endObject();
+        out.write('\n');
+    }
+
+    private static long exportTable(final Connection connection, final Table table, final JsonWriter json,
+                                    final Writer out) throws SQLException, IOException {
+        long rows = 0;
+        try (PreparedStatement statement = connection.prepareStatement(table.selectSql);
+             ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                json.beginObject();
+                json.name(KIND).value(table.kind);
+                for (int i = 0; i < table.columns.length; i++) {
+                    final Column column = table.columns[i];
+                    json.name(column.json());
+                    if (column.integer()) {
+                        final long value = rs.getLong(i + 1);
+                        if (rs.wasNull()) {
+                            json.nullValue();
+                        } else {
+                            json.value(value);
+                        }
+                    } else {
+                        json.value(rs.getString(i + 1));
+                    }
+                }
+                json.endObject();
+                out.write('\n');
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static void readHeader(final JsonReader json) throws IOException {
+        if (json.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new IOException("Not a SmartDesk export: expected a header record at " + json);
+        }
+        json.beginObject();
+        if (!HEADER_KIND.equals(readKind(json))) {
+            throw new IOException("Not a SmartDesk export: the first record must be the header");
+        }
+        String format = null;
+        int version = -1;
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "format" -> format = json.nextString();
+                case "version" -> version = json.nextInt();
+                default -> json.skipValue();
+            }
+        }
+        json.endObject();
+        if (!FORMAT.equals(format)) {
+            throw new IOException("Not a SmartDesk export: unexpected format " + format);
+        }
+        if (version < 1 || version > FORMAT_VERSION) {
+            throw new IOException("Unsupported export version " + version);
+        }
+    }
+
+    private static Record readRecord(final JsonReader json) throws IOException {
+        json.beginObject();
+        final String kind = readKind(json);
+        final Table table = Table.forKind(kind);
+        if (table == null) {
+            throw new IOException("Unknown record kind '" + kind + "' at " + json);
+        }
+        final Object[] values = new Object[table.columns.length + table.timeColumns.length];
+        while (json.hasNext()) {
+            final Integer index = table.indexByJson.get(json.nextName());
+            if (index == null || json.peek() == JsonToken.NULL) {
+                json.skipValue();
+            } else if (table.columns[index].integer()) {
+                values[index] = json.nextLong();
+            } else {
+                values[index] = json.nextString();
+            }
+        }
+        json.endObject();
+        if (values[0] == null) {
+            throw new IOException("Record of kind '" + kind + "' without id at " + json);
+        }
+        for (int i = 0; i < table.timeColumns.length; i++) {
+            final Object text = values[table.timeColumns[i]];
+            if (text != null) {
+                try {
+                    values[table.columns.length + i] =
+                        DateTimeUtils.toEpochMillis(LocalDateTime.parse((String) text, DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                } catch (DateTimeParseException ex) {
+                    throw new IOException("Invalid timestamp '" + text + "' in record of kind '" + kind
+                        + "' at " + json, ex);
+                }
+            }
+        }
+        return new Record(table, values);
+    }
+
+    private static String readKind(final JsonReader json) throws IOException {
+        if (!json.hasNext() || !KIND.equals(json.nextName())) {
+            throw new IOException("Every record must start with \"" + KIND + "\" at " + json);
+        }
+        return json.nextString();
+    }
+
+    private static TransferReport report(final long[] rows, final long skipped, final long started) {
+        return new TransferReport(rows[Table.NOTE.ordinal()], rows[Table.TASK.ordinal()],
+            rows[Table.SESSION.ordinal()], rows[Table.MESSAGE.ordinal()], skipped,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    /**
+     * Inserts records through one lazily prepared statement per table,
+     * flushing each batch at {@link #BATCH_SIZE} rows. Sessions are inserted
+     * one by one because whether they were new decides whether their
+     * messages are imported. The batch results tell which rows were new;
+     * those below the previous highest id are handed to the full-text index
+     * explicitly.
+     */
+    private static final class Importer implements AutoCloseable {
+
+        private final Connection connection;
+        private final PreparedStatement[] statements = new PreparedStatement[Table.values().length];
+        private final List<List<Long>> batchIds = new ArrayList<>();
+        private final List<List<Long>> earlierIds = new ArrayList<>();
+        private final long[] lastIds = new long[Table.values().length];
+        private final long[] written = new long[Table.values().length];
+        private final Set<String> importedSessions = new HashSet<>();
+        private long skipped;
+
+        private Importer(final Connection connection) {
+            this.connection = connection;
+            for (int i = 0; i < Table.values().length; i++) {
+                batchIds.add(new ArrayList<>());
+                earlierIds.add(new ArrayList<>());
+            }
+        }
+
+        void begin() throws SQLException {
+            for (Table table : Table.values()) {
+                if (table.searchSource != null) {
+                    lastIds[table.ordinal()] = SearchIndex.beginBulkInsert(connection, table.searchSource);
+                }
+            }
+        }
+
+        void add(final Record record) throws SQLException {
+            final Table table = record.table();
+            final Object[] values = record.values();
+            if (table == Table.MESSAGE && !importedSessions.contains(values[Table.MESSAGE_SESSION_COLUMN])) {
+                skipped++;
+                return;
+            }
+            final PreparedStatement statement = statement(table);
+            for (int i = 0; i < values.length; i++) {
+                final int parameter = i + 1;
+                final Object value = values[i];
+                if (value == null) {
+                    statement.setNull(parameter, table.isIntegerValue(i) ? Types.INTEGER : Types.VARCHAR);
+                } else if (value instanceof Long number) {
+                    statement.setLong(parameter, number);
+                } else {
+                    statement.setString(parameter, (String) value);
+                }
+            }
+            if (table == Table.SESSION) {
+                if (statement.executeUpdate() > 0) {
+                    importedSessions.add((String) values[0]);
+                    written[table.ordinal()]++;
+                } else {
+                    skipped++;
+                }
+                return;
+            }
+            statement.addBatch();
+            final List<Long> ids = batchIds.get(table.ordinal());
+            ids.add((Long) values[0]);
+            if (ids.size() >= BATCH_SIZE) {
+                executeBatch(table);
+            }
+        }
+
+        void finish() throws SQLException {
+            for (Table table : Table.values()) {
+                if (!batchIds.get(table.ordinal()).isEmpty()) {
+                    executeBatch(table);
+                }
+                if (table.searchSource != null) {
+                    SearchIndex.endBulkInsert(connection, table.searchSource, lastIds[table.ordinal()],
+                        earlierIds.get(table.ordinal()));
+                }
+            }
+        }
+
+        private void executeBatch(final Table table) throws SQLException {
+            final int[] counts = statements[table.ordinal()].executeBatch();
+            final List<Long> ids = batchIds.get(table.ordinal());
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    skipped++;
+                    continue;
+                }
+                written[table.ordinal()]++;
+                if (ids.get(i) <= lastIds[table.ordinal()]) {
+                    earlierIds.get(table.ordinal()).add(ids.get(i));
+                }
+            }
+            ids.clear();
+        }
+
+        private PreparedStatement statement(final Table table) throws SQLException {
+            PreparedStatement statement = statements[table.ordinal()];
+            if (statement == null) {
+                statement = connection.prepareStatement(table.insertSql);
+                statements[table.ordinal()] = statement;
+            }
+            return statement;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            SQLException failure = null;
+            for (PreparedStatement statement : statements) {
+                if (statement == null) {
+                    continue;
+                }
+                try {
+                    statement.close();
+                } catch (SQLException ex) {
+                    failure = ex;
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private record Record(Table table, Object[] values) {
+    }
+
+    /**
+     * A transferred column. Time columns are exported as ISO text; on import
+     * their epoch millisecond twin ({@code <sql>_ms}) is filled as well.
+     */
+    private record Column(String sql, String json, boolean integer, boolean time) {
+    }
+
+    private static Column text(final String sql, final String json) {
+        return new Column(sql, json, false, false);
+    }
+
+    private static Column integer(final String sql, final String json) {
+        return new Column(sql, json, true, false);
+    }
+
+    private static Column time(final String sql, final String json) {
+        return new Column(sql, json, false, true);
+    }
+
+    /**
+     * Transferred tables in file order: sessions precede the messages that
+     * refer to them. The first column is always the identifier, which imports
+     * keep. Record values hold the columns followed by the epoch millis of
+     * each time column.
+     */
+    private enum Table {
+        NOTE("note", "notes", SearchIndex.Source.NOTE,
+            integer("id", "id"), text("title", "title"), text("content", "content"), text("tag", "tag"),
+            time("date", "date")),
+        TASK("task", "tasks", SearchIndex.Source.TASK,
+            integer("id", "id"), text("title", "title"), text("description", "description"),
+            time("start_at", "startAt"), time("due_at", "dueAt"), integer("priority", "priority"),
+            text("type", "type"), integer("reminder_enabled", "reminderEnabled"),
+            integer("reminder_lead_minutes", "reminderLeadMinutes"), text("status", "status"),
+            time("last_reminded_at", "lastRemindedAt"), time("created_at", "createdAt"),
+            time("updated_at", "updatedAt")),
+        SESSION("session", "chat_sessions", null,
+            text("id", "id"), text("default_title", "defaultTitle"), text("title", "title"),
+            integer("auto_title", "autoTitle"), text("model_name", "modelName"), time("created_at", "createdAt"),
+            time("updated_at", "updatedAt")),
+        MESSAGE("message", "chat_messages", SearchIndex.Source.CHAT_MESSAGE,
+            integer("id", "id"), text("session_id", "sessionId"), text("sender", "sender"),
+            text("content", "content"), time("timestamp", "timestamp"));
+
+        /** Position of {@code session_id} among the message columns. */
+        static final int MESSAGE_SESSION_COLUMN = 1;
+
+        private final String kind;
+        /** Full-text index over the table, {@code null} if it is not indexed. */
+        private final SearchIndex.Source searchSource;
+        private final Column[] columns;
+        /** Positions of the time columns, in the order their epoch values follow the columns. */
+        private final int[] timeColumns;
+        private final Map<String, Integer> indexByJson = new HashMap<>();
+        private final String selectSql;
+        private final String insertSql;
+
+        Table(final String kind, final String table, final SearchIndex.Source searchSource,
+              final Column... columns) {
+            this.kind = kind;
+            this.searchSource = searchSource;
+            this.columns = columns;
+            for (int i = 0; i < columns.length; i++) {
+                indexByJson.put(columns[i].json(), i);
+            }
+            final String all = Arrays.stream(columns).map(Column::sql).collect(Collectors.joining(", "));
+            // rowid order is insertion order for every table, including the text-keyed sessions.
+            this.selectSql = "SELECT " + all + " FROM " + table + " ORDER BY rowid";
+            this.timeColumns = IntStream.range(0, columns.length).filter(i -> columns[i].time()).toArray();
+            final List<String> insertedSql = new ArrayList<>();
+            Arrays.stream(columns).map(Column::sql).forEach(insertedSql::add);
+            Arrays.stream(timeColumns).mapToObj(i -> columns[i].sql() + "_ms").forEach(insertedSql::add);
+            this.insertSql = "INSERT OR IGNORE INTO " + table + " ("
+                + String.join(", ", insertedSql) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(insertedSql.size(), "?")) + ")";
+        }
+
+        /** Whether the record value at {@code index} is stored as an integer. */
+        boolean isIntegerValue(final int index) {
+            return index >= columns.length || columns[index].integer();
+        }
+
+        static Table forKind(final String kind) {
+            for (Table table : values()) {
+                if (table.kind.equals(kind)) {
+                    return table;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.smartdesk.core.transfer;
+
+/**
+ * Outcome of a {@link BulkTransferService} import or export.
+ *
+ * @param notes         note records written
+ * @param tasks         task records written
+ * @param sessions      chat session records written
+ * @param messages      chat message records written
+ * @param skipped       records not imported, such as sessions that already
+ *                      exist and their messages; always zero for exports
+ * @param elapsedMillis wall-clock duration of the transfer
+ */
+public record TransferReport(
+    long notes,
+    long tasks,
+    long sessions,
+    long messages,
+    long skipped,
+    long elapsedMillis
+) {
+
+    /**
+     * Returns the number of records written across all kinds.
+     */
+    public long total() {
+        return notes + tasks + sessions + messages;
+    }
+}
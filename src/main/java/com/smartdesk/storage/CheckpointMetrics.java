@@ -0,0 +1,38 @@
+package com.smartdesk.storage;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable snapshot of WAL size and checkpoint statistics reported by
+ * {@link WalCheckpointScheduler}.
+ *
+ * @param walSizeBytes             current size of the {@code -wal} file
+ * @param passiveCheckpoints       number of passive checkpoints executed
+ * @param fullCheckpoints          number of full checkpoints executed
+ * @param restartCheckpoints       number of restart checkpoints executed
+ * @param truncateCheckpoints      number of truncating checkpoints executed
+ * @param busyCheckpoints          checkpoints that could not finish because of active readers/writers
+ * @param lastLatencyMicros        duration of the most recent checkpoint
+ * @param averageLatencyMicros     average checkpoint duration
+ * @param maxLatencyMicros         slowest observed checkpoint
+ * @param lastMode                 mode of the most recent checkpoint, {@code null} if none ran yet
+ * @param lastLogFrames            frames present in the WAL at the last checkpoint
+ * @param lastCheckpointedFrames   frames copied back into the database at the last checkpoint
+ * @param lastRunAt                time of the most recent checkpoint, {@code null} if none ran yet
+ */
+public record CheckpointMetrics(
+    long walSizeBytes,
+    long passiveCheckpoints,
+    long fullCheckpoints,
+    long restartCheckpoints,
+    long truncateCheckpoints,
+    long busyCheckpoints,
+    long lastLatencyMicros,
+    long averageLatencyMicros,
+    long maxLatencyMicros,
+    String lastMode,
+    int lastLogFrames,
+    int lastCheckpointedFrames,
+    LocalDateTime lastRunAt
+) {
+}
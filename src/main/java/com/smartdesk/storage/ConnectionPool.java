@@ -0,0 +1,531 @@
+package com.smartdesk.storage;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Small purpose-built pool of long-lived SQLite connections.
+ * <p>
+ * SQLite only ever admits one writer at a time, so the pool keeps exactly one
+ * writer connection guarded by a fair semaphore and a bounded set of reader
+ * connections that are created lazily. Every handed out {@link Connection} is a
+ * proxy: {@code close()} returns the physical connection to the pool and
+ * {@code prepareStatement} serves statements from a per-connection LRU cache so
+ * hot queries are only compiled once.
+ * </p>
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    /** Default number of reader connections kept warm by the pool. */
+    public static final int DEFAULT_MAX_READERS = 4;
+
+    /** Default number of prepared statements cached per physical connection. */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 32;
+
+    /** Default time a caller waits for a connection before giving up. */
+    public static final long DEFAULT_ACQUIRE_TIMEOUT_MILLIS = 30_000L;
+
+    private final String databaseUrl;
+    private final int maxReaders;
+    private final int statementCacheSize;
+    private final long acquireTimeoutMillis;
+    private final Consumer<Connection> connectionInitializer;
+
+    private final Semaphore writerPermit = new Semaphore(1, true);
+    private final Semaphore readerPermits;
+    private final BlockingQueue<PhysicalConnection> idleReaders = new LinkedBlockingQueue<>();
+    private final List<PhysicalConnection> allConnections = new ArrayList<>();
+    private final AtomicInteger readerSequence = new AtomicInteger();
+
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger activeReaders = new AtomicInteger();
+    private final AtomicInteger activeWriters = new AtomicInteger();
+
+    private PhysicalConnection writer;
+    private volatile boolean closed;
+
+    /**
+     * Creates a pool using the default sizing.
+     *
+     * @param databaseUrl the JDBC connection string, must not be {@code null}
+     */
+    public ConnectionPool(final String databaseUrl) {
+        this(databaseUrl, DEFAULT_MAX_READERS, DEFAULT_STATEMENT_CACHE_SIZE, DEFAULT_ACQUIRE_TIMEOUT_MILLIS,
+            connection -> { });
+    }
+
+    /**
+     * Creates a pool with explicit sizing.
+     *
+     * @param databaseUrl           the JDBC connection string, must not be {@code null}
+     * @param maxReaders            maximum number of concurrently borrowed reader connections
+     * @param statementCacheSize    number of prepared statements cached per connection
+     * @param acquireTimeoutMillis  maximum time a caller waits for a connection
+     * @param connectionInitializer callback applied to each freshly opened physical connection
+     */
+    public ConnectionPool(final String databaseUrl, final int maxReaders, final int statementCacheSize,
+                          final long acquireTimeoutMillis, final Consumer<Connection> connectionInitializer) {
+        this.databaseUrl = Objects.requireNonNull(databaseUrl, "databaseUrl must not be null");
+        if (maxReaders < 1) {
+            throw new IllegalArgumentException("maxReaders must be at least 1");
+        }
+        if (statementCacheSize < 0) {
+            throw new IllegalArgumentException("statementCacheSize must not be negative");
+        }
+        this.maxReaders = maxReaders;
+        this.statementCacheSize = statementCacheSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.connectionInitializer = Objects.requireNonNull(connectionInitializer,
+            "connectionInitializer must not be null");
+        this.readerPermits = new Semaphore(maxReaders, true);
+    }
+
+    /**
+     * Borrows the single writer connection. Callers must close the returned
+     * connection (ideally via try-with-resources) to release the writer slot.
+     *
+     * @return a proxy around the writer connection
+     * @throws SQLException if the pool is closed, the wait times out or the connection cannot be opened
+     */
+    public Connection acquireWriter() throws SQLException {
+        ensureOpen();
+        final long start = System.nanoTime();
+        acquirePermit(writerPermit, "writer");
+        recordWait(System.nanoTime() - start);
+        try {
+            synchronized (this) {
+                if (writer == null || writer.isBroken()) {
+                    writer = openPhysical("writer");
+                }
+            }
+        } catch (SQLException ex) {
+            writerPermit.release();
+            throw ex;
+        }
+        activeWriters.incrementAndGet();
+        return writer.lease(this::releaseWriter);
+    }
+
+    /**
+     * Borrows a reader connection. Reader connections are configured with
+     * {@code PRAGMA query_only} so accidental writes fail fast instead of
+     * contending with the writer.
+     *
+     * @return a proxy around a reader connection
+     * @throws SQLException if the pool is closed, the wait times out or the connection cannot be opened
+     */
+    public Connection acquireReader() throws SQLException {
+        ensureOpen();
+        final long start = System.nanoTime();
+        acquirePermit(readerPermits, "reader");
+        recordWait(System.nanoTime() - start);
+        PhysicalConnection physical = idleReaders.poll();
+        try {
+            while (physical != null && physical.isBroken()) {
+                discard(physical);
+                physical = idleReaders.poll();
+            }
+            if (physical == null) {
+                physical = openPhysical("reader-" + readerSequence.incrementAndGet());
+                try (Statement statement = physical.delegate.createStatement()) {
+                    statement.execute("PRAGMA query_only = 1");
+                }
+            }
+        } catch (SQLException ex) {
+            readerPermits.release();
+            throw ex;
+        }
+        activeReaders.incrementAndGet();
+        return physical.lease(this::releaseReader);
+    }
+
+    /**
+     * Returns a point-in-time snapshot of the pool statistics.
+     *
+     * @return immutable metrics snapshot
+     */
+    public ConnectionPoolMetrics metrics() {
+        final Map<String, Long> statements = new LinkedHashMap<>();
+        long hits = 0;
+        long misses = 0;
+        synchronized (this) {
+            for (PhysicalConnection connection : allConnections) {
+                statements.put(connection.name, connection.statementsServed.get());
+                hits += connection.cacheHits.get();
+                misses += connection.cacheMisses.get();
+            }
+        }
+        final long count = acquisitions.get();
+        return new ConnectionPoolMetrics(
+            count,
+            count == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get() / count),
+            TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()),
+            activeWriters.get(),
+            activeReaders.get(),
+            idleReaders.size(),
+            maxReaders,
+            hits,
+            misses,
+            statements);
+    }
+
+    /**
+     * Closes every physical connection owned by the pool. Connections that are
+     * currently borrowed are closed when they are returned.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        final List<PhysicalConnection> snapshot;
+        synchronized (this) {
+            snapshot = new ArrayList<>(allConnections);
+            allConnections.clear();
+            writer = null;
+        }
+        idleReaders.clear();
+        snapshot.forEach(PhysicalConnection::closeQuietly);
+    }
+
+    private void ensureOpen() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool has been closed");
+        }
+    }
+
+    private void acquirePermit(final Semaphore semaphore, final String kind) throws SQLException {
+        try {
+            if (!semaphore.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out waiting for a " + kind + " connection after "
+                    + acquireTimeoutMillis + " ms");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a " + kind + " connection", ex);
+        }
+    }
+
+    private void recordWait(final long waitNanos) {
+        acquisitions.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    private PhysicalConnection openPhysical(final String name) throws SQLException {
+        final Connection delegate = DriverManager.getConnection(databaseUrl);
+        try {
+            connectionInitializer.accept(delegate);
+        } catch (RuntimeException ex) {
+            delegate.close();
+            throw new SQLException("Failed to initialise pooled connection " + name, ex);
+        }
+        final PhysicalConnection physical = new PhysicalConnection(name, delegate, statementCacheSize);
+        synchronized (this) {
+            allConnections.add(physical);
+        }
+        LOGGER.log(Level.FINE, "Opened pooled SQLite connection {0}", name);
+        return physical;
+    }
+
+    private void releaseWriter(final PhysicalConnection physical) {
+        activeWriters.decrementAndGet();
+        if (closed) {
+            physical.closeQuietly();
+        } else if (physical.isBroken()) {
+            discard(physical);
+        }
+        writerPermit.release();
+    }
+
+    private void releaseReader(final PhysicalConnection physical) {
+        activeReaders.decrementAndGet();
+        if (closed) {
+            physical.closeQuietly();
+        } else if (physical.isBroken()) {
+            discard(physical);
+        } else {
+            idleReaders.offer(physical);
+        }
+        readerPermits.release();
+    }
+
+    private void discard(final PhysicalConnection physical) {
+        synchronized (this) {
+            allConnections.remove(physical);
+            if (writer == physical) {
+                writer = null;
+            }
+        }
+        physical.closeQuietly();
+    }
+
+    /**
+     * Wrapper around one physical JDBC connection and its statement cache.
+     */
+    private static final class PhysicalConnection {
+
+        private final String name;
+        private final Connection delegate;
+        private final int statementCacheSize;
+        private final Map<String, PreparedStatement> statementCache;
+        private final Set<PreparedStatement> checkedOut = Collections.newSetFromMap(new IdentityHashMap<>());
+        private final AtomicLong statementsServed = new AtomicLong();
+        private final AtomicLong cacheHits = new AtomicLong();
+        private final AtomicLong cacheMisses = new AtomicLong();
+
+        private PhysicalConnection(final String name, final Connection delegate, final int cacheSize) {
+            this.name = name;
+            this.delegate = delegate;
+            this.statementCacheSize = cacheSize;
+            this.statementCache = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, PreparedStatement> eldest) {
+                    if (size() > cacheSize) {
+                        closeStatementQuietly(eldest.getValue());
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        private Connection lease(final Consumer<PhysicalConnection> onRelease) {
+            return (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new LeasedConnectionHandler(this, onRelease));
+        }
+
+        private PreparedStatement prepare(final String sql, final Integer autoGeneratedKeys,
+                                          final Connection owner) throws SQLException {
+            statementsServed.incrementAndGet();
+            final String key = autoGeneratedKeys == null ? sql : autoGeneratedKeys + "|" + sql;
+            // Check the statement out of the cache so a second handle for the same SQL, or LRU
+            // eviction, can never reset or close it while the caller still uses it.
+            PreparedStatement statement = statementCache.remove(key);
+            if (statement != null && !statement.isClosed()) {
+                cacheHits.incrementAndGet();
+            } else {
+                cacheMisses.incrementAndGet();
+                statement = autoGeneratedKeys == null
+                    ? delegate.prepareStatement(sql)
+                    : delegate.prepareStatement(sql, autoGeneratedKeys);
+            }
+            checkedOut.add(statement);
+            return (PreparedStatement) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new CachedStatementHandler(this, key, statement, owner));
+        }
+
+        /**
+         * Returns a statement to the cache once its handle is closed. If another
+         * handle already returned a statement for the same SQL, the surplus one is
+         * closed instead.
+         */
+        private void checkIn(final String key, final PreparedStatement statement) {
+            if (!checkedOut.remove(statement)) {
+                return;
+            }
+            try {
+                if (statement.isClosed()) {
+                    return;
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException ex) {
+                closeStatementQuietly(statement);
+                return;
+            }
+            if (statementCacheSize == 0 || isBroken() || statementCache.putIfAbsent(key, statement) != null) {
+                closeStatementQuietly(statement);
+            }
+        }
+
+        private boolean isBroken() {
+            try {
+                return delegate.isClosed();
+            } catch (SQLException ex) {
+                return true;
+            }
+        }
+
+        private void resetAfterUse() throws SQLException {
+            if (!delegate.getAutoCommit()) {
+                delegate.rollback();
+                delegate.setAutoCommit(true);
+            }
+        }
+
+        private void closeQuietly() {
+            statementCache.values().forEach(PhysicalConnection::closeStatementQuietly);
+            statementCache.clear();
+            checkedOut.forEach(PhysicalConnection::closeStatementQuietly);
+            checkedOut.clear();
+            try {
+                delegate.close();
+            } catch (SQLException ex) {
+                LOGGER.log(Level.FINE, "Failed to close pooled connection " + name, ex);
+            }
+        }
+
+        private static void closeStatementQuietly(final Statement statement) {
+            try {
+                statement.close();
+            } catch (SQLException ex) {
+                LOGGER.log(Level.FINE, "Failed to close cached statement", ex);
+            }
+        }
+    }
+
+    /**
+     * Proxy handler for borrowed connections. Closing the proxy hands the
+     * physical connection back to the pool instead of closing it.
+     */
+    private static final class LeasedConnectionHandler implements InvocationHandler {
+
+        private final PhysicalConnection physical;
+        private final Consumer<PhysicalConnection> onRelease;
+        private boolean released;
+
+        private LeasedConnectionHandler(final PhysicalConnection physical,
+                                        final Consumer<PhysicalConnection> onRelease) {
+            this.physical = physical;
+            this.onRelease = onRelease;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+            switch (name) {
+                case "close" -> {
+                    release();
+                    return null;
+                }
+                case "isClosed" -> {
+                    return released || physical.isBroken();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "PooledConnection[" + physical.name + "]";
+                }
+                default -> {
+                    // fall through to delegation below
+                }
+            }
+            if (released) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+            if ("prepareStatement".equals(name) && args != null && args[0] instanceof String sql) {
+                if (args.length == 1) {
+                    return physical.prepare(sql, null, (Connection) proxy);
+                }
+                if (args.length == 2 && args[1] instanceof Integer keys) {
+                    return physical.prepare(sql, keys, (Connection) proxy);
+                }
+            }
+            try {
+                return method.invoke(physical.delegate, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        private void release() throws SQLException {
+            if (released) {
+                return;
+            }
+            released = true;
+            try {
+                physical.resetAfterUse();
+            } finally {
+                onRelease.accept(physical);
+            }
+        }
+    }
+
+    /**
+     * Proxy handler for cached prepared statements. Closing the proxy clears the
+     * bound parameters and hands the compiled statement back to the cache.
+     */
+    private static final class CachedStatementHandler implements InvocationHandler {
+
+        private final PhysicalConnection physical;
+        private final String key;
+        private final PreparedStatement delegate;
+        private final Connection owner;
+        private boolean closed;
+
+        private CachedStatementHandler(final PhysicalConnection physical, final String key,
+                                       final PreparedStatement delegate, final Connection owner) {
+            this.physical = physical;
+            this.key = key;
+            this.delegate = delegate;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!closed) {
+                        closed = true;
+                        physical.checkIn(key, delegate);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed || delegate.isClosed();
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                default -> {
+                    // fall through to delegation below
+                }
+            }
+            if (closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+    }
+}
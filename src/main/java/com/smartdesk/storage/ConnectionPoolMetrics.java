@@ -0,0 +1,51 @@
+package com.smartdesk.storage;
+
+import java.util.Map;
+
+/**
+ * Immutable snapshot of {@link ConnectionPool} statistics intended for
+ * diagnostics and logging.
+ *
+ * @param acquisitions            total number of connections handed out
+ * @param averageWaitMicros       average time callers waited for a connection
+ * @param maxWaitMicros           longest observed wait for a connection
+ * @param activeWriters           writer connections currently borrowed (0 or 1)
+ * @param activeReaders           reader connections currently borrowed
+ * @param idleReaders             reader connections kept warm in the pool
+ * @param maxReaders              configured reader capacity
+ * @param statementCacheHits      prepared statements served from the cache
+ * @param statementCacheMisses    prepared statements that had to be compiled
+ * @param statementsPerConnection statements served by each physical connection
+ */
+public record ConnectionPoolMetrics(
+    long acquisitions,
+    long averageWaitMicros,
+    long maxWaitMicros,
+    int activeWriters,
+    int activeReaders,
+    int idleReaders,
+    int maxReaders,
+    long statementCacheHits,
+    long statementCacheMisses,
+    Map<String, Long> statementsPerConnection
+) {
+
+    public ConnectionPoolMetrics {
+        statementsPerConnection = statementsPerConnection == null ? Map.of() : Map.copyOf(statementsPerConnection);
+    }
+
+    /**
+     * Number of connections currently borrowed from the pool.
+     */
+    public int activeCount() {
+        return activeWriters + activeReaders;
+    }
+
+    /**
+     * Ratio of prepared statements served from the cache, {@code 0.0 .. 1.0}.
+     */
+    public double statementCacheHitRatio() {
+        final long total = statementCacheHits + statementCacheMisses;
+        return total == 0 ? 0D : (double) statementCacheHits / total;
+    }
+}
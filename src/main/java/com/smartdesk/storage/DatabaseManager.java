@@ -16,13 +16,21 @@ import java.util.logging.Logger;
  * Centralised management of the SQLite database connection used by SmartDesk.
  * <p>
  * The manager is responsible for initialising the schema and for handing out
- * short-lived JDBC connections to callers. Each method returns a new
- * {@link Connection} instance; it is therefore the caller's responsibility to
- * close the connection using try-with-resources in order to keep database
- * resources under control.
+ * JDBC connections to callers. By default connections are served from a
+ * {@link ConnectionPool} that keeps one writer and a few reader connections
+ * warm; closing a pooled connection returns it to the pool. When pooling is
+ * disabled every call opens a fresh {@link Connection}. In both modes it is the
+ * caller's responsibility to close the connection using try-with-resources in
+ * order to keep database resources under control.
+ * </p>
+ * <p>
+ * Every connection is configured according to a {@link StorageProfile}. The
+ * default {@link StorageProfile#tuned()} profile switches the database to WAL
+ * so that dashboard reads proceed while chat messages are being committed, and
+ * starts a {@link WalCheckpointScheduler} that keeps the log small.
  * </p>
  */
-public class DatabaseManager {
+public class DatabaseManager implements AutoCloseable {
 
     /** Logger used to report initialisation and connection issues. */
     private static final Logger LOGGER = Logger.getLogger(DatabaseManager.class.getName());
@@ -39,6 +47,12 @@ public class DatabaseManager {
     /**
      * DDL statement that creates the {@code notes} table. The table mirrors the
      * state of {@link com.smartdesk.storage.entity.NoteEntity}.
+     * <p>
+     * Timestamps are stored twice: as ISO text, and in a {@code *_ms} column
+     * as {@linkplain com.smartdesk.utils.DateTimeUtils#toEpochMillis
+     * wall-clock epoch milliseconds} that queries order, filter and decode
+     * by. The same applies to the other tables.
+     * </p>
      */
     public static final String CREATE_NOTES_TABLE_SQL = """
         CREATE TABLE IF NOT EXISTS notes (
@@ -46,7 +60,8 @@ public class DatabaseManager {
             title TEXT NOT NULL,
             content TEXT,
             tag TEXT,
-            date TEXT NOT NULL
+            date TEXT NOT NULL,
+            date_ms INTEGER
         )
         """;
 
@@ -69,14 +84,46 @@ public class DatabaseManager {
             status TEXT NOT NULL,
             last_reminded_at TEXT,
             created_at TEXT NOT NULL,
-            updated_at TEXT NOT NULL
+            updated_at TEXT NOT NULL,
+            start_at_ms INTEGER,
+            due_at_ms INTEGER,
+            last_reminded_at_ms INTEGER,
+            created_at_ms INTEGER,
+            updated_at_ms INTEGER
         )
         """;
 
+    /** Index serving the note list, newest first. */
+    public static final String CREATE_NOTES_DATE_INDEX_SQL = """
+        CREATE INDEX IF NOT EXISTS idx_notes_date
+            ON notes (date_ms)
+        """;
+
     /** Creates an index that accelerates reminder lookups. */
     public static final String CREATE_TASKS_REMINDER_INDEX_SQL = """
         CREATE INDEX IF NOT EXISTS idx_tasks_reminder
-            ON tasks (reminder_enabled, status, due_at)
+            ON tasks (reminder_enabled, status, due_at_ms)
+        """;
+
+    /**
+     * Index backing the task filter panel. Equality filters on type and status
+     * are resolved inside the index, which then delivers the tasks in display
+     * order (due date, priority descending, id as the implicit rowid) and
+     * carries the priority for the minimum priority filter.
+     */
+    public static final String CREATE_TASKS_FILTER_INDEX_SQL = """
+        CREATE INDEX IF NOT EXISTS idx_tasks_filter
+            ON tasks (type, status, due_at_ms, priority DESC)
+        """;
+
+    /**
+     * Index serving due date ranges and the default task ordering; together
+     * with the implicit rowid it matches {@code ORDER BY due_at_ms, priority
+     * DESC, id}, so filtered task queries need no separate sort.
+     */
+    public static final String CREATE_TASKS_DUE_INDEX_SQL = """
+        CREATE INDEX IF NOT EXISTS idx_tasks_due
+            ON tasks (due_at_ms, priority DESC)
         """;
 
     /** DDL statement creating the {@code chat_sessions} table. */
@@ -88,10 +135,18 @@ public class DatabaseManager {
             auto_title INTEGER NOT NULL,
             model_name TEXT,
             created_at TEXT NOT NULL,
-            updated_at TEXT NOT NULL
+            updated_at TEXT NOT NULL,
+            created_at_ms INTEGER,
+            updated_at_ms INTEGER
         )
         """;
 
+    /** Index serving the session list, most recently updated first. */
+    public static final String CREATE_CHAT_SESSIONS_UPDATED_INDEX_SQL = """
+        CREATE INDEX IF NOT EXISTS idx_chat_sessions_updated
+            ON chat_sessions (updated_at_ms)
+        """;
+
     /** DDL statement creating the {@code chat_messages} table. */
     public static final String CREATE_CHAT_MESSAGES_TABLE_SQL = """
         CREATE TABLE IF NOT EXISTS chat_messages (
@@ -100,27 +155,77 @@ public class DatabaseManager {
             sender TEXT NOT NULL,
             content TEXT NOT NULL,
             timestamp TEXT NOT NULL,
+            timestamp_ms INTEGER,
             FOREIGN KEY (session_id) REFERENCES chat_sessions(id) ON DELETE CASCADE
         )
         """;
 
-    /** DDL statement creating the attachment table backing uploaded files. */
+    /**
+     * DDL statement creating the attachment table backing uploaded files. The
+     * content itself lives in {@code attachment_blobs}, keyed by
+     * {@code content_sha256}.
+     */
     public static final String CREATE_CHAT_ATTACHMENTS_TABLE_SQL = """
         CREATE TABLE IF NOT EXISTS chat_attachments (
             id INTEGER PRIMARY KEY AUTOINCREMENT,
             message_id INTEGER NOT NULL,
             file_name TEXT NOT NULL,
             mime_type TEXT,
-            data BLOB NOT NULL,
             file_id TEXT,
+            content_sha256 TEXT,
             FOREIGN KEY (message_id) REFERENCES chat_messages(id) ON DELETE CASCADE
         )
         """;
 
-    /** Index accelerating chat history retrieval ordered by timestamp. */
+    /**
+     * Content-addressed attachment payloads and the only durable copy of
+     * attachment content. Each distinct content is stored once and shared by
+     * all {@code chat_attachments} rows carrying its hash; {@code ref_count}
+     * is maintained by triggers.
+     */
+    public static final String CREATE_ATTACHMENT_BLOBS_TABLE_SQL = """
+        CREATE TABLE IF NOT EXISTS attachment_blobs (
+            sha256 TEXT PRIMARY KEY,
+            size INTEGER NOT NULL,
+            data BLOB NOT NULL,
+            ref_count INTEGER NOT NULL DEFAULT 0
+        )
+        """;
+
+    /** Increments the blob reference count when an attachment row is added. */
+    public static final String CREATE_ATTACHMENT_REF_INSERT_TRIGGER_SQL = """
+        CREATE TRIGGER IF NOT EXISTS trg_chat_attachments_ref_insert
+        AFTER INSERT ON chat_attachments
+        WHEN NEW.content_sha256 IS NOT NULL
+        BEGIN
+            UPDATE attachment_blobs SET ref_count = ref_count + 1 WHERE sha256 = NEW.content_sha256;
+        END
+        """;
+
+    /** Decrements the blob reference count when an attachment row is removed. */
+    public static final String CREATE_ATTACHMENT_REF_DELETE_TRIGGER_SQL = """
+        CREATE TRIGGER IF NOT EXISTS trg_chat_attachments_ref_delete
+        AFTER DELETE ON chat_attachments
+        WHEN OLD.content_sha256 IS NOT NULL
+        BEGIN
+            UPDATE attachment_blobs SET ref_count = ref_count - 1 WHERE sha256 = OLD.content_sha256;
+        END
+        """;
+
+    /** Index used by batched attachment lookups per message. */
+    public static final String CREATE_CHAT_ATTACHMENTS_MESSAGE_INDEX_SQL = """
+        CREATE INDEX IF NOT EXISTS idx_chat_attachments_message
+            ON chat_attachments (message_id)
+        """;
+
+    /**
+     * Index accelerating chat history retrieval ordered by timestamp. It
+     * implicitly ends with the rowid, so it also serves ordering by
+     * {@code timestamp_ms, id}.
+     */
     public static final String CREATE_CHAT_MESSAGES_INDEX_SQL = """
         CREATE INDEX IF NOT EXISTS idx_chat_messages_session
-            ON chat_messages (session_id, timestamp)
+            ON chat_messages (session_id, timestamp_ms)
         """;
 
     static {
@@ -132,23 +237,63 @@ public class DatabaseManager {
     }
 
     private final String databaseUrl;
+    private final StorageProfile storageProfile;
+    private final ConnectionPool connectionPool;
+    private final WalCheckpointScheduler checkpointScheduler;
 
     /**
-     * Creates a database manager using the default database file located in the
-     * working directory ({@value #DEFAULT_DATABASE_FILE}).
+     * Creates a pooled database manager using the default database file located
+     * in the user's SmartDesk data directory ({@value #DEFAULT_DATABASE_FILE}).
      */
     public DatabaseManager() {
         this(resolveDefaultDatabaseUrl());
     }
 
     /**
-     * Creates a database manager for a specific SQLite connection URL.
+     * Creates a pooled database manager for a specific SQLite connection URL.
      *
      * @param databaseUrl the JDBC connection string, must not be {@code null}
      */
     public DatabaseManager(final String databaseUrl) {
+        this(databaseUrl, true);
+    }
+
+    /**
+     * Creates a database manager for a specific SQLite connection URL.
+     *
+     * @param databaseUrl the JDBC connection string, must not be {@code null}
+     * @param pooled      {@code true} to serve long-lived pooled connections,
+     *                    {@code false} to open a new connection per call
+     */
+    public DatabaseManager(final String databaseUrl, final boolean pooled) {
+        this(databaseUrl, pooled, StorageProfile.tuned());
+    }
+
+    /**
+     * Creates a database manager for a specific SQLite connection URL and
+     * storage profile.
+     *
+     * @param databaseUrl    the JDBC connection string, must not be {@code null}
+     * @param pooled         {@code true} to serve long-lived pooled connections,
+     *                       {@code false} to open a new connection per call
+     * @param storageProfile the pragma profile applied to every connection
+     */
+    public DatabaseManager(final String databaseUrl, final boolean pooled, final StorageProfile storageProfile) {
         this.databaseUrl = Objects.requireNonNull(databaseUrl, "databaseUrl must not be null");
+        this.storageProfile = Objects.requireNonNull(storageProfile, "storageProfile must not be null");
+        this.connectionPool = pooled
+            ? new ConnectionPool(databaseUrl, ConnectionPool.DEFAULT_MAX_READERS,
+                ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE, ConnectionPool.DEFAULT_ACQUIRE_TIMEOUT_MILLIS,
+                this::configureConnection)
+            : null;
         initializeDatabase();
+        final Path databaseFile = resolveDatabaseFile(databaseUrl);
+        if (storageProfile.isManagedCheckpointEnabled() && databaseFile != null) {
+            this.checkpointScheduler = new WalCheckpointScheduler(this, databaseFile, storageProfile);
+            this.checkpointScheduler.start();
+        } else {
+            this.checkpointScheduler = null;
+        }
     }
 
     private static String resolveDefaultDatabaseUrl() {
@@ -171,15 +316,125 @@ public class DatabaseManager {
         return SQLITE_JDBC_PREFIX + databaseFile.toAbsolutePath();
     }
 
+    private static Path resolveDatabaseFile(final String databaseUrl) {
+        if (!databaseUrl.startsWith(SQLITE_JDBC_PREFIX)) {
+            return null;
+        }
+        String location = databaseUrl.substring(SQLITE_JDBC_PREFIX.length());
+        final int queryIndex = location.indexOf('?');
+        if (queryIndex >= 0) {
+            location = location.substring(0, queryIndex);
+        }
+        if (location.startsWith("file:")) {
+            location = location.substring("file:".length());
+        }
+        if (location.isBlank() || location.contains(":memory:")) {
+            return null;
+        }
+        return Path.of(location).toAbsolutePath();
+    }
+
+    private void configureConnection(final Connection connection) {
+        try {
+            storageProfile.applyConnectionPragmas(connection);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed to apply storage profile", ex);
+        }
+    }
+
     /**
-     * Returns a fresh JDBC connection. Callers should use try-with-resources in
-     * order to close it after usage.
+     * Returns a connection that may be used for writes. In pooled mode this is
+     * the single writer connection, so callers must close it promptly using
+     * try-with-resources and must not request a second writer connection while
+     * holding one.
      *
-     * @return a new {@link Connection}
+     * @return a writable {@link Connection}
      * @throws SQLException if the underlying JDBC driver cannot establish a connection
      */
     public Connection getConnection() throws SQLException {
-        return DriverManager.getConnection(databaseUrl);
+        if (connectionPool != null) {
+            return connectionPool.acquireWriter();
+        }
+        return openConfiguredConnection();
+    }
+
+    /**
+     * Returns a connection intended for queries only. In pooled mode the
+     * connection comes from the reader pool and rejects writes; otherwise a
+     * fresh connection is opened.
+     *
+     * @return a read-only {@link Connection}
+     * @throws SQLException if the underlying JDBC driver cannot establish a connection
+     */
+    public Connection getReadConnection() throws SQLException {
+        if (connectionPool != null) {
+            return connectionPool.acquireReader();
+        }
+        return openConfiguredConnection();
+    }
+
+    private Connection openConfiguredConnection() throws SQLException {
+        final Connection connection = DriverManager.getConnection(databaseUrl);
+        try {
+            storageProfile.applyConnectionPragmas(connection);
+        } catch (SQLException ex) {
+            connection.close();
+            throw ex;
+        }
+        return connection;
+    }
+
+    /**
+     * Indicates whether connections are served from a {@link ConnectionPool}.
+     *
+     * @return {@code true} when pooling is enabled
+     */
+    public boolean isPooled() {
+        return connectionPool != null;
+    }
+
+    /**
+     * Returns a snapshot of the pool statistics, or {@code null} when pooling
+     * is disabled.
+     *
+     * @return the current pool metrics
+     */
+    public ConnectionPoolMetrics getPoolMetrics() {
+        return connectionPool == null ? null : connectionPool.metrics();
+    }
+
+    /**
+     * Returns the storage profile applied to every connection.
+     *
+     * @return the active storage profile
+     */
+    public StorageProfile getStorageProfile() {
+        return storageProfile;
+    }
+
+    /**
+     * Returns WAL size and checkpoint latency statistics, or {@code null} when
+     * managed checkpoints are disabled.
+     *
+     * @return the current checkpoint metrics
+     */
+    public CheckpointMetrics getCheckpointMetrics() {
+        return checkpointScheduler == null ? null : checkpointScheduler.metrics();
+    }
+
+    /**
+     * Stops the checkpoint scheduler, folds the WAL back into the database and
+     * releases all pooled connections. The manager must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        if (checkpointScheduler != null) {
+            checkpointScheduler.close();
+            checkpointScheduler.checkpoint(WalCheckpointScheduler.Mode.TRUNCATE);
+        }
+        if (connectionPool != null) {
+            connectionPool.close();
+        }
     }
 
     /**
@@ -193,20 +448,35 @@ public class DatabaseManager {
     }
 
     /**
-     * Initialises the SQLite database by creating the required tables. The
-     * method is idempotent and can safely be called multiple times.
+     * Initialises the SQLite database by creating the required tables,
+     * upgrading older schemas through {@link SchemaMigrations} and creating
+     * the indexes. The method is idempotent and can safely be called multiple
+     * times.
      */
     public final void initializeDatabase() {
         try (Connection connection = getConnection(); Statement statement = connection.createStatement()) {
+            storageProfile.applyJournalMode(connection);
             statement.execute(CREATE_NOTES_TABLE_SQL);
             statement.execute(CREATE_TASKS_TABLE_SQL);
-            statement.execute(CREATE_TASKS_REMINDER_INDEX_SQL);
             statement.execute(CREATE_CHAT_SESSIONS_TABLE_SQL);
             statement.execute(CREATE_CHAT_MESSAGES_TABLE_SQL);
             statement.execute(CREATE_CHAT_ATTACHMENTS_TABLE_SQL);
-            statement.execute(CREATE_CHAT_MESSAGES_INDEX_SQL);
+            statement.execute(CREATE_ATTACHMENT_BLOBS_TABLE_SQL);
             upgradeChatAttachmentsTable(connection);
-            LOGGER.log(Level.INFO, "Database initialised using URL: {0}", databaseUrl);
+            // Indexes refer to columns older databases only gain through the migrations.
+            SchemaMigrations.migrate(connection);
+            statement.execute(CREATE_NOTES_DATE_INDEX_SQL);
+            statement.execute(CREATE_TASKS_REMINDER_INDEX_SQL);
+            statement.execute(CREATE_TASKS_FILTER_INDEX_SQL);
+            statement.execute(CREATE_TASKS_DUE_INDEX_SQL);
+            statement.execute(CREATE_CHAT_SESSIONS_UPDATED_INDEX_SQL);
+            statement.execute(CREATE_CHAT_MESSAGES_INDEX_SQL);
+            statement.execute(CREATE_CHAT_ATTACHMENTS_MESSAGE_INDEX_SQL);
+            statement.execute(CREATE_ATTACHMENT_REF_INSERT_TRIGGER_SQL);
+            statement.execute(CREATE_ATTACHMENT_REF_DELETE_TRIGGER_SQL);
+            SearchIndex.install(connection);
+            LOGGER.log(Level.INFO, "Database initialised using URL: {0} ({1})",
+                new Object[]{databaseUrl, storageProfile});
         } catch (SQLException ex) {
             LOGGER.log(Level.SEVERE, "Failed to initialise SQLite database", ex);
             throw new IllegalStateException("Failed to initialise SQLite database", ex);
@@ -215,10 +485,11 @@ public class DatabaseManager {
 
     private void upgradeChatAttachmentsTable(final Connection connection) throws SQLException {
         ensureColumn(connection, "chat_attachments", "file_id TEXT", "file_id");
+        ensureColumn(connection, "chat_attachments", "content_sha256 TEXT", "content_sha256");
     }
 
-    private void ensureColumn(final Connection connection, final String table, final String columnDefinition,
-                              final String columnName) throws SQLException {
+    static void ensureColumn(final Connection connection, final String table, final String columnDefinition,
+                             final String columnName) throws SQLException {
         boolean present = false;
         try (Statement statement = connection.createStatement();
              ResultSet rs = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
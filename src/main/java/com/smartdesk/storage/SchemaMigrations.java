@@ -0,0 +1,276 @@
+package com.smartdesk.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Versioned schema upgrades, tracked through {@code PRAGMA user_version}.
+ * <p>
+ * {@link DatabaseManager#initializeDatabase()} creates missing tables in their
+ * current shape and then runs every migration newer than the stored version.
+ * Each migration is idempotent, so one interrupted half way simply runs again
+ * on the next start; the version is only raised once it has completed.
+ * </p>
+ */
+final class SchemaMigrations {
+
+    private static final Logger LOGGER = Logger.getLogger(SchemaMigrations.class.getName());
+
+    /** Schema version written by the newest migration. */
+    static final int CURRENT_VERSION = 3;
+
+    /** Rows converted per statement by backfills, each in its own transaction. */
+    static final int BACKFILL_BATCH_ROWS = 10_000;
+
+    /** Text timestamp columns and the epoch millisecond columns introduced for them in version 1. */
+    private static final List<TimeColumn> EPOCH_COLUMNS = List.of(
+        new TimeColumn("notes", "date"),
+        new TimeColumn("tasks", "start_at"),
+        new TimeColumn("tasks", "due_at"),
+        new TimeColumn("tasks", "last_reminded_at"),
+        new TimeColumn("tasks", "created_at"),
+        new TimeColumn("tasks", "updated_at"),
+        new TimeColumn("chat_sessions", "created_at"),
+        new TimeColumn("chat_sessions", "updated_at"),
+        new TimeColumn("chat_messages", "timestamp"));
+
+    /** Indexes on text timestamps that version 1 replaces by indexes on the epoch columns. */
+    private static final List<String> TEXT_TIMESTAMP_INDEXES = List.of(
+        "idx_tasks_reminder", "idx_tasks_filter", "idx_tasks_due", "idx_chat_messages_session");
+
+    /** Task indexes whose column order version 2 changes to match the display order. */
+    private static final List<String> TASK_ORDER_INDEXES = List.of("idx_tasks_filter", "idx_tasks_due");
+
+    private SchemaMigrations() {
+    }
+
+    /**
+     * Brings the schema up to {@link #CURRENT_VERSION}. Runs in auto-commit
+     * mode so long backfills commit batch by batch.
+     */
+    static void migrate(final Connection connection) throws SQLException {
+        final int version = userVersion(connection);
+        if (version > CURRENT_VERSION) {
+            LOGGER.log(Level.WARNING, "Database schema version {0} is newer than this application ({1})",
+                new Object[]{version, CURRENT_VERSION});
+            return;
+        }
+        if (version < 1) {
+            addEpochColumns(connection);
+            setUserVersion(connection, 1);
+        }
+        if (version < 2) {
+            dropIndexes(connection, TASK_ORDER_INDEXES);
+            setUserVersion(connection, 2);
+        }
+        if (version < 3) {
+            moveInlineAttachments(connection);
+            setUserVersion(connection, 3);
+        }
+    }
+
+    /**
+     * Version 3: moves attachment content still stored inline in
+     * {@code chat_attachments.data} into the shared {@code attachment_blobs}
+     * table and drops the column, so every attachment has exactly one stored
+     * copy. Each row moves in its own transaction; the content is hashed
+     * while streamed and copied between the tables inside SQLite.
+     */
+    private static void moveInlineAttachments(final Connection connection) throws SQLException {
+        if (!columnExists(connection, "chat_attachments", "data")) {
+            return;
+        }
+        final long started = System.nanoTime();
+        final List<Long> inline = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery(
+                 "SELECT id FROM chat_attachments WHERE content_sha256 IS NULL ORDER BY id")) {
+            while (rs.next()) {
+                inline.add(rs.getLong(1));
+            }
+        }
+        try (PreparedStatement read = connection.prepareStatement("SELECT data FROM chat_attachments WHERE id = ?");
+             PreparedStatement copy = connection.prepareStatement(
+                 "INSERT OR IGNORE INTO attachment_blobs (sha256, size, data, ref_count)"
+                     + " SELECT ?, length(data), data, 0 FROM chat_attachments WHERE id = ?");
+             PreparedStatement link = connection.prepareStatement(
+                 "UPDATE chat_attachments SET content_sha256 = ? WHERE id = ?");
+             PreparedStatement reference = connection.prepareStatement(
+                 "UPDATE attachment_blobs SET ref_count = ref_count + 1 WHERE sha256 = ?")) {
+            for (long id : inline) {
+                read.setLong(1, id);
+                final String sha256;
+                try (ResultSet rs = read.executeQuery()) {
+                    if (!rs.next()) {
+                        continue;
+                    }
+                    sha256 = sha256(rs.getBinaryStream(1));
+                }
+                connection.setAutoCommit(false);
+                try {
+                    copy.setString(1, sha256);
+                    copy.setLong(2, id);
+                    copy.executeUpdate();
+                    link.setString(1, sha256);
+                    link.setLong(2, id);
+                    link.executeUpdate();
+                    reference.setString(1, sha256);
+                    reference.executeUpdate();
+                    connection.commit();
+                } catch (SQLException ex) {
+                    connection.rollback();
+                    throw ex;
+                } finally {
+                    connection.setAutoCommit(true);
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE chat_attachments DROP COLUMN data");
+        }
+        LOGGER.log(Level.INFO, "Schema migrated to version 3, {0} inline attachments moved in {1} ms",
+            new Object[]{inline.size(), (System.nanoTime() - started) / 1_000_000});
+    }
+
+    /**
+     * Lower-case hex SHA-256 of the stream, matching the hashes written by
+     * the attachment store. A SQL {@code NULL} hashes like empty content.
+     */
+    private static String sha256(final InputStream data) throws SQLException {
+        final MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+        if (data != null) {
+            try (InputStream in = data) {
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                }
+            } catch (IOException ex) {
+                throw new SQLException("Failed to read inline attachment", ex);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static boolean columnExists(final Connection connection, final String table, final String column)
+        throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Version 1: adds an integer {@code *_ms} column next to every text
+     * timestamp, fills it from the text and drops the text based indexes so
+     * they are recreated on the new columns.
+     */
+    private static void addEpochColumns(final Connection connection) throws SQLException {
+        final long started = System.nanoTime();
+        long converted = 0;
+        for (TimeColumn column : EPOCH_COLUMNS) {
+            DatabaseManager.ensureColumn(connection, column.table(), column.epochColumn() + " INTEGER",
+                column.epochColumn());
+        }
+        for (TimeColumn column : EPOCH_COLUMNS) {
+            converted += backfill(connection, column);
+        }
+        dropIndexes(connection, TEXT_TIMESTAMP_INDEXES);
+        LOGGER.log(Level.INFO, "Schema migrated to version 1, {0} timestamps converted in {1} ms",
+            new Object[]{converted, (System.nanoTime() - started) / 1_000_000});
+    }
+
+    /**
+     * Drops the indexes so {@link DatabaseManager#initializeDatabase()}
+     * recreates them in their current shape. Version 2 uses this to reorder
+     * the task filter and due indexes.
+     */
+    private static void dropIndexes(final Connection connection, final List<String> indexes) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String index : indexes) {
+                statement.execute("DROP INDEX IF EXISTS " + index);
+            }
+        }
+    }
+
+    /**
+     * Converts the text column into its epoch column in rowid ranges of
+     * {@link #BACKFILL_BATCH_ROWS}, skipping rows already converted.
+     * Unparseable non-null text in a mandatory column becomes {@code 0}, so
+     * the row still sorts and pages consistently.
+     */
+    private static long backfill(final Connection connection, final TimeColumn column) throws SQLException {
+        final long maxRowId;
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(rowid), 0) FROM " + column.table())) {
+            maxRowId = rs.next() ? rs.getLong(1) : 0;
+        }
+        final String sql = "UPDATE " + column.table() + " SET " + column.epochColumn() + " = "
+            + "CASE WHEN " + column.textColumn() + " IS NULL THEN NULL"
+            + " ELSE COALESCE(" + epochMillisSql(column.textColumn()) + ", 0) END"
+            + " WHERE rowid > ? AND rowid <= ? AND " + column.epochColumn() + " IS NULL";
+        long converted = 0;
+        try (PreparedStatement update = connection.prepareStatement(sql)) {
+            for (long from = 0; from < maxRowId; from += BACKFILL_BATCH_ROWS) {
+                update.setLong(1, from);
+                update.setLong(2, from + BACKFILL_BATCH_ROWS);
+                converted += update.executeUpdate();
+            }
+        }
+        return converted;
+    }
+
+    /**
+     * SQL equivalent of {@link com.smartdesk.utils.DateTimeUtils#toEpochMillis}
+     * for ISO text such as {@code 2024-05-01T08:30:15.123456}. Fractions are
+     * truncated to milliseconds like in Java, whereas SQLite's date functions
+     * would round them.
+     */
+    private static String epochMillisSql(final String column) {
+        return "CAST(strftime('%s', substr(" + column + ", 1, 19)) AS INTEGER) * 1000"
+            + " + CASE WHEN substr(" + column + ", 20, 1) = '.'"
+            + " THEN CAST(substr(substr(" + column + ", 21) || '00', 1, 3) AS INTEGER) ELSE 0 END";
+    }
+
+    private static int userVersion(final Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void setUserVersion(final Connection connection, final int version) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA user_version = " + version);
+        }
+    }
+
+    private record TimeColumn(String table, String textColumn) {
+
+        String epochColumn() {
+            return textColumn + "_ms";
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.smartdesk.storage;
+
+/**
+ * One result of a {@link SearchIndex} query.
+ *
+ * @param source     kind of record that matched
+ * @param id         primary key of the matching row
+ * @param parentId   owning record, the chat session id for chat messages; {@code null} otherwise
+ * @param title      note or task title, or the title of the chat session
+ * @param snippet    excerpt around the match with matches wrapped in
+ *                   {@link SearchIndex#HIGHLIGHT_START} and {@link SearchIndex#HIGHLIGHT_END}
+ * @param score      BM25 rank; lower is better, {@code 0} if the query could not be ranked
+ * @param timestamp  ISO timestamp of the record
+ */
+public record SearchHit(
+    SearchIndex.Source source,
+    long id,
+    String parentId,
+    String title,
+    String snippet,
+    double score,
+    String timestamp
+) {
+}
@@ -0,0 +1,495 @@
+package com.smartdesk.storage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Full-text search over notes, tasks and chat messages backed by SQLite FTS5.
+ * <p>
+ * Each searchable table has an external-content FTS5 table that stores only
+ * the index; triggers keep it in step with inserts, deletes and updates of the
+ * indexed columns. The {@code trigram} tokenizer indexes every three character
+ * sequence, so Chinese text without word boundaries is searchable as well as
+ * substrings of Latin words, and matching is case-insensitive. Results are
+ * ranked with BM25, carry a highlighted snippet and are returned in pages.
+ * </p>
+ * <p>
+ * Search terms shorter than three characters, common for Chinese words, cannot
+ * be answered by the trigram index; they are matched with {@code LIKE} instead
+ * and results consisting only of such terms are ordered by recency. If the
+ * SQLite build lacks FTS5 every term is matched that way.
+ * </p>
+ */
+public class SearchIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(SearchIndex.class.getName());
+
+    /** Marker inserted before every match in {@link SearchHit#snippet()}. */
+    public static final String HIGHLIGHT_START = "【";
+
+    /** Marker inserted after every match in {@link SearchHit#snippet()}. */
+    public static final String HIGHLIGHT_END = "】";
+
+    /** Number of tokens around the match included in snippets. */
+    private static final int SNIPPET_TOKENS = 24;
+
+    /** Characters of context on each side of a match in snippets built without FTS5. */
+    private static final int SNIPPET_CONTEXT_CHARS = 24;
+
+    /** Shortest term the trigram tokenizer can match. */
+    private static final int MIN_INDEXED_TERM_LENGTH = 3;
+
+    /** FTS5 default of the {@code automerge} option. */
+    private static final int DEFAULT_AUTOMERGE = 4;
+
+    /** Upper bound for a single page. */
+    public static final int MAX_PAGE_SIZE = 200;
+
+    /** Kind of record a hit refers to. */
+    public enum Source {
+        NOTE("notes", "notes_fts", new String[]{"title", "content", "tag"}, "10.0, 1.0, 4.0",
+            "NULL", "b.title", "b.date", ""),
+        TASK("tasks", "tasks_fts", new String[]{"title", "description"}, "10.0, 1.0",
+            "NULL", "b.title", "b.updated_at", ""),
+        CHAT_MESSAGE("chat_messages", "chat_messages_fts", new String[]{"content"}, "1.0",
+            "b.session_id", "COALESCE(s.title, b.session_id)", "b.timestamp",
+            " LEFT JOIN chat_sessions s ON s.id = b.session_id");
+
+        private final String table;
+        private final String ftsTable;
+        private final String[] columns;
+        private final String weights;
+        private final String parentExpression;
+        private final String titleExpression;
+        private final String timestampExpression;
+        private final String extraJoin;
+
+        Source(final String table, final String ftsTable, final String[] columns, final String weights,
+               final String parentExpression, final String titleExpression,
+               final String timestampExpression, final String extraJoin) {
+            this.table = table;
+            this.ftsTable = ftsTable;
+            this.columns = columns;
+            this.weights = weights;
+            this.parentExpression = parentExpression;
+            this.titleExpression = titleExpression;
+            this.timestampExpression = timestampExpression;
+            this.extraJoin = extraJoin;
+        }
+
+        private String createTableSql() {
+            return "CREATE VIRTUAL TABLE IF NOT EXISTS " + ftsTable + " USING fts5("
+                + String.join(", ", columns) + ", content='" + table + "', content_rowid='id', "
+                + "tokenize='trigram')";
+        }
+
+        private List<String> createTriggerSql() {
+            final String cols = String.join(", ", columns);
+            final String oldValues = prefixed("old.");
+            final String insert = insertSql();
+            final String delete = "INSERT INTO " + ftsTable + "(" + ftsTable + ", rowid, " + cols
+                + ") VALUES ('delete', old.id, " + oldValues + ");";
+            return List.of(
+                createInsertTriggerSql(),
+                "CREATE TRIGGER IF NOT EXISTS " + ftsTable + "_ad AFTER DELETE ON " + table
+                    + " BEGIN " + delete + " END",
+                "CREATE TRIGGER IF NOT EXISTS " + ftsTable + "_au AFTER UPDATE OF " + cols + " ON " + table
+                    + " BEGIN " + delete + " " + insert + " END");
+        }
+
+        private String insertSql() {
+            return "INSERT INTO " + ftsTable + "(rowid, " + String.join(", ", columns) + ") VALUES (new.id, "
+                + prefixed("new.") + ");";
+        }
+
+        private String automergeSql(final int segments) {
+            return "INSERT INTO " + ftsTable + "(" + ftsTable + ", rank) VALUES ('automerge', " + segments + ")";
+        }
+
+        private String insertTriggerName() {
+            return ftsTable + "_ai";
+        }
+
+        private String createInsertTriggerSql() {
+            return "CREATE TRIGGER IF NOT EXISTS " + insertTriggerName() + " AFTER INSERT ON " + table
+                + " BEGIN " + insertSql() + " END";
+        }
+
+        /**
+         * All indexed columns joined into one text, used to build snippets
+         * for rows matched without FTS5.
+         */
+        private String bodyExpression() {
+            final StringJoiner joiner = new StringJoiner(" || ' ' || ");
+            for (String column : columns) {
+                joiner.add("COALESCE(b." + column + ", '')");
+            }
+            return joiner.toString();
+        }
+
+        private String prefixed(final String prefix) {
+            final StringJoiner joiner = new StringJoiner(", ");
+            for (String column : columns) {
+                joiner.add(prefix + column);
+            }
+            return joiner.toString();
+        }
+    }
+
+    private final DatabaseManager databaseManager;
+    private volatile Boolean available;
+
+    public SearchIndex(final DatabaseManager databaseManager) {
+        this.databaseManager = Objects.requireNonNull(databaseManager, "databaseManager must not be null");
+    }
+
+    /**
+     * Creates the FTS5 tables and triggers if they do not exist and indexes
+     * the existing rows of newly created tables. Called from
+     * {@link DatabaseManager#initializeDatabase()} after the content tables
+     * were created.
+     *
+     * @return {@code false} if the SQLite build does not support FTS5
+     */
+    static boolean install(final Connection connection) throws SQLException {
+        for (Source source : Source.values()) {
+            final boolean existed = tableExists(connection, source.ftsTable);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(source.createTableSql());
+                for (String trigger : source.createTriggerSql()) {
+                    statement.execute(trigger);
+                }
+                if (!existed) {
+                    statement.execute("INSERT INTO " + source.ftsTable + "(" + source.ftsTable + ") VALUES ('rebuild')");
+                    LOGGER.log(Level.INFO, "Built full-text index {0}", source.ftsTable);
+                }
+            } catch (SQLException ex) {
+                if (ex.getMessage() != null && ex.getMessage().contains("no such module")) {
+                    LOGGER.log(Level.WARNING, "SQLite build lacks FTS5, full-text search falls back to LIKE", ex);
+                    return false;
+                }
+                throw ex;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Prepares {@code source} for a bulk insert within the caller's
+     * transaction. Indexing rows one by one through the insert trigger makes
+     * large imports an order of magnitude slower, so the trigger is dropped
+     * and the rows are indexed in one statement by {@link #endBulkInsert},
+     * which must run before the transaction commits. Incremental segment
+     * merging is paused meanwhile, halving the indexing time; later writes
+     * merge the segments. A rollback restores the trigger and the setting.
+     *
+     * @return the highest row id before the insert, to pass to {@link #endBulkInsert}
+     */
+    public static long beginBulkInsert(final Connection connection, final Source source) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TRIGGER IF EXISTS " + source.insertTriggerName());
+            if (tableExists(connection, source.ftsTable)) {
+                statement.execute(source.automergeSql(0));
+            }
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + source.table)) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Indexes the rows inserted since {@link #beginBulkInsert} and restores
+     * the insert trigger. Rows inserted with an explicit id at or below
+     * {@code lastIdBefore}, for example into gaps left by deletions, are not
+     * covered by the id range and must be passed as {@code earlierIds}. Does
+     * nothing if the SQLite build lacks FTS5.
+     */
+    public static void endBulkInsert(final Connection connection, final Source source, final long lastIdBefore,
+                                     final Collection<Long> earlierIds) throws SQLException {
+        if (!tableExists(connection, source.ftsTable)) {
+            return;
+        }
+        final String indexSql = "INSERT INTO " + source.ftsTable + "(rowid, " + String.join(", ", source.columns)
+            + ") SELECT id, " + String.join(", ", source.columns) + " FROM " + source.table;
+        try (PreparedStatement index = connection.prepareStatement(indexSql + " WHERE id > ?");
+             Statement statement = connection.createStatement()) {
+            index.setLong(1, lastIdBefore);
+            index.executeUpdate();
+            if (!earlierIds.isEmpty()) {
+                try (PreparedStatement single = connection.prepareStatement(indexSql + " WHERE id = ?")) {
+                    for (Long id : earlierIds) {
+                        single.setLong(1, id);
+                        single.addBatch();
+                    }
+                    single.executeBatch();
+                }
+            }
+            statement.execute(source.automergeSql(DEFAULT_AUTOMERGE));
+            statement.execute(source.createInsertTriggerSql());
+        }
+    }
+
+    /**
+     * Whether the FTS5 index is present; otherwise searches use {@code LIKE}.
+     */
+    public boolean isAvailable() {
+        Boolean current = available;
+        if (current == null) {
+            try (Connection connection = databaseManager.getReadConnection()) {
+                boolean all = true;
+                for (Source source : Source.values()) {
+                    all &= tableExists(connection, source.ftsTable);
+                }
+                current = all;
+            } catch (SQLException ex) {
+                LOGGER.log(Level.WARNING, "Failed to inspect full-text index", ex);
+                current = Boolean.FALSE;
+            }
+            available = current;
+        }
+        return current;
+    }
+
+    /**
+     * Searches all sources.
+     *
+     * @see #search(String, Set, int, int)
+     */
+    public SearchResultPage search(final String query, final int offset, final int limit) {
+        return search(query, EnumSet.allOf(Source.class), offset, limit);
+    }
+
+    /**
+     * Searches the given sources. Whitespace separates terms, all of which
+     * must match; quotes are treated literally.
+     *
+     * @param query    user input
+     * @param sources  kinds of records to search
+     * @param offset   number of results to skip
+     * @param limit    page size, at most {@link #MAX_PAGE_SIZE}
+     * @return the requested page, empty if the query has no terms
+     */
+    public SearchResultPage search(final String query, final Set<Source> sources, final int offset,
+                                   final int limit) {
+        Objects.requireNonNull(sources, "sources must not be null");
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        final List<String> terms = terms(query);
+        if (terms.isEmpty() || sources.isEmpty()) {
+            return SearchResultPage.empty();
+        }
+        final boolean useIndex = isAvailable();
+        final List<String> indexed = new ArrayList<>();
+        final List<String> scanned = new ArrayList<>();
+        for (String term : terms) {
+            if (useIndex && term.codePointCount(0, term.length()) >= MIN_INDEXED_TERM_LENGTH) {
+                indexed.add(term);
+            } else {
+                scanned.add(term);
+            }
+        }
+        final String matchExpression = indexed.isEmpty() ? null : matchExpression(indexed);
+
+        final StringJoiner union = new StringJoiner(" UNION ALL ",
+            "SELECT source, id, parent_id, title, snippet, body, score, ts FROM (",
+            ") ORDER BY score, ts DESC, id DESC LIMIT ? OFFSET ?");
+        for (Source source : EnumSet.copyOf(sources)) {
+            union.add(sourceSql(source, matchExpression != null, scanned.size()));
+        }
+
+        try (Connection connection = databaseManager.getReadConnection();
+             PreparedStatement statement = connection.prepareStatement(union.toString())) {
+            int index = 1;
+            for (Source source : EnumSet.copyOf(sources)) {
+                if (matchExpression != null) {
+                    statement.setString(index++, matchExpression);
+                }
+                for (String term : scanned) {
+                    final String pattern = "%" + escapeLike(term) + "%";
+                    for (int i = 0; i < source.columns.length; i++) {
+                        statement.setString(index++, pattern);
+                    }
+                }
+            }
+            statement.setInt(index++, limit + 1);
+            statement.setInt(index, offset);
+
+            final List<SearchHit> hits = new ArrayList<>();
+            boolean hasMore = false;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    if (hits.size() == limit) {
+                        hasMore = true;
+                        break;
+                    }
+                    String snippet = resultSet.getString("snippet");
+                    if (snippet == null) {
+                        snippet = buildSnippet(resultSet.getString("body"), terms);
+                    }
+                    hits.add(new SearchHit(
+                        Source.valueOf(resultSet.getString("source")),
+                        resultSet.getLong("id"),
+                        resultSet.getString("parent_id"),
+                        resultSet.getString("title"),
+                        snippet,
+                        resultSet.getDouble("score"),
+                        resultSet.getString("ts")));
+                }
+            }
+            return new SearchResultPage(hits, offset, hasMore);
+        } catch (SQLException ex) {
+            LOGGER.log(Level.SEVERE, "Full-text search failed", ex);
+            throw new IllegalStateException("Full-text search failed", ex);
+        }
+    }
+
+    /**
+     * Re-indexes every source from its content table, for example after rows
+     * were written while the triggers were missing.
+     */
+    public void rebuild() {
+        if (!isAvailable()) {
+            return;
+        }
+        try (Connection connection = databaseManager.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (Source source : Source.values()) {
+                statement.execute("INSERT INTO " + source.ftsTable + "(" + source.ftsTable + ") VALUES ('rebuild')");
+            }
+        } catch (SQLException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to rebuild full-text index", ex);
+            throw new IllegalStateException("Failed to rebuild full-text index", ex);
+        }
+    }
+
+    private static String sourceSql(final Source source, final boolean match, final int scannedTerms) {
+        final StringBuilder sql = new StringBuilder("SELECT '").append(source.name()).append("' AS source, b.id AS id, ")
+            .append(source.parentExpression).append(" AS parent_id, ")
+            .append(source.titleExpression).append(" AS title, ");
+        if (match) {
+            sql.append("snippet(").append(source.ftsTable).append(", -1, '").append(HIGHLIGHT_START).append("', '")
+                .append(HIGHLIGHT_END).append("', '…', ").append(SNIPPET_TOKENS).append(") AS snippet, ")
+                .append("NULL AS body, ")
+                .append("bm25(").append(source.ftsTable).append(", ").append(source.weights).append(") AS score, ");
+        } else {
+            sql.append("NULL AS snippet, ").append(source.bodyExpression()).append(" AS body, 0.0 AS score, ");
+        }
+        sql.append(source.timestampExpression).append(" AS ts");
+        final StringJoiner where = new StringJoiner(" AND ", " WHERE ", "").setEmptyValue("");
+        if (match) {
+            sql.append(" FROM ").append(source.ftsTable)
+                .append(" JOIN ").append(source.table).append(" b ON b.id = ").append(source.ftsTable).append(".rowid");
+            where.add(source.ftsTable + " MATCH ?");
+        } else {
+            sql.append(" FROM ").append(source.table).append(" b");
+        }
+        sql.append(source.extraJoin);
+        for (int i = 0; i < scannedTerms; i++) {
+            final StringJoiner anyColumn = new StringJoiner(" OR ", "(", ")");
+            for (String column : source.columns) {
+                anyColumn.add("b." + column + " LIKE ? ESCAPE '\\'");
+            }
+            where.add(anyColumn.toString());
+        }
+        return sql.append(where).toString();
+    }
+
+    private static List<String> terms(final String query) {
+        final List<String> terms = new ArrayList<>();
+        if (query == null) {
+            return terms;
+        }
+        for (String term : query.trim().split("\\s+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Builds an FTS5 query that requires every term as a literal phrase.
+     */
+    private static String matchExpression(final List<String> terms) {
+        final StringJoiner joiner = new StringJoiner(" AND ");
+        for (String term : terms) {
+            joiner.add('"' + term.replace("\"", "\"\"") + '"');
+        }
+        return joiner.toString();
+    }
+
+    private static String escapeLike(final String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Snippet for rows matched without FTS5: context around the first match
+     * with every occurrence of a term highlighted.
+     */
+    static String buildSnippet(final String body, final List<String> terms) {
+        if (body == null || body.isEmpty()) {
+            return "";
+        }
+        final String lower = body.toLowerCase(Locale.ROOT);
+        int first = -1;
+        for (String term : terms) {
+            final int position = lower.indexOf(term.toLowerCase(Locale.ROOT));
+            if (position >= 0 && (first < 0 || position < first)) {
+                first = position;
+            }
+        }
+        final int start = first < 0 ? 0 : Math.max(0, first - SNIPPET_CONTEXT_CHARS);
+        final int end = Math.min(body.length(), (first < 0 ? 0 : first) + SNIPPET_CONTEXT_CHARS * 3);
+        final StringBuilder snippet = new StringBuilder();
+        if (start > 0) {
+            snippet.append('…');
+        }
+        int i = start;
+        while (i < end) {
+            int matchLength = 0;
+            for (String term : terms) {
+                if (lower.startsWith(term.toLowerCase(Locale.ROOT), i) && term.length() > matchLength) {
+                    matchLength = term.length();
+                }
+            }
+            if (matchLength > 0) {
+                final int stop = Math.min(body.length(), i + matchLength);
+                snippet.append(HIGHLIGHT_START).append(body, i, stop).append(HIGHLIGHT_END);
+                i = stop;
+            } else {
+                snippet.append(body.charAt(i++));
+            }
+        }
+        if (end < body.length()) {
+            snippet.append('…');
+        }
+        return snippet.toString();
+    }
+
+    private static boolean tableExists(final Connection connection, final String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+            "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = ?")) {
+            statement.setString(1, name);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.smartdesk.storage;
+
+import java.util.List;
+
+/**
+ * One page of {@link SearchIndex} results.
+ *
+ * @param hits     results on this page, best first
+ * @param offset   number of results skipped before this page
+ * @param hasMore  whether another page follows
+ */
+public record SearchResultPage(List<SearchHit> hits, int offset, boolean hasMore) {
+
+    public SearchResultPage {
+        hits = List.copyOf(hits);
+    }
+
+    public static SearchResultPage empty() {
+        return new SearchResultPage(List.of(), 0, false);
+    }
+
+    /**
+     * Offset to request the following page with.
+     */
+    public int nextOffset() {
+        return offset + hits.size();
+    }
+}
@@ -0,0 +1,301 @@
+package com.smartdesk.storage;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Immutable set of SQLite tuning options applied by {@link DatabaseManager}.
+ * <p>
+ * The {@link #tuned()} profile enables write-ahead logging so readers are no
+ * longer blocked while chat messages are being committed, relaxes
+ * {@code synchronous} to {@code NORMAL} (durable in WAL mode except for power
+ * loss) and enlarges the page cache and memory map. {@link #sqliteDefaults()}
+ * keeps the historical rollback-journal behaviour. Custom profiles can be
+ * assembled through {@link #builder()}.
+ * </p>
+ */
+public final class StorageProfile {
+
+    /** Supported values for {@code PRAGMA journal_mode}. */
+    public enum JournalMode {
+        DELETE,
+        TRUNCATE,
+        PERSIST,
+        MEMORY,
+        WAL
+    }
+
+    /** Supported values for {@code PRAGMA synchronous}. */
+    public enum Synchronous {
+        OFF,
+        NORMAL,
+        FULL,
+        EXTRA
+    }
+
+    /** Supported values for {@code PRAGMA temp_store}. */
+    public enum TempStore {
+        DEFAULT,
+        FILE,
+        MEMORY
+    }
+
+    private final JournalMode journalMode;
+    private final Synchronous synchronous;
+    private final int cacheSizeKib;
+    private final long mmapSizeBytes;
+    private final TempStore tempStore;
+    private final int busyTimeoutMillis;
+    private final int walAutoCheckpointPages;
+    private final Duration checkpointInterval;
+    private final long passiveCheckpointThresholdBytes;
+    private final long truncateCheckpointThresholdBytes;
+
+    private StorageProfile(final Builder builder) {
+        this.journalMode = builder.journalMode;
+        this.synchronous = builder.synchronous;
+        this.cacheSizeKib = builder.cacheSizeKib;
+        this.mmapSizeBytes = builder.mmapSizeBytes;
+        this.tempStore = builder.tempStore;
+        this.busyTimeoutMillis = builder.busyTimeoutMillis;
+        this.walAutoCheckpointPages = builder.walAutoCheckpointPages;
+        this.checkpointInterval = builder.checkpointInterval;
+        this.passiveCheckpointThresholdBytes = builder.passiveCheckpointThresholdBytes;
+        this.truncateCheckpointThresholdBytes = builder.truncateCheckpointThresholdBytes;
+    }
+
+    /**
+     * Profile tuned for the desktop workload: WAL, {@code synchronous=NORMAL},
+     * 16 MiB page cache, 64 MiB memory map, in-memory temp store and a managed
+     * checkpoint every 30 seconds.
+     */
+    public static StorageProfile tuned() {
+        return builder().build();
+    }
+
+    /**
+     * Profile mirroring SQLite's out-of-the-box behaviour (rollback journal,
+     * {@code synchronous=FULL}, default cache) with managed checkpoints
+     * disabled.
+     */
+    public static StorageProfile sqliteDefaults() {
+        return builder()
+            .withJournalMode(JournalMode.DELETE)
+            .withSynchronous(Synchronous.FULL)
+            .withCacheSizeKib(2_000)
+            .withMmapSizeBytes(0)
+            .withTempStore(TempStore.DEFAULT)
+            .withWalAutoCheckpointPages(1_000)
+            .withCheckpointInterval(Duration.ZERO)
+            .build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Builder toBuilder() {
+        return new Builder()
+            .withJournalMode(journalMode)
+            .withSynchronous(synchronous)
+            .withCacheSizeKib(cacheSizeKib)
+            .withMmapSizeBytes(mmapSizeBytes)
+            .withTempStore(tempStore)
+            .withBusyTimeoutMillis(busyTimeoutMillis)
+            .withWalAutoCheckpointPages(walAutoCheckpointPages)
+            .withCheckpointInterval(checkpointInterval)
+            .withPassiveCheckpointThresholdBytes(passiveCheckpointThresholdBytes)
+            .withTruncateCheckpointThresholdBytes(truncateCheckpointThresholdBytes);
+    }
+
+    public JournalMode getJournalMode() {
+        return journalMode;
+    }
+
+    public Synchronous getSynchronous() {
+        return synchronous;
+    }
+
+    public int getCacheSizeKib() {
+        return cacheSizeKib;
+    }
+
+    public long getMmapSizeBytes() {
+        return mmapSizeBytes;
+    }
+
+    public TempStore getTempStore() {
+        return tempStore;
+    }
+
+    public int getBusyTimeoutMillis() {
+        return busyTimeoutMillis;
+    }
+
+    public int getWalAutoCheckpointPages() {
+        return walAutoCheckpointPages;
+    }
+
+    public Duration getCheckpointInterval() {
+        return checkpointInterval;
+    }
+
+    public long getPassiveCheckpointThresholdBytes() {
+        return passiveCheckpointThresholdBytes;
+    }
+
+    public long getTruncateCheckpointThresholdBytes() {
+        return truncateCheckpointThresholdBytes;
+    }
+
+    /**
+     * Indicates whether the profile asks for a background checkpoint scheduler.
+     */
+    public boolean isManagedCheckpointEnabled() {
+        return journalMode == JournalMode.WAL && !checkpointInterval.isZero();
+    }
+
+    /**
+     * Applies the journal mode. The setting is persistent in the database file
+     * and therefore only needs to run once, typically during schema
+     * initialisation.
+     *
+     * @param connection an open connection
+     * @throws SQLException if the pragma fails
+     */
+    void applyJournalMode(final Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA journal_mode = " + journalMode.name());
+        }
+    }
+
+    /**
+     * Applies the per-connection pragmas. SQLite resets these for every new
+     * connection, so the method runs whenever a connection is opened.
+     *
+     * @param connection an open connection
+     * @throws SQLException if one of the pragmas fails
+     */
+    void applyConnectionPragmas(final Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("PRAGMA busy_timeout = " + busyTimeoutMillis);
+            statement.execute("PRAGMA synchronous = " + synchronous.name());
+            statement.execute("PRAGMA cache_size = " + (-cacheSizeKib));
+            statement.execute("PRAGMA mmap_size = " + mmapSizeBytes);
+            statement.execute("PRAGMA temp_store = " + tempStore.name());
+            if (journalMode == JournalMode.WAL) {
+                statement.execute("PRAGMA wal_autocheckpoint = " + walAutoCheckpointPages);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT,
+            "StorageProfile{journal=%s, synchronous=%s, cache=%dKiB, mmap=%d, temp=%s, checkpoint=%s}",
+            journalMode, synchronous, cacheSizeKib, mmapSizeBytes, tempStore, checkpointInterval);
+    }
+
+    public static final class Builder {
+        private JournalMode journalMode = JournalMode.WAL;
+        private Synchronous synchronous = Synchronous.NORMAL;
+        private int cacheSizeKib = 16 * 1024;
+        private long mmapSizeBytes = 64L * 1024 * 1024;
+        private TempStore tempStore = TempStore.MEMORY;
+        private int busyTimeoutMillis = 5_000;
+        private int walAutoCheckpointPages = 4_000;
+        private Duration checkpointInterval = Duration.ofSeconds(30);
+        private long passiveCheckpointThresholdBytes = 4L * 1024 * 1024;
+        private long truncateCheckpointThresholdBytes = 32L * 1024 * 1024;
+
+        private Builder() {
+        }
+
+        public Builder withJournalMode(final JournalMode journalMode) {
+            this.journalMode = Objects.requireNonNull(journalMode, "journalMode must not be null");
+            return this;
+        }
+
+        public Builder withSynchronous(final Synchronous synchronous) {
+            this.synchronous = Objects.requireNonNull(synchronous, "synchronous must not be null");
+            return this;
+        }
+
+        public Builder withCacheSizeKib(final int cacheSizeKib) {
+            if (cacheSizeKib <= 0) {
+                throw new IllegalArgumentException("cacheSizeKib must be positive");
+            }
+            this.cacheSizeKib = cacheSizeKib;
+            return this;
+        }
+
+        public Builder withMmapSizeBytes(final long mmapSizeBytes) {
+            if (mmapSizeBytes < 0) {
+                throw new IllegalArgumentException("mmapSizeBytes must not be negative");
+            }
+            this.mmapSizeBytes = mmapSizeBytes;
+            return this;
+        }
+
+        public Builder withTempStore(final TempStore tempStore) {
+            this.tempStore = Objects.requireNonNull(tempStore, "tempStore must not be null");
+            return this;
+        }
+
+        public Builder withBusyTimeoutMillis(final int busyTimeoutMillis) {
+            if (busyTimeoutMillis < 0) {
+                throw new IllegalArgumentException("busyTimeoutMillis must not be negative");
+            }
+            this.busyTimeoutMillis = busyTimeoutMillis;
+            return this;
+        }
+
+        public Builder withWalAutoCheckpointPages(final int walAutoCheckpointPages) {
+            if (walAutoCheckpointPages < 0) {
+                throw new IllegalArgumentException("walAutoCheckpointPages must not be negative");
+            }
+            this.walAutoCheckpointPages = walAutoCheckpointPages;
+            return this;
+        }
+
+        /**
+         * Sets how often the managed checkpoint scheduler inspects the WAL.
+         * {@link Duration#ZERO} disables the scheduler.
+         */
+        public Builder withCheckpointInterval(final Duration checkpointInterval) {
+            Objects.requireNonNull(checkpointInterval, "checkpointInterval must not be null");
+            if (checkpointInterval.isNegative()) {
+                throw new IllegalArgumentException("checkpointInterval must not be negative");
+            }
+            this.checkpointInterval = checkpointInterval;
+            return this;
+        }
+
+        public Builder withPassiveCheckpointThresholdBytes(final long thresholdBytes) {
+            if (thresholdBytes < 0) {
+                throw new IllegalArgumentException("thresholdBytes must not be negative");
+            }
+            this.passiveCheckpointThresholdBytes = thresholdBytes;
+            return this;
+        }
+
+        public Builder withTruncateCheckpointThresholdBytes(final long thresholdBytes) {
+            if (thresholdBytes < 0) {
+                throw new IllegalArgumentException("thresholdBytes must not be negative");
+            }
+            this.truncateCheckpointThresholdBytes = thresholdBytes;
+            return this;
+        }
+
+        public StorageProfile build() {
+            if (truncateCheckpointThresholdBytes < passiveCheckpointThresholdBytes) {
+                throw new IllegalArgumentException("Truncate threshold must not be below the passive threshold");
+            }
+            return new StorageProfile(this);
+        }
+    }
+}
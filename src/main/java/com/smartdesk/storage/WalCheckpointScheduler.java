@@ -0,0 +1,211 @@
+package com.smartdesk.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background job that keeps the SQLite write-ahead log small.
+ * <p>
+ * At every tick the scheduler inspects the size of the {@code -wal} file. Once
+ * it exceeds the passive threshold of the {@link StorageProfile} a
+ * {@code PASSIVE} checkpoint copies committed frames back into the database
+ * without waiting on readers; beyond the truncate threshold a {@code TRUNCATE}
+ * checkpoint additionally resets the WAL file to zero bytes. Latency and
+ * outcome of every run are kept for {@link CheckpointMetrics}.
+ * </p>
+ */
+public final class WalCheckpointScheduler implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(WalCheckpointScheduler.class.getName());
+
+    /** Checkpoint modes understood by {@code PRAGMA wal_checkpoint}. */
+    public enum Mode {
+        PASSIVE,
+        FULL,
+        RESTART,
+        TRUNCATE
+    }
+
+    private final DatabaseManager databaseManager;
+    private final Path walFile;
+    private final StorageProfile profile;
+    private final ScheduledExecutorService executor;
+
+    private ScheduledFuture<?> scheduledFuture;
+
+    private long passiveRuns;
+    private long fullRuns;
+    private long restartRuns;
+    private long truncateRuns;
+    private long busyRuns;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+    private long lastLatencyNanos;
+    private Mode lastMode;
+    private int lastLogFrames;
+    private int lastCheckpointedFrames;
+    private LocalDateTime lastRunAt;
+
+    public WalCheckpointScheduler(final DatabaseManager databaseManager, final Path databaseFile,
+                                  final StorageProfile profile) {
+        this.databaseManager = Objects.requireNonNull(databaseManager, "databaseManager must not be null");
+        Objects.requireNonNull(databaseFile, "databaseFile must not be null");
+        this.walFile = databaseFile.resolveSibling(databaseFile.getFileName() + "-wal");
+        this.profile = Objects.requireNonNull(profile, "profile must not be null");
+        this.executor = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory());
+    }
+
+    /**
+     * Starts the periodic WAL inspection. Calling start multiple times simply
+     * restarts the cycle.
+     */
+    public synchronized void start() {
+        if (scheduledFuture != null) {
+            scheduledFuture.cancel(false);
+        }
+        final long intervalMillis = profile.getCheckpointInterval().toMillis();
+        scheduledFuture = executor.scheduleWithFixedDelay(this::checkpointIfNeeded,
+            intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the current size of the WAL file in bytes, or {@code 0} when the
+     * file does not exist.
+     */
+    public long getWalSizeBytes() {
+        try {
+            return Files.exists(walFile) ? Files.size(walFile) : 0L;
+        } catch (IOException ex) {
+            LOGGER.log(Level.FINE, "Unable to read WAL size", ex);
+            return 0L;
+        }
+    }
+
+    /**
+     * Runs a checkpoint immediately with the given mode.
+     *
+     * @param mode the checkpoint mode
+     * @return {@code true} when the checkpoint completed without being blocked
+     */
+    public boolean checkpoint(final Mode mode) {
+        Objects.requireNonNull(mode, "mode must not be null");
+        final long start = System.nanoTime();
+        try (Connection connection = databaseManager.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA wal_checkpoint(" + mode.name() + ")")) {
+            final boolean busy;
+            final int logFrames;
+            final int checkpointedFrames;
+            if (rs.next()) {
+                busy = rs.getInt(1) != 0;
+                logFrames = rs.getInt(2);
+                checkpointedFrames = rs.getInt(3);
+            } else {
+                busy = false;
+                logFrames = 0;
+                checkpointedFrames = 0;
+            }
+            record(mode, System.nanoTime() - start, busy, logFrames, checkpointedFrames);
+            return !busy;
+        } catch (SQLException ex) {
+            LOGGER.log(Level.WARNING, "WAL checkpoint (" + mode + ") failed", ex);
+            return false;
+        }
+    }
+
+    /**
+     * Returns a snapshot of checkpoint statistics.
+     */
+    public synchronized CheckpointMetrics metrics() {
+        final long runs = passiveRuns + fullRuns + restartRuns + truncateRuns;
+        return new CheckpointMetrics(
+            getWalSizeBytes(),
+            passiveRuns,
+            fullRuns,
+            restartRuns,
+            truncateRuns,
+            busyRuns,
+            TimeUnit.NANOSECONDS.toMicros(lastLatencyNanos),
+            runs == 0 ? 0L : TimeUnit.NANOSECONDS.toMicros(totalLatencyNanos / runs),
+            TimeUnit.NANOSECONDS.toMicros(maxLatencyNanos),
+            lastMode == null ? null : lastMode.name(),
+            lastLogFrames,
+            lastCheckpointedFrames,
+            lastRunAt);
+    }
+
+    private void checkpointIfNeeded() {
+        try {
+            final long walSize = getWalSizeBytes();
+            if (walSize >= profile.getTruncateCheckpointThresholdBytes()) {
+                checkpoint(Mode.TRUNCATE);
+            } else if (walSize >= profile.getPassiveCheckpointThresholdBytes() && walSize > 0) {
+                checkpoint(Mode.PASSIVE);
+            }
+        } catch (Exception ex) {
+            LOGGER.log(Level.SEVERE, "Failed to execute WAL checkpoint", ex);
+        }
+    }
+
+    private synchronized void record(final Mode mode, final long latencyNanos, final boolean busy,
+                                     final int logFrames, final int checkpointedFrames) {
+        switch (mode) {
+            case PASSIVE -> passiveRuns++;
+            case FULL -> fullRuns++;
+            case RESTART -> restartRuns++;
+            case TRUNCATE -> truncateRuns++;
+        }
+        if (busy) {
+            busyRuns++;
+        }
+        totalLatencyNanos += latencyNanos;
+        maxLatencyNanos = Math.max(maxLatencyNanos, latencyNanos);
+        lastLatencyNanos = latencyNanos;
+        lastMode = mode;
+        lastLogFrames = logFrames;
+        lastCheckpointedFrames = checkpointedFrames;
+        lastRunAt = LocalDateTime.now();
+        LOGGER.log(Level.FINE, "WAL checkpoint {0} took {1} µs (frames {2}/{3}, busy={4})",
+            new Object[]{mode, TimeUnit.NANOSECONDS.toMicros(latencyNanos), checkpointedFrames, logFrames, busy});
+    }
+
+    /**
+     * Stops the scheduler. The caller is responsible for running a final
+     * checkpoint if the WAL should be folded back before shutdown.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduledFuture != null) {
+            scheduledFuture.cancel(false);
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException ignored) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+        @Override
+        public Thread newThread(final Runnable r) {
+            final Thread thread = new Thread(r, "smartdesk-wal-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
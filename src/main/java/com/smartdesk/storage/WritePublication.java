@@ -0,0 +1,32 @@
+package com.smartdesk.storage;
+
+import java.util.Objects;
+
+/**
+ * What a service still has to do after a write on a caller-owned connection
+ * committed. {@link #applyState()} updates in-memory indexes and caches and
+ * must run while the writer connection is still held, so concurrent writes
+ * reach memory in commit order. {@link #notifyListeners()} must run after the
+ * writer was released, because listeners may write themselves.
+ *
+ * @param state         updates in-memory state
+ * @param notifications tells listeners about the change
+ */
+public record WritePublication(Runnable state, Runnable notifications) {
+
+    /** Publication of a write that changed nothing. */
+    public static final WritePublication NONE = new WritePublication(() -> { }, () -> { });
+
+    public WritePublication {
+        Objects.requireNonNull(state, "state");
+        Objects.requireNonNull(notifications, "notifications");
+    }
+
+    public void applyState() {
+        state.run();
+    }
+
+    public void notifyListeners() {
+        notifications.run();
+    }
+}
@@ -1,25 +1,38 @@
 package com.smartdesk.ui;
 
+import com.smartdesk.core.autosave.AutosaveQueue;
 import com.smartdesk.core.chat.ChatHistoryService;
+import com.smartdesk.core.chat.ChatWriteQueue;
+import com.smartdesk.core.chat.online.HttpTransport;
 import com.smartdesk.core.config.AppConfig;
 import com.smartdesk.core.config.ConfigManager;
+import com.smartdesk.core.note.NoteHeader;
 import com.smartdesk.core.note.NoteService;
+import com.smartdesk.core.search.KnowledgeIndex;
+import com.smartdesk.core.summary.SummaryService;
 import com.smartdesk.core.task.TaskService;
 import com.smartdesk.core.task.model.Task;
 import com.smartdesk.core.task.model.TaskPriority;
 import com.smartdesk.core.task.model.TaskStatus;
 import com.smartdesk.core.task.model.TaskType;
+import com.smartdesk.core.task.scheduler.ReminderScheduler;
 import com.smartdesk.ui.chat.ChatView;
 import com.smartdesk.ui.settings.SettingsView;
+import com.smartdesk.ui.summary.SummaryView;
 import com.smartdesk.ui.tasks.TaskDashboardView;
 import com.smartdesk.ui.tasks.TaskViewModel;
 import com.smartdesk.storage.DatabaseManager;
+import com.smartdesk.storage.SearchIndex;
+import com.smartdesk.storage.SearchResultPage;
 import com.smartdesk.storage.entity.NoteEntity;
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
+import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -30,10 +43,20 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import javafx.util.Callback;
+import javafx.util.Duration;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -45,17 +68,33 @@ public class MainApp extends Application {
 
     private static final Logger LOGGER = Logger.getLogger(MainApp.class.getName());
 
+    /** Quiet period after the last keystroke before the note search runs. */
+    private static final Duration NOTE_SEARCH_DEBOUNCE = Duration.millis(200);
+
     private ConfigManager configManager;
     private ChatView chatView;
     private SettingsView settingsView;
+    private SummaryView summaryView;
     private TaskDashboardView taskDashboardView;
     private Scene scene;
     private ObservableList<Note> notes;
     private ObservableList<TaskViewModel> tasks;
     private DatabaseManager databaseManager;
     private NoteService noteService;
+    private AutosaveQueue autosaveQueue;
+    private boolean populatingNoteEditor;
     private TaskService taskService;
+    private ReminderScheduler reminderScheduler;
     private ChatHistoryService chatHistoryService;
+    private ChatWriteQueue chatWriteQueue;
+    private KnowledgeIndex knowledgeIndex;
+    private SearchIndex searchIndex;
+    private final ExecutorService noteSearchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "note-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong noteSearchGeneration = new AtomicLong();
 
     @Override
     public void start(Stage primaryStage) {
@@ -67,15 +106,20 @@ public class MainApp extends Application {
         noteService = new NoteService(databaseManager);
         taskService = new TaskService(databaseManager);
         chatHistoryService = new ChatHistoryService(databaseManager);
+        autosaveQueue = new AutosaveQueue(databaseManager, noteService, taskService);
+        chatWriteQueue = new ChatWriteQueue(databaseManager, chatHistoryService);
+        searchIndex = new SearchIndex(databaseManager);
 
         notes = loadNotes();
         tasks = loadTasks();
+        reminderScheduler = new ReminderScheduler(taskService);
+        knowledgeIndex = new KnowledgeIndex(noteService, taskService);
 
         TabPane tabPane = new TabPane();
         tabPane.getTabs().add(createNotesTab());
         tabPane.getTabs().add(createTaskTab());
         tabPane.getTabs().add(createChatTab());
-        tabPane.getTabs().add(createTab("总结", "总结模块即将上线"));
+        tabPane.getTabs().add(createSummaryTab());
         tabPane.getTabs().add(createSettingsTab());
 
         BorderPane root = new BorderPane(tabPane);
@@ -90,16 +134,45 @@ public class MainApp extends Application {
         primaryStage.setScene(scene);
         primaryStage.setMaximized(true);
         primaryStage.show();
+        reminderScheduler.start();
+        knowledgeIndex.start();
     }
 
     @Override
     public void stop() {
+        if (autosaveQueue != null) {
+            // 先写完尚未落盘的编辑，再关闭依赖数据库的组件
+            autosaveQueue.close();
+        }
+        if (chatWriteQueue != null) {
+            chatWriteQueue.close();
+        }
         if (taskDashboardView != null) {
-            taskDashboardView.getReminderManager().shutdown();
+            taskDashboardView.shutdown();
+        }
+        if (reminderScheduler != null) {
+            reminderScheduler.close();
+        }
+        if (knowledgeIndex != null) {
+            knowledgeIndex.close();
         }
         if (chatView != null) {
             chatView.shutdown();
         }
+        noteSearchExecutor.shutdownNow();
+        if (summaryView != null) {
+            summaryView.shutdown();
+        }
+        if (chatHistoryService != null) {
+            try {
+                chatHistoryService.maintainAttachmentStore();
+            } catch (IllegalStateException ex) {
+                LOGGER.log(Level.WARNING, "Attachment store maintenance failed", ex);
+            }
+        }
+        if (databaseManager != null) {
+            databaseManager.close();
+        }
     }
 
     private Tab createNotesTab() {
@@ -109,7 +182,8 @@ public class MainApp extends Application {
         BorderPane notesLayout = new BorderPane();
         notesLayout.getStyleClass().add("notes-root");
 
-        ListView<Note> noteListView = new ListView<>(notes);
+        FilteredList<Note> visibleNotes = new FilteredList<>(notes);
+        ListView<Note> noteListView = new ListView<>(visibleNotes);
         noteListView.getStyleClass().add("notes-list-view");
         noteListView.setCellFactory(new Callback<>() {
             @Override
@@ -129,7 +203,11 @@ public class MainApp extends Application {
             }
         });
 
-        VBox listContainer = new VBox(12, new Label("全部笔记"), noteListView);
+        TextField noteSearchField = new TextField();
+        noteSearchField.setPromptText("搜索标题、正文或标签");
+        noteSearchField.getStyleClass().add("notes-search-field");
+
+        VBox listContainer = new VBox(12, new Label("全部笔记"), noteSearchField, noteListView);
         listContainer.setPadding(new Insets(16));
         listContainer.getStyleClass().add("notes-list-container");
         noteListView.setPrefWidth(240);
@@ -182,19 +260,55 @@ public class MainApp extends Application {
         notesLayout.setCenter(detailContainer);
 
         noteListView.getSelectionModel().selectedItemProperty().addListener((obs, oldNote, newNote) -> {
-            if (newNote == null) {
-                titleField.clear();
-                contentArea.clear();
-                lastUpdatedLabel.setText("没有选中的笔记");
-                statusLabel.setText("选择一条笔记以开始");
+            populatingNoteEditor = true;
+            try {
+                if (newNote == null) {
+                    titleField.clear();
+                    contentArea.clear();
+                    contentArea.setDisable(false);
+                    lastUpdatedLabel.setText("没有选中的笔记");
+                    statusLabel.setText("选择一条笔记以开始");
+                } else {
+                    titleField.setText(newNote.getTitle());
+                    lastUpdatedLabel.setText("最后编辑：" + newNote.getFormattedTimestamp());
+                    try {
+                        // 正文按需从 NoteService 读取，列表只保存标题等元数据
+                        contentArea.setText(newNote.getContent());
+                        contentArea.setDisable(false);
+                        statusLabel.setText("正在编辑 " + newNote.getTitle());
+                    } catch (IllegalStateException ex) {
+                        LOGGER.log(Level.SEVERE, "Failed to load note content", ex);
+                        contentArea.clear();
+                        contentArea.setDisable(true);
+                        statusLabel.setText("加载笔记内容失败");
+                    }
+                }
+            } finally {
+                populatingNoteEditor = false;
+            }
+        });
+
+        // 搜索走全文索引：停止输入片刻后在后台查询，只显示命中的笔记
+        PauseTransition searchDebounce = new PauseTransition(NOTE_SEARCH_DEBOUNCE);
+        searchDebounce.setOnFinished(event -> searchNotes(noteSearchField.getText(), visibleNotes));
+        noteSearchField.textProperty().addListener((obs, oldText, newText) -> {
+            searchDebounce.stop();
+            if (newText == null || newText.isBlank()) {
+                searchNotes(newText, visibleNotes);
             } else {
-                titleField.setText(newNote.getTitle());
-                contentArea.setText(newNote.getContent());
-                lastUpdatedLabel.setText("最后编辑：" + newNote.getFormattedTimestamp());
-                statusLabel.setText("正在编辑 " + newNote.getTitle());
+                searchDebounce.playFromStart();
             }
         });
 
+        // 输入时自动保存：短时间内的连续修改由 AutosaveQueue 合并为一次写入
+        ChangeListener<String> autosaveOnEdit = (obs, oldText, newText) -> {
+            if (!populatingNoteEditor) {
+                saveNote(noteListView, titleField, contentArea, lastUpdatedLabel, statusLabel, false);
+            }
+        };
+        titleField.textProperty().addListener(autosaveOnEdit);
+        contentArea.textProperty().addListener(autosaveOnEdit);
+
         saveButton.disableProperty().bind(Bindings.isNull(noteListView.getSelectionModel().selectedItemProperty()));
         deleteButton.disableProperty().bind(Bindings.isNull(noteListView.getSelectionModel().selectedItemProperty()));
 
@@ -207,6 +321,7 @@ public class MainApp extends Application {
             try {
                 NoteEntity persisted = noteService.createNote(entity);
                 Note newNote = Note.fromEntity(persisted);
+                noteSearchField.clear();
                 notes.add(0, newNote);
                 noteListView.getSelectionModel().select(newNote);
                 statusLabel.setText("已创建新笔记");
@@ -227,8 +342,8 @@ public class MainApp extends Application {
                     }
                     notes.remove(selectedNote);
                     statusLabel.setText("已删除笔记");
-                    if (!notes.isEmpty()) {
-                        noteListView.getSelectionModel().select(Math.min(index, notes.size() - 1));
+                    if (!visibleNotes.isEmpty()) {
+                        noteListView.getSelectionModel().select(Math.min(index, visibleNotes.size() - 1));
                     }
                 } catch (IllegalStateException ex) {
                     LOGGER.log(Level.SEVERE, "Failed to delete note", ex);
@@ -237,11 +352,11 @@ public class MainApp extends Application {
             }
         });
 
-        saveButton.setOnAction(event -> saveNote(noteListView, titleField, contentArea, lastUpdatedLabel, statusLabel));
+        saveButton.setOnAction(event -> saveNote(noteListView, titleField, contentArea, lastUpdatedLabel, statusLabel, true));
 
         contentArea.setOnKeyPressed(event -> {
             if (event.isShortcutDown() && event.getCode() == KeyCode.S) {
-                saveNote(noteListView, titleField, contentArea, lastUpdatedLabel, statusLabel);
+                saveNote(noteListView, titleField, contentArea, lastUpdatedLabel, statusLabel, true);
             }
         });
 
@@ -251,11 +366,49 @@ public class MainApp extends Application {
         return tab;
     }
 
+    /**
+     * Narrows the note list to the notes matching {@code query} in the
+     * full-text index. The index is queried on a background thread; results of
+     * a search that was superseded in the meantime are dropped. A blank query
+     * shows every note again.
+     */
+    private void searchNotes(String query, FilteredList<Note> visibleNotes) {
+        long generation = noteSearchGeneration.incrementAndGet();
+        if (query == null || query.isBlank()) {
+            visibleNotes.setPredicate(null);
+            return;
+        }
+        CompletableFuture.supplyAsync(() -> matchingNoteIds(query), noteSearchExecutor)
+            .whenComplete((ids, error) -> Platform.runLater(() -> {
+                if (noteSearchGeneration.get() != generation) {
+                    return;
+                }
+                if (error != null) {
+                    LOGGER.log(Level.SEVERE, "Failed to search notes", error);
+                    visibleNotes.setPredicate(null);
+                    return;
+                }
+                visibleNotes.setPredicate(note -> note.getId() == null || ids.contains(note.getId()));
+            }));
+    }
+
+    private Set<Long> matchingNoteIds(String query) {
+        Set<Long> ids = new HashSet<>();
+        int offset = 0;
+        SearchResultPage page;
+        do {
+            page = searchIndex.search(query, EnumSet.of(SearchIndex.Source.NOTE), offset, SearchIndex.MAX_PAGE_SIZE);
+            page.hits().forEach(hit -> ids.add(hit.id()));
+            offset = page.nextOffset();
+        } while (page.hasMore());
+        return ids;
+    }
+
     private Tab createTaskTab() {
         Tab tab = new Tab("任务");
         tab.setClosable(false);
 
-        taskDashboardView = new TaskDashboardView(tasks, taskService);
+        taskDashboardView = new TaskDashboardView(tasks, taskService, reminderScheduler, autosaveQueue);
         tab.setContent(taskDashboardView);
         return tab;
     }
@@ -263,7 +416,7 @@ public class MainApp extends Application {
     private Tab createChatTab() {
         Tab tab = new Tab("聊天");
         tab.setClosable(false);
-        chatView = new ChatView(configManager, notes, tasks, chatHistoryService);
+        chatView = new ChatView(configManager, notes, tasks, chatHistoryService, chatWriteQueue, knowledgeIndex);
         tab.setContent(chatView);
         return tab;
     }
@@ -276,32 +429,57 @@ public class MainApp extends Application {
         return tab;
     }
 
+    /**
+     * Queues the editor content of the selected note for saving.
+     *
+     * @param immediate write now instead of waiting for further edits
+     */
     private void saveNote(ListView<Note> noteListView,
                           TextField titleField,
                           TextArea contentArea,
                           Label lastUpdatedLabel,
-                          Label statusLabel) {
+                          Label statusLabel,
+                          boolean immediate) {
         Note selectedNote = noteListView.getSelectionModel().getSelectedItem();
-        if (selectedNote != null) {
-            selectedNote.setTitle(titleField.getText().isBlank() ? "未命名笔记" : titleField.getText());
-            selectedNote.setContent(contentArea.getText());
-            selectedNote.setLastUpdated(LocalDateTime.now());
-            try {
-                noteService.updateNote(selectedNote.toEntity());
-                lastUpdatedLabel.setText("最后编辑：" + selectedNote.getFormattedTimestamp());
-                statusLabel.setText("已保存笔记");
-                noteListView.refresh();
-            } catch (IllegalStateException ex) {
-                LOGGER.log(Level.SEVERE, "Failed to update note", ex);
-                statusLabel.setText("保存失败，请稍后再试");
+        if (selectedNote == null || contentArea.isDisabled()) {
+            return;
+        }
+        String title = titleField.getText().isBlank() ? "未命名笔记" : titleField.getText();
+        boolean titleChanged = !title.equals(selectedNote.getTitle());
+        String content = contentArea.getText();
+        selectedNote.setTitle(title);
+        selectedNote.setContent(content);
+        selectedNote.setLastUpdated(LocalDateTime.now());
+        lastUpdatedLabel.setText("最后编辑：" + selectedNote.getFormattedTimestamp());
+        if (titleChanged) {
+            noteListView.refresh();
+        }
+        try {
+            autosaveQueue.saveNote(selectedNote.toEntity()).whenComplete((ignored, error) -> Platform.runLater(() -> {
+                if (error != null) {
+                    LOGGER.log(Level.SEVERE, "Failed to update note", error);
+                    statusLabel.setText("保存失败，请稍后再试");
+                } else {
+                    selectedNote.releaseContent(content);
+                    statusLabel.setText("已保存笔记");
+                }
+            }));
+            if (immediate) {
+                autosaveQueue.flush();
             }
+            statusLabel.setText(immediate ? "正在保存…" : "有未保存的修改，将自动保存");
+        } catch (IllegalStateException ex) {
+            LOGGER.log(Level.SEVERE, "Failed to queue note update", ex);
+            statusLabel.setText("保存失败，请稍后再试");
         }
     }
 
-    private Tab createTab(String title, String placeholderText) {
-        Tab tab = new Tab(title);
-        tab.setContent(new Label(placeholderText));
+    private Tab createSummaryTab() {
+        Tab tab = new Tab("总结");
         tab.setClosable(false);
+        summaryView = new SummaryView(configManager, chatHistoryService,
+            new SummaryService(HttpTransport.shared().executor()));
+        tab.setContent(summaryView);
         return tab;
     }
 
@@ -330,13 +508,14 @@ public class MainApp extends Application {
     }
 
     private ObservableList<Note> loadNotes() {
-        List<NoteEntity> persistedNotes = noteService.getAllNotes();
-        if (persistedNotes.isEmpty()) {
+        List<NoteHeader> headers = noteService.listNoteHeaders();
+        if (headers.isEmpty()) {
             seedDefaultNotes();
-            persistedNotes = noteService.getAllNotes();
+            headers = noteService.listNoteHeaders();
         }
-        List<Note> models = persistedNotes.stream()
-            .map(Note::fromEntity)
+        LongFunction<String> contentLoader = id -> noteService.getNoteContent(id).orElse("");
+        List<Note> models = headers.stream()
+            .map(header -> Note.fromHeader(header, contentLoader))
             .collect(Collectors.toList());
         return FXCollections.observableArrayList(models);
     }
@@ -450,16 +629,29 @@ public class MainApp extends Application {
         private String title;
         private String content;
         private LocalDateTime lastUpdated;
+        private final LongFunction<String> contentLoader;
 
-        private Note(Long id, String title, String content, LocalDateTime lastUpdated) {
+        private Note(Long id, String title, String content, LocalDateTime lastUpdated,
+                     LongFunction<String> contentLoader) {
             this.id = id;
             this.title = title;
             this.content = content;
             this.lastUpdated = lastUpdated;
+            this.contentLoader = contentLoader;
         }
 
         public static Note fromEntity(final NoteEntity entity) {
-            return new Note(entity.getId(), entity.getTitle(), entity.getContent(), entity.getDate());
+            return new Note(entity.getId(), entity.getTitle(), entity.getContent(), entity.getDate(), null);
+        }
+
+        /**
+         * Creates a note whose body is fetched through {@code contentLoader}
+         * each time it is needed instead of being held by the list.
+         */
+        public static Note fromHeader(final NoteHeader header, final LongFunction<String> contentLoader) {
+            String content = header.isPreviewComplete() ? header.preview() : null;
+            return new Note(header.id(), header.title(), content, header.date(),
+                Objects.requireNonNull(contentLoader, "contentLoader"));
         }
 
         public NoteEntity toEntity() {
@@ -489,13 +681,27 @@ public class MainApp extends Application {
         }
 
         public String getContent() {
-            return content;
+            if (content != null || contentLoader == null || id == null) {
+                return content;
+            }
+            return contentLoader.apply(id);
         }
 
         public void setContent(String content) {
             this.content = content;
         }
 
+        /**
+         * Drops the local copy of the body once {@code savedContent} has been
+         * written, so the list does not keep it; later reads go through the
+         * content loader. Does nothing if the body was edited again since.
+         */
+        public void releaseContent(final String savedContent) {
+            if (contentLoader != null && content == savedContent) {
+                content = null;
+            }
+        }
+
         public LocalDateTime getLastUpdated() {
             return lastUpdated;
         }
@@ -515,6 +721,8 @@ public class MainApp extends Application {
     }
 
     public static void main(String[] args) {
+        // 必须在创建任何 HttpClient 之前设置连接池参数
+        HttpTransport.configureConnectionPool();
         launch(args);
     }
 }
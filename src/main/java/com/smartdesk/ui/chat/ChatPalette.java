@@ -0,0 +1,120 @@
+package com.smartdesk.ui.chat;
+
+import com.smartdesk.core.chat.ChatMessage;
+import com.smartdesk.core.config.AppConfig;
+
+/**
+ * Inline styles of the message list for one UI theme. Span styles are
+ * precomputed for every combination of {@link MarkdownDocument} style bits
+ * so building a cell does no string work.
+ */
+final class ChatPalette {
+
+    private static final String BUBBLE_SHAPE = " -fx-background-radius: 6; -fx-border-radius: 6;";
+
+    static final ChatPalette LIGHT = new ChatPalette(
+        "-fx-background-color: white;",
+        "-fx-background-color: #d7ecff; -fx-border-color: #a7c5e3;",
+        "-fx-background-color: #ffffff; -fx-border-color: #e0e0e0;",
+        "-fx-background-color: #f1f4ff; -fx-border-color: #d6dbe8;",
+        "#1f2a4a", "#666666", "#3f51b5", "rgba(79, 99, 191, 0.12)", "rgba(63, 81, 181, 0.35)");
+
+    static final ChatPalette DARK = new ChatPalette(
+        "-fx-background-color: #1f2430;",
+        "-fx-background-color: #3f51b5; -fx-border-color: #5562d8;",
+        "-fx-background-color: #2b3243; -fx-border-color: #3a4358;",
+        "-fx-background-color: rgba(92, 107, 192, 0.3); -fx-border-color: #3a4358;",
+        "#e8ebff", "#a9b0cc", "#9fa8ff", "rgba(159, 168, 255, 0.16)", "rgba(159, 168, 255, 0.4)");
+
+    private final String listStyle;
+    private final String userBubbleStyle;
+    private final String assistantBubbleStyle;
+    private final String systemBubbleStyle;
+    private final String textStyle;
+    private final String senderStyle;
+    private final String mutedStyle;
+    private final String codeBlockStyle;
+    private final String quoteStyle;
+    private final String ruleStyle;
+    private final String[] spanStyles = new String[16];
+
+    private ChatPalette(final String listStyle, final String userBubble, final String assistantBubble,
+                        final String systemBubble, final String textColor, final String mutedColor,
+                        final String linkColor, final String codeBackground, final String accentColor) {
+        this.listStyle = listStyle;
+        this.userBubbleStyle = userBubble + BUBBLE_SHAPE;
+        this.assistantBubbleStyle = assistantBubble + BUBBLE_SHAPE;
+        this.systemBubbleStyle = systemBubble + BUBBLE_SHAPE;
+        this.textStyle = "-fx-text-fill: " + textColor + ";";
+        this.senderStyle = "-fx-font-weight: bold; " + textStyle;
+        this.mutedStyle = "-fx-font-size: 11px; -fx-text-fill: " + mutedColor + ";";
+        this.codeBlockStyle = "-fx-background-color: " + codeBackground + "; -fx-background-radius: 6;"
+            + " -fx-padding: 6 8; -fx-font-family: \"Monospaced\"; -fx-text-fill: " + textColor + ";";
+        this.quoteStyle = "-fx-border-color: transparent transparent transparent " + accentColor + ";"
+            + " -fx-border-width: 0 0 0 3; -fx-padding: 0 0 0 8;";
+        this.ruleStyle = "-fx-background-color: " + accentColor + ";";
+        for (int style = 0; style < spanStyles.length; style++) {
+            StringBuilder css = new StringBuilder("-fx-fill: ")
+                .append((style & MarkdownDocument.LINK) != 0 ? linkColor : textColor).append(';');
+            if ((style & MarkdownDocument.BOLD) != 0) {
+                css.append(" -fx-font-weight: bold;");
+            }
+            if ((style & MarkdownDocument.ITALIC) != 0) {
+                css.append(" -fx-font-style: italic;");
+            }
+            if ((style & MarkdownDocument.CODE) != 0) {
+                css.append(" -fx-font-family: \"Monospaced\";");
+            }
+            if ((style & MarkdownDocument.LINK) != 0) {
+                css.append(" -fx-underline: true;");
+            }
+            spanStyles[style] = css.toString();
+        }
+    }
+
+    static ChatPalette forTheme(final AppConfig.Theme theme) {
+        return theme == AppConfig.Theme.DARK ? DARK : LIGHT;
+    }
+
+    String listStyle() {
+        return listStyle;
+    }
+
+    String bubbleStyle(final ChatMessage.Sender sender) {
+        return switch (sender) {
+            case USER -> userBubbleStyle;
+            case ASSISTANT -> assistantBubbleStyle;
+            case SYSTEM -> systemBubbleStyle;
+        };
+    }
+
+    /** Style of plain labels such as user messages. */
+    String textStyle() {
+        return textStyle;
+    }
+
+    String senderStyle() {
+        return senderStyle;
+    }
+
+    /** Style of the timestamp line. */
+    String mutedStyle() {
+        return mutedStyle;
+    }
+
+    String codeBlockStyle() {
+        return codeBlockStyle;
+    }
+
+    String quoteStyle() {
+        return quoteStyle;
+    }
+
+    String ruleStyle() {
+        return ruleStyle;
+    }
+
+    String spanStyle(final int style) {
+        return spanStyles[style];
+    }
+}
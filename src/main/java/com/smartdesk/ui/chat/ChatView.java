@@ -5,6 +5,7 @@ import com.smartdesk.core.chat.ChatHistoryService;
 import com.smartdesk.core.config.AppConfig;
 import com.smartdesk.core.config.ConfigManager;
 import com.smartdesk.core.config.ModelCatalog;
+import com.smartdesk.core.search.KnowledgeIndex;
 import com.smartdesk.ui.MainApp;
 import com.smartdesk.ui.tasks.TaskViewModel;
 import javafx.application.Platform;
@@ -12,10 +13,13 @@ import javafx.beans.binding.Bindings;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
+import javafx.geometry.Orientation;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.control.*;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.scene.input.KeyCode;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.*;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
@@ -29,11 +33,16 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * 精简版 ChatView：去除所有装饰，用简单 Label 显示消息，
+ * 精简版 ChatView：去除所有装饰，用简单 Label 显示消息，AI 回复按 Markdown 渲染，
  * 消息宽度绑定到消息列表宽度，保证随窗口放大。
  */
 public final class ChatView extends BorderPane {
@@ -48,6 +57,8 @@ public final class ChatView extends BorderPane {
     private final ObservableList<MainApp.Note> notes;
     private final ObservableList<TaskViewModel> tasks;
     private final ChatHistoryService chatHistoryService;
+    private final ChatWriteQueue chatWriteQueue;
+    private final KnowledgeIndex knowledgeIndex;
     private final ChatHistory history = new ChatHistory();
 
     private final ObservableList<ChatSession> sessions = FXCollections.observableArrayList();
@@ -61,8 +72,17 @@ public final class ChatView extends BorderPane {
     private final ComboBox<String> modelSelector = new ComboBox<>();
     private final Label modeLabel = new Label();
     private final Label statusLabel = new Label();
+    private final Label saveStateLabel = new Label("保存中...");
     private final FlowPane attachmentPreview = new FlowPane(8, 8);
     private final List<ChatAttachment> pendingAttachments = new ArrayList<>();
+    private final MarkdownCache markdownCache = new MarkdownCache();
+    private final Label emptyPlaceholder = new Label("向 AI 发送你的第一个问题吧！");
+    private final Label loadingPlaceholder = new Label("正在加载聊天记录...");
+    private final ExecutorService historyLoader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "chat-history-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private ChatAssistant assistant;
     private AppConfig baseConfig;
@@ -70,6 +90,9 @@ public final class ChatView extends BorderPane {
     private String activeModel;
     private boolean updatingModel;
     private int sessionCounter = 1;
+    private int pendingWrites;
+    private boolean loadingOlderMessages;
+    private ChatPalette palette = ChatPalette.LIGHT;
 
     private VBox sidebar;
     private boolean historyCollapsed;
@@ -78,11 +101,15 @@ public final class ChatView extends BorderPane {
     public ChatView(final ConfigManager configManager,
                     final ObservableList<MainApp.Note> notes,
                     final ObservableList<TaskViewModel> tasks,
-                    final ChatHistoryService chatHistoryService) {
+                    final ChatHistoryService chatHistoryService,
+                    final ChatWriteQueue chatWriteQueue,
+                    final KnowledgeIndex knowledgeIndex) {
         this.configManager = Objects.requireNonNull(configManager, "configManager");
         this.notes = Objects.requireNonNull(notes, "notes");
         this.tasks = Objects.requireNonNull(tasks, "tasks");
         this.chatHistoryService = Objects.requireNonNull(chatHistoryService, "chatHistoryService");
+        this.chatWriteQueue = Objects.requireNonNull(chatWriteQueue, "chatWriteQueue");
+        this.knowledgeIndex = knowledgeIndex;
 
         // 简化外层边距
         setPadding(new Insets(4));
@@ -111,7 +138,7 @@ public final class ChatView extends BorderPane {
 
     private void loadPersistedSessions() {
         try {
-            List<ChatSession> stored = chatHistoryService.loadAllSessions();
+            List<ChatSession> stored = chatHistoryService.loadSessionHeaders();
             sessions.setAll(stored);
             sessionCounter = Math.max(sessionCounter, computeNextSessionCounter(stored));
         } catch (IllegalStateException ex) {
@@ -166,7 +193,9 @@ public final class ChatView extends BorderPane {
 
     private Node buildHeader() {
         Label title = new Label("聊天助理");
-        HBox titleRow = new HBox(8, title, modeLabel);
+        saveStateLabel.setVisible(false);
+        saveStateLabel.setManaged(false);
+        HBox titleRow = new HBox(8, title, modeLabel, saveStateLabel);
         titleRow.setAlignment(Pos.CENTER_LEFT);
 
         Label modelLabel = new Label("模型");
@@ -216,7 +245,7 @@ public final class ChatView extends BorderPane {
 
     private Node buildMessagePane() {
         messageList.setPadding(new Insets(8));
-        messageList.setStyle("-fx-background-color: white;");
+        messageList.setStyle(palette.listStyle());
         messageList.setFocusTraversable(false);
         messageList.setMinHeight(0);
         messageList.setPrefHeight(Double.MAX_VALUE);
@@ -272,8 +301,98 @@ public final class ChatView extends BorderPane {
     private void configureListView() {
         messageList.setCellFactory(list -> new ChatMessageCell());
         messageList.setFocusTraversable(false);
-        messageList.setPlaceholder(new Label("向 AI 发送你的第一个问题吧！"));
+        messageList.setPlaceholder(emptyPlaceholder);
         messageList.setPrefWidth(Double.MAX_VALUE);
+        // 滚动条到达顶部时按页加载更早的消息（拖动、键盘、触控均可触发）
+        messageList.skinProperty().addListener((obs, oldSkin, skin) -> {
+            if (skin != null) {
+                attachHistoryPaging();
+            }
+        });
+        // 内容不足一屏或已停在顶部时滚动条数值不会变化，由滚轮补充触发
+        messageList.addEventFilter(ScrollEvent.SCROLL, event -> {
+            if (event.getDeltaY() > 0 && isFirstMessageVisible()) {
+                loadOlderMessages();
+            }
+        });
+    }
+
+    private void attachHistoryPaging() {
+        for (Node node : messageList.lookupAll(".scroll-bar")) {
+            if (node instanceof ScrollBar bar && bar.getOrientation() == Orientation.VERTICAL) {
+                bar.valueProperty().addListener((obs, oldValue, value) -> {
+                    if (value.doubleValue() <= bar.getMin()) {
+                        loadOlderMessages();
+                    }
+                });
+            }
+        }
+    }
+
+    private boolean isFirstMessageVisible() {
+        Node flow = messageList.lookup(".virtual-flow");
+        if (flow instanceof VirtualFlow<?> virtualFlow) {
+            IndexedCell<?> first = virtualFlow.getFirstVisibleCell();
+            return first == null || first.getIndex() <= 0;
+        }
+        return false;
+    }
+
+    /**
+     * 在后台读取会话的最新一页消息，期间列表显示加载提示；读完后回到 FX 线程展示。
+     */
+    private void loadFirstPage(final ChatSession session) {
+        messageList.setPlaceholder(loadingPlaceholder);
+        CompletableFuture.supplyAsync(() -> chatHistoryService.loadMessagePage(session.getId(), null,
+                ChatHistoryService.DEFAULT_PAGE_SIZE), historyLoader)
+            .whenComplete((page, error) -> Platform.runLater(() -> {
+                if (session == activeSession) {
+                    messageList.setPlaceholder(emptyPlaceholder);
+                }
+                if (error != null) {
+                    updateStatus("加载聊天记录失败: " + unwrap(error).getMessage());
+                    return;
+                }
+                if (!session.isHistoryLoaded()) {
+                    session.prependHistory(page);
+                }
+                if (session == activeSession) {
+                    showLoadedSession(session);
+                }
+            }));
+    }
+
+    private static Throwable unwrap(final Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    /**
+     * 在后台读取上一页消息，读完后回到 FX 线程插入列表顶部；同一时间只加载一页。
+     */
+    private void loadOlderMessages() {
+        ChatSession session = activeSession;
+        if (loadingOlderMessages || session == null || !session.isHistoryLoaded() || !session.hasMoreHistory()) {
+            return;
+        }
+        loadingOlderMessages = true;
+        ChatMessagePage.Cursor cursor = session.getHistoryCursor();
+        CompletableFuture.supplyAsync(() -> chatHistoryService.loadMessagePage(session.getId(), cursor,
+                ChatHistoryService.DEFAULT_PAGE_SIZE), historyLoader)
+            .whenComplete((page, error) -> Platform.runLater(() -> {
+                loadingOlderMessages = false;
+                if (error != null) {
+                    updateStatus("加载更早的消息失败: " + unwrap(error).getMessage());
+                    return;
+                }
+                if (!Objects.equals(cursor, session.getHistoryCursor())) {
+                    return;
+                }
+                session.prependHistory(page);
+                if (session == activeSession) {
+                    syncHistoryFromSession(session);
+                    messageList.scrollTo(page.messages().size());
+                }
+            }));
     }
 
     private void configureComposer() {
@@ -290,6 +409,7 @@ public final class ChatView extends BorderPane {
 
     private void applyConfig(final AppConfig config) {
         baseConfig = (config == null ? new AppConfig() : config.copy());
+        applyPalette(ChatPalette.forTheme(baseConfig.getTheme()));
         if (sessions.isEmpty()) {
             refreshModelSelector();
             startNewSession();
@@ -305,6 +425,15 @@ public final class ChatView extends BorderPane {
         updateStatus("配置已同步");
     }
 
+    private void applyPalette(final ChatPalette newPalette) {
+        if (newPalette == palette) {
+            return;
+        }
+        palette = newPalette;
+        messageList.setStyle(palette.listStyle());
+        messageList.refresh();
+    }
+
     private void scheduleComposerResize() {
         Platform.runLater(this::resizeComposerToContent);
     }
@@ -369,7 +498,7 @@ public final class ChatView extends BorderPane {
         if (assistant != null) assistant.shutdown();
         AppConfig working = baseConfig.copy();
         if (activeModel != null && !activeModel.isBlank()) working.setModel(activeModel);
-        assistant = ChatAssistantFactory.createAssistant(history, chatHistoryService, working);
+        assistant = ChatAssistantFactory.createAssistant(history, chatHistoryService, working, knowledgeIndex);
     }
 
     private void updateModeLabel() {
@@ -391,28 +520,40 @@ public final class ChatView extends BorderPane {
     private void startNewSession() {
         String defaultTitle = "对话 " + sessionCounter++;
         String modelName = activeModel != null && !activeModel.isBlank() ? activeModel : baseConfig.getModel();
+        LocalDateTime now = LocalDateTime.now();
+        ChatSession session = new ChatSession(UUID.randomUUID(), defaultTitle, defaultTitle, true, now, now, modelName);
         try {
-            ChatSession session = chatHistoryService.createSession(defaultTitle, modelName);
-            sessions.add(0, session);
-            sessionList.getSelectionModel().select(session);
-            openSession(session);
-            updateStatus("已开始新的对话");
+            trackWrite(chatWriteQueue.createSession(session), "创建新对话失败");
         } catch (IllegalStateException ex) {
             updateStatus("创建新对话失败: " + ex.getMessage());
+            return;
         }
+        sessions.add(0, session);
+        sessionList.getSelectionModel().select(session);
+        openSession(session);
+        updateStatus("已开始新的对话");
     }
 
     private void openSession(final ChatSession session) {
         if (session == null) return;
         activeSession = session;
         if (messageList.getItems() != session.getMessages()) messageList.setItems(session.getMessages());
-        ensureSessionGreeting(session);
         refreshModelSelector();
         session.setModelName(activeModel);
         persistSessionMetadata(session);
-        syncHistoryFromSession(session);
+        if (session.isHistoryLoaded()) {
+            messageList.setPlaceholder(emptyPlaceholder);
+            showLoadedSession(session);
+        } else {
+            loadFirstPage(session);
+        }
         configureAssistant();
         updateModeLabel();
+    }
+
+    private void showLoadedSession(final ChatSession session) {
+        ensureSessionGreeting(session);
+        syncHistoryFromSession(session);
         messageList.scrollTo(Math.max(session.getMessages().size() - 1, 0));
     }
 
@@ -436,29 +577,30 @@ public final class ChatView extends BorderPane {
             return;
         }
         try {
-            chatHistoryService.deleteSession(session.getId());
-            boolean removed = sessions.remove(session);
-            if (removed) {
-                if (session == activeSession) {
-                    activeSession = null;
-                    history.clear();
-                    if (sessions.isEmpty()) {
-                        startNewSession();
-                    } else {
-                        sessionList.getSelectionModel().selectFirst();
-                    }
-                } else if (sessionList.getSelectionModel().getSelectedItem() == null && !sessions.isEmpty()) {
+            trackWrite(chatWriteQueue.deleteSession(session.getId()), "删除对话失败");
+        } catch (IllegalStateException ex) {
+            updateStatus("删除对话失败: " + ex.getMessage());
+            return;
+        }
+        boolean removed = sessions.remove(session);
+        if (removed) {
+            if (session == activeSession) {
+                activeSession = null;
+                history.clear();
+                if (sessions.isEmpty()) {
+                    startNewSession();
+                } else {
                     sessionList.getSelectionModel().selectFirst();
                 }
+            } else if (sessionList.getSelectionModel().getSelectedItem() == null && !sessions.isEmpty()) {
+                sessionList.getSelectionModel().selectFirst();
             }
-            updateStatus("对话已删除");
-        } catch (IllegalStateException ex) {
-            updateStatus("删除对话失败: " + ex.getMessage());
         }
+        updateStatus("对话已删除");
     }
 
     private void ensureSessionGreeting(final ChatSession session) {
-        if (session.getMessages().isEmpty()) {
+        if (session.getMessageCount() == 0) {
             ChatMessage greeting = ChatMessage.of(ChatMessage.Sender.SYSTEM, "欢迎使用智能聊天助理，有任何问题都可以告诉我！");
             session.addMessage(greeting);
             persistMessage(session, greeting);
@@ -498,14 +640,25 @@ public final class ChatView extends BorderPane {
             ? ChatMessage.of(ChatMessage.Sender.USER, content)
             : ChatMessage.withAttachments(ChatMessage.Sender.USER, content, attachments);
         targetSession.addMessage(userMessage);
-        persistMessage(targetSession, userMessage);
+        CompletableFuture<Void> saved = persistMessage(targetSession, userMessage);
         refreshSessionOrder(targetSession);
         if (targetSession == activeSession) {
             messageList.scrollTo(Math.max(activeSession.getMessages().size() - 1, 0));
         }
         sendButton.setDisable(true);
         updateStatus("发送中...");
-        assistant.sendMessage(userMessage, response -> Platform.runLater(() -> {
+        if (attachments.isEmpty()) {
+            requestReply(targetSession, userMessage);
+        } else {
+            // 附件写入后才有数据库 id，上传得到的文件 id 才能回写
+            saved.whenComplete((ignored, error) -> Platform.runLater(() -> requestReply(targetSession, userMessage)));
+        }
+    }
+
+    private void requestReply(final ChatSession targetSession, final ChatMessage userMessage) {
+        final StreamingReply streamingReply = new StreamingReply(targetSession);
+        assistant.sendMessage(userMessage, streamingReply::append, response -> Platform.runLater(() -> {
+            streamingReply.finish(response);
             targetSession.addMessage(response);
             persistMessage(targetSession, response);
             refreshSessionOrder(targetSession);
@@ -515,27 +668,53 @@ public final class ChatView extends BorderPane {
             updateStatus("响应时间: " + response.getTimestamp().toLocalTime().format(MESSAGE_TIME_FORMAT));
             sendButton.setDisable(false);
         }), error -> Platform.runLater(() -> {
+            streamingReply.finish(null);
             updateStatus("发生错误: " + error.getMessage());
             sendButton.setDisable(false);
         }));
     }
 
-    private void persistMessage(final ChatSession session, final ChatMessage message) {
+    private CompletableFuture<Void> persistMessage(final ChatSession session, final ChatMessage message) {
         try {
-            chatHistoryService.persistMessage(session, message);
+            return trackWrite(chatWriteQueue.saveMessage(session, message), "保存聊天记录失败");
         } catch (IllegalStateException ex) {
             updateStatus("保存聊天记录失败: " + ex.getMessage());
+            return CompletableFuture.failedFuture(ex);
         }
     }
 
     private void persistSessionMetadata(final ChatSession session) {
         try {
-            chatHistoryService.updateSessionMetadata(session);
+            trackWrite(chatWriteQueue.saveSession(session), "更新会话信息失败");
         } catch (IllegalStateException ex) {
             updateStatus("更新会话信息失败: " + ex.getMessage());
         }
     }
 
+    /**
+     * 在后台写入完成前显示“保存中”，失败时在状态栏提示。
+     */
+    private CompletableFuture<Void> trackWrite(final CompletableFuture<Void> write, final String failureMessage) {
+        pendingWrites++;
+        updateSaveState();
+        write.whenComplete((ignored, error) -> Platform.runLater(() -> {
+            pendingWrites--;
+            updateSaveState();
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+                updateStatus(failureMessage + ": " + cause.getMessage());
+            }
+        }));
+        return write;
+    }
+
+    private void updateSaveState() {
+        boolean saving = pendingWrites > 0;
+        saveStateLabel.setVisible(saving);
+        saveStateLabel.setManaged(saving);
+    }
+
     private void handleShareContext() {
         ShareContextDialog dialog = new ShareContextDialog(notes, tasks);
         Optional<String> result = dialog.showAndWait();
@@ -648,6 +827,7 @@ public final class ChatView extends BorderPane {
 
     public void shutdown() {
         if (assistant != null) assistant.shutdown();
+        historyLoader.shutdownNow();
     }
 
     private static String describeProvider(final AppConfig.Provider provider) {
@@ -676,14 +856,80 @@ public final class ChatView extends BorderPane {
             titleLabel.setText(item.getTitle());
             String timeText = item.getUpdatedAt() == null ? "刚刚" : item.getUpdatedAt().format(SESSION_TIME_FORMAT);
             String modelText = (item.getModelName() == null || item.getModelName().isBlank()) ? "默认模型" : item.getModelName();
-            metaLabel.setText(timeText + " · " + modelText + " · 消息数 " + item.getMessages().size());
+            metaLabel.setText(timeText + " · " + modelText + " · 消息数 " + item.getMessageCount());
             setGraphic(container);
         }
     }
 
+    /**
+     * Shows a reply while it is still being generated. Fragments arrive on the
+     * assistant thread and are coalesced so the FX thread re-renders at most
+     * once per pulse; the transient message is replaced by the persisted reply
+     * once the stream completes.
+     */
+    private final class StreamingReply {
+        private final ChatSession session;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final StringBuilder buffer = new StringBuilder();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private ChatMessage partial;
+        private boolean finished;
+
+        private StreamingReply(final ChatSession session) {
+            this.session = session;
+        }
+
+        private void append(final String delta) {
+            synchronized (buffer) {
+                buffer.append(delta);
+            }
+            if (flushScheduled.compareAndSet(false, true)) {
+                Platform.runLater(this::flush);
+            }
+        }
+
+        private void flush() {
+            flushScheduled.set(false);
+            if (finished) {
+                return;
+            }
+            final String text;
+            synchronized (buffer) {
+                text = buffer.toString();
+            }
+            ChatMessage updated = ChatMessage.of(ChatMessage.Sender.ASSISTANT, text, startedAt);
+            markdownCache.replace(partial, updated);
+            ObservableList<ChatMessage> messages = session.getMessages();
+            int index = partial == null ? -1 : messages.indexOf(partial);
+            if (index < 0) {
+                messages.add(updated);
+                updateStatus("生成中...");
+            } else {
+                messages.set(index, updated);
+            }
+            partial = updated;
+            if (session == activeSession) {
+                messageList.scrollTo(Math.max(messages.size() - 1, 0));
+            }
+        }
+
+        /**
+         * @param reply the persisted reply taking the transient message's place, or null on failure
+         */
+        private void finish(final ChatMessage reply) {
+            finished = true;
+            if (partial != null) {
+                markdownCache.replace(partial, reply);
+                session.getMessages().remove(partial);
+                partial = null;
+            }
+        }
+    }
+
     private final class ChatMessageCell extends ListCell<ChatMessage> {
         private final Label senderLabel = new Label();
         private final Label contentLabel = new Label();
+        private final MarkdownView markdownView = new MarkdownView();
         private final Label timeLabel = new Label();
         private final VBox attachmentsBox = new VBox(4);
         private final VBox bubble = new VBox(6, senderLabel, contentLabel, attachmentsBox, timeLabel);
@@ -699,8 +945,7 @@ public final class ChatView extends BorderPane {
             // 关键：让气泡宽度随 messageList 宽度变化
             bubble.maxWidthProperty().bind(messageList.widthProperty().subtract(80));
             contentLabel.maxWidthProperty().bind(bubble.maxWidthProperty().subtract(16));
-            senderLabel.setStyle("-fx-font-weight: bold;");
-            timeLabel.setStyle("-fx-font-size: 11px; -fx-text-fill: #666;");
+            markdownView.maxWidthProperty().bind(contentLabel.maxWidthProperty());
             attachmentsBox.setVisible(false);
             attachmentsBox.setManaged(false);
             attachmentsBox.setPadding(new Insets(0, 0, 0, 0));
@@ -727,24 +972,31 @@ public final class ChatView extends BorderPane {
             timeLabel.setText(item.getTimestamp().toLocalTime().format(MESSAGE_TIME_FORMAT));
 
             // 简单颜色区分，用户右对齐，AI/系统左对齐
-            if (sender == ChatMessage.Sender.USER) {
-                bubble.setStyle("-fx-background-color: #d7ecff; -fx-border-color: #a7c5e3; -fx-background-radius: 6; -fx-border-radius: 6;");
-                wrapper.setAlignment(Pos.CENTER_RIGHT);
-            } else if (sender == ChatMessage.Sender.ASSISTANT) {
-                bubble.setStyle("-fx-background-color: #ffffff; -fx-border-color: #e0e0e0; -fx-background-radius: 6; -fx-border-radius: 6;");
-                wrapper.setAlignment(Pos.CENTER_LEFT);
+            bubble.setStyle(palette.bubbleStyle(sender));
+            wrapper.setAlignment(sender == ChatMessage.Sender.USER ? Pos.CENTER_RIGHT : Pos.CENTER_LEFT);
+            senderLabel.setStyle(palette.senderStyle());
+            timeLabel.setStyle(palette.mutedStyle());
+
+            // AI 回复按 Markdown 渲染（解析结果来自缓存），用户与系统消息保持原文
+            if (sender == ChatMessage.Sender.ASSISTANT) {
+                markdownView.show(markdownCache.get(item), palette);
+                showContent(markdownView);
             } else {
-                bubble.setStyle("-fx-background-color: #f1f4ff; -fx-border-color: #d6dbe8; -fx-background-radius: 6; -fx-border-radius: 6;");
-                wrapper.setAlignment(Pos.CENTER_LEFT);
+                contentLabel.setText(item.getContent());
+                contentLabel.setStyle(palette.textStyle());
+                showContent(contentLabel);
             }
-
-            // 直接显示原始文本（不渲染 Markdown）
-            contentLabel.setText(item.getContent());
             populateAttachments(item);
 
             setGraphic(wrapper);
         }
 
+        private void showContent(final Node content) {
+            if (bubble.getChildren().get(1) != content) {
+                bubble.getChildren().set(1, content);
+            }
+        }
+
         private void populateAttachments(final ChatMessage message) {
             attachmentsBox.getChildren().clear();
             if (message == null || !message.hasAttachments()) {
@@ -0,0 +1,60 @@
+package com.smartdesk.ui.chat;
+
+import com.smartdesk.core.chat.ChatMessage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded LRU of parsed chat messages, so scrolling back through a long
+ * conversation reuses earlier parses instead of running the Markdown parser
+ * every time a list cell is recycled. Entries are keyed by message identity
+ * ({@link ChatMessage} does not override {@code equals}); parsed documents
+ * carry no theme, so a theme change only rebuilds nodes. Confined to the FX
+ * thread.
+ */
+final class MarkdownCache {
+
+    static final int DEFAULT_CAPACITY = 512;
+
+    private final Map<ChatMessage, MarkdownDocument> documents;
+
+    MarkdownCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    MarkdownCache(final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.documents = new LinkedHashMap<>(Math.min(capacity, 64), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<ChatMessage, MarkdownDocument> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    MarkdownDocument get(final ChatMessage message) {
+        Objects.requireNonNull(message, "message");
+        MarkdownDocument document = documents.get(message);
+        if (document != null) {
+            return document;
+        }
+        document = MarkdownDocument.parse(message.getContent());
+        documents.put(message, document);
+        return document;
+    }
+
+    /**
+     * Moves the parse of a streaming message to its successor, parsing only
+     * what the new text changed. A null successor just drops the entry.
+     */
+    void replace(final ChatMessage previous, final ChatMessage next) {
+        MarkdownDocument base = previous == null ? null : documents.remove(previous);
+        if (base != null && next != null) {
+            documents.put(next, base.extend(next.getContent()));
+        }
+    }
+}
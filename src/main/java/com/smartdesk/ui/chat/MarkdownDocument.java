@@ -0,0 +1,244 @@
+package com.smartdesk.ui.chat;
+
+import com.vladsch.flexmark.ast.BlockQuote;
+import com.vladsch.flexmark.ast.Code;
+import com.vladsch.flexmark.ast.DelimitedLinkNode;
+import com.vladsch.flexmark.ast.Emphasis;
+import com.vladsch.flexmark.ast.FencedCodeBlock;
+import com.vladsch.flexmark.ast.HardLineBreak;
+import com.vladsch.flexmark.ast.Heading;
+import com.vladsch.flexmark.ast.Image;
+import com.vladsch.flexmark.ast.IndentedCodeBlock;
+import com.vladsch.flexmark.ast.Link;
+import com.vladsch.flexmark.ast.ListBlock;
+import com.vladsch.flexmark.ast.ListItem;
+import com.vladsch.flexmark.ast.OrderedList;
+import com.vladsch.flexmark.ast.Paragraph;
+import com.vladsch.flexmark.ast.Reference;
+import com.vladsch.flexmark.ast.SoftLineBreak;
+import com.vladsch.flexmark.ast.StrongEmphasis;
+import com.vladsch.flexmark.ast.Text;
+import com.vladsch.flexmark.ast.ThematicBreak;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.ast.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Markdown content of a chat message flattened into a list of display
+ * blocks, independent of any theme or JavaFX node.
+ * <p>
+ * A document remembers how much of its source is settled: every top-level
+ * block except the last one cannot change when text is appended, so
+ * {@link #extend(String)} parses only the source from the start of the last
+ * block and shares the settled {@link Block} instances with the previous
+ * document. Streaming replies therefore cost one small parse per update,
+ * and views can keep the nodes of blocks they have already shown. Soft line
+ * breaks are kept as line breaks, which is what chat replies mean by them.
+ * Instances are immutable.
+ * </p>
+ */
+final class MarkdownDocument {
+
+    static final MarkdownDocument EMPTY = new MarkdownDocument("", List.of(), 0, 0);
+
+    /** Span style bits. */
+    static final int BOLD = 1;
+    static final int ITALIC = 1 << 1;
+    static final int CODE = 1 << 2;
+    static final int LINK = 1 << 3;
+
+    private static final Parser PARSER = Parser.builder().build();
+
+    enum Kind {
+        PARAGRAPH,
+        HEADING,
+        LIST_ITEM,
+        CODE,
+        RULE
+    }
+
+    /** Run of text sharing one combination of style bits. */
+    record Span(String text, int style) {
+    }
+
+    /**
+     * One display block.
+     *
+     * @param level  heading level, or 0
+     * @param indent list nesting depth
+     * @param quoted whether the block sits inside a block quote
+     * @param marker list marker such as "•" or "3.", empty for continuation paragraphs
+     */
+    record Block(Kind kind, List<Span> spans, int level, int indent, boolean quoted, String marker) {
+
+        Block {
+            spans = List.copyOf(spans);
+        }
+    }
+
+    private final String source;
+    private final List<Block> blocks;
+    private final int settledLength;
+    private final int settledBlocks;
+
+    private MarkdownDocument(final String source, final List<Block> blocks,
+                             final int settledLength, final int settledBlocks) {
+        this.source = source;
+        this.blocks = blocks;
+        this.settledLength = settledLength;
+        this.settledBlocks = settledBlocks;
+    }
+
+    static MarkdownDocument parse(final String source) {
+        return EMPTY.extend(source);
+    }
+
+    /**
+     * Returns the document for {@code next}. When {@code next} continues this
+     * document's source, only the part after the settled blocks is parsed;
+     * otherwise the whole text is.
+     */
+    MarkdownDocument extend(final String next) {
+        Objects.requireNonNull(next, "next");
+        if (next.equals(source)) {
+            return this;
+        }
+        if (!next.startsWith(source)) {
+            return EMPTY.extend(next);
+        }
+        final String tail = next.substring(settledLength);
+        final Node document = PARSER.parse(tail);
+        final List<Block> result = new ArrayList<>(blocks.subList(0, settledBlocks));
+
+        // Appending text can only change the last block; everything before the line it starts on is settled.
+        final Node last = document.getLastChild();
+        final int tailSettled = last == null ? 0 : lineStart(tail, last.getStartOffset());
+        int settledCount = result.size();
+        for (Node child = document.getFirstChild(); child != null; child = child.getNext()) {
+            appendBlocks(child, 0, false, result);
+            if (child != last && child.getEndOffset() <= tailSettled) {
+                settledCount = result.size();
+            }
+        }
+        return new MarkdownDocument(next, Collections.unmodifiableList(result),
+            settledLength + tailSettled, settledCount);
+    }
+
+    String source() {
+        return source;
+    }
+
+    List<Block> blocks() {
+        return blocks;
+    }
+
+    private static int lineStart(final String text, final int offset) {
+        return offset <= 0 ? 0 : text.lastIndexOf('\n', offset - 1) + 1;
+    }
+
+    private static void appendBlocks(final Node node, final int indent, final boolean quoted, final List<Block> out) {
+        if (node instanceof Reference) {
+            return;
+        }
+        if (node instanceof Heading heading) {
+            out.add(new Block(Kind.HEADING, spans(heading), heading.getLevel(), indent, quoted, ""));
+        } else if (node instanceof Paragraph paragraph) {
+            out.add(new Block(Kind.PARAGRAPH, spans(paragraph), 0, indent, quoted, ""));
+        } else if (node instanceof FencedCodeBlock code) {
+            out.add(codeBlock(code.getContentChars().toString(), indent, quoted));
+        } else if (node instanceof IndentedCodeBlock code) {
+            out.add(codeBlock(code.getContentChars().toString(), indent, quoted));
+        } else if (node instanceof ThematicBreak) {
+            out.add(new Block(Kind.RULE, List.of(), 0, indent, quoted, ""));
+        } else if (node instanceof BlockQuote) {
+            for (Node child = node.getFirstChild(); child != null; child = child.getNext()) {
+                appendBlocks(child, indent, true, out);
+            }
+        } else if (node instanceof ListBlock list) {
+            int number = list instanceof OrderedList ordered ? ordered.getStartNumber() : 0;
+            for (Node item = list.getFirstChild(); item != null; item = item.getNext()) {
+                String marker = list instanceof OrderedList ? number++ + "." : "•";
+                appendListItem(item, marker, indent + 1, quoted, out);
+            }
+        } else if (node.hasChildren()) {
+            for (Node child = node.getFirstChild(); child != null; child = child.getNext()) {
+                appendBlocks(child, indent, quoted, out);
+            }
+        } else {
+            String text = node.getChars().toString().strip();
+            if (!text.isEmpty()) {
+                out.add(new Block(Kind.PARAGRAPH, List.of(new Span(text, 0)), 0, indent, quoted, ""));
+            }
+        }
+    }
+
+    private static void appendListItem(final Node item, final String marker, final int indent,
+                                       final boolean quoted, final List<Block> out) {
+        if (!(item instanceof ListItem) || !item.hasChildren()) {
+            out.add(new Block(Kind.LIST_ITEM, List.of(), 0, indent, quoted, marker));
+            return;
+        }
+        int first = out.size();
+        for (Node child = item.getFirstChild(); child != null; child = child.getNext()) {
+            appendBlocks(child, indent, quoted, out);
+        }
+        Block lead = out.get(first);
+        if (lead.kind() == Kind.PARAGRAPH && lead.indent() == indent) {
+            out.set(first, new Block(Kind.LIST_ITEM, lead.spans(), 0, indent, quoted, marker));
+        } else {
+            out.add(first, new Block(Kind.LIST_ITEM, List.of(), 0, indent, quoted, marker));
+        }
+    }
+
+    private static Block codeBlock(final String content, final int indent, final boolean quoted) {
+        String code = content.endsWith("\n") ? content.substring(0, content.length() - 1) : content;
+        return new Block(Kind.CODE, List.of(new Span(code, CODE)), 0, indent, quoted, "");
+    }
+
+    private static List<Span> spans(final Node block) {
+        List<Span> spans = new ArrayList<>();
+        appendInline(block, 0, spans);
+        return spans;
+    }
+
+    private static void appendInline(final Node parent, final int style, final List<Span> out) {
+        for (Node node = parent.getFirstChild(); node != null; node = node.getNext()) {
+            if (node instanceof Text text) {
+                addSpan(out, text.getChars().unescape(), style);
+            } else if (node instanceof Code code) {
+                addSpan(out, code.getText().toString(), style | CODE);
+            } else if (node instanceof SoftLineBreak || node instanceof HardLineBreak) {
+                addSpan(out, "\n", style);
+            } else if (node instanceof StrongEmphasis) {
+                appendInline(node, style | BOLD, out);
+            } else if (node instanceof Emphasis) {
+                appendInline(node, style | ITALIC, out);
+            } else if (node instanceof Link || node instanceof Image) {
+                appendInline(node, style | LINK, out);
+            } else if (node instanceof DelimitedLinkNode link) {
+                // <https://...> and <name@host> autolinks
+                addSpan(out, link.getText().toString(), style | LINK);
+            } else if (node.hasChildren()) {
+                appendInline(node, style, out);
+            } else {
+                addSpan(out, node.getChars().toString(), style);
+            }
+        }
+    }
+
+    private static void addSpan(final List<Span> out, final String text, final int style) {
+        if (text.isEmpty()) {
+            return;
+        }
+        int last = out.size() - 1;
+        if (last >= 0 && out.get(last).style() == style) {
+            out.set(last, new Span(out.get(last).text() + text, style));
+        } else {
+            out.add(new Span(text, style));
+        }
+    }
+}
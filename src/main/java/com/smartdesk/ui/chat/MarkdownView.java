@@ -0,0 +1,109 @@
+package com.smartdesk.ui.chat;
+
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.control.Label;
+import javafx.scene.layout.Region;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextFlow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Displays a {@link MarkdownDocument} as a column of text flows. Nodes are
+ * kept per block: showing a document that shares its leading blocks with
+ * the previous one, as a growing streaming reply does, only builds nodes
+ * for the blocks that changed.
+ */
+final class MarkdownView extends VBox {
+
+    private static final double INDENT_WIDTH = 18;
+
+    private final List<MarkdownDocument.Block> shownBlocks = new ArrayList<>();
+    private MarkdownDocument shownDocument;
+    private ChatPalette shownPalette;
+
+    MarkdownView() {
+        super(6);
+    }
+
+    void show(final MarkdownDocument document, final ChatPalette palette) {
+        if (document == shownDocument && palette == shownPalette) {
+            return;
+        }
+        if (palette != shownPalette) {
+            shownBlocks.clear();
+            getChildren().clear();
+        }
+        List<MarkdownDocument.Block> blocks = document.blocks();
+        int kept = 0;
+        while (kept < shownBlocks.size() && kept < blocks.size() && shownBlocks.get(kept) == blocks.get(kept)) {
+            kept++;
+        }
+        shownBlocks.subList(kept, shownBlocks.size()).clear();
+        getChildren().remove(kept, getChildren().size());
+        List<Node> added = new ArrayList<>(blocks.size() - kept);
+        for (int i = kept; i < blocks.size(); i++) {
+            added.add(createNode(blocks.get(i), palette));
+            shownBlocks.add(blocks.get(i));
+        }
+        getChildren().addAll(added);
+        shownDocument = document;
+        shownPalette = palette;
+    }
+
+    private static Node createNode(final MarkdownDocument.Block block, final ChatPalette palette) {
+        Region node = switch (block.kind()) {
+            case CODE -> {
+                Label code = new Label(block.spans().isEmpty() ? "" : block.spans().get(0).text());
+                code.setWrapText(true);
+                code.setMaxWidth(Double.MAX_VALUE);
+                code.setStyle(palette.codeBlockStyle());
+                yield code;
+            }
+            case RULE -> {
+                Region rule = new Region();
+                rule.setMinHeight(1);
+                rule.setPrefHeight(1);
+                rule.setMaxHeight(1);
+                rule.setStyle(palette.ruleStyle());
+                yield rule;
+            }
+            default -> createFlow(block, palette);
+        };
+        double indent = INDENT_WIDTH * Math.max(0, block.indent() - 1);
+        if (block.kind() != MarkdownDocument.Kind.LIST_ITEM && block.indent() > 0) {
+            // Continuation paragraphs line up with the text after the marker.
+            indent += INDENT_WIDTH;
+        }
+        if (block.quoted()) {
+            VBox quote = new VBox(node);
+            quote.setStyle(palette.quoteStyle());
+            VBox.setMargin(quote, new Insets(0, 0, 0, indent));
+            return quote;
+        }
+        VBox.setMargin(node, new Insets(0, 0, 0, indent));
+        return node;
+    }
+
+    private static TextFlow createFlow(final MarkdownDocument.Block block, final ChatPalette palette) {
+        TextFlow flow = new TextFlow();
+        if (block.kind() == MarkdownDocument.Kind.LIST_ITEM) {
+            Text marker = new Text(block.marker() + " ");
+            marker.setStyle(palette.spanStyle(0));
+            flow.getChildren().add(marker);
+        }
+        String headingSize = block.kind() == MarkdownDocument.Kind.HEADING
+            ? " -fx-font-size: " + Math.max(14, 20 - 2 * block.level()) + "px;"
+            : "";
+        int headingStyle = block.kind() == MarkdownDocument.Kind.HEADING ? MarkdownDocument.BOLD : 0;
+        for (MarkdownDocument.Span span : block.spans()) {
+            Text text = new Text(span.text());
+            text.setStyle(palette.spanStyle(span.style() | headingStyle) + headingSize);
+            flow.getChildren().add(text);
+        }
+        return flow;
+    }
+}
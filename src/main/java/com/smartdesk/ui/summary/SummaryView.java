@@ -0,0 +1,265 @@
+package com.smartdesk.ui.summary;
+
+import com.smartdesk.core.chat.ChatAssistantFactory;
+import com.smartdesk.core.chat.ChatHistoryService;
+import com.smartdesk.core.chat.online.AiModelClient;
+import com.smartdesk.core.config.AppConfig;
+import com.smartdesk.core.config.ConfigManager;
+import com.smartdesk.core.summary.SummaryListener;
+import com.smartdesk.core.summary.SummaryProgress;
+import com.smartdesk.core.summary.SummaryResult;
+import com.smartdesk.core.summary.SummaryService;
+import com.smartdesk.core.summary.SummaryTask;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TextArea;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Lets the user pick a text document and shows its summary while it is being
+ * generated by the {@link SummaryService}.
+ */
+public final class SummaryView extends BorderPane {
+
+    private static final Logger LOGGER = Logger.getLogger(SummaryView.class.getName());
+
+    private final ConfigManager configManager;
+    private final ChatHistoryService chatHistoryService;
+    private final SummaryService summaryService;
+
+    private final Label fileLabel = new Label("未选择文件");
+    private final Button chooseButton = new Button("选择文件");
+    private final Button startButton = new Button("开始总结");
+    private final Button cancelButton = new Button("取消");
+    private final ProgressBar progressBar = new ProgressBar(0);
+    private final Label statusLabel = new Label();
+    private final TextArea outputArea = new TextArea();
+
+    private Path selectedFile;
+    private SummaryTask runningTask;
+    private SummaryOutput output;
+
+    public SummaryView(final ConfigManager configManager, final ChatHistoryService chatHistoryService,
+                       final SummaryService summaryService) {
+        this.configManager = Objects.requireNonNull(configManager, "configManager");
+        this.chatHistoryService = Objects.requireNonNull(chatHistoryService, "chatHistoryService");
+        this.summaryService = Objects.requireNonNull(summaryService, "summaryService");
+        getStyleClass().add("settings-view-root");
+        setPadding(new Insets(24));
+        setTop(buildHeader());
+        setCenter(buildContent());
+        updateControls();
+    }
+
+    private VBox buildHeader() {
+        Label title = new Label("文档总结");
+        title.getStyleClass().add("settings-title");
+        Label subtitle = new Label("为 TXT、Markdown 或日志文件生成摘要，离线模式下使用本地抽取式摘要");
+        subtitle.getStyleClass().add("settings-subtitle");
+        VBox header = new VBox(6, title, subtitle);
+        header.setPadding(new Insets(0, 0, 16, 0));
+        return header;
+    }
+
+    private VBox buildContent() {
+        chooseButton.setOnAction(evt -> chooseFile());
+        startButton.setOnAction(evt -> startSummary());
+        cancelButton.setOnAction(evt -> cancelSummary());
+        fileLabel.getStyleClass().add("settings-label");
+        HBox toolbar = new HBox(12, chooseButton, fileLabel);
+        toolbar.setAlignment(Pos.CENTER_LEFT);
+        HBox.setHgrow(fileLabel, Priority.ALWAYS);
+
+        progressBar.setMaxWidth(Double.MAX_VALUE);
+        HBox.setHgrow(progressBar, Priority.ALWAYS);
+        HBox progressRow = new HBox(12, progressBar, startButton, cancelButton);
+        progressRow.setAlignment(Pos.CENTER_LEFT);
+
+        outputArea.setEditable(false);
+        outputArea.setWrapText(true);
+        outputArea.setPromptText("摘要将显示在这里");
+        VBox.setVgrow(outputArea, Priority.ALWAYS);
+
+        return new VBox(12, toolbar, progressRow, statusLabel, outputArea);
+    }
+
+    private void chooseFile() {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("选择要总结的文档");
+        chooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("文本文档", "*.txt", "*.md", "*.markdown", "*.log"));
+        File file = chooser.showOpenDialog(getScene() == null ? null : getScene().getWindow());
+        if (file == null) {
+            return;
+        }
+        selectedFile = file.toPath();
+        fileLabel.setText(file.getName());
+        statusLabel.setText("");
+        updateControls();
+    }
+
+    private void startSummary() {
+        if (selectedFile == null || runningTask != null) {
+            return;
+        }
+        if (!SummaryService.isSupported(selectedFile)) {
+            statusLabel.setText("仅支持 TXT、Markdown 与日志文件");
+            return;
+        }
+        AppConfig config = configManager.getConfig();
+        AiModelClient client = ChatAssistantFactory.createClient(chatHistoryService, config);
+        outputArea.clear();
+        progressBar.setProgress(0);
+        statusLabel.setText(client == null ? "正在离线总结..." : "正在读取文档...");
+        output = new SummaryOutput();
+        SummaryOutput current = output;
+        runningTask = summaryService.summarize(selectedFile, config, client, current);
+        SummaryTask task = runningTask;
+        task.result().whenComplete((result, error) -> Platform.runLater(() -> onFinished(task, current, result, error)));
+        updateControls();
+    }
+
+    private void cancelSummary() {
+        if (runningTask != null) {
+            runningTask.cancel();
+        }
+    }
+
+    private void onFinished(final SummaryTask task, final SummaryOutput finished, final SummaryResult result,
+                            final Throwable error) {
+        if (task != runningTask) {
+            return;
+        }
+        finished.flush();
+        finished.close();
+        runningTask = null;
+        output = null;
+        updateControls();
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException) {
+            statusLabel.setText("已取消");
+            progressBar.setProgress(0);
+        } else if (cause != null) {
+            LOGGER.log(Level.WARNING, "Summary failed", cause);
+            statusLabel.setText("总结失败：" + cause.getMessage());
+        } else {
+            outputArea.setText(result.summary());
+            progressBar.setProgress(1);
+            statusLabel.setText(String.format("完成：%d 个片段，%d 轮合并，用时 %.1f 秒%s",
+                result.chunks(), result.reduceRounds(), result.elapsed().toMillis() / 1000.0,
+                result.extractive() ? "（含离线摘要）" : ""));
+        }
+    }
+
+    private void updateControls() {
+        boolean running = runningTask != null;
+        chooseButton.setDisable(running);
+        startButton.setDisable(running || selectedFile == null);
+        cancelButton.setDisable(!running);
+    }
+
+    /**
+     * Cancels a running summary.
+     */
+    public void shutdown() {
+        cancelSummary();
+    }
+
+    /**
+     * Receives callbacks on the summary threads and coalesces them so the FX
+     * thread updates the progress and text at most once per pulse.
+     */
+    private final class SummaryOutput implements SummaryListener {
+        private final StringBuilder buffer = new StringBuilder();
+        private final AtomicReference<SummaryProgress> progress = new AtomicReference<>();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private volatile boolean closed;
+        private boolean restart;
+
+        @Override
+        public void onProgress(final SummaryProgress value) {
+            progress.set(value);
+            scheduleFlush();
+        }
+
+        @Override
+        public void onDelta(final String text) {
+            synchronized (buffer) {
+                buffer.append(text);
+            }
+            scheduleFlush();
+        }
+
+        @Override
+        public void onRestart() {
+            synchronized (buffer) {
+                buffer.setLength(0);
+                restart = true;
+            }
+            scheduleFlush();
+        }
+
+        private void scheduleFlush() {
+            if (!closed && flushScheduled.compareAndSet(false, true)) {
+                Platform.runLater(this::flush);
+            }
+        }
+
+        private void flush() {
+            flushScheduled.set(false);
+            if (closed) {
+                return;
+            }
+            final String text;
+            final boolean clear;
+            synchronized (buffer) {
+                text = buffer.toString();
+                clear = restart;
+                buffer.setLength(0);
+                restart = false;
+            }
+            if (clear) {
+                outputArea.clear();
+            }
+            if (!text.isEmpty()) {
+                outputArea.appendText(text);
+            }
+            SummaryProgress current = progress.getAndSet(null);
+            if (current != null) {
+                progressBar.setProgress(current.fraction());
+                statusLabel.setText(describe(current));
+            }
+        }
+
+        private void close() {
+            closed = true;
+        }
+    }
+
+    private static String describe(final SummaryProgress progress) {
+        return switch (progress.phase()) {
+            case MAP -> String.format("已读取 %d%%，已总结 %d / %d 个片段",
+                progress.totalBytes() <= 0 ? 100 : progress.bytesRead() * 100 / progress.totalBytes(),
+                progress.chunksSummarised(), progress.chunksRead());
+            case REDUCE -> "正在合并摘要（第 " + progress.reduceRound() + " 轮）...";
+            case DONE -> "即将完成...";
+        };
+    }
+}
@@ -0,0 +1,231 @@
+package com.smartdesk.ui.tasks;
+
+import com.smartdesk.core.task.model.Task;
+import com.smartdesk.core.task.model.TaskLane;
+import com.smartdesk.core.task.model.TaskPriority;
+import com.smartdesk.core.task.model.TaskStatus;
+import com.smartdesk.core.task.model.TaskType;
+import com.smartdesk.core.task.service.TaskQuery;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Pure computation behind {@link TaskDashboardView}: filters, sorts and groups
+ * an immutable snapshot of the task list into lanes and summary counts. It
+ * runs off the JavaFX thread, so it only reads the {@link Row} values captured
+ * on the FX thread and treats the view models as opaque handles.
+ * <p>
+ * When filters are active the stored rows are narrowed by a SQL query first
+ * ({@link #candidates}), so only the matches and the locally edited rows are
+ * evaluated, sorted and grouped here.
+ * </p>
+ */
+final class DashboardProjection {
+
+    private static final int CANCELLATION_CHECK_INTERVAL = 256;
+    private static final int UPCOMING_LIMIT = 5;
+    private static final int UPCOMING_DAYS = 5;
+
+    private static final Comparator<Row> ROW_ORDER = Comparator
+        .comparing(Row::due, Comparator.nullsLast(LocalDateTime::compareTo))
+        .thenComparing(row -> row.priority().getLevel(), Comparator.reverseOrder());
+
+    private DashboardProjection() {
+    }
+
+    /**
+     * Values of one task read on the FX thread.
+     */
+    record Row(TaskViewModel model, String title, String description, TaskType type,
+               TaskStatus status, TaskPriority priority, LocalDateTime due, boolean reminderEnabled) {
+
+        static Row of(final TaskViewModel task) {
+            return new Row(task,
+                foldCase(task.getTitle()),
+                foldCase(task.getDescription()),
+                task.getType(),
+                task.getStatus(),
+                task.getPriority(),
+                task.getDueDateTime(),
+                task.isReminderEnabled());
+        }
+
+        boolean isOverdue(final LocalDateTime now) {
+            return due != null && due.isBefore(now) && status != TaskStatus.COMPLETED;
+        }
+    }
+
+    /**
+     * Immutable task list captured on the FX thread. Rows of tasks that are
+     * persisted and unchanged since their last save are also reachable by id;
+     * {@code local} holds the rows whose database state may lag behind.
+     */
+    record Snapshot(List<Row> rows, Map<Long, Row> stored, List<Row> local) {
+    }
+
+    /**
+     * Filter values and clock captured when the refresh was requested.
+     */
+    record Criteria(TaskType type, TaskStatus status, TaskPriority minimumPriority, String keyword,
+                    LocalDate referenceDate, LocalDateTime now) {
+
+        Criteria {
+            keyword = keyword == null || keyword.isBlank() ? null : TaskQuery.foldCase(keyword.trim());
+        }
+
+        boolean matches(final Row row) {
+            if (type != null && row.type() != type) {
+                return false;
+            }
+            if (status != null && row.status() != status) {
+                return false;
+            }
+            if (minimumPriority != null && row.priority().getLevel() < minimumPriority.getLevel()) {
+                return false;
+            }
+            return keyword == null || row.title().contains(keyword) || row.description().contains(keyword);
+        }
+
+        /**
+         * Whether any filter narrows the task list.
+         */
+        boolean isFiltered() {
+            return type != null || status != null || minimumPriority != null || keyword != null;
+        }
+
+        /**
+         * The filters as a query that can be pushed down to the database.
+         */
+        TaskQuery toQuery() {
+            return TaskQuery.builder()
+                .withType(type)
+                .withStatus(status)
+                .withMinimumPriority(minimumPriority)
+                .withKeyword(keyword)
+                .build();
+        }
+    }
+
+    /**
+     * Everything the dashboard displays for one set of criteria.
+     */
+    record Result(Map<TaskLane, List<TaskViewModel>> lanes, List<TaskViewModel> upcoming,
+                  int total, int inProgress, int planned, int completed, int reminderEnabled) {
+    }
+
+    /**
+     * Rows worth evaluating for a filtered refresh: the stored rows of the
+     * tasks the database matched plus every local row, which the database may
+     * not reflect yet. {@link #compute} still applies the criteria to them.
+     */
+    static List<Row> candidates(final Snapshot snapshot, final List<Task> matched) {
+        final List<Row> rows = new ArrayList<>(matched.size() + snapshot.local().size());
+        for (Task task : matched) {
+            final Row row = snapshot.stored().get(task.getId());
+            if (row != null) {
+                rows.add(row);
+            }
+        }
+        rows.addAll(snapshot.local());
+        return rows;
+    }
+
+    /**
+     * Computes the dashboard content in a single pass over the matching rows.
+     *
+     * @return the result, or {@code null} if {@code cancelled} reported true
+     */
+    static Result compute(final List<Row> snapshot, final Criteria criteria,
+                          final BooleanSupplier cancelled) {
+        final List<Row> filtered = new ArrayList<>();
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (i % CANCELLATION_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+                return null;
+            }
+            final Row row = snapshot.get(i);
+            if (criteria.matches(row)) {
+                filtered.add(row);
+            }
+        }
+        filtered.sort(ROW_ORDER);
+        if (cancelled.getAsBoolean()) {
+            return null;
+        }
+
+        final Map<TaskLane, List<TaskViewModel>> lanes = new EnumMap<>(TaskLane.class);
+        for (TaskLane lane : TaskLane.values()) {
+            lanes.put(lane, new ArrayList<>());
+        }
+        final List<TaskViewModel> upcoming = new ArrayList<>(UPCOMING_LIMIT);
+        final LocalDate referenceDate = criteria.referenceDate();
+        final LocalDateTime now = criteria.now();
+        int inProgress = 0;
+        int planned = 0;
+        int completed = 0;
+        int reminderEnabled = 0;
+        for (Row row : filtered) {
+            switch (row.status()) {
+                case COMPLETED -> completed++;
+                case IN_PROGRESS -> inProgress++;
+                case PLANNED -> planned++;
+                default -> {
+                }
+            }
+            if (row.reminderEnabled()) {
+                reminderEnabled++;
+            }
+            // Rows are sorted by due date, so the first matches are the nearest ones.
+            if (upcoming.size() < UPCOMING_LIMIT && row.due() != null
+                && row.status() != TaskStatus.COMPLETED && !row.isOverdue(now)) {
+                upcoming.add(row.model());
+            }
+            final TaskLane lane = laneOf(row, referenceDate, now);
+            if (lane != null) {
+                lanes.get(lane).add(row.model());
+            }
+        }
+        return new Result(lanes, upcoming, filtered.size(), inProgress, planned, completed, reminderEnabled);
+    }
+
+    private static TaskLane laneOf(final Row row, final LocalDate referenceDate, final LocalDateTime now) {
+        if (row.status() == TaskStatus.COMPLETED) {
+            return TaskLane.COMPLETED;
+        }
+        if (row.status() == TaskStatus.CANCELLED) {
+            return TaskLane.SOMEDAY;
+        }
+        if (row.isOverdue(now)) {
+            return TaskLane.OVERDUE;
+        }
+        if (row.type() == TaskType.COURSE) {
+            return TaskLane.COURSE;
+        }
+        if (row.type() == TaskType.ANNIVERSARY) {
+            return TaskLane.ANNIVERSARY;
+        }
+        if (row.due() == null) {
+            return TaskLane.SOMEDAY;
+        }
+        final LocalDate dueDate = row.due().toLocalDate();
+        if (dueDate.isEqual(referenceDate)) {
+            return TaskLane.TODAY;
+        }
+        if (!dueDate.isBefore(referenceDate) && !dueDate.isAfter(referenceDate.plusDays(UPCOMING_DAYS))) {
+            return TaskLane.UPCOMING;
+        }
+        if (dueDate.isAfter(referenceDate.plusDays(UPCOMING_DAYS))) {
+            return TaskLane.SOMEDAY;
+        }
+        return null;
+    }
+
+    private static String foldCase(final String value) {
+        return value == null ? "" : TaskQuery.foldCase(value);
+    }
+}
@@ -1,25 +1,35 @@
 package com.smartdesk.ui.tasks;
 
+import com.smartdesk.core.autosave.AutosaveQueue;
 import com.smartdesk.core.task.TaskService;
 import com.smartdesk.core.task.model.Task;
 import com.smartdesk.core.task.model.TaskLane;
 import com.smartdesk.core.task.model.TaskPriority;
 import com.smartdesk.core.task.model.TaskStatus;
 import com.smartdesk.core.task.model.TaskType;
+import com.smartdesk.core.task.service.TaskChangeListener;
+import com.smartdesk.core.task.scheduler.ReminderScheduler;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.beans.InvalidationListener;
 import javafx.beans.Observable;
 import javafx.beans.binding.Bindings;
@@ -47,6 +57,7 @@ import javafx.scene.layout.HBox;
 import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.scene.control.Alert;
+import javafx.util.Duration;
 
 /**
  * Rich dashboard view dedicated to the SmartDesk task module.
@@ -55,8 +66,12 @@ public final class TaskDashboardView extends BorderPane {
 
     private static final Logger LOGGER = Logger.getLogger(TaskDashboardView.class.getName());
 
+    /** Quiet period after the last keystroke before the search is applied. */
+    private static final Duration SEARCH_DEBOUNCE = Duration.millis(150);
+
     private final ObservableList<TaskViewModel> tasks;
     private final TaskService taskService;
+    private final AutosaveQueue autosaveQueue;
     private final ObjectProperty<TaskType> typeFilter = new SimpleObjectProperty<>(null);
     private final ObjectProperty<TaskStatus> statusFilter = new SimpleObjectProperty<>(null);
     private final ObjectProperty<TaskPriority> minimumPriorityFilter = new SimpleObjectProperty<>(null);
@@ -68,11 +83,29 @@ public final class TaskDashboardView extends BorderPane {
     private final Map<TaskLane, TaskSectionPane> laneSections = new EnumMap<>(TaskLane.class);
     private final TaskReminderManager reminderManager;
     private final Map<TaskViewModel, List<Observable>> observedTaskProperties = new IdentityHashMap<>();
-    private final InvalidationListener taskPropertyListener = obs -> refresh();
-
-    public TaskDashboardView(final ObservableList<TaskViewModel> tasks, final TaskService taskService) {
+    private final Map<Observable, TaskViewModel> owners = new IdentityHashMap<>();
+    private final TaskOccurrenceHistogram occurrences = new TaskOccurrenceHistogram();
+    private final InvalidationListener taskPropertyListener = this::onTaskPropertyChanged;
+    private final PauseTransition refreshDebounce = new PauseTransition(SEARCH_DEBOUNCE);
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "task-dashboard-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicLong refreshGeneration = new AtomicLong();
+    private Future<?> pendingRefresh;
+    private final Set<TaskViewModel> unsavedEdits = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final TaskChangeListener savedTaskListener = new SavedTaskListener();
+    private DashboardProjection.Snapshot snapshot;
+    private Set<TaskViewModel> changedSinceLastApply = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean calendarDirty = true;
+    private boolean refreshPending;
+
+    public TaskDashboardView(final ObservableList<TaskViewModel> tasks, final TaskService taskService,
+                             final ReminderScheduler reminderScheduler, final AutosaveQueue autosaveQueue) {
         this.tasks = Objects.requireNonNull(tasks, "tasks");
         this.taskService = Objects.requireNonNull(taskService, "taskService");
+        this.autosaveQueue = Objects.requireNonNull(autosaveQueue, "autosaveQueue");
         getStyleClass().add("task-dashboard-root");
 
         setPadding(new Insets(16));
@@ -90,15 +123,18 @@ public final class TaskDashboardView extends BorderPane {
                     change.getAddedSubList().forEach(this::registerTaskObservers);
                 }
             }
+            invalidateSnapshot(null);
             refresh();
         });
         calendarView.valueProperty().addListener((obs, oldValue, newValue) -> refresh());
         typeFilter.addListener((obs, oldValue, newValue) -> refresh());
         statusFilter.addListener((obs, oldValue, newValue) -> refresh());
         minimumPriorityFilter.addListener((obs, oldValue, newValue) -> refresh());
-        searchField.textProperty().addListener((obs, oldText, newText) -> refresh());
+        searchField.textProperty().addListener((obs, oldText, newText) -> scheduleRefresh(SEARCH_DEBOUNCE));
+        refreshDebounce.setOnFinished(evt -> startRefresh());
+        taskService.addTaskChangeListener(savedTaskListener);
 
-        reminderManager = new TaskReminderManager(tasks, taskService);
+        reminderManager = new TaskReminderManager(tasks, reminderScheduler, autosaveQueue);
 
         refresh();
     }
@@ -107,6 +143,33 @@ public final class TaskDashboardView extends BorderPane {
         return reminderManager;
     }
 
+    private void onTaskPropertyChanged(final Observable property) {
+        TaskViewModel owner = owners.get(property);
+        if (owner != null) {
+            if (isFilteredProperty(owner, property)) {
+                unsavedEdits.add(owner);
+            }
+            if (occurrences.update(owner)) {
+                calendarDirty = true;
+            }
+        }
+        invalidateSnapshot(owner);
+        refresh();
+    }
+
+    /**
+     * Whether the property is one the filters read; changes of other
+     * properties, such as the reminder state, cannot make the database
+     * answer of a filtered refresh stale.
+     */
+    private static boolean isFilteredProperty(final TaskViewModel task, final Observable property) {
+        return property == task.titleProperty()
+            || property == task.descriptionProperty()
+            || property == task.typeProperty()
+            || property == task.statusProperty()
+            || property == task.priorityProperty();
+    }
+
     private void registerTaskObservers(final TaskViewModel task) {
         if (task == null || observedTaskProperties.containsKey(task)) {
             return;
@@ -125,8 +188,14 @@ public final class TaskDashboardView extends BorderPane {
             task.reminderTriggeredProperty(),
             task.updatedAtProperty()
         );
-        observables.forEach(observable -> observable.addListener(taskPropertyListener));
+        observables.forEach(observable -> {
+            owners.put(observable, task);
+            observable.addListener(taskPropertyListener);
+        });
         observedTaskProperties.put(task, observables);
+        if (occurrences.update(task)) {
+            calendarDirty = true;
+        }
     }
 
     private void unregisterTaskObservers(final TaskViewModel task) {
@@ -134,7 +203,14 @@ public final class TaskDashboardView extends BorderPane {
         if (observables == null) {
             return;
         }
-        observables.forEach(observable -> observable.removeListener(taskPropertyListener));
+        observables.forEach(observable -> {
+            observable.removeListener(taskPropertyListener);
+            owners.remove(observable);
+        });
+        unsavedEdits.remove(task);
+        if (occurrences.remove(task)) {
+            calendarDirty = true;
+        }
     }
 
     private Node buildHeaderBar() {
@@ -232,101 +308,149 @@ public final class TaskDashboardView extends BorderPane {
         return scrollPane;
     }
 
+    /**
+     * Requests a refresh once the current FX event has been handled. Bursts of
+     * requests, such as the property changes caused by
+     * {@link TaskViewModel#applyDomain}, collapse into a single recomputation.
+     */
     private void refresh() {
-        LocalDate referenceDate = calendarView.getValue() == null ? LocalDate.now() : calendarView.getValue();
-        LocalDateTime now = LocalDateTime.now();
-        Predicate<TaskViewModel> predicate = task -> {
-            if (typeFilter.get() != null && task.getType() != typeFilter.get()) {
-                return false;
-            }
-            if (statusFilter.get() != null && task.getStatus() != statusFilter.get()) {
-                return false;
-            }
-            if (minimumPriorityFilter.get() != null
-                && task.getPriority().getLevel() < minimumPriorityFilter.get().getLevel()) {
-                return false;
-            }
-            String keyword = searchField.getText();
-            if (keyword != null && !keyword.isBlank()) {
-                String lower = keyword.toLowerCase();
-                if (!(task.getTitle().toLowerCase().contains(lower)
-                    || task.getDescription().toLowerCase().contains(lower))) {
-                    return false;
-                }
-            }
-            return true;
-        };
-
-        List<TaskViewModel> filtered = tasks.stream()
-            .filter(predicate)
-            .sorted(Comparator.comparing(TaskViewModel::getDueDateTime,
-                Comparator.nullsLast(LocalDateTime::compareTo))
-                .thenComparing(task -> task.getPriority().getLevel(), Comparator.reverseOrder()))
-            .collect(Collectors.toList());
+        refreshDebounce.stop();
+        if (refreshPending) {
+            return;
+        }
+        refreshPending = true;
+        Platform.runLater(() -> {
+            refreshPending = false;
+            startRefresh();
+        });
+    }
 
-        Map<TaskLane, List<TaskViewModel>> laneMap = new EnumMap<>(TaskLane.class);
-        for (TaskLane lane : laneSections.keySet()) {
-            laneMap.put(lane, new ArrayList<>());
+    private void scheduleRefresh(final Duration delay) {
+        if (refreshPending) {
+            return;
         }
+        refreshDebounce.stop();
+        refreshDebounce.setDuration(delay);
+        refreshDebounce.playFromStart();
+    }
 
-        for (TaskViewModel task : filtered) {
-            if (task.getStatus() == TaskStatus.COMPLETED) {
-                laneMap.get(TaskLane.COMPLETED).add(task);
-                continue;
-            }
-            if (task.getStatus() == TaskStatus.CANCELLED) {
-                laneMap.get(TaskLane.SOMEDAY).add(task);
-                continue;
-            }
-            if (task.isOverdue(now)) {
-                laneMap.get(TaskLane.OVERDUE).add(task);
-                continue;
-            }
-            if (task.getType() == TaskType.COURSE) {
-                laneMap.get(TaskLane.COURSE).add(task);
-                continue;
-            }
-            if (task.getType() == TaskType.ANNIVERSARY) {
-                laneMap.get(TaskLane.ANNIVERSARY).add(task);
-                continue;
-            }
-            LocalDateTime due = task.getDueDateTime();
-            if (due == null) {
-                laneMap.get(TaskLane.SOMEDAY).add(task);
-                continue;
-            }
-            LocalDate dueDate = due.toLocalDate();
-            if (dueDate.isEqual(referenceDate)) {
-                laneMap.get(TaskLane.TODAY).add(task);
-            } else if (!dueDate.isBefore(referenceDate) && !dueDate.isAfter(referenceDate.plusDays(5))) {
-                laneMap.get(TaskLane.UPCOMING).add(task);
-            } else if (dueDate.isAfter(referenceDate.plusDays(5))) {
-                laneMap.get(TaskLane.SOMEDAY).add(task);
+    /**
+     * Captures the filter values and the task snapshot on the FX thread and
+     * recomputes the dashboard on the background executor. With filters set,
+     * the executor first asks {@link TaskService#queryTasks} for the matching
+     * tasks so only those and the unsaved rows are evaluated. A newer request
+     * cancels the computation of an older one, and results that arrive after a
+     * newer request was made are dropped.
+     */
+    private void startRefresh() {
+        if (snapshot == null) {
+            List<DashboardProjection.Row> rows = new ArrayList<>(tasks.size());
+            Map<Long, DashboardProjection.Row> stored = new HashMap<>();
+            List<DashboardProjection.Row> local = new ArrayList<>();
+            for (TaskViewModel task : tasks) {
+                DashboardProjection.Row row = DashboardProjection.Row.of(task);
+                rows.add(row);
+                if (task.isPersisted() && !unsavedEdits.contains(task)) {
+                    stored.put(task.getId(), row);
+                } else {
+                    local.add(row);
+                }
             }
+            snapshot = new DashboardProjection.Snapshot(List.copyOf(rows), stored, List.copyOf(local));
+        }
+        final DashboardProjection.Snapshot data = snapshot;
+        final DashboardProjection.Criteria criteria = new DashboardProjection.Criteria(
+            typeFilter.get(), statusFilter.get(), minimumPriorityFilter.get(), searchField.getText(),
+            calendarView.getValue() == null ? LocalDate.now() : calendarView.getValue(),
+            LocalDateTime.now());
+        final long generation = refreshGeneration.incrementAndGet();
+        if (pendingRefresh != null) {
+            pendingRefresh.cancel(true);
+        }
+        try {
+            pendingRefresh = refreshExecutor.submit(() -> {
+                List<DashboardProjection.Row> rows = data.rows();
+                if (criteria.isFiltered()) {
+                    try {
+                        rows = DashboardProjection.candidates(data, taskService.queryTasks(criteria.toQuery()));
+                    } catch (IllegalStateException ex) {
+                        LOGGER.log(Level.WARNING, "Task query failed, filtering the full task list", ex);
+                    }
+                }
+                DashboardProjection.Result result = DashboardProjection.compute(rows, criteria,
+                    () -> refreshGeneration.get() != generation || Thread.currentThread().isInterrupted());
+                if (result != null) {
+                    Platform.runLater(() -> {
+                        if (refreshGeneration.get() == generation) {
+                            applyRefresh(result);
+                        }
+                    });
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            LOGGER.log(Level.FINE, "Dashboard refresh rejected after shutdown", ex);
         }
+    }
 
-        int total = filtered.size();
-        long completed = filtered.stream().filter(task -> task.getStatus() == TaskStatus.COMPLETED).count();
-        long inProgress = filtered.stream().filter(task -> task.getStatus() == TaskStatus.IN_PROGRESS).count();
-        long planned = filtered.stream().filter(task -> task.getStatus() == TaskStatus.PLANNED).count();
-        summaryLabel.setText(String.format("共 %d 项 · 进行中 %d · 计划中 %d · 已完成 %d",
-            total, inProgress, planned, completed));
+    /**
+     * Patches the controls with the computed result, touching only what changed.
+     */
+    private void applyRefresh(final DashboardProjection.Result result) {
+        final Set<TaskViewModel> changed = changedSinceLastApply;
+        changedSinceLastApply = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        setTextIfChanged(summaryLabel, String.format("共 %d 项 · 进行中 %d · 计划中 %d · 已完成 %d",
+            result.total(), result.inProgress(), result.planned(), result.completed()));
+        laneSections.forEach((lane, pane) ->
+            pane.updateTasks(result.lanes().getOrDefault(lane, List.of()), changed));
+        patchItems(upcomingList, result.upcoming(), changed);
+        setTextIfChanged(reminderLabel, "已开启提醒的任务：" + result.reminderEnabled() + " 条");
+
+        if (calendarDirty) {
+            calendarDirty = false;
+            calendarView.setDayCellFactory(picker -> new CalendarDayCell());
+        }
+    }
 
-        laneSections.forEach((lane, pane) -> pane.updateTasks(laneMap.getOrDefault(lane, List.of())));
+    private void invalidateSnapshot(final TaskViewModel changedTask) {
+        snapshot = null;
+        if (changedTask != null) {
+            changedSinceLastApply.add(changedTask);
+        }
+    }
 
-        List<TaskViewModel> upcoming = filtered.stream()
-            .filter(task -> task.getDueDateTime() != null)
-            .filter(task -> task.getStatus() != TaskStatus.COMPLETED)
-            .filter(task -> !task.isOverdue(now))
-            .sorted(Comparator.comparing(TaskViewModel::getDueDateTime))
-            .limit(5)
-            .collect(Collectors.toList());
-        upcomingList.getItems().setAll(upcoming);
+    private static void setTextIfChanged(final Label label, final String text) {
+        if (!text.equals(label.getText())) {
+            label.setText(text);
+        }
+    }
 
-        long reminderEnabledCount = filtered.stream().filter(TaskViewModel::isReminderEnabled).count();
-        reminderLabel.setText("已开启提醒的任务：" + reminderEnabledCount + " 条");
+    /**
+     * Replaces the list content only if membership or order changed; if only
+     * properties of displayed tasks changed, the visible cells are re-rendered.
+     */
+    private static void patchItems(final ListView<TaskViewModel> listView, final List<TaskViewModel> data,
+                                   final Set<TaskViewModel> changed) {
+        ObservableList<TaskViewModel> items = listView.getItems();
+        boolean same = items.size() == data.size();
+        for (int i = 0; same && i < data.size(); i++) {
+            same = items.get(i) == data.get(i);
+        }
+        if (!same) {
+            items.setAll(data);
+        } else if (!changed.isEmpty() && data.stream().anyMatch(changed::contains)) {
+            listView.refresh();
+        }
+    }
 
-        calendarView.setDayCellFactory(picker -> new CalendarDayCell());
+    /**
+     * Stops the background refresh executor and reminder presentation.
+     */
+    public void shutdown() {
+        refreshDebounce.stop();
+        taskService.removeTaskChangeListener(savedTaskListener);
+        refreshExecutor.shutdownNow();
+        reminderManager.shutdown();
     }
 
     private void openEditor(final TaskViewModel taskToEdit) {
@@ -338,8 +462,9 @@ public final class TaskDashboardView extends BorderPane {
                     TaskViewModel persisted = TaskViewModel.fromDomain(created);
                     tasks.add(persisted);
                 } else {
-                    Task persisted = taskService.updateTask(updated.toDomain());
-                    taskToEdit.applyDomain(persisted);
+                    Task edited = updated.toDomain();
+                    taskToEdit.applyDomain(edited);
+                    autosave(edited);
                 }
                 refresh();
             } catch (IllegalStateException ex) {
@@ -349,6 +474,19 @@ public final class TaskDashboardView extends BorderPane {
         });
     }
 
+    /**
+     * Queues a task edit; the view already shows the new state, so only a
+     * failed write is reported.
+     */
+    private void autosave(final Task task) {
+        autosaveQueue.saveTask(task).whenComplete((ignored, error) -> {
+            if (error != null) {
+                LOGGER.log(Level.SEVERE, "Failed to persist task changes", error);
+                Platform.runLater(() -> showError("保存任务失败", "请稍后再试或检查日志。"));
+            }
+        });
+    }
+
     private void deleteTask(final TaskViewModel task) {
         if (task == null || !task.isPersisted()) {
             return;
@@ -383,6 +521,37 @@ public final class TaskDashboardView extends BorderPane {
         alert.showAndWait();
     }
 
+    /**
+     * Drops tasks from {@link #unsavedEdits} once their state reached the
+     * database, so filtered refreshes can take them from the query result.
+     */
+    private final class SavedTaskListener implements TaskChangeListener {
+
+        @Override
+        public void onTaskSaved(final Task task) {
+            if (task.getId() != null) {
+                Platform.runLater(() -> unsavedEdits.removeIf(model -> isSavedState(model, task)));
+            }
+        }
+
+        /**
+         * Whether the filtered fields of the model are those of the saved
+         * task; a save of an older edit leaves the model marked as unsaved.
+         */
+        private boolean isSavedState(final TaskViewModel model, final Task task) {
+            return model.getId() == task.getId()
+                && model.getType() == task.getType()
+                && model.getStatus() == task.getStatus()
+                && model.getPriority() == task.getPriority()
+                && Objects.equals(model.getTitle(), task.getTitle())
+                && Objects.equals(model.getDescription(), task.getDescription());
+        }
+
+        @Override
+        public void onTaskDeleted(final long id) {
+        }
+    }
+
     private final class TaskSectionPane extends VBox {
         private final TaskLane lane;
         private final Label header = new Label();
@@ -412,13 +581,15 @@ public final class TaskDashboardView extends BorderPane {
             getChildren().addAll(header, tags, listView);
         }
 
-        void updateTasks(final List<TaskViewModel> data) {
-            header.setText(lane.getDisplayName() + " · " + data.size());
-            Label info = new Label(lane.getDescription());
-            info.getStyleClass().add("task-section-tag-text");
-            tags.getChildren().setAll(info);
-            tags.setStyle("-fx-border-color: " + lane.getAccentColor() + ";");
-            listView.getItems().setAll(data);
+        void updateTasks(final List<TaskViewModel> data, final Set<TaskViewModel> changed) {
+            setTextIfChanged(header, lane.getDisplayName() + " · " + data.size());
+            if (tags.getChildren().isEmpty()) {
+                Label info = new Label(lane.getDescription());
+                info.getStyleClass().add("task-section-tag-text");
+                tags.getChildren().setAll(info);
+                tags.setStyle("-fx-border-color: " + lane.getAccentColor() + ";");
+            }
+            patchItems(listView, data, changed);
         }
     }
 
@@ -446,14 +617,10 @@ public final class TaskDashboardView extends BorderPane {
             completeButton.setOnAction(evt -> {
                 TaskViewModel item = getItem();
                 if (item != null && item.isPersisted()) {
-                    try {
-                        Optional<Task> updated = taskService.markTaskCompleted(item.getId());
-                        updated.ifPresent(item::applyDomain);
-                        TaskDashboardView.this.refresh();
-                    } catch (IllegalStateException ex) {
-                        LOGGER.log(Level.SEVERE, "Failed to mark task completed", ex);
-                        showError("更新任务失败", "无法标记任务完成，请稍后再试。");
-                    }
+                    Task completed = TaskService.completed(item.toDomain());
+                    item.applyDomain(completed);
+                    autosave(completed);
+                    TaskDashboardView.this.refresh();
                 }
             });
 
@@ -529,7 +696,7 @@ public final class TaskDashboardView extends BorderPane {
                 setTooltip(null);
                 return;
             }
-            long count = tasks.stream().filter(task -> task.occursOn(item)).count();
+            int count = occurrences.countOn(item);
             if (count > 0) {
                 setStyle("-fx-background-color: rgba(63, 81, 181, 0.15);");
                 setTooltip(new javafx.scene.control.Tooltip("共有 " + count + " 个任务"));
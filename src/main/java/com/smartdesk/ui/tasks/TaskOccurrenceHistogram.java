@@ -0,0 +1,127 @@
+package com.smartdesk.ui.tasks;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Number of tasks occurring on each calendar day, kept up to date as tasks
+ * change so calendar cells can look up their count in constant time.
+ * <p>
+ * Counts are stored in an {@code int[]} indexed by the offset of the epoch day
+ * from the first tracked day; the array grows in either direction as needed.
+ * A task occurs on every day from its start date to its due date. Tasks with
+ * only one of the two dates occur on that day, and spans longer than
+ * {@link #MAX_SPAN_DAYS} or ending before they start are counted on their
+ * start and due day only. Not thread-safe; it is used on the JavaFX thread.
+ * </p>
+ */
+final class TaskOccurrenceHistogram {
+
+    /** Longest start-to-due span that is expanded day by day. */
+    static final int MAX_SPAN_DAYS = 366;
+
+    private static final int MIN_CAPACITY = 64;
+
+    private final Map<TaskViewModel, long[]> ranges = new IdentityHashMap<>();
+    private long firstDay;
+    private int[] counts = new int[0];
+
+    /**
+     * Re-reads the dates of the task and adjusts the counts.
+     *
+     * @return {@code true} if any day changed
+     */
+    boolean update(final TaskViewModel task) {
+        final long[] next = rangesOf(task);
+        final long[] previous = ranges.get(task);
+        if (Arrays.equals(previous, next)) {
+            return false;
+        }
+        if (previous != null) {
+            apply(previous, -1);
+        }
+        if (next == null) {
+            ranges.remove(task);
+        } else {
+            apply(next, 1);
+            ranges.put(task, next);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the contribution of the task.
+     *
+     * @return {@code true} if any day changed
+     */
+    boolean remove(final TaskViewModel task) {
+        final long[] previous = ranges.remove(task);
+        if (previous == null) {
+            return false;
+        }
+        apply(previous, -1);
+        return true;
+    }
+
+    int countOn(final LocalDate date) {
+        final long offset = date.toEpochDay() - firstDay;
+        if (offset < 0 || offset >= counts.length) {
+            return 0;
+        }
+        return counts[(int) offset];
+    }
+
+    /**
+     * Inclusive day ranges as {@code [from, to, from, to, ...]} epoch days, or
+     * {@code null} if the task has no dates.
+     */
+    private static long[] rangesOf(final TaskViewModel task) {
+        final LocalDateTime start = task.getStartDateTime();
+        final LocalDateTime due = task.getDueDateTime();
+        if (start == null && due == null) {
+            return null;
+        }
+        if (start == null || due == null) {
+            final long day = (start == null ? due : start).toLocalDate().toEpochDay();
+            return new long[]{day, day};
+        }
+        final long startDay = start.toLocalDate().toEpochDay();
+        final long dueDay = due.toLocalDate().toEpochDay();
+        if (startDay <= dueDay && dueDay - startDay < MAX_SPAN_DAYS) {
+            return new long[]{startDay, dueDay};
+        }
+        return new long[]{startDay, startDay, dueDay, dueDay};
+    }
+
+    private void apply(final long[] dayRanges, final int delta) {
+        for (int i = 0; i < dayRanges.length; i += 2) {
+            final long from = dayRanges[i];
+            final long to = dayRanges[i + 1];
+            ensureCovered(from, to);
+            for (long day = from; day <= to; day++) {
+                counts[(int) (day - firstDay)] += delta;
+            }
+        }
+    }
+
+    private void ensureCovered(final long from, final long to) {
+        if (counts.length == 0) {
+            firstDay = from - MIN_CAPACITY / 2;
+            counts = new int[(int) Math.max(MIN_CAPACITY, to - firstDay + 1 + MIN_CAPACITY / 2)];
+            return;
+        }
+        final long lastDay = firstDay + counts.length - 1;
+        if (from >= firstDay && to <= lastDay) {
+            return;
+        }
+        final long newFirst = from < firstDay ? Math.min(from, firstDay - counts.length) : firstDay;
+        final long newLast = to > lastDay ? Math.max(to, lastDay + counts.length) : lastDay;
+        final int[] grown = new int[(int) (newLast - newFirst + 1)];
+        System.arraycopy(counts, 0, grown, (int) (firstDay - newFirst), counts.length);
+        counts = grown;
+        firstDay = newFirst;
+    }
+}
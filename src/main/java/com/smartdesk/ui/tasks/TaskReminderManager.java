@@ -1,85 +1,61 @@
 package com.smartdesk.ui.tasks;
 
+import com.smartdesk.core.autosave.AutosaveQueue;
 import com.smartdesk.core.task.TaskService;
 import com.smartdesk.core.task.model.Task;
+import com.smartdesk.core.task.scheduler.ReminderScheduler;
 import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.Objects;
 import javafx.application.Platform;
-import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonBar.ButtonData;
 import javafx.scene.control.ButtonType;
-import java.util.Optional;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
- * Background reminder manager that periodically scans tasks and surfaces
- * desktop notifications when a task is approaching its deadline.
+ * Presents the reminders delivered by the core {@link ReminderScheduler} as
+ * desktop notifications. The scheduler is the single source of truth for when
+ * a reminder is due and records it in the database; this class only looks up
+ * the matching view model and shows the alert, always on the JavaFX thread.
  */
-public final class TaskReminderManager {
+public final class TaskReminderManager implements ReminderScheduler.ReminderListener {
 
     private static final Logger LOGGER = Logger.getLogger(TaskReminderManager.class.getName());
 
     private final ObservableList<TaskViewModel> tasks;
-    private final TaskService taskService;
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-        Thread thread = new Thread(r, "task-reminder-thread");
-        thread.setDaemon(true);
-        return thread;
-    });
+    private final ReminderScheduler scheduler;
+    private final AutosaveQueue autosaveQueue;
 
-    public TaskReminderManager(final ObservableList<TaskViewModel> tasks, final TaskService taskService) {
-        this.tasks = tasks;
-        this.taskService = taskService;
-        tasks.addListener((ListChangeListener<TaskViewModel>) change -> resetReminderStateForRemoved(change));
-        scheduler.scheduleAtFixedRate(this::scanAndNotify, 5, 30, TimeUnit.SECONDS);
+    public TaskReminderManager(final ObservableList<TaskViewModel> tasks, final ReminderScheduler scheduler,
+                               final AutosaveQueue autosaveQueue) {
+        this.tasks = Objects.requireNonNull(tasks, "tasks");
+        this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+        this.autosaveQueue = Objects.requireNonNull(autosaveQueue, "autosaveQueue");
+        scheduler.addReminderListener(this);
     }
 
-    private void resetReminderStateForRemoved(final ListChangeListener.Change<? extends TaskViewModel> change) {
-        while (change.next()) {
-            if (change.wasRemoved()) {
-                change.getRemoved().forEach(TaskViewModel::resetReminderState);
-            }
-        }
+    /**
+     * Called on the scheduler thread with an immutable snapshot of the task,
+     * after the scheduler recorded the reminder.
+     */
+    @Override
+    public void onReminder(final Task task, final Duration remainingUntilDue) {
+        Platform.runLater(() -> presentNotification(findViewModel(task), task));
     }
 
-    private void scanAndNotify() {
-        LocalDateTime now = LocalDateTime.now();
-        List<TaskViewModel> dueSoon = new ArrayList<>();
-        for (TaskViewModel task : tasks) {
-            if (!task.isReminderEnabled()) {
-                continue;
-            }
-            if (task.isReminderTriggered()) {
-                continue;
-            }
-            if (task.getDueDateTime() == null) {
-                continue;
-            }
-            if (task.getStatus() == com.smartdesk.core.task.model.TaskStatus.COMPLETED
-                || task.getStatus() == com.smartdesk.core.task.model.TaskStatus.CANCELLED) {
-                continue;
-            }
-            Duration window = Duration.ofMinutes(task.getReminderLeadMinutes());
-            if (task.isDueWithin(now, window)) {
-                dueSoon.add(task);
+    private TaskViewModel findViewModel(final Task task) {
+        for (TaskViewModel candidate : tasks) {
+            if (candidate.isPersisted() && Objects.equals(candidate.getId(), task.getId())) {
+                return candidate;
             }
         }
-        if (!dueSoon.isEmpty()) {
-            Platform.runLater(() -> dueSoon.forEach(task -> presentNotification(task, now)));
-        }
+        return TaskViewModel.fromDomain(task);
     }
 
-    private void presentNotification(final TaskViewModel task, final LocalDateTime now) {
-        task.markReminderTriggered(now);
-        persistTaskChanges(task);
+    private void presentNotification(final TaskViewModel task, final Task reminded) {
+        task.applySavedReminder(reminded);
         Alert alert = new Alert(Alert.AlertType.INFORMATION);
         alert.setTitle("任务提醒");
         alert.setHeaderText(task.getTitle());
@@ -92,12 +68,9 @@ public final class TaskReminderManager {
             ButtonType result = alert.getResult();
             if (result == completeButton) {
                 if (task.isPersisted()) {
-                    try {
-                        Optional<Task> updated = taskService.markTaskCompleted(task.getId());
-                        updated.ifPresent(task::applyDomain);
-                    } catch (IllegalStateException ex) {
-                        LOGGER.log(Level.SEVERE, "Failed to mark task completed from reminder", ex);
-                    }
+                    Task completed = TaskService.completed(task.toDomain());
+                    task.applyDomain(completed);
+                    persist(completed, "Failed to mark task completed from reminder");
                 }
             } else if (result == snoozeButton) {
                 task.setReminderTriggered(false);
@@ -112,15 +85,21 @@ public final class TaskReminderManager {
         if (!task.isPersisted()) {
             return;
         }
-        try {
-            Task updated = taskService.updateTask(task.toDomain());
-            task.applyDomain(updated);
-        } catch (IllegalStateException ex) {
-            LOGGER.log(Level.SEVERE, "Failed to persist task reminder change", ex);
-        }
+        persist(task.toDomain(), "Failed to persist task reminder change");
+    }
+
+    private void persist(final Task task, final String failureMessage) {
+        autosaveQueue.saveTask(task).whenComplete((ignored, error) -> {
+            if (error != null) {
+                LOGGER.log(Level.SEVERE, failureMessage, error);
+            }
+        });
     }
 
+    /**
+     * Stops presenting reminders. The scheduler itself is owned by the caller.
+     */
     public void shutdown() {
-        scheduler.shutdownNow();
+        scheduler.removeReminderListener(this);
     }
 }
@@ -267,13 +267,31 @@ public final class TaskViewModel {
         return due.format(DATE_TIME_FORMATTER);
     }
 
+    /**
+     * Whether the task occurs on the given day: any day from its start to its
+     * due date, or the single date it has. Must agree with
+     * {@link TaskOccurrenceHistogram}.
+     */
     public boolean occursOn(final LocalDate date) {
         LocalDateTime due = getDueDateTime();
         if (due != null && due.toLocalDate().isEqual(date)) {
             return true;
         }
         LocalDateTime start = getStartDateTime();
-        return start != null && start.toLocalDate().isEqual(date);
+        if (start == null) {
+            return false;
+        }
+        if (start.toLocalDate().isEqual(date)) {
+            return true;
+        }
+        if (due == null) {
+            return false;
+        }
+        long startDay = start.toLocalDate().toEpochDay();
+        long dueDay = due.toLocalDate().toEpochDay();
+        long day = date.toEpochDay();
+        return startDay <= dueDay && dueDay - startDay < TaskOccurrenceHistogram.MAX_SPAN_DAYS
+            && day >= startDay && day <= dueDay;
     }
 
     public boolean isOverdue(final LocalDateTime now) {
@@ -293,9 +311,13 @@ public final class TaskViewModel {
         return !remaining.isNegative() && remaining.compareTo(duration) <= 0;
     }
 
-    public void markReminderTriggered(final LocalDateTime reminderTime) {
+    /**
+     * Takes over the reminder state the scheduler already stored for the
+     * task. Other properties keep their values, so pending edits survive.
+     */
+    public void applySavedReminder(final Task reminded) {
         setReminderTriggered(true);
-        setLastRemindedAt(reminderTime);
+        setLastRemindedAt(reminded.getLastRemindedAt());
     }
 
     public void resetReminderState() {
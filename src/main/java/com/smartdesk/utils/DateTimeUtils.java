@@ -1,6 +1,8 @@
 package com.smartdesk.utils;
 
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 
 /**
  * Common date and time helper methods.
@@ -17,4 +19,31 @@ public final class DateTimeUtils {
     public static LocalDateTime now() {
         return LocalDateTime.now();
     }
+
+    /**
+     * Encodes a local date-time as the milliseconds since 1970-01-01T00:00 on
+     * the same wall clock, as stored in the {@code *_ms} columns. Timestamps
+     * carry no zone, so the value is computed as if they were UTC: it sorts
+     * like the ISO text form and does not depend on the system time zone.
+     * Sub-millisecond precision is dropped.
+     */
+    public static long toEpochMillis(final LocalDateTime value) {
+        return value.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * Inverse of {@link #toEpochMillis(LocalDateTime)}.
+     */
+    public static LocalDateTime fromEpochMillis(final long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+            (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+
+    /**
+     * Drops the sub-millisecond part, so a value survives a round trip
+     * through the database unchanged.
+     */
+    public static LocalDateTime toStoragePrecision(final LocalDateTime value) {
+        return value == null ? null : value.truncatedTo(ChronoUnit.MILLIS);
+    }
 }
@@ -0,0 +1,103 @@
+package com.smartdesk.core.chat.offline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.smartdesk.core.chat.offline.AhoCorasickMatcher.Match;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AhoCorasickMatcherTest {
+
+    @Test
+    void overlappingPatternsAreAllReported() {
+        AhoCorasickMatcher<String> matcher = AhoCorasickMatcher.<String>builder()
+            .add("he", "he")
+            .add("she", "she")
+            .add("his", "his")
+            .add("hers", "hers")
+            .build();
+
+        assertEquals(List.of(
+                new Match<>(1, 4, "she"),
+                new Match<>(2, 4, "he"),
+                new Match<>(2, 6, "hers")),
+            matcher.findAll("ushers"));
+    }
+
+    @Test
+    void suffixPatternsAreReachedThroughDictionaryLinks() {
+        // "abc" ends no pattern and its failure state "bc" does; "c" is only
+        // reachable from there through another dictionary link.
+        AhoCorasickMatcher<String> matcher = AhoCorasickMatcher.<String>builder()
+            .add("abcd", "abcd")
+            .add("bc", "bc")
+            .add("c", "c")
+            .build();
+
+        assertEquals(List.of(new Match<>(1, 3, "bc"), new Match<>(2, 3, "c")), matcher.findAll("abcx"));
+        assertEquals(List.of(
+                new Match<>(1, 3, "bc"),
+                new Match<>(2, 3, "c"),
+                new Match<>(0, 4, "abcd")),
+            matcher.findAll("abcd"));
+    }
+
+    @Test
+    void dictionaryLinkSkipsSuffixesThatEndNoPattern() {
+        // The failure state of "xabcd" is "abcd", which is only a prefix; the
+        // nearest suffix that ends a pattern is "cd".
+        AhoCorasickMatcher<String> matcher = AhoCorasickMatcher.<String>builder()
+            .add("xabcde", "long")
+            .add("abcdf", "middle")
+            .add("cd", "short")
+            .build();
+
+        assertEquals(List.of(new Match<>(3, 5, "short")), matcher.findAll("xabcdz"));
+    }
+
+    @Test
+    void samePatternCarriesEveryValue() {
+        AhoCorasickMatcher<Integer> matcher = AhoCorasickMatcher.<Integer>builder()
+            .add("提醒", 1)
+            .add("提醒", 2)
+            .build();
+
+        List<Match<Integer>> matches = matcher.findAll("设置提醒");
+        assertEquals(List.of(new Match<>(2, 4, 1), new Match<>(2, 4, 2)), matches);
+        assertEquals(2, matches.get(0).length());
+    }
+
+    @Test
+    void containsAnyFollowsDictionaryLinks() {
+        AhoCorasickMatcher<String> matcher = AhoCorasickMatcher.<String>builder()
+            .add("abcd", "abcd")
+            .add("bc", "bc")
+            .build();
+
+        assertTrue(matcher.containsAny("abcx"));
+        assertFalse(matcher.containsAny("abx"));
+        assertFalse(matcher.containsAny(""));
+    }
+
+    @Test
+    void matchingIsCaseSensitive() {
+        AhoCorasickMatcher<String> matcher = AhoCorasickMatcher.<String>builder()
+            .add("help", "help")
+            .build();
+
+        assertTrue(matcher.findAll("HELP").isEmpty());
+        assertEquals(1, matcher.findAll("help").size());
+    }
+
+    @Test
+    void builderRejectsEmptyPatternsAndReuse() {
+        AhoCorasickMatcher.Builder<String> builder = AhoCorasickMatcher.builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.add("", "empty"));
+
+        builder.add("a", "a").build();
+        assertThrows(IllegalStateException.class, builder::build);
+    }
+}
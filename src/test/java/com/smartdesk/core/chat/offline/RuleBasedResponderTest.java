@@ -0,0 +1,90 @@
+package com.smartdesk.core.chat.offline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class RuleBasedResponderTest {
+
+    private static List<OfflineRule> bundledRules;
+    private static RuleBasedResponder responder;
+
+    /** Reads only the bundled file, so rules in the user's home cannot interfere. */
+    @BeforeAll
+    static void loadBundledRules() throws IOException {
+        try (InputStream in = RuleBasedResponder.class.getResourceAsStream(
+                "/com/smartdesk/resources/offline-rules.json")) {
+            assertNotNull(in, "bundled offline rules");
+            bundledRules = RuleBasedResponder.readRules(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+        responder = new RuleBasedResponder(bundledRules);
+    }
+
+    @Test
+    void higherPriorityWins() {
+        // 总结 (priority 20) beats 会议 (priority 10) regardless of position.
+        assertEquals(List.of(rule("总结"), rule("会议")), responder.match("会议总结"));
+        assertEquals(rule("总结").response(), responder.respond("帮我把会议总结一下"));
+    }
+
+    @Test
+    void longestKeywordBreaksPriorityTie() {
+        // 提醒 and 设置提醒 are both priority 15; the longer keyword wins even
+        // though the shorter one is listed first.
+        assertEquals(List.of(rule("设置提醒"), rule("提醒")), responder.match("设置提醒"));
+        assertEquals(rule("设置提醒").response(), responder.respond("怎么设置提醒"));
+    }
+
+    @Test
+    void rankingCombinesPriorityAndLength() {
+        assertEquals(List.of(rule("任务提醒"), rule("提醒"), rule("任务")), responder.match("任务提醒"));
+    }
+
+    @Test
+    void listOrderBreaksRemainingTies() {
+        // 任务 and 会议 share priority 10 and keyword length 2.
+        assertEquals(List.of(rule("任务"), rule("会议")), responder.match("会议任务"));
+    }
+
+    @Test
+    void keywordsMatchIgnoringCase() {
+        assertEquals(List.of(rule("hello")), responder.match("HELLO there"));
+        assertEquals(List.of(rule("hello")), responder.match("Hi SmartDesk"));
+        assertEquals(List.of(rule("help")), responder.match("Help!"));
+    }
+
+    @Test
+    void unmatchedMessagesFallBack() {
+        assertTrue(responder.match("今天天气不错").isEmpty());
+        assertEquals("这是个好问题，我会继续学习，稍后也可以尝试在线模式获取更详细的答案。",
+            responder.respond("今天天气好吗"));
+        assertEquals("我已经记录下来了，如需更深入的建议可以切换到在线模式与大模型对话。",
+            responder.respond("今天天气不错"));
+        assertEquals("我没有听清，可以再说一次吗？", responder.respond("  "));
+    }
+
+    @Test
+    void invalidRuleFileIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+            () -> RuleBasedResponder.readRules(new StringReader("[{\"keywords\": [], \"response\": \"x\"}]")));
+        assertThrows(IllegalArgumentException.class,
+            () -> RuleBasedResponder.readRules(new StringReader("{not json")));
+    }
+
+    private static OfflineRule rule(final String keyword) {
+        return bundledRules.stream()
+            .filter(rule -> rule.keywords().contains(keyword))
+            .findFirst()
+            .orElseThrow(() -> new AssertionError("no bundled rule for " + keyword));
+    }
+}
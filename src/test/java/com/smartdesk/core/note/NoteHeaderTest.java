@@ -0,0 +1,71 @@
+package com.smartdesk.core.note;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.smartdesk.storage.DatabaseManager;
+import com.smartdesk.storage.entity.NoteEntity;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class NoteHeaderTest {
+
+    /** Outside the Basic Multilingual Plane: one code point, two UTF-16 units. */
+    private static final String EMOJI = "😀";
+
+    @TempDir
+    Path tempDir;
+
+    private DatabaseManager databaseManager;
+    private NoteService noteService;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager("jdbc:sqlite:" + tempDir.resolve("notes.db"));
+        noteService = new NoteService(databaseManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseManager.close();
+    }
+
+    @Test
+    void previewTruncatedAfterSupplementaryCharacterIsIncomplete() {
+        final String body = EMOJI + "a".repeat(NoteService.PREVIEW_CHARS);
+        noteService.createNote(new NoteEntity(null, "emoji", body, null, LocalDateTime.now()));
+
+        final NoteHeader header = single(noteService.listNoteHeaders());
+
+        assertEquals(NoteService.PREVIEW_CHARS + 1, header.contentLength());
+        assertEquals(NoteService.PREVIEW_CHARS + 1, header.preview().length());
+        assertFalse(header.isPreviewComplete());
+    }
+
+    @Test
+    void shortBodyWithSupplementaryCharacterIsComplete() {
+        final String body = "smile " + EMOJI;
+        noteService.createNote(new NoteEntity(null, "short", body, null, LocalDateTime.now()));
+
+        final NoteHeader header = single(noteService.listNoteHeaders());
+
+        assertTrue(header.isPreviewComplete());
+        assertEquals(body, header.preview());
+    }
+
+    @Test
+    void emptyBodyIsComplete() {
+        assertTrue(new NoteHeader(1, "t", null, LocalDateTime.now(), 0, "").isPreviewComplete());
+    }
+
+    private static NoteHeader single(final List<NoteHeader> headers) {
+        assertEquals(1, headers.size());
+        return headers.get(0);
+    }
+}
@@ -0,0 +1,55 @@
+package com.smartdesk.core.task;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.smartdesk.core.task.model.Task;
+import com.smartdesk.storage.DatabaseManager;
+import com.smartdesk.utils.DateTimeUtils;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TaskServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DatabaseManager databaseManager;
+    private TaskService taskService;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager("jdbc:sqlite:" + tempDir.resolve("tasks.db"));
+        taskService = new TaskService(databaseManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseManager.close();
+    }
+
+    @Test
+    void staleEditSnapshotDoesNotRollBackReminderTime() {
+        final Task created = taskService.createTask(Task.builder()
+            .withTitle("report")
+            .withDueDateTime(DateTimeUtils.now().plusMinutes(10))
+            .withReminderEnabled(true)
+            .build());
+        final Task snapshotBeforeReminder = created.toBuilder().withTitle("report v2").build();
+        final LocalDateTime remindedAt = DateTimeUtils.toStoragePrecision(DateTimeUtils.now());
+
+        taskService.markReminderTriggered(created, remindedAt);
+        final Task saved = taskService.updateTask(snapshotBeforeReminder);
+
+        assertEquals(remindedAt, saved.getLastRemindedAt());
+        assertEquals(remindedAt, taskService.findTaskById(created.getId()).orElseThrow().getLastRemindedAt());
+        final Task reloaded = new TaskService(databaseManager).findTaskById(created.getId()).orElseThrow();
+        assertEquals("report v2", reloaded.getTitle());
+        assertEquals(remindedAt, reloaded.getLastRemindedAt());
+        assertTrue(taskService.fetchTasksRequiringReminder(DateTimeUtils.now()).isEmpty());
+    }
+}
@@ -0,0 +1,75 @@
+package com.smartdesk.core.task.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.smartdesk.core.task.TaskService;
+import com.smartdesk.core.task.model.Task;
+import com.smartdesk.storage.DatabaseManager;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class TaskQueryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private DatabaseManager databaseManager;
+    private TaskService taskService;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager("jdbc:sqlite:" + tempDir.resolve("query.db"));
+        taskService = new TaskService(databaseManager);
+        final LocalDateTime due = LocalDateTime.of(2030, 1, 1, 9, 0);
+        createTask("Weekly REPORT", null, due);
+        createTask("report draft", "Résumé of the quarter", due.plusDays(1));
+        createTask("RÉSUMÉ review", "Straße address", null);
+        createTask("\u212Aelvin units", "İstanbul office", due.plusDays(2));
+        createTask("中文 Report", "简体中文", null);
+        createTask("Freezer", "Temperature in \u212A", null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseManager.close();
+    }
+
+    @Test
+    void sqlAndInMemoryKeywordMatchesAgree() {
+        for (String keyword : List.of("report", "REPORT", "résumé", "RÉSUMÉ", "é", "k", "kelvin", "i",
+            "istanbul", "strasse", "straße", "中文", "%", "_")) {
+            final TaskQuery query = TaskQuery.builder().withKeyword(keyword).build();
+            final List<Long> inMemory = taskService.listAllTasks().stream()
+                .filter(query::matches)
+                .map(Task::getId)
+                .sorted()
+                .collect(Collectors.toList());
+            final List<Long> sql = taskService.queryTasks(query).stream()
+                .map(Task::getId)
+                .sorted()
+                .collect(Collectors.toList());
+            assertEquals(inMemory, sql, keyword);
+        }
+    }
+
+    @Test
+    void onlyAsciiLettersMatchCaseInsensitively() {
+        assertEquals(3, taskService.queryTasks(TaskQuery.builder().withKeyword("RePoRt").build()).size());
+        assertEquals(1, taskService.queryTasks(TaskQuery.builder().withKeyword("résumé").build()).size());
+        assertEquals("abc ÄÖ ß \u212A", TaskQuery.foldCase("ABC ÄÖ ß \u212A"));
+    }
+
+    private void createTask(final String title, final String description, final LocalDateTime due) {
+        taskService.createTask(Task.builder()
+            .withTitle(title)
+            .withDescription(description)
+            .withDueDateTime(due)
+            .build());
+    }
+}
@@ -0,0 +1,159 @@
+package com.smartdesk.core.transfer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.smartdesk.core.chat.ChatHistoryService;
+import com.smartdesk.core.chat.ChatMessage;
+import com.smartdesk.core.chat.ChatSession;
+import com.smartdesk.core.note.NoteService;
+import com.smartdesk.core.task.TaskService;
+import com.smartdesk.core.task.model.Task;
+import com.smartdesk.storage.DatabaseManager;
+import com.smartdesk.storage.SearchHit;
+import com.smartdesk.storage.SearchIndex;
+import com.smartdesk.storage.entity.NoteEntity;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BulkTransferServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Store source;
+    private Path exportFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        source = new Store(tempDir.resolve("source.db"));
+        final LocalDateTime now = LocalDateTime.of(2025, 3, 1, 10, 15, 30, 250_000_000);
+        source.notes.createNote(new NoteEntity(null, "Roadmap", "Milestones for spring", "plan", now));
+        source.notes.createNote(new NoteEntity(null, "Groceries", "Oat milk", null, now.plusHours(1)));
+        source.tasks.createTask(Task.builder().withTitle("Ship release").withDueDateTime(now.plusDays(2)).build());
+        final ChatSession session = source.chats.createSession("对话", "offline");
+        source.chats.persistMessage(session, ChatMessage.of(ChatMessage.Sender.USER, "hello there", now));
+        source.chats.persistMessage(session, ChatMessage.of(ChatMessage.Sender.ASSISTANT, "hi", now.plusSeconds(1)));
+        exportFile = tempDir.resolve("export.jsonl");
+
+        final TransferReport exported = source.transfer.exportTo(exportFile);
+
+        assertEquals(new Counts(2, 1, 1, 2), Counts.of(exported));
+    }
+
+    @AfterEach
+    void tearDown() {
+        source.close();
+    }
+
+    @Test
+    void roundTripIntoEmptyDatabaseKeepsRowsAndIds() throws IOException, SQLException {
+        try (Store target = new Store(tempDir.resolve("target.db"))) {
+            final TransferReport imported = target.transfer.importFrom(exportFile);
+
+            assertEquals(new Counts(2, 1, 1, 2), Counts.of(imported));
+            assertEquals(0, imported.skipped());
+            for (String table : List.of("notes", "tasks", "chat_sessions", "chat_messages")) {
+                assertEquals(source.dump(table), target.dump(table), table);
+            }
+            assertEquals(List.of("Roadmap"), target.searchNotes("milestones"));
+        }
+    }
+
+    @Test
+    void importingTwiceDoesNotDuplicate() throws IOException, SQLException {
+        try (Store target = new Store(tempDir.resolve("target.db"))) {
+            target.transfer.importFrom(exportFile);
+
+            final TransferReport again = target.transfer.importFrom(exportFile);
+
+            assertEquals(new Counts(0, 0, 0, 0), Counts.of(again));
+            assertEquals(6, again.skipped());
+            assertEquals(2, target.notes.getAllNotes().size());
+            assertEquals(1, target.tasks.listAllTasks().size());
+            assertEquals(source.dump("chat_messages"), target.dump("chat_messages"));
+        }
+    }
+
+    @Test
+    void restoresDeletedRowsBelowTheHighestIdAndIndexesThem() throws IOException {
+        final long roadmapId = source.notes.getAllNotes().stream()
+            .filter(note -> note.getTitle().equals("Roadmap"))
+            .findFirst().orElseThrow().getId();
+        source.notes.deleteNote(roadmapId);
+
+        final TransferReport restored = source.transfer.importFrom(exportFile);
+
+        assertEquals(new Counts(1, 0, 0, 0), Counts.of(restored));
+        assertEquals(roadmapId, source.notes.getAllNotes().stream()
+            .filter(note -> note.getTitle().equals("Roadmap"))
+            .findFirst().orElseThrow().getId());
+        assertEquals(List.of("Roadmap"), source.searchNotes("milestones"));
+    }
+
+    private record Counts(long notes, long tasks, long sessions, long messages) {
+        static Counts of(final TransferReport report) {
+            return new Counts(report.notes(), report.tasks(), report.sessions(), report.messages());
+        }
+    }
+
+    private static final class Store implements AutoCloseable {
+
+        final DatabaseManager databaseManager;
+        final NoteService notes;
+        final TaskService tasks;
+        final ChatHistoryService chats;
+        final BulkTransferService transfer;
+
+        Store(final Path file) {
+            databaseManager = new DatabaseManager("jdbc:sqlite:" + file);
+            notes = new NoteService(databaseManager);
+            tasks = new TaskService(databaseManager);
+            chats = new ChatHistoryService(databaseManager);
+            transfer = new BulkTransferService(databaseManager, notes, tasks);
+        }
+
+        /**
+         * Every row of the table, columns separated by tabs, in id order.
+         */
+        List<String> dump(final String table) throws SQLException {
+            try (Connection connection = databaseManager.getReadConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT * FROM " + table + " ORDER BY rowid")) {
+                final int columns = rs.getMetaData().getColumnCount();
+                final List<String> rows = new ArrayList<>();
+                while (rs.next()) {
+                    final StringBuilder row = new StringBuilder();
+                    for (int i = 1; i <= columns; i++) {
+                        row.append(rs.getString(i)).append('\t');
+                    }
+                    rows.add(row.toString());
+                }
+                return rows;
+            }
+        }
+
+        List<String> searchNotes(final String query) {
+            return new SearchIndex(databaseManager)
+                .search(query, EnumSet.of(SearchIndex.Source.NOTE), 0, 10)
+                .hits().stream().map(SearchHit::title).collect(Collectors.toList());
+        }
+
+        @Override
+        public void close() {
+            databaseManager.close();
+        }
+    }
+}
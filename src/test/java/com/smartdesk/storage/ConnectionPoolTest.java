@@ -0,0 +1,95 @@
+package com.smartdesk.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ConnectionPoolTest {
+
+    private static final String SELECT_SQL = "SELECT value FROM numbers WHERE value >= ? ORDER BY value";
+
+    @TempDir
+    Path tempDir;
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        pool = new ConnectionPool("jdbc:sqlite:" + tempDir.resolve("pool.db"), 2, 1,
+            ConnectionPool.DEFAULT_ACQUIRE_TIMEOUT_MILLIS, connection -> { });
+        try (Connection connection = pool.acquireWriter();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE numbers(value INTEGER)");
+            statement.execute("INSERT INTO numbers(value) VALUES (1), (2), (3)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.close();
+    }
+
+    @Test
+    void sameSqlPreparedTwiceOnOneLeaseKeepsIndependentParameters() throws SQLException {
+        try (Connection connection = pool.acquireReader();
+             PreparedStatement outer = connection.prepareStatement(SELECT_SQL)) {
+            outer.setInt(1, 2);
+            try (ResultSet outerRows = outer.executeQuery()) {
+                assertTrue(outerRows.next());
+                assertEquals(2, outerRows.getInt(1));
+                try (PreparedStatement inner = connection.prepareStatement(SELECT_SQL)) {
+                    inner.setInt(1, 1);
+                    try (ResultSet innerRows = inner.executeQuery()) {
+                        assertTrue(innerRows.next());
+                        assertEquals(1, innerRows.getInt(1));
+                    }
+                }
+                assertTrue(outerRows.next());
+                assertEquals(3, outerRows.getInt(1));
+                assertFalse(outerRows.next());
+            }
+        }
+    }
+
+    @Test
+    void evictionDoesNotCloseStatementInUse() throws SQLException {
+        try (Connection connection = pool.acquireReader();
+             PreparedStatement held = connection.prepareStatement(SELECT_SQL)) {
+            for (int i = 0; i < 3; i++) {
+                try (PreparedStatement other = connection.prepareStatement("SELECT " + i)) {
+                    other.executeQuery().close();
+                }
+            }
+            held.setInt(1, 3);
+            try (ResultSet rows = held.executeQuery()) {
+                assertTrue(rows.next());
+                assertEquals(3, rows.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    void closedStatementIsReusedFromCache() throws SQLException {
+        try (Connection connection = pool.acquireReader()) {
+            for (int i = 0; i < 2; i++) {
+                try (PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
+                    statement.setInt(1, 1);
+                    statement.executeQuery().close();
+                }
+            }
+        }
+        final ConnectionPoolMetrics metrics = pool.metrics();
+        assertEquals(1L, metrics.statementCacheHits());
+    }
+}
@@ -0,0 +1,246 @@
+package com.smartdesk.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.smartdesk.utils.DateTimeUtils;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SchemaMigrationsTest {
+
+    /** Text timestamps as version 0 wrote them through {@link LocalDateTime#toString()}. */
+    private static final List<LocalDateTime> TIMESTAMPS = List.of(
+        LocalDateTime.of(2024, 5, 1, 8, 30, 15, 123_456_789),
+        LocalDateTime.of(2024, 5, 1, 8, 30, 15, 123_456_000),
+        LocalDateTime.of(2024, 5, 1, 8, 30, 15, 100_000_000),
+        LocalDateTime.of(2024, 5, 1, 8, 30, 15),
+        LocalDateTime.of(2024, 5, 1, 8, 30),
+        LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_000_000));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void migratesTextTimestampsToEpochMillis() throws SQLException {
+        try (Connection connection = openVersionZeroDatabase()) {
+            for (LocalDateTime value : TIMESTAMPS) {
+                insertTask(connection, value.toString(), value.toString());
+            }
+            insertTask(connection, null, "2024-05-01T08:30:15");
+
+            SchemaMigrations.migrate(connection);
+
+            assertEquals(SchemaMigrations.CURRENT_VERSION, userVersion(connection));
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(
+                     "SELECT due_at_ms, created_at_ms, start_at_ms FROM tasks ORDER BY id")) {
+                for (LocalDateTime value : TIMESTAMPS) {
+                    rs.next();
+                    final long expected = DateTimeUtils.toEpochMillis(value);
+                    assertEquals(expected, rs.getLong("due_at_ms"), value.toString());
+                    assertEquals(expected, rs.getLong("created_at_ms"), value.toString());
+                    rs.getLong("start_at_ms");
+                    assertTrue(rs.wasNull());
+                }
+                rs.next();
+                rs.getLong("due_at_ms");
+                assertTrue(rs.wasNull());
+            }
+        }
+    }
+
+    @Test
+    void unparseableMandatoryTimestampBecomesZero() throws SQLException {
+        try (Connection connection = openVersionZeroDatabase()) {
+            insertTask(connection, "not a date", "yesterday");
+
+            SchemaMigrations.migrate(connection);
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT due_at_ms, created_at_ms FROM tasks")) {
+                rs.next();
+                assertEquals(0L, rs.getLong("due_at_ms"));
+                assertEquals(0L, rs.getLong("created_at_ms"));
+            }
+        }
+    }
+
+    @Test
+    void migratedDatabaseOpensWithCurrentSchema() throws SQLException {
+        final LocalDateTime noteDate = TIMESTAMPS.get(0);
+        try (Connection connection = openVersionZeroDatabase();
+             PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO notes(title, content, tag, date) VALUES ('legacy', 'body', NULL, ?)")) {
+            insert.setString(1, noteDate.toString());
+            insert.executeUpdate();
+        }
+
+        final DatabaseManager databaseManager = new DatabaseManager(url());
+        try (Connection connection = databaseManager.getReadConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT date_ms FROM notes")) {
+            assertEquals(SchemaMigrations.CURRENT_VERSION, userVersion(connection));
+            rs.next();
+            assertEquals(DateTimeUtils.toEpochMillis(noteDate), rs.getLong(1));
+            assertEquals(DateTimeUtils.toStoragePrecision(noteDate),
+                DateTimeUtils.fromEpochMillis(rs.getLong(1)));
+        } finally {
+            databaseManager.close();
+        }
+    }
+
+    @Test
+    void migrationIsIdempotent() throws SQLException {
+        try (Connection connection = openVersionZeroDatabase()) {
+            insertTask(connection, TIMESTAMPS.get(0).toString(), TIMESTAMPS.get(0).toString());
+            SchemaMigrations.migrate(connection);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("PRAGMA user_version = 0");
+            }
+
+            SchemaMigrations.migrate(connection);
+
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT due_at_ms FROM tasks")) {
+                rs.next();
+                assertEquals(DateTimeUtils.toEpochMillis(TIMESTAMPS.get(0)), rs.getLong(1));
+            }
+        }
+    }
+
+    @Test
+    void inlineAttachmentsMoveToSharedBlobs() throws Exception {
+        final byte[] shared = "shared content".getBytes(StandardCharsets.UTF_8);
+        final byte[] single = "single".getBytes(StandardCharsets.UTF_8);
+        final byte[] migrated = "already migrated".getBytes(StandardCharsets.UTF_8);
+        try (Connection connection = openVersionZeroDatabase();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE chat_attachments (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "message_id INTEGER NOT NULL, file_name TEXT NOT NULL, mime_type TEXT, data BLOB NOT NULL, "
+                + "file_id TEXT, content_sha256 TEXT)");
+            statement.execute("CREATE TABLE attachment_blobs (sha256 TEXT PRIMARY KEY, size INTEGER NOT NULL, "
+                + "data BLOB NOT NULL, ref_count INTEGER NOT NULL DEFAULT 0)");
+            insertAttachment(connection, shared, null);
+            insertAttachment(connection, single, null);
+            insertAttachment(connection, shared, null);
+            insertAttachment(connection, new byte[0], sha256(migrated));
+            try (PreparedStatement blob = connection.prepareStatement(
+                "INSERT INTO attachment_blobs VALUES (?, ?, ?, 1)")) {
+                blob.setString(1, sha256(migrated));
+                blob.setLong(2, migrated.length);
+                blob.setBytes(3, migrated);
+                blob.executeUpdate();
+            }
+        }
+
+        final DatabaseManager databaseManager = new DatabaseManager(url());
+        try (Connection connection = databaseManager.getReadConnection();
+             Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT name FROM pragma_table_info('chat_attachments')")) {
+                while (rs.next()) {
+                    assertNotEquals("data", rs.getString(1));
+                }
+            }
+            try (ResultSet rs = statement.executeQuery("SELECT content_sha256 FROM chat_attachments ORDER BY id")) {
+                for (byte[] content : List.of(shared, single, shared, migrated)) {
+                    rs.next();
+                    assertEquals(sha256(content), rs.getString(1));
+                }
+            }
+            try (ResultSet rs = statement.executeQuery(
+                "SELECT sha256, size, data, ref_count FROM attachment_blobs ORDER BY ref_count DESC, size")) {
+                for (Object[] expected : List.of(new Object[]{shared, 2}, new Object[]{single, 1},
+                    new Object[]{migrated, 1})) {
+                    rs.next();
+                    final byte[] content = (byte[]) expected[0];
+                    assertEquals(sha256(content), rs.getString("sha256"));
+                    assertEquals(content.length, rs.getLong("size"));
+                    assertArrayEquals(content, rs.getBytes("data"));
+                    assertEquals(expected[1], rs.getInt("ref_count"));
+                }
+                assertFalse(rs.next());
+            }
+        } finally {
+            databaseManager.close();
+        }
+    }
+
+    private static void insertAttachment(final Connection connection, final byte[] data, final String sha256)
+        throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+            "INSERT INTO chat_attachments(message_id, file_name, data, content_sha256) VALUES (1, 'a.txt', ?, ?)")) {
+            insert.setBytes(1, data);
+            insert.setString(2, sha256);
+            insert.executeUpdate();
+        }
+    }
+
+    private static String sha256(final byte[] content) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+    }
+
+    private String url() {
+        return "jdbc:sqlite:" + tempDir.resolve("legacy.db");
+    }
+
+    /**
+     * Creates the tables in the shape version 0 left them: text timestamps
+     * only, no {@code *_ms} columns and {@code user_version} unset.
+     */
+    private Connection openVersionZeroDatabase() throws SQLException {
+        final Connection connection = DriverManager.getConnection(url());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE notes (id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT NOT NULL, "
+                + "content TEXT, tag TEXT, date TEXT NOT NULL)");
+            statement.execute("CREATE TABLE tasks (id INTEGER PRIMARY KEY AUTOINCREMENT, title TEXT NOT NULL, "
+                + "description TEXT, start_at TEXT, due_at TEXT, priority INTEGER NOT NULL, type TEXT NOT NULL, "
+                + "reminder_enabled INTEGER NOT NULL, reminder_lead_minutes INTEGER NOT NULL, "
+                + "status TEXT NOT NULL, last_reminded_at TEXT, created_at TEXT NOT NULL, "
+                + "updated_at TEXT NOT NULL)");
+            statement.execute("CREATE INDEX idx_tasks_due ON tasks (due_at)");
+            statement.execute("CREATE TABLE chat_sessions (id TEXT PRIMARY KEY, default_title TEXT NOT NULL, "
+                + "title TEXT NOT NULL, auto_title INTEGER NOT NULL, model_name TEXT, "
+                + "created_at TEXT NOT NULL, updated_at TEXT NOT NULL)");
+            statement.execute("CREATE TABLE chat_messages (id INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + "session_id TEXT NOT NULL, sender TEXT NOT NULL, content TEXT NOT NULL, "
+                + "timestamp TEXT NOT NULL)");
+        }
+        return connection;
+    }
+
+    private static void insertTask(final Connection connection, final String dueAt, final String createdAt)
+        throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+            "INSERT INTO tasks(title, start_at, due_at, priority, type, reminder_enabled, reminder_lead_minutes, "
+                + "status, created_at, updated_at) VALUES ('legacy', NULL, ?, 2, 'TODO', 0, 15, 'PLANNED', ?, ?)")) {
+            insert.setString(1, dueAt);
+            insert.setString(2, createdAt);
+            insert.setString(3, createdAt);
+            insert.executeUpdate();
+        }
+    }
+
+    private static int userVersion(final Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.smartdesk.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.smartdesk.core.note.NoteService;
+import com.smartdesk.storage.entity.NoteEntity;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SearchIndexTest {
+
+    private static final Set<SearchIndex.Source> NOTES = EnumSet.of(SearchIndex.Source.NOTE);
+
+    @TempDir
+    Path tempDir;
+
+    private DatabaseManager databaseManager;
+    private NoteService noteService;
+    private SearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        databaseManager = new DatabaseManager("jdbc:sqlite:" + tempDir.resolve("search.db"));
+        noteService = new NoteService(databaseManager);
+        searchIndex = new SearchIndex(databaseManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        databaseManager.close();
+    }
+
+    @Test
+    void triggersKeepIndexInStepWithNotes() {
+        assertTrue(searchIndex.isAvailable());
+        final NoteEntity note = createNote("Quarterly planning", "Budget review with finance", LocalDateTime.now());
+
+        assertEquals(List.of(note.getId()), noteIds("budget"));
+
+        note.setContent("Hiring plan for the platform team");
+        assertTrue(noteService.updateNote(note));
+        assertTrue(noteIds("budget").isEmpty());
+        assertEquals(List.of(note.getId()), noteIds("hiring"));
+
+        assertTrue(noteService.deleteNote(note.getId()));
+        assertTrue(noteIds("hiring").isEmpty());
+    }
+
+    @Test
+    void shortTermsFallBackToLike() {
+        final NoteEntity meeting = createNote("会议记录", "讨论项目进度", LocalDateTime.now());
+        createNote("阅读摘录", "信息架构", LocalDateTime.now());
+
+        final SearchResultPage page = searchIndex.search("会议", NOTES, 0, 10);
+
+        assertEquals(1, page.hits().size());
+        final SearchHit hit = page.hits().get(0);
+        assertEquals(meeting.getId(), hit.id());
+        assertTrue(hit.snippet().contains(SearchIndex.HIGHLIGHT_START + "会议" + SearchIndex.HIGHLIGHT_END));
+        // 短词与可索引的长词混用时两种匹配同时生效
+        assertEquals(List.of(meeting.getId()), noteIds("会议 项目进度"));
+        assertTrue(noteIds("会议 信息架构").isEmpty());
+    }
+
+    @Test
+    void pagesCoverEveryHitExactlyOnce() {
+        final LocalDateTime base = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < 5; i++) {
+            createNote("Sprint notes " + i, "Retro items", base.plusMinutes(i));
+        }
+
+        final Set<Long> seen = new HashSet<>();
+        SearchResultPage page = searchIndex.search("retro", NOTES, 0, 2);
+        int pages = 1;
+        seen.addAll(ids(page));
+        while (page.hasMore()) {
+            page = searchIndex.search("retro", NOTES, page.nextOffset(), 2);
+            seen.addAll(ids(page));
+            pages++;
+        }
+
+        assertEquals(3, pages);
+        assertEquals(5, seen.size());
+        assertEquals(1, page.hits().size());
+        assertFalse(searchIndex.search("retro", NOTES, 5, 2).hasMore());
+        assertTrue(searchIndex.search("retro", NOTES, 5, 2).hits().isEmpty());
+    }
+
+    private NoteEntity createNote(final String title, final String content, final LocalDateTime date) {
+        return noteService.createNote(new NoteEntity(null, title, content, null, date));
+    }
+
+    private List<Long> noteIds(final String query) {
+        return ids(searchIndex.search(query, NOTES, 0, SearchIndex.MAX_PAGE_SIZE));
+    }
+
+    private static List<Long> ids(final SearchResultPage page) {
+        return page.hits().stream().map(SearchHit::id).collect(Collectors.toList());
+    }
+}